@@ -0,0 +1,122 @@
+package com._4point.aem.formsfeeder.benchmarks;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+import com._4point.aem.formsfeeder.core.datasource.StandardMimeTypes;
+
+/**
+ * Measures building DataSourceLists with the Builder and merging existing DataSourceLists.
+ *
+ * The build benchmarks add a mix of the parameter types a typical plugin receives (strings, numbers, booleans and
+ * a small document).  The merge benchmarks combine mergeCount lists of listSize entries each, with and without
+ * reading every entry of the result afterwards.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BuilderBenchmark {
+	private static final Path DOCUMENT_PATH = Paths.get("document.pdf");
+
+	@Param({"10", "100"})
+	public int listSize;
+
+	@Param({"4"})
+	public int mergeCount;
+
+	private String[] names;
+	private byte[] document;
+	private DataSourceList[] toMerge;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		names = new String[listSize];
+		for (int i = 0; i < listSize; i++) {
+			names[i] = "Parameter" + i;
+		}
+		document = new byte[4 * 1024];
+		toMerge = new DataSourceList[mergeCount];
+		for (int i = 0; i < mergeCount; i++) {
+			toMerge[i] = buildMixed();
+		}
+	}
+
+	@Benchmark
+	public DataSourceList build() {
+		return buildMixed();
+	}
+
+	/**
+	 * Build, add more entries and build again, like code that passes a Builder through several stages.
+	 */
+	@Benchmark
+	public DataSourceList buildInStages() {
+		DataSourceList.Builder builder = DataSourceList.builder();
+		int half = listSize / 2;
+		for (int i = 0; i < half; i++) {
+			builder.add(names[i], "Value");
+		}
+		builder.build();
+		for (int i = half; i < listSize; i++) {
+			builder.add(names[i], i);
+		}
+		return builder.build();
+	}
+
+	@Benchmark
+	public DataSourceList merge() {
+		return DataSourceList.from(toMerge);
+	}
+
+	@Benchmark
+	public void mergeAndIterate(Blackhole bh) {
+		DataSourceList merged = DataSourceList.from(toMerge);
+		for (int i = 0; i < merged.list().size(); i++) {
+			bh.consume(merged.list().get(i));
+		}
+	}
+
+	private DataSourceList buildMixed() {
+		DataSourceList.Builder builder = DataSourceList.builder();
+		for (int i = 0; i < listSize; i++) {
+			switch (i % 5) {
+			case 0:
+				builder.add(names[i], "Value" + i);
+				break;
+			case 1:
+				builder.add(names[i], i);
+				break;
+			case 2:
+				builder.add(names[i], (i % 2) == 0);
+				break;
+			case 3:
+				builder.add(names[i], (double) i);
+				break;
+			default:
+				builder.add(names[i], document, StandardMimeTypes.APPLICATION_PDF_TYPE, DOCUMENT_PATH);
+				break;
+			}
+		}
+		return builder.build();
+	}
+}
@@ -0,0 +1,113 @@
+package com._4point.aem.formsfeeder.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com._4point.aem.formsfeeder.core.datasource.DataSource;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+import com._4point.aem.formsfeeder.core.datasource.StandardMimeTypes;
+import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
+
+/**
+ * Measures the memory allocated when a payload is placed into a DataSourceList.
+ *
+ * Run with the GC profiler (-prof gc) and compare gc.alloc.rate.norm (bytes allocated per operation) between the
+ * copying and the owning variants.  Dividing gc.alloc.rate.norm by payloadMb gives the bytes allocated per MB of
+ * payload.  A value of roughly 1 MB per MB means one full copy of the payload was made.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ByteArrayIngestionBenchmark {
+	private static final int ONE_MB = 1024 * 1024;
+	private static final int WRITE_CHUNK_SIZE = 64 * 1024;
+	private static final String DS_NAME = "Payload";
+	private static final byte[] EMPTY = new byte[0];
+
+	@Param({"1", "16"})
+	public int payloadMb;
+
+	private byte[] payload;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		payload = new byte[payloadMb * ONE_MB];
+		new Random(42).nextBytes(payload);
+	}
+
+	/**
+	 * add() makes a defensive copy of the array.
+	 */
+	@Benchmark
+	public DataSourceList addCopy() {
+		return DataSourceList.builder().add(DS_NAME, payload, StandardMimeTypes.APPLICATION_PDF_TYPE).build();
+	}
+
+	/**
+	 * addOwned() adopts the array.
+	 */
+	@Benchmark
+	public DataSourceList addOwned() {
+		return DataSourceList.builder().addOwned(DS_NAME, payload, StandardMimeTypes.APPLICATION_PDF_TYPE).build();
+	}
+
+	/**
+	 * Typical ingestion - read a stream into an array, then copy it into the DataSource.
+	 */
+	@Benchmark
+	public DataSourceList readThenAddCopy() throws IOException {
+		byte[] bytes = Jdk8Utils.readAllBytes(new ByteArrayInputStream(payload));
+		return DataSourceList.builder().add(DS_NAME, bytes, StandardMimeTypes.APPLICATION_PDF_TYPE).build();
+	}
+
+	/**
+	 * Typical ingestion - read a stream into an array, then hand the array over to the DataSource.
+	 */
+	@Benchmark
+	public DataSourceList readThenAddOwned() throws IOException {
+		byte[] bytes = Jdk8Utils.readAllBytes(new ByteArrayInputStream(payload));
+		return DataSourceList.builder().addOwned(DS_NAME, bytes, StandardMimeTypes.APPLICATION_PDF_TYPE).build();
+	}
+
+	/**
+	 * Typical ingestion - read a stream into pooled 64 KB segments, with no grow-and-copy and no humongous allocation.
+	 */
+	@Benchmark
+	public DataSourceList readSegmented() {
+		return DataSourceList.builder().addSegmented(DS_NAME, new ByteArrayInputStream(payload), StandardMimeTypes.APPLICATION_PDF_TYPE).build();
+	}
+
+	/**
+	 * Write the payload into a byte array DataSource through its OutputStream.
+	 */
+	@Benchmark
+	public DataSource writeThroughOutputStream() throws IOException {
+		DataSource ds = DataSourceList.builder().addOwned(DS_NAME, EMPTY, StandardMimeTypes.APPLICATION_PDF_TYPE).build().list().get(0);
+		try (OutputStream os = ds.outputStream()) {
+			for (int offset = 0; offset < payload.length; offset += WRITE_CHUNK_SIZE) {
+				os.write(payload, offset, Math.min(WRITE_CHUNK_SIZE, payload.length - offset));
+			}
+		}
+		return ds;
+	}
+}
@@ -0,0 +1,132 @@
+package com._4point.aem.formsfeeder.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.jersey.media.multipart.FormDataContentDisposition;
+import org.jvnet.mimepull.MIMEConfig;
+import org.jvnet.mimepull.MIMEMessage;
+import org.jvnet.mimepull.MIMEPart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com._4point.aem.formsfeeder.core.codec.DataSourceListDecoder;
+import com._4point.aem.formsfeeder.core.codec.DataSourceListEncoder;
+import com._4point.aem.formsfeeder.core.codec.MultipartFormDataEncoder;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+import com._4point.aem.formsfeeder.core.datasource.MimeType;
+import com._4point.aem.formsfeeder.core.datasource.StandardMimeTypes;
+
+/**
+ * Compares the binary DataSourceList codec with multipart/form-data.
+ *
+ * The multipart variants write the layout that the server streams back (see MultipartFormDataEncoder) and parse it
+ * the way the Jersey multipart reader does (MIMEPull for the boundary scanning, FormDataContentDisposition for the headers).
+ * Both decode variants build a DataSourceList through the same Builder, so the difference is the cost of the wire
+ * format.  The list contains a few small text fields and one payload of payloadKb.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CodecBenchmark {
+	/* package */ static final String BOUNDARY = "Boundary_1_1234567890_1234567890123";
+	private static final int FIELD_COUNT = 5;
+
+	@Param({"10", "51200"})
+	public int payloadKb;
+
+	private DataSourceList dataSourceList;
+	private byte[] encodedCodec;
+	private byte[] encodedMultipart;
+	private final OutputStream discard = new OutputStream() {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	};
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		byte[] payload = new byte[payloadKb * 1024];
+		new Random(42).nextBytes(payload);
+		DataSourceList.Builder builder = DataSourceList.builder();
+		for (int i = 0; i < FIELD_COUNT; i++) {
+			builder.add("Field" + i, "Value of field " + i);
+		}
+		dataSourceList = builder.add("Payload", payload, StandardMimeTypes.APPLICATION_PDF_TYPE, Paths.get("payload.pdf")).build();
+
+		ByteArrayOutputStream codec = new ByteArrayOutputStream(payload.length + 1024);
+		DataSourceListEncoder.encode(dataSourceList, codec);
+		encodedCodec = codec.toByteArray();
+		ByteArrayOutputStream multipart = new ByteArrayOutputStream(payload.length + 1024);
+		encodeMultipart(dataSourceList, multipart);
+		encodedMultipart = multipart.toByteArray();
+	}
+
+	@Benchmark
+	public OutputStream encodeCodec() throws IOException {
+		DataSourceListEncoder.encode(dataSourceList, discard);
+		return discard;
+	}
+
+	@Benchmark
+	public OutputStream encodeMultipart() throws IOException {
+		encodeMultipart(dataSourceList, discard);
+		return discard;
+	}
+
+	@Benchmark
+	public int decodeCodec() throws IOException {
+		try (DataSourceList result = DataSourceListDecoder.decode(new ByteArrayInputStream(encodedCodec))) {
+			return result.list().size();
+		}
+	}
+
+	@Benchmark
+	public int decodeMultipart() throws IOException, ParseException {
+		DataSourceList.Builder builder = DataSourceList.builder();
+		try (MIMEMessage message = new MIMEMessage(new ByteArrayInputStream(encodedMultipart), BOUNDARY, new MIMEConfig())) {
+			for (MIMEPart part : message.getAttachments()) {
+				FormDataContentDisposition disposition = new FormDataContentDisposition(part.getHeader("Content-Disposition").get(0));
+				MimeType contentType = MimeType.of(part.getContentType());
+				Path filename = disposition.getFileName() != null ? Paths.get(disposition.getFileName()) : null;
+				try (InputStream is = part.readOnce()) {
+					builder.add(disposition.getName(), is, contentType, filename, Collections.emptyMap());
+				}
+			}
+		}
+		try (DataSourceList result = builder.build()) {	// Delete any spool files now, rather than when they are collected.
+			return result.list().size();
+		}
+	}
+
+	/* package */ static void encodeMultipart(DataSourceList dataSourceList, OutputStream out) throws IOException {
+		MultipartFormDataEncoder.encode(dataSourceList, BOUNDARY, out);
+	}
+}
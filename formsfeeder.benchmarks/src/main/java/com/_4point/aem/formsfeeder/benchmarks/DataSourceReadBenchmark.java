@@ -0,0 +1,138 @@
+package com._4point.aem.formsfeeder.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com._4point.aem.formsfeeder.core.datasource.DataSource;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+import com._4point.aem.formsfeeder.core.datasource.StandardMimeTypes;
+
+/**
+ * Measures reading the contents of each DataSource implementation.
+ *
+ * The stream benchmark reads the whole DataSource through inputStream() into a reusable buffer, so it measures the
+ * cost of the stream itself rather than of collecting the bytes.  The buffer benchmark reads through
+ * asReadOnlyByteBuffer().
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DataSourceReadBenchmark {
+	private static final String DS_NAME = "Payload";
+	private static final int SPOOL_THRESHOLD = 0;	// Always spool, regardless of payload size.
+
+	public enum Implementation {
+		BYTE_ARRAY, STRING, FILE, FILE_MAPPED, SPOOLING_IN_MEMORY, SPOOLING_ON_DISK, SEGMENTED;
+	}
+
+	@Param
+	public Implementation implementation;
+
+	@Param({"16", "1024"})
+	public int payloadKb;
+
+	private Path tempDir;
+	private DataSource dataSource;
+	private final byte[] readBuffer = new byte[8192];
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		byte[] payload = new byte[payloadKb * 1024];
+		Arrays.fill(payload, (byte) 'X');	// ASCII, so the String implementation reads the same number of bytes.
+		tempDir = Files.createTempDirectory("formsfeeder-benchmark");
+		DataSourceList.Builder builder = DataSourceList.builder().spoolDirectory(tempDir);
+		switch (implementation) {
+		case BYTE_ARRAY:
+			builder.add(DS_NAME, payload, StandardMimeTypes.APPLICATION_PDF_TYPE);
+			break;
+		case STRING:
+			builder.add(DS_NAME, new String(payload, StandardCharsets.UTF_8));
+			break;
+		case FILE:
+			builder.add(DS_NAME, Files.write(tempDir.resolve("payload.pdf"), payload));
+			break;
+		case FILE_MAPPED:
+			builder.addMapped(DS_NAME, Files.write(tempDir.resolve("payload.pdf"), payload));
+			break;
+		case SPOOLING_IN_MEMORY:
+			builder.spoolThreshold(Integer.MAX_VALUE).add(DS_NAME, new ByteArrayInputStream(payload), StandardMimeTypes.APPLICATION_PDF_TYPE);
+			break;
+		case SPOOLING_ON_DISK:
+			builder.spoolThreshold(SPOOL_THRESHOLD).add(DS_NAME, new ByteArrayInputStream(payload), StandardMimeTypes.APPLICATION_PDF_TYPE);
+			break;
+		case SEGMENTED:
+			builder.addSegmented(DS_NAME, new ByteArrayInputStream(payload), StandardMimeTypes.APPLICATION_PDF_TYPE);
+			break;
+		default:
+			throw new IllegalStateException("Unexpected implementation (" + implementation + ").");
+		}
+		dataSource = builder.build().list().get(0);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		dataSource = null;
+		try (Stream<Path> files = Files.list(tempDir)) {
+			files.forEach(DataSourceReadBenchmark::deleteQuietly);
+		}
+		deleteQuietly(tempDir);
+	}
+
+	@Benchmark
+	public long readStream() throws IOException {
+		long total = 0;
+		try (InputStream is = dataSource.inputStream()) {
+			int read;
+			while ((read = is.read(readBuffer)) >= 0) {
+				total += read;
+			}
+		}
+		return total;
+	}
+
+	@Benchmark
+	public long readByteBuffer() {
+		ByteBuffer buffer = dataSource.asReadOnlyByteBuffer();
+		long total = 0;
+		while (buffer.hasRemaining()) {
+			int count = Math.min(readBuffer.length, buffer.remaining());
+			buffer.get(readBuffer, 0, count);
+			total += count;
+		}
+		return total;
+	}
+
+	private static void deleteQuietly(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e) {
+			// Nothing else can be done, leave it for the OS to clean up.
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com._4point.aem.formsfeeder.benchmarks;
+
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList.Deconstructor;
+import com._4point.aem.formsfeeder.core.datasource.StandardMimeTypes;
+
+/**
+ * Measures the Deconstructor's typed getters, which is how plugins pull their parameters out of a DataSourceList.
+ *
+ * Each getter looks its parameter up by name in a list of 20 parameters and then converts the contents.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DeconstructorBenchmark {
+	private static final int FILLER_COUNT = 15;
+
+	private Deconstructor deconstructor;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		DataSourceList.Builder builder = DataSourceList.builder();
+		for (int i = 0; i < FILLER_COUNT; i++) {
+			builder.add("Filler" + i, "Value" + i);
+		}
+		deconstructor = builder.add("StringParam", "Some String Value")
+							   .add("IntParam", 123456)
+							   .add("LongParam", 1234567890123L)
+							   .add("BooleanParam", true)
+							   .add("BytesParam", new byte[1024], StandardMimeTypes.APPLICATION_PDF_TYPE)
+							   .build()
+							   .deconstructor();
+	}
+
+	@Benchmark
+	public Optional<String> getStringByName() {
+		return deconstructor.getStringByName("StringParam");
+	}
+
+	@Benchmark
+	public Optional<Integer> getIntegerByName() {
+		return deconstructor.getIntegerByName("IntParam");
+	}
+
+	@Benchmark
+	public OptionalInt getOptionalIntByName() {
+		return deconstructor.getOptionalIntByName("IntParam");
+	}
+
+	@Benchmark
+	public Optional<Long> getLongByName() {
+		return deconstructor.getLongByName("LongParam");
+	}
+
+	@Benchmark
+	public Optional<Boolean> getBooleanByName() {
+		return deconstructor.getBooleanByName("BooleanParam");
+	}
+
+	@Benchmark
+	public Optional<byte[]> getByteArrayByName() {
+		return deconstructor.getByteArrayByName("BytesParam");
+	}
+
+	@Benchmark
+	public Optional<String> getMissingStringByName() {
+		return deconstructor.getStringByName("MissingParam");
+	}
+}
@@ -0,0 +1,76 @@
+package com._4point.aem.formsfeeder.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com._4point.aem.formsfeeder.core.datasource.MimeType;
+import com._4point.aem.formsfeeder.core.datasource.StandardMimeTypes;
+import com._4point.aem.formsfeeder.core.datasource.UnmodifiableFileExtensionsMap;
+
+/**
+ * Measures MimeType parsing and formatting and the mime-type lookup by file extension.
+ *
+ * These run for every DataSource that is sent or received, so they are on the request path for every part.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MimeTypeBenchmark {
+	private final String simpleMimeType = "application/pdf";
+	private final String charsetMimeType = "text/plain; charset=UTF-8";
+	private final MimeType textPlainUtf8 = MimeType.of("text", "plain", StandardCharsets.UTF_8);
+	private final Path pdfPath = Paths.get("forms", "SampleForm.pdf");
+	private final Path unknownPath = Paths.get("forms", "SampleForm.unknown");
+
+	@Benchmark
+	public MimeType ofString() {
+		return MimeType.of(simpleMimeType);
+	}
+
+	@Benchmark
+	public MimeType ofStringWithCharset() {
+		return MimeType.of(charsetMimeType);
+	}
+
+	@Benchmark
+	public MimeType ofTypeSubtype() {
+		return MimeType.of("application", "pdf");
+	}
+
+	@Benchmark
+	public String asString() {
+		return textPlainUtf8.asString();
+	}
+
+	@Benchmark
+	public String standardAsString() {
+		return StandardMimeTypes.APPLICATION_PDF_TYPE.asString();
+	}
+
+	@Benchmark
+	public Optional<MimeType> fileExtensionsMapMimeType() {
+		return UnmodifiableFileExtensionsMap.DEFAULT_MAP.mimeType(pdfPath);
+	}
+
+	@Benchmark
+	public Optional<MimeType> fileExtensionsMapUnknownMimeType() {
+		return UnmodifiableFileExtensionsMap.DEFAULT_MAP.mimeType(unknownPath);
+	}
+}
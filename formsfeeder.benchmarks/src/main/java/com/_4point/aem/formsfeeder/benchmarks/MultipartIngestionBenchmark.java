@@ -0,0 +1,101 @@
+package com._4point.aem.formsfeeder.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.jersey.media.multipart.FormDataContentDisposition;
+import org.jvnet.mimepull.MIMEConfig;
+import org.jvnet.mimepull.MIMEMessage;
+import org.jvnet.mimepull.MIMEPart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com._4point.aem.formsfeeder.core.codec.MultipartFormDataDecoder;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+import com._4point.aem.formsfeeder.core.datasource.MimeType;
+import com._4point.aem.formsfeeder.core.datasource.StandardMimeTypes;
+
+/**
+ * Compares the streaming MultipartFormDataDecoder with the way FormDataMultiPart bodies used to be ingested.
+ *
+ * The FormDataMultiPart variant parses the body with MIMEPull (which is what Jersey's multipart reader does, buffering
+ * every part before the resource method is called) and then copies each part into the DataSourceList.Builder.  The
+ * streaming variant adds each part to the Builder as it is found.  Both use a Builder with the default 1 MB spool
+ * threshold, so large payloads end up in a temporary file either way.  The resulting lists are closed so that their
+ * temporary files do not accumulate.
+ *
+ * Run with the GC profiler (-prof gc) to compare gc.alloc.rate.norm (bytes allocated per operation) as well.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MultipartIngestionBenchmark {
+	private static final int FIELD_COUNT = 5;
+
+	@Param({"10", "51200"})
+	public int payloadKb;
+
+	private byte[] encodedMultipart;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		byte[] payload = new byte[payloadKb * 1024];
+		new Random(42).nextBytes(payload);
+		DataSourceList.Builder builder = DataSourceList.builder();
+		for (int i = 0; i < FIELD_COUNT; i++) {
+			builder.add("Field" + i, "Value of field " + i);
+		}
+		DataSourceList dataSourceList = builder.add("Payload", payload, StandardMimeTypes.APPLICATION_PDF_TYPE, Paths.get("payload.pdf")).build();
+		ByteArrayOutputStream multipart = new ByteArrayOutputStream(payload.length + 1024);
+		CodecBenchmark.encodeMultipart(dataSourceList, multipart);
+		encodedMultipart = multipart.toByteArray();
+	}
+
+	@Benchmark
+	public int formDataMultiPart() throws IOException, ParseException {
+		DataSourceList.Builder builder = DataSourceList.builder();
+		try (MIMEMessage message = new MIMEMessage(new ByteArrayInputStream(encodedMultipart), CodecBenchmark.BOUNDARY, new MIMEConfig())) {
+			message.parseAll();	// Jersey reads the whole body before the resource method is called.
+			for (MIMEPart part : message.getAttachments()) {
+				FormDataContentDisposition disposition = new FormDataContentDisposition(part.getHeader("Content-Disposition").get(0));
+				MimeType contentType = MimeType.of(part.getContentType());
+				Path filename = disposition.getFileName() != null ? Paths.get(disposition.getFileName()) : null;
+				try (InputStream is = part.readOnce()) {
+					builder.add(disposition.getName(), is, contentType, filename, Collections.emptyMap());
+				}
+			}
+		}
+		try (DataSourceList result = builder.build()) {
+			return result.list().size();
+		}
+	}
+
+	@Benchmark
+	public int streamingDecoder() throws IOException {
+		try (DataSourceList result = MultipartFormDataDecoder.decode(new ByteArrayInputStream(encodedMultipart), CodecBenchmark.BOUNDARY)) {
+			return result.list().size();
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com._4point.aem.formsfeeder.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com._4point.aem.formsfeeder.core.datasource.DataSource;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+
+/**
+ * Compares looking up DataSources by name using the name index against a linear scan using the byName() predicate.
+ *
+ * Each operation looks up lookupCount names, which is typical of a plugin pulling its parameters out of the
+ * incoming DataSourceList.  The "fresh" variants use a new DataSourceList for each operation, so they include the
+ * cost of building the index.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class NameLookupBenchmark {
+
+	@Param({"10", "100", "500"})
+	public int listSize;
+
+	@Param({"30"})
+	public int lookupCount;
+
+	private List<DataSource> dataSources;
+	private DataSourceList dsl;
+	private String[] lookupNames;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		int distinctNames = Math.max(1, listSize / 2);	// Roughly two entries per name, like repeated parameters.
+		DataSourceList.Builder builder = DataSourceList.builder();
+		for (int i = 0; i < listSize; i++) {
+			builder.add("Parameter" + (i % distinctNames), "Value" + i);
+		}
+		dsl = builder.build();
+		dataSources = new ArrayList<>(dsl.list());
+		lookupNames = new String[lookupCount];
+		for (int i = 0; i < lookupCount; i++) {
+			lookupNames[i] = "Parameter" + ((i * 7) % (distinctNames + 3));	// A few of these will not be found.
+		}
+	}
+
+	@Benchmark
+	public void scanFirst(Blackhole bh) {
+		for (String name : lookupNames) {
+			bh.consume(dsl.getDataSource(DataSourceList.byName(name)));
+		}
+	}
+
+	@Benchmark
+	public void indexedFirst(Blackhole bh) {
+		for (String name : lookupNames) {
+			bh.consume(dsl.getDataSourceByName(name));
+		}
+	}
+
+	@Benchmark
+	public void scanAll(Blackhole bh) {
+		for (String name : lookupNames) {
+			bh.consume(dsl.getDataSources(DataSourceList.byName(name)));
+		}
+	}
+
+	@Benchmark
+	public void indexedAll(Blackhole bh) {
+		for (String name : lookupNames) {
+			bh.consume(dsl.getDataSourcesByName(name));
+		}
+	}
+
+	@Benchmark
+	public void freshListScanFirst(Blackhole bh) {
+		DataSourceList fresh = DataSourceList.from(dataSources);
+		for (String name : lookupNames) {
+			bh.consume(fresh.getDataSource(DataSourceList.byName(name)));
+		}
+	}
+
+	@Benchmark
+	public void freshListIndexedFirst(Blackhole bh) {
+		DataSourceList fresh = DataSourceList.from(dataSources);
+		for (String name : lookupNames) {
+			Optional<DataSource> result = fresh.getDataSourceByName(name);
+			bh.consume(result);
+		}
+	}
+}
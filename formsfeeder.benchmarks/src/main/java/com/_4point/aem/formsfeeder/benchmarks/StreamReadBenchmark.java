@@ -0,0 +1,126 @@
+package com._4point.aem.formsfeeder.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
+
+/**
+ * Measures the memory allocated by Jdk8Utils.readAllBytes() and Jdk8Utils.transfer().
+ *
+ * Run with the GC profiler (-prof gc) and compare gc.alloc.rate.norm (bytes allocated per operation).  The legacy
+ * variants reproduce the original implementations (a default sized ByteArrayOutputStream followed by toByteArray(),
+ * and a new 8K buffer per transfer).  For a known size, readAllBytes() should allocate roughly the payload size once,
+ * and transfer() should allocate next to nothing.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StreamReadBenchmark {
+	private static final int LEGACY_BUFFER_SIZE = 8192;
+
+	@Param({"4", "1024"})
+	public int payloadKb;
+
+	private byte[] payload;
+	private final OutputStream discard = new OutputStream() {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	};
+
+	@Setup(Level.Trial)
+	public void setup() {
+		payload = new byte[payloadKb * 1024];
+		new Random(42).nextBytes(payload);
+	}
+
+	@Benchmark
+	public byte[] legacyReadAllBytes() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		legacyTransfer(new ByteArrayInputStream(payload), out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Size is taken from available().
+	 */
+	@Benchmark
+	public byte[] readAllBytes() throws IOException {
+		return Jdk8Utils.readAllBytes(new ByteArrayInputStream(payload));
+	}
+
+	/**
+	 * Size is unknown, the stream reports nothing available.
+	 */
+	@Benchmark
+	public byte[] readAllBytesUnknownSize() throws IOException {
+		return Jdk8Utils.readAllBytes(new NoAvailableInputStream(new ByteArrayInputStream(payload)));
+	}
+
+	/**
+	 * Size is provided by the caller (e.g. from DataSource.contentLength()).
+	 */
+	@Benchmark
+	public byte[] readAllBytesSizeHint() throws IOException {
+		return Jdk8Utils.readAllBytes(new NoAvailableInputStream(new ByteArrayInputStream(payload)), payload.length);
+	}
+
+	@Benchmark
+	public OutputStream legacyTransfer() throws IOException {
+		legacyTransfer(new ByteArrayInputStream(payload), discard);
+		return discard;
+	}
+
+	@Benchmark
+	public OutputStream transfer() throws IOException {
+		Jdk8Utils.transfer(new ByteArrayInputStream(payload), discard);
+		return discard;
+	}
+
+	private static void legacyTransfer(InputStream is, OutputStream out) throws IOException {
+		byte[] buffer = new byte[LEGACY_BUFFER_SIZE];
+		int read;
+		while ((read = is.read(buffer, 0, LEGACY_BUFFER_SIZE)) >= 0) {
+			out.write(buffer, 0, read);
+		}
+	}
+
+	private static class NoAvailableInputStream extends FilterInputStream {
+		private NoAvailableInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int available() {
+			return 0;
+		}
+	}
+}
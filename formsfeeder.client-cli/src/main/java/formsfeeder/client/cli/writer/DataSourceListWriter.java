@@ -3,8 +3,10 @@ package formsfeeder.client.cli.writer;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.zip.ZipEntry;
@@ -58,8 +60,16 @@ public class DataSourceListWriter {
 					throw new FileNotFoundException("Unable to write to file. (" + outputPath.toString() + ").");
 				}
 			}
-			try (OutputStream os = Files.newOutputStream(outputPath)) {
-				write(dsl, os);
+			if (size == 1) {
+				// Write a single DataSource straight to the file channel so that the DataSource can use the most
+				// efficient transfer available (e.g. FileChannel.transferTo() for file DataSources).
+				try (FileChannel channel = FileChannel.open(outputPath, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+					dsl.list().get(0).transferTo(channel);
+				}
+			} else {
+				try (OutputStream os = Files.newOutputStream(outputPath)) {
+					write(dsl, os);
+				}
 			}
 		}
 	}
@@ -1,6 +1,7 @@
 package formsfeeder.client;
 
 import static formsfeeder.client.support.DataSourceListJaxRsUtils.asDataSourceList;
+import static formsfeeder.client.support.DataSourceListJaxRsUtils.asDataSourceListFromMultipart;
 import static formsfeeder.client.support.DataSourceListJaxRsUtils.asFormDataMultipart;
 
 import java.io.IOException;
@@ -19,12 +20,16 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status.Family;
 import javax.ws.rs.core.Response.StatusType;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.glassfish.jersey.media.multipart.FormDataMultiPart;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com._4point.aem.formsfeeder.core.api.FeedConsumer;
+import com._4point.aem.formsfeeder.core.codec.DataSourceListCodec;
+import com._4point.aem.formsfeeder.core.codec.DataSourceListDecoder;
+import com._4point.aem.formsfeeder.core.codec.DataSourceListEncoder;
 import com._4point.aem.formsfeeder.core.datasource.DataSource;
 import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
 import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
@@ -36,6 +41,7 @@ import formsfeeder.client.support.FfLoggerFactory;
 
 public class FormsFeederClient implements FeedConsumer {
 	public static final String FORMSFEEDERCLIENT_DATA_SOURCE_NAME = "formsfeeder:server_response";
+	private static final MediaType DATASOURCELIST_MEDIA_TYPE = MediaType.valueOf(DataSourceListCodec.CONTENT_TYPE_STR);
 
 	private final Logger baseLogger = LoggerFactory.getLogger(this.getClass());
 	
@@ -44,15 +50,17 @@ public class FormsFeederClient implements FeedConsumer {
 	private final String pluginName;
 	private final Map<String,Supplier<String>> headerMap;
 	private final Map<String,List<Supplier<String>>> queryParams;
+	private final boolean binaryCodec;
 	String returnedCorrelationId = null;
 	
 	private FormsFeederClient(WebTarget target, Map<String,List<Supplier<String>>> queryParams, Supplier<String> correlationIdFn, String pluginName,
-							  Map<String, Supplier<String>> headerMap) {
+							  Map<String, Supplier<String>> headerMap, boolean binaryCodec) {
 		this.target = target;
 		this.queryParams = queryParams;
 		this.correlationIdFn = correlationIdFn;
 		this.pluginName = pluginName;
 		this.headerMap = headerMap;
+		this.binaryCodec = binaryCodec;
 	}
 
 	@Override
@@ -79,12 +87,16 @@ public class FormsFeederClient implements FeedConsumer {
 				}
 			}
 			javax.ws.rs.client.Invocation.Builder invocBuilder = webTarget.request().header(CorrelationId.CORRELATION_ID_HDR, correlationIdSent);
+			if (binaryCodec) {
+				// Ask for a binary encoded DataSourceList, but accept anything (e.g. error messages).
+				invocBuilder.accept(DATASOURCELIST_MEDIA_TYPE, MediaType.WILDCARD_TYPE);
+			}
 			if(headerMap!=null && !headerMap.isEmpty()) {
 				headerMap.keySet().stream().forEach(header -> invocBuilder.header(header, headerMap.get(header).get()));
 			}
 
 			// If the list is empty, send a GET instead of a POST
-			Response response = dataSources.list().isEmpty() ? invocBuilder.get() : invocBuilder.post(asEntity(asFormDataMultipart(dataSources)));
+			Response response = dataSources.list().isEmpty() ? invocBuilder.get() : invocBuilder.post(binaryCodec ? asBinaryEntity(dataSources) : asEntity(asFormDataMultipart(dataSources)));
 			
 			
 			StatusType resultStatus = response.getStatusInfo();
@@ -110,8 +122,10 @@ public class FormsFeederClient implements FeedConsumer {
 				logger.info("Formsfeeder server returned 0 DataSources.");
 				return DataSourceList.emptyList();
 			} else {
-				DataSourceList returnedList = MediaType.MULTIPART_FORM_DATA_TYPE.isCompatible(response.getMediaType()) ?
-													asDataSourceList(response.readEntity(FormDataMultiPart.class), logger) : // Multiple DataSource Response.
+				DataSourceList returnedList = DATASOURCELIST_MEDIA_TYPE.isCompatible(response.getMediaType()) ?
+													asBinaryDataSourceList(response) : // Binary encoded DataSourceList Response.
+											  MediaType.MULTIPART_FORM_DATA_TYPE.isCompatible(response.getMediaType()) ?
+													asMultipartDataSourceList(response, logger) : // Multiple DataSource Response.
 													asDataSourceList(response, FORMSFEEDERCLIENT_DATA_SOURCE_NAME, logger) ;// Single DataSource Response
 				logger.info("Formsfeeder server returned " + returnedList.list().size() + " DataSources.");
 				if (logger.isDebugEnabled()) {
@@ -139,6 +153,23 @@ public class FormsFeederClient implements FeedConsumer {
 		return Entity.entity(requestData, requestData.getMediaType());
 	}
 
+	private static Entity<StreamingOutput> asBinaryEntity(DataSourceList dataSources) {
+		StreamingOutput output = (out)->DataSourceListEncoder.encode(dataSources, out);
+		return Entity.entity(output, DATASOURCELIST_MEDIA_TYPE);
+	}
+
+	private static DataSourceList asBinaryDataSourceList(Response response) throws IOException {
+		try (InputStream in = response.readEntity(InputStream.class)) {
+			return DataSourceListDecoder.decode(in);
+		}
+	}
+
+	private static DataSourceList asMultipartDataSourceList(Response response, Logger logger) throws IOException {
+		try (InputStream in = response.readEntity(InputStream.class)) {
+			return asDataSourceListFromMultipart(in, response.getMediaType(), DataSourceList.builder(), logger);
+		}
+	}
+
 	public static Builder builder() {
 		return new Builder();
 	}
@@ -150,6 +181,7 @@ public class FormsFeederClient implements FeedConsumer {
 	public static class Builder implements formsfeeder.client.support.Builder {
 		private BuilderImpl builder = new BuilderImpl();
 		private String pluginName = null;
+		private boolean binaryCodec = false;
 
 		@Override
 		public Builder machineName(String machineName) {
@@ -242,12 +274,25 @@ public class FormsFeederClient implements FeedConsumer {
 			return this;
 		}
 		
+		/**
+		 * Exchanges DataSourceLists with the server using the binary DataSourceList encoding (see DataSourceListCodec)
+		 * rather than multipart/form-data.  Requires a FormsFeeder server that supports the encoding.  Defaults to false.
+		 * 
+		 * @param binaryCodec	true to use the binary encoding
+		 * @return
+		 */
+		public Builder binaryCodec(boolean binaryCodec) {
+			this.binaryCodec = binaryCodec;
+			return this;
+		}
+		
 		public FormsFeederClient build() {
 			return new FormsFeederClient(builder.createLocalTarget(),
 										 builder.getQueryParams(),
 										 builder.getCorrelationIdFn(), 
 										 Objects.requireNonNull(this.pluginName, "Plug-in name must be supplied using plugin() method before build() is called."),
-										 builder.getHeaderMap()
+										 builder.getHeaderMap(),
+										 binaryCodec
 			);
 		}
 	}
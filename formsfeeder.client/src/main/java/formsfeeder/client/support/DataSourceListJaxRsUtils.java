@@ -2,6 +2,7 @@ package formsfeeder.client.support;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
 import java.nio.charset.Charset;
 import java.nio.file.Paths;
 import java.text.ParseException;
@@ -14,6 +15,7 @@ import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.glassfish.jersey.media.multipart.ContentDisposition;
 import org.glassfish.jersey.media.multipart.FormDataBodyPart;
@@ -21,11 +23,13 @@ import org.glassfish.jersey.media.multipart.FormDataContentDisposition;
 import org.glassfish.jersey.media.multipart.FormDataMultiPart;
 import org.slf4j.Logger;
 
+import com._4point.aem.formsfeeder.core.codec.MultipartFormDataDecoder;
+import com._4point.aem.formsfeeder.core.codec.MultipartFormDataDecoder.MultipartFormDataException;
 import com._4point.aem.formsfeeder.core.datasource.DataSource;
 import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
 import com._4point.aem.formsfeeder.core.datasource.MimeType;
-import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
 import com._4point.aem.formsfeeder.core.datasource.DataSourceList.Builder;
+import com._4point.aem.formsfeeder.core.support.LruCache;
 
 /**
  * This class provides support classes for translating formsfeeder.core object (i.e. DataSourceList and DataSources)
@@ -45,6 +49,12 @@ public class DataSourceListJaxRsUtils {
 	private static final String FORMSFEEDER_PREFIX = "formsfeeder:";
 
 
+	// Caches for converting between MediaType and MimeType.  These are bounded because content types can come from
+	// untrusted headers.  Once a cache is full, the least recently used conversions are evicted.
+	private static final int MAX_CONVERSION_CACHE_SIZE = 256;
+	private static final LruCache<MimeType, MediaType> MEDIA_TYPES = new LruCache<>(MAX_CONVERSION_CACHE_SIZE);
+	private static final LruCache<MediaType, MimeType> MIME_TYPES = new LruCache<>(MAX_CONVERSION_CACHE_SIZE);
+
 	// Attribute that is used for Content Disposition
 	private static final String FORMSFEEDER_CONTENT_DISPOSITION_ATTRIBUTE = FORMSFEEDER_PREFIX + "Content-Disposition"; 
 	
@@ -84,17 +94,43 @@ public class DataSourceListJaxRsUtils {
 						logger.debug("    ModificationDate='" + (modificationDate != null ? modificationDate : "null") + "'.");
 						logger.debug("    ReadDate='" + (readDate != null ? readDate : "null") + "'.");
 					}
-					// TODO: This is a naive implementation that just reads the whole InputStream into memory.  Should fix this.
+					// Large parts are spooled to disk by the builder rather than being held in memory.
 					if (fileName != null) {
-						builder.add(name, Jdk8Utils.readAllBytes(part.getEntityAs(InputStream.class)), asMimeType(part.getMediaType()), Paths.get(fileName));
+						builder.add(name, part.getEntityAs(InputStream.class), asMimeType(part.getMediaType()), Paths.get(fileName));
 					} else {
-						builder.add(name, Jdk8Utils.readAllBytes(part.getEntityAs(InputStream.class)), asMimeType(part.getMediaType()));
+						builder.add(name, part.getEntityAs(InputStream.class), asMimeType(part.getMediaType()));
 					}
 				}
 			}
 		}
 		return builder.build();
 	}
+
+	/**
+	 * Converts an incoming multipart/form-data body into a DataSourceList by streaming it straight from the
+	 * InputStream.  Unlike reading a FormDataMultiPart, the body is not buffered first, each part is added to the
+	 * builder (which determines whether it is held in memory, spooled to disk, etc.) as it arrives.
+	 * 
+	 * @param in			the multipart/form-data body
+	 * @param multipartType	the Content-Type of the body, which contains the boundary
+	 * @param builder		builder to add the parts to
+	 * @return
+	 * @throws IOException	if the body cannot be read or is not valid multipart/form-data (MultipartFormDataException)
+	 */
+	public static final DataSourceList asDataSourceListFromMultipart(final InputStream in, final MediaType multipartType, final Builder builder, final Logger logger) throws IOException {
+		String boundary = multipartType.getParameters().get("boundary");
+		if (boundary == null) {
+			throw new MultipartFormDataException("No boundary found in Content-Type '" + multipartType.toString() + "'.");
+		}
+		DataSourceList dataSourceList = new MultipartFormDataDecoder(in, boundary).decode(builder);
+		if (logger.isDebugEnabled()) {
+			for (DataSource dataSource : dataSourceList.list()) {
+				logger.debug("Found Form Data Part '" + dataSource.name() + "' (" + dataSource.contentType().asString() + ")" + 
+							 dataSource.filename().map((f)->", Filename='" + f + "'.").orElse("."));
+			}
+		}
+		return dataSourceList;
+	}
 	
 	/**
 	 * Converts a FormsFeeder core MimeType object into JAX-RS MediaType object.
@@ -103,12 +139,14 @@ public class DataSourceListJaxRsUtils {
 	 * @return
 	 */
 	public static final MediaType asMediaType(final MimeType mimeType) {
-		Charset charset = mimeType.charset();
-		if (charset != null) {
-			return new MediaType(mimeType.type(), mimeType.subtype(), charset.name());
-		} else {
-			return new MediaType(mimeType.type(), mimeType.subtype());
+		MediaType cached = MEDIA_TYPES.get(mimeType);
+		if (cached != null) {
+			return cached;
 		}
+		Charset charset = mimeType.charset();
+		MediaType mediaType = charset != null ? new MediaType(mimeType.type(), mimeType.subtype(), charset.name())
+											  : new MediaType(mimeType.type(), mimeType.subtype());
+		return MEDIA_TYPES.putIfAbsent(mimeType, mediaType);
 	}
 	
 	/**
@@ -118,7 +156,11 @@ public class DataSourceListJaxRsUtils {
 	 * @return
 	 */
 	public static final MimeType asMimeType(final MediaType mediaType) {
-		return MimeType.of(mediaType.toString());
+		MimeType cached = MIME_TYPES.get(mediaType);
+		if (cached != null) {
+			return cached;
+		}
+		return MIME_TYPES.putIfAbsent(mediaType, MimeType.of(mediaType.toString()));
 	}
 
 	/**
@@ -155,12 +197,10 @@ public class DataSourceListJaxRsUtils {
 	}
 
 	/**
-	 * This is a rather naive implementation.  It reads the incoming data into memory.
+	 * Converts an incoming body into a DataSourceList containing a single DataSource.
 	 * 
-	 * A better implementation would create a DataSource from the inputStream but that would require a little more
-	 * work, so I am postponing that until later.
-	 * 
-	 * TODO: Create a better implementation for this.
+	 * Small bodies are held in memory, larger bodies are spooled to a temporary file so that the memory used per
+	 * request is bounded regardless of the size of the body.
 	 * 
 	 * @param in
 	 * @param contentType
@@ -171,9 +211,9 @@ public class DataSourceListJaxRsUtils {
 		logger.debug("Found Body Parameter of type '" + contentType.toString() + "'.");
 		String filename = contentDisposition != null ? contentDisposition.getFileName() : null;
 		if (filename != null) {
-			return DataSourceList.builder().add(dataSourceName, Jdk8Utils.readAllBytes(in), asMimeType(contentType), Paths.get(filename)).build();
+			return DataSourceList.builder().add(dataSourceName, in, asMimeType(contentType), Paths.get(filename)).build();
 		} else {
-			return DataSourceList.builder().add(dataSourceName, Jdk8Utils.readAllBytes(in), asMimeType(contentType)).build();
+			return DataSourceList.builder().add(dataSourceName, in, asMimeType(contentType)).build();
 		}
 	}
 
@@ -204,7 +244,12 @@ public class DataSourceListJaxRsUtils {
 	public static ResponseBuilder asResponseBuilder(DataSource dataSource, final Logger logger) {
 		MediaType mediaType = asMediaType(dataSource.contentType());
 		logger.debug("Returning one data source. mediatype='{}'.", mediaType.toString());
-		ResponseBuilder responseBuilder = Response.ok(dataSource.inputStream(), mediaType);
+		// Let the DataSource write itself to the response so that it can use the most efficient transfer available.
+		StreamingOutput entity = (out)->dataSource.transferTo(Channels.newChannel(out));
+		ResponseBuilder responseBuilder = Response.ok(entity, mediaType);
+		
+		// If the length is known up front, set the Content-Length so that the response is not chunked.
+		dataSource.contentLength().ifPresent((l)->responseBuilder.header(HttpHeaders.CONTENT_LENGTH, l));
 		
 		// If a Content-Disposition attribute is present on the datasource, use it, otherwise default to "inline"
 		String contentDispositionType = Optional.ofNullable(dataSource.attributes().get(FORMSFEEDER_CONTENT_DISPOSITION_ATTRIBUTE)).orElse("inline");
@@ -1,7 +1,11 @@
 package formsfeeder.client;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.matching;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
@@ -16,6 +20,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -41,6 +46,9 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com._4point.aem.formsfeeder.core.codec.DataSourceListCodec;
+import com._4point.aem.formsfeeder.core.codec.DataSourceListDecoder;
+import com._4point.aem.formsfeeder.core.codec.DataSourceListEncoder;
 import com._4point.aem.formsfeeder.core.datasource.DataSource;
 import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
 import com._4point.aem.formsfeeder.core.datasource.MimeType;
@@ -51,6 +59,7 @@ import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
 import com.github.tomakehurst.wiremock.extension.responsetemplating.ResponseTemplateTransformer;
 import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
 import com.github.tomakehurst.wiremock.recording.SnapshotRecordResult;
 import com.github.tomakehurst.wiremock.stubbing.StubMapping;
 import com.jcabi.xml.XML;
@@ -502,6 +511,48 @@ class FormsFeederClientTest {
 				);
 	}
 	
+	@Test
+	void testAccept_BinaryCodec() throws Exception {
+		if (USE_WIREMOCK) {    // Perform this test when doing unit testing (using wiremock), but skip this test when doing integration testing
+			String correlationId = "correlationId";
+			DataSourceList expectedResponse = DataSourceList.builder()
+					.add("ResultString", "Result Value")
+					.add("ResultPdf", "%PDF-1.7".getBytes(), StandardMimeTypes.APPLICATION_PDF_TYPE, Paths.get("result.pdf"))
+					.build();
+			ByteArrayOutputStream encodedResponse = new ByteArrayOutputStream();
+			DataSourceListEncoder.encode(expectedResponse, encodedResponse);
+			wireMockServer.stubFor(post(urlPathEqualTo("/api/v1/Binary"))
+					.withHeader("Content-Type", equalTo(DataSourceListCodec.CONTENT_TYPE_STR))
+					.willReturn(aResponse()
+							.withStatus(200)
+							.withHeader("Content-Type", DataSourceListCodec.CONTENT_TYPE_STR)
+							.withHeader(CorrelationId.CORRELATION_ID_HDR, correlationId)
+							.withBody(encodedResponse.toByteArray())));
+
+			FormsFeederClient underTest = FormsFeederClient.builder()
+					.machineName(formsfeederServerName)
+					.port(formsfeederServerPort)
+					.plugin("Binary")
+					.correlationId(() -> correlationId)
+					.binaryCodec(true)
+					.build();
+			DataSourceList result = underTest.accept(DataSourceList.builder().add(STRING_DS_NAME, stringData).add(FILE_DS_NAME, pathData).build());
+
+			wireMockServer.verify(postRequestedFor(urlPathEqualTo("/api/v1/Binary"))
+					.withHeader("Accept", matching(".*" + DataSourceListCodec.CONTENT_TYPE_STR + ".*")));
+			LoggedRequest request = wireMockServer.findAll(postRequestedFor(urlPathEqualTo("/api/v1/Binary"))).get(0);
+			DataSourceList sent = DataSourceListDecoder.decode(new ByteArrayInputStream(request.getBody()));
+			assertAll(
+					()->assertEquals(stringData, sent.deconstructor().getStringByName(STRING_DS_NAME).get()),
+					()->assertEquals(pathData, sent.deconstructor().getDataSourceByName(FILE_DS_NAME).get().filename().get()),
+					()->assertEquals(2, result.list().size()),
+					()->assertEquals("Result Value", result.deconstructor().getStringByName("ResultString").get()),
+					()->assertEquals(StandardMimeTypes.APPLICATION_PDF_TYPE, result.deconstructor().getDataSourceByName("ResultPdf").get().contentType()),
+					()->assertEquals(Paths.get("result.pdf"), result.deconstructor().getDataSourceByName("ResultPdf").get().filename().get())
+					);
+		}
+	}
+
 	@Test
 	void testBuilder_NoPluginSupplied() {
 		NullPointerException ex1 = assertThrows(NullPointerException.class, ()->FormsFeederClient.builder().build());
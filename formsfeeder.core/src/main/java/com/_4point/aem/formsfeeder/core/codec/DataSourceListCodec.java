@@ -0,0 +1,69 @@
+package com._4point.aem.formsfeeder.core.codec;
+
+import java.io.IOException;
+
+import com._4point.aem.formsfeeder.core.datasource.MimeType;
+import com._4point.aem.formsfeeder.core.datasource.StandardMimeTypes;
+
+/**
+ * Compact, length-prefixed binary encoding of a DataSourceList.
+ * 
+ * This is an alternative to multipart/form-data for exchanging DataSourceLists between FormsFeeder clients and the
+ * FormsFeeder server.  There are no boundaries to scan for and no headers to parse, every field is preceded by its
+ * length.  The encoding is:
+ * 
+ * <pre>
+ *   message    := magic version entry* END
+ *   magic      := 'F' 'F' 'D' 'L'
+ *   version    := byte (currently 1)
+ *   entry      := DATASOURCE name contentType attributes filename content
+ *   name       := string
+ *   contentType := string
+ *   attributes := int count, (string key, string value) * count
+ *   filename   := string (length -1 if there is no filename)
+ *   content    := long length, byte * length
+ *               | long -1, (int chunkLength, byte * chunkLength)*, int 0		(length not known in advance)
+ *   string     := int length, UTF-8 bytes * length
+ *   DATASOURCE := byte 1
+ *   END        := byte 0
+ * </pre>
+ * 
+ * All numbers are big-endian (as written by DataOutputStream).
+ *
+ */
+public final class DataSourceListCodec {
+	public static final String CONTENT_TYPE_STR = StandardMimeTypes.APPLICATION_VND_FORMSFEEDER_DATASOURCELIST_STR;
+	public static final MimeType CONTENT_TYPE = StandardMimeTypes.APPLICATION_VND_FORMSFEEDER_DATASOURCELIST_TYPE;
+
+	/* package */ static final byte[] MAGIC = { 'F', 'F', 'D', 'L' };
+	/* package */ static final byte VERSION = 1;
+	/* package */ static final byte END_TAG = 0;
+	/* package */ static final byte DATASOURCE_TAG = 1;
+	/* package */ static final int NO_STRING = -1;
+	/* package */ static final long UNKNOWN_LENGTH = -1;
+	/* package */ static final int MAX_CHUNK_SIZE = 64 * 1024;
+
+	// Limits on the decoder so that malformed input cannot cause huge allocations.
+	/* package */ static final int MAX_STRING_LENGTH = 1024 * 1024;
+	/* package */ static final int MAX_ATTRIBUTES = 64 * 1024;
+
+	// Prevent instantiation.
+	private DataSourceListCodec() {
+	}
+
+	/**
+	 * Thrown when the input being decoded is not a valid encoded DataSourceList.
+	 *
+	 */
+	@SuppressWarnings("serial")
+	public static class DataSourceListCodecException extends IOException {
+
+		public DataSourceListCodecException(String message) {
+			super(message);
+		}
+
+		public DataSourceListCodecException(String message, Throwable cause) {
+			super(message, cause);
+		}
+	}
+}
@@ -0,0 +1,286 @@
+package com._4point.aem.formsfeeder.core.codec;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import com._4point.aem.formsfeeder.core.codec.DataSourceListCodec.DataSourceListCodecException;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+import com._4point.aem.formsfeeder.core.datasource.MimeType;
+
+/**
+ * Reads DataSources from an InputStream that contains a DataSourceListCodec encoded DataSourceList.
+ * 
+ * The contents of each DataSource are streamed into a DataSourceList.Builder, so the Builder's settings (spooling,
+ * PayloadStore, OffHeapArena, etc.) determine where the contents end up.  The whole message is never held in memory
+ * at once.
+ * 
+ * The InputStream is not closed by the decoder.
+ *
+ */
+public final class DataSourceListDecoder {
+	private final DataInputStream in;
+	private boolean headerRead = false;
+	private boolean finished = false;
+
+	public DataSourceListDecoder(InputStream in) {
+		this.in = new DataInputStream(Objects.requireNonNull(in, "InputStream cannot be null."));
+	}
+
+	/**
+	 * Decodes a complete DataSourceList using a default DataSourceList.Builder.
+	 * 
+	 * @param in	stream to read from
+	 * @return decoded DataSourceList
+	 * @throws IOException
+	 */
+	public static DataSourceList decode(InputStream in) throws IOException {
+		return new DataSourceListDecoder(in).decode(DataSourceList.builder());
+	}
+
+	/**
+	 * Reads all the remaining DataSources into the builder provided.
+	 * 
+	 * @param builder	builder to add the DataSources to
+	 * @return the result of builder.build()
+	 * @throws IOException
+	 */
+	public DataSourceList decode(DataSourceList.Builder builder) throws IOException {
+		while (readNext(builder)) {
+			// Keep going until the end of the list.
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Reads the next DataSource into the builder provided.
+	 * 
+	 * @param builder	builder to add the DataSource to
+	 * @return true if a DataSource was read, false if the end of the list has been reached
+	 * @throws IOException
+	 */
+	public boolean readNext(DataSourceList.Builder builder) throws IOException {
+		if (finished) {
+			return false;
+		}
+		try {
+			readHeader();
+			byte tag = in.readByte();
+			if (tag == DataSourceListCodec.END_TAG) {
+				finished = true;
+				return false;
+			} else if (tag != DataSourceListCodec.DATASOURCE_TAG) {
+				throw new DataSourceListCodecException("Invalid entry tag (" + tag + ").");
+			}
+			String name = readRequiredString("name");
+			MimeType contentType = asMimeType(readRequiredString("content type"));
+			Map<String, String> attributes = readAttributes();
+			String filename = readString();
+			Path path = filename != null ? Paths.get(filename) : null;
+			long length = in.readLong();
+			if (length < DataSourceListCodec.UNKNOWN_LENGTH) {
+				throw new DataSourceListCodecException("Invalid content length (" + length + ") for DataSource '" + name + "'.");
+			}
+			InputStream content = length == DataSourceListCodec.UNKNOWN_LENGTH ? new ChunkedInputStream(in) : new BoundedInputStream(in, length);
+			try {
+				builder.add(name, content, contentType, path, attributes);
+			} catch (IllegalStateException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();	// Report the underlying problem (e.g. truncated input).
+				}
+				throw e;
+			}
+			return true;
+		} catch (EOFException e) {
+			throw new DataSourceListCodecException("Unexpected end of input while decoding DataSourceList.", e);
+		}
+	}
+
+	private void readHeader() throws IOException {
+		if (!headerRead) {
+			byte[] magic = new byte[DataSourceListCodec.MAGIC.length];
+			in.readFully(magic);
+			if (!Arrays.equals(DataSourceListCodec.MAGIC, magic)) {
+				throw new DataSourceListCodecException("Input is not an encoded DataSourceList.");
+			}
+			byte version = in.readByte();
+			if (version != DataSourceListCodec.VERSION) {
+				throw new DataSourceListCodecException("Unsupported DataSourceList encoding version (" + version + ").");
+			}
+			headerRead = true;
+		}
+	}
+
+	private Map<String, String> readAttributes() throws IOException {
+		int count = in.readInt();
+		if (count < 0 || count > DataSourceListCodec.MAX_ATTRIBUTES) {
+			throw new DataSourceListCodecException("Invalid number of attributes (" + count + ").");
+		}
+		if (count == 0) {
+			return Collections.emptyMap();
+		}
+		Map<String, String> attributes = new LinkedHashMap<>(count * 2);
+		for (int i = 0; i < count; i++) {
+			attributes.put(readRequiredString("attribute name"), readRequiredString("attribute value"));
+		}
+		return attributes;
+	}
+
+	private String readRequiredString(String description) throws IOException {
+		String s = readString();
+		if (s == null) {
+			throw new DataSourceListCodecException("Missing " + description + ".");
+		}
+		return s;
+	}
+
+	private String readString() throws IOException {
+		int length = in.readInt();
+		if (length == DataSourceListCodec.NO_STRING) {
+			return null;
+		}
+		if (length < 0 || length > DataSourceListCodec.MAX_STRING_LENGTH) {
+			throw new DataSourceListCodecException("Invalid string length (" + length + ").");
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static MimeType asMimeType(String contentType) throws DataSourceListCodecException {
+		try {
+			return MimeType.of(contentType);
+		} catch (IllegalArgumentException e) {
+			throw new DataSourceListCodecException("Invalid content type '" + contentType + "'.", e);
+		}
+	}
+
+	/**
+	 * Reads a fixed number of bytes from the underlying stream.  Running out of input early is an error.
+	 *
+	 */
+	private static class BoundedInputStream extends InputStream {
+		private final InputStream in;
+		private long remaining;
+
+		private BoundedInputStream(InputStream in, long length) {
+			this.in = in;
+			this.remaining = length;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (remaining == 0) {
+				return -1;
+			}
+			int b = in.read();
+			if (b < 0) {
+				throw new EOFException("Unexpected end of input, " + remaining + " bytes of content missing.");
+			}
+			remaining--;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (remaining == 0) {
+				return -1;
+			}
+			int count = in.read(b, off, (int) Math.min(len, remaining));
+			if (count < 0) {
+				throw new EOFException("Unexpected end of input, " + remaining + " bytes of content missing.");
+			}
+			remaining -= count;
+			return count;
+		}
+
+		@Override
+		public int available() throws IOException {
+			// Never more than is actually buffered, the declared length comes from the client and cannot be trusted as an allocation size.
+			return (int) Math.min(remaining, in.available());
+		}
+
+		@Override
+		public void close() {
+			// Do not close the underlying stream, it contains the rest of the list.
+		}
+	}
+
+	/**
+	 * Reads a sequence of length-prefixed chunks, terminated by an empty chunk.
+	 *
+	 */
+	private static class ChunkedInputStream extends InputStream {
+		private final DataInputStream in;
+		private int chunkRemaining = 0;
+		private boolean finished = false;
+
+		private ChunkedInputStream(DataInputStream in) {
+			this.in = in;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!nextChunk()) {
+				return -1;
+			}
+			int b = in.read();
+			if (b < 0) {
+				throw new EOFException("Unexpected end of input in content chunk.");
+			}
+			chunkRemaining--;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (!nextChunk()) {
+				return -1;
+			}
+			int count = in.read(b, off, Math.min(len, chunkRemaining));
+			if (count < 0) {
+				throw new EOFException("Unexpected end of input in content chunk.");
+			}
+			chunkRemaining -= count;
+			return count;
+		}
+
+		private boolean nextChunk() throws IOException {
+			if (finished) {
+				return false;
+			}
+			if (chunkRemaining == 0) {
+				int length = in.readInt();
+				if (length < 0 || length > DataSourceListCodec.MAX_CHUNK_SIZE) {
+					throw new DataSourceListCodecException("Invalid content chunk length (" + length + ").");
+				}
+				if (length == 0) {
+					finished = true;
+					return false;
+				}
+				chunkRemaining = length;
+			}
+			return true;
+		}
+
+		@Override
+		public void close() {
+			// Do not close the underlying stream, it contains the rest of the list.
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package com._4point.aem.formsfeeder.core.codec;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+
+import com._4point.aem.formsfeeder.core.datasource.DataSource;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+
+/**
+ * Writes DataSources to an OutputStream using the DataSourceListCodec encoding.
+ * 
+ * DataSources are written one at a time as write() is called, so the contents are streamed straight from each
+ * DataSource to the OutputStream.  Contents whose length is known up front (see DataSource.contentLength()) are
+ * written with a length prefix, others are written in chunks.  finish() must be called after the last DataSource.
+ * 
+ * The OutputStream is not closed by the encoder.
+ *
+ */
+public final class DataSourceListEncoder {
+	private final DataOutputStream out;
+	private boolean headerWritten = false;
+	private boolean finished = false;
+	private byte[] chunkBuffer = null;
+
+	public DataSourceListEncoder(OutputStream out) {
+		this.out = new DataOutputStream(Objects.requireNonNull(out, "OutputStream cannot be null."));
+	}
+
+	/**
+	 * Encodes a complete DataSourceList.
+	 * 
+	 * @param dataSourceList	list to encode
+	 * @param out	stream to write to, it is flushed but not closed
+	 * @throws IOException
+	 */
+	public static void encode(DataSourceList dataSourceList, OutputStream out) throws IOException {
+		DataSourceListEncoder encoder = new DataSourceListEncoder(out);
+		for (DataSource ds : dataSourceList.list()) {
+			encoder.write(ds);
+		}
+		encoder.finish();
+	}
+
+	/**
+	 * Writes a DataSource.
+	 * 
+	 * @param ds	DataSource to write
+	 * @return this encoder
+	 * @throws IOException
+	 */
+	public DataSourceListEncoder write(DataSource ds) throws IOException {
+		if (finished) {
+			throw new IllegalStateException("Cannot write DataSource '" + ds.name() + "' after the encoder has been finished.");
+		}
+		writeHeader();
+		out.writeByte(DataSourceListCodec.DATASOURCE_TAG);
+		writeString(ds.name());
+		writeString(ds.contentType().asString());
+		Map<String, String> attributes = ds.attributes();
+		out.writeInt(attributes.size());
+		for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+			writeString(attribute.getKey());
+			writeString(attribute.getValue());
+		}
+		writeString(ds.filename().map(Object::toString).orElse(null));
+		writeContent(ds);
+		return this;
+	}
+
+	/**
+	 * Writes the end of the list and flushes the OutputStream.
+	 * 
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		if (finished) {
+			return;
+		}
+		writeHeader();
+		out.writeByte(DataSourceListCodec.END_TAG);
+		out.flush();
+		finished = true;
+	}
+
+	private void writeHeader() throws IOException {
+		if (!headerWritten) {
+			out.write(DataSourceListCodec.MAGIC);
+			out.writeByte(DataSourceListCodec.VERSION);
+			headerWritten = true;
+		}
+	}
+
+	private void writeString(String s) throws IOException {
+		if (s == null) {
+			out.writeInt(DataSourceListCodec.NO_STRING);
+			return;
+		}
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private void writeContent(DataSource ds) throws IOException {
+		OptionalLong contentLength = ds.contentLength();
+		if (contentLength.isPresent()) {
+			out.writeLong(contentLength.getAsLong());
+			long written = ds.transferTo(Channels.newChannel(out));
+			if (written != contentLength.getAsLong()) {
+				// The length has already been written, so the stream cannot be recovered.
+				throw new IllegalStateException("Error while encoding DataSource '" + ds.name() + "', expected " + contentLength.getAsLong() + " bytes but found " + written + ".");
+			}
+			return;
+		}
+		out.writeLong(DataSourceListCodec.UNKNOWN_LENGTH);
+		if (chunkBuffer == null) {
+			chunkBuffer = new byte[DataSourceListCodec.MAX_CHUNK_SIZE];
+		}
+		try (InputStream is = ds.inputStream()) {
+			int count;
+			while ((count = readChunk(is, chunkBuffer)) > 0) {
+				out.writeInt(count);
+				out.write(chunkBuffer, 0, count);
+			}
+		}
+		out.writeInt(0);
+	}
+
+	// Fills the buffer as far as possible so that chunks are not needlessly small.
+	private static int readChunk(InputStream is, byte[] buffer) throws IOException {
+		int total = 0;
+		int count;
+		while (total < buffer.length && (count = is.read(buffer, total, buffer.length - total)) >= 0) {
+			total += count;
+		}
+		return total;
+	}
+}
@@ -0,0 +1,491 @@
+package com._4point.aem.formsfeeder.core.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Objects;
+
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+import com._4point.aem.formsfeeder.core.datasource.MimeType;
+import com._4point.aem.formsfeeder.core.datasource.StandardMimeTypes;
+
+/**
+ * Reads DataSources from an InputStream that contains a multipart/form-data body (RFC 7578).
+ *
+ * The body is read through a single reusable buffer.  Boundaries are located with a Boyer-Moore-Horspool search and
+ * the contents of each part are streamed into a DataSourceList.Builder as the part arrives, so the Builder's settings
+ * (spool threshold and directory, PayloadStore, OffHeapArena, etc.) determine where the contents end up.  The whole
+ * body is never held in memory at once.
+ *
+ * Parts with no filename and either no content type or exactly text/plain (without a charset) are form fields.  They
+ * are added as (UTF-8) Strings, unless they are larger than MAX_FIELD_LENGTH, in which case they are streamed like any
+ * other part.  Parts that declare a charset are streamed as is, so their content type (and charset) is preserved.
+ *
+ * The InputStream is not closed by the decoder.
+ *
+ */
+public final class MultipartFormDataDecoder {
+	/* package */ static final int BUFFER_SIZE = 16 * 1024;
+	/* package */ static final int MAX_BOUNDARY_LENGTH = 70;		// From RFC 2046
+	/* package */ static final int MAX_HEADER_LENGTH = 16 * 1024;	// Total length of the headers of a single part.
+	/* package */ static final int MAX_FIELD_LENGTH = 64 * 1024;	// Longest form field that is converted to a String.
+
+	private static final byte CR = '\r';
+	private static final byte LF = '\n';
+	private static final byte DASH = '-';
+
+	private final InputStream in;
+	private final byte[] delimiter;		// CRLF "--" boundary
+	private final int[] skip;			// Horspool bad character table for the delimiter.
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int pos = 0;
+	private int limit = 0;
+	private int fills = 0;				// Incremented whenever the contents of the buffer move or grow.
+	private boolean endOfInput = false;
+	private boolean started = false;
+	private boolean finished = false;
+
+	public MultipartFormDataDecoder(InputStream in, String boundary) {
+		this.in = Objects.requireNonNull(in, "InputStream cannot be null.");
+		Objects.requireNonNull(boundary, "Boundary cannot be null.");
+		if (boundary.isEmpty() || boundary.length() > MAX_BOUNDARY_LENGTH) {
+			throw new IllegalArgumentException("Invalid multipart boundary length (" + boundary.length() + ").");
+		}
+		this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+		this.skip = new int[256];
+		int last = delimiter.length - 1;
+		for (int i = 0; i < skip.length; i++) {
+			skip[i] = delimiter.length;
+		}
+		for (int i = 0; i < last; i++) {
+			skip[delimiter[i] & 0xff] = last - i;
+		}
+	}
+
+	/**
+	 * Decodes a complete multipart/form-data body using a default DataSourceList.Builder.
+	 *
+	 * @param in		stream to read from
+	 * @param boundary	the boundary parameter from the body's Content-Type
+	 * @return decoded DataSourceList
+	 * @throws IOException
+	 */
+	public static DataSourceList decode(InputStream in, String boundary) throws IOException {
+		return new MultipartFormDataDecoder(in, boundary).decode(DataSourceList.builder());
+	}
+
+	/**
+	 * Reads all the remaining parts into the builder provided.
+	 *
+	 * @param builder	builder to add the DataSources to
+	 * @return the result of builder.build()
+	 * @throws IOException
+	 */
+	public DataSourceList decode(DataSourceList.Builder builder) throws IOException {
+		while (readNext(builder)) {
+			// Keep going until the closing boundary.
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Reads the next part into the builder provided.
+	 *
+	 * @param builder	builder to add the DataSource to
+	 * @return true if a part was read, false if the closing boundary has been reached
+	 * @throws IOException
+	 */
+	public boolean readNext(DataSourceList.Builder builder) throws IOException {
+		if (finished) {
+			return false;
+		}
+		if (!started) {
+			// The first boundary is not preceded by a CRLF, so pretend that it is and then skip the preamble.
+			buffer[0] = CR;
+			buffer[1] = LF;
+			limit = 2;
+			started = true;
+			drain(new PartInputStream());
+		}
+		if (!readBoundaryEnd()) {
+			finished = true;
+			return false;
+		}
+		PartHeaders headers = readHeaders();
+		PartInputStream content = new PartInputStream();
+		try {
+			if (headers.isField()) {
+				addField(builder, headers, content);
+			} else {
+				builder.add(headers.name, content, headers.contentType(), headers.filename, Collections.emptyMap());
+			}
+		} catch (IllegalStateException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();	// Report the underlying problem (e.g. truncated input).
+			}
+			throw e;
+		}
+		drain(content);
+		return true;
+	}
+
+	private static void addField(DataSourceList.Builder builder, PartHeaders headers, PartInputStream content) throws IOException {
+		ByteArrayOutputStream field = new ByteArrayOutputStream(256);
+		byte[] chunk = new byte[1024];
+		int count;
+		while (field.size() <= MAX_FIELD_LENGTH && (count = content.read(chunk, 0, Math.min(chunk.length, MAX_FIELD_LENGTH + 1 - field.size()))) >= 0) {
+			field.write(chunk, 0, count);
+		}
+		if (field.size() <= MAX_FIELD_LENGTH) {
+			builder.add(headers.name, new String(field.toByteArray(), StandardCharsets.UTF_8));
+		} else {
+			// Too large to be a simple field, so stream it (what has been read so far followed by the rest).
+			builder.add(headers.name, new SequenceInputStream(new ByteArrayInputStream(field.toByteArray()), content), headers.contentType());
+		}
+	}
+
+	/**
+	 * Reads what follows a delimiter.  "--" marks the end of the body, otherwise the rest of the line is expected to be
+	 * empty (apart from whitespace).
+	 *
+	 * @return true if a part follows, false if this was the closing delimiter
+	 * @throws IOException
+	 */
+	private boolean readBoundaryEnd() throws IOException {
+		if (!ensure(2)) {
+			throw new MultipartFormDataException("Unexpected end of input after multipart boundary.");
+		}
+		if (buffer[pos] == DASH && buffer[pos + 1] == DASH) {
+			pos += 2;
+			return false;	// Anything after the closing delimiter is an epilogue and is ignored.
+		}
+		while (ensure(1) && (buffer[pos] == ' ' || buffer[pos] == '\t')) {
+			pos++;
+		}
+		if (!ensure(2) || buffer[pos] != CR || buffer[pos + 1] != LF) {
+			throw new MultipartFormDataException("Invalid characters following multipart boundary.");
+		}
+		pos += 2;
+		return true;
+	}
+
+	private PartHeaders readHeaders() throws IOException {
+		PartHeaders headers = new PartHeaders();
+		int headerLength = 0;
+		String current = null;
+		while (true) {
+			String line = readLine(MAX_HEADER_LENGTH - headerLength);
+			headerLength += line.length() + 2;
+			if (!line.isEmpty() && (line.charAt(0) == ' ' || line.charAt(0) == '\t')) {
+				if (current == null) {
+					throw new MultipartFormDataException("Invalid multipart header continuation line.");
+				}
+				current = current + ' ' + line.trim();	// Folded header line.
+				continue;
+			}
+			if (current != null) {
+				headers.set(current);
+			}
+			if (line.isEmpty()) {
+				break;
+			}
+			current = line;
+		}
+		if (headers.name == null) {
+			throw new MultipartFormDataException("Multipart part does not contain a form-data Content-Disposition header with a name.");
+		}
+		return headers;
+	}
+
+	private String readLine(int maxLength) throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+		while (true) {
+			if (!ensure(2)) {
+				throw new MultipartFormDataException("Unexpected end of input in multipart headers.");
+			}
+			if (buffer[pos] == CR && buffer[pos + 1] == LF) {
+				pos += 2;
+				return new String(line.toByteArray(), StandardCharsets.UTF_8);
+			}
+			if (line.size() >= maxLength) {
+				throw new MultipartFormDataException("Multipart headers exceed maximum length (" + MAX_HEADER_LENGTH + ").");
+			}
+			line.write(buffer[pos++]);
+		}
+	}
+
+	/**
+	 * Makes sure that at least count bytes are available in the buffer.
+	 *
+	 * @param count	number of bytes required (no more than the buffer size)
+	 * @return false if the end of input was reached before count bytes were available
+	 * @throws IOException
+	 */
+	private boolean ensure(int count) throws IOException {
+		while (limit - pos < count) {
+			if (endOfInput) {
+				return false;
+			}
+			if (pos > 0) {
+				System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+				limit -= pos;
+				pos = 0;
+				fills++;
+			}
+			int read = in.read(buffer, limit, buffer.length - limit);
+			if (read < 0) {
+				endOfInput = true;
+			} else {
+				limit += read;
+				fills++;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the delimiter within buffer[from, to) using Boyer-Moore-Horspool.
+	 *
+	 * @return the index of the start of the delimiter, or -1 if it was not found
+	 */
+	private int indexOfDelimiter(int from, int to) {
+		int last = delimiter.length - 1;
+		int i = from;
+		while (i + last < to) {
+			int j = last;
+			while (buffer[i + j] == delimiter[j]) {
+				if (j == 0) {
+					return i;
+				}
+				j--;
+			}
+			i += skip[buffer[i + last] & 0xff];
+		}
+		return -1;
+	}
+
+	private static void drain(PartInputStream part) throws IOException {
+		byte[] discard = new byte[1024];
+		while (part.read(discard, 0, discard.length) >= 0) {
+			// Skip whatever the Builder did not read.
+		}
+	}
+
+	/**
+	 * The headers of a part that are used by the decoder.
+	 *
+	 */
+	private static class PartHeaders {
+		private String name = null;
+		private Path filename = null;
+		private MimeType contentType = null;
+
+		private boolean isField() {
+			return filename == null && (contentType == null || contentType.equals(StandardMimeTypes.TEXT_PLAIN_TYPE));
+		}
+
+		private MimeType contentType() {
+			if (contentType == null) {
+				contentType = StandardMimeTypes.TEXT_PLAIN_TYPE;	// Default for multipart/form-data parts.
+			}
+			return contentType;
+		}
+
+		private void set(String header) throws MultipartFormDataException {
+			int colon = header.indexOf(':');
+			if (colon <= 0) {
+				throw new MultipartFormDataException("Invalid multipart header '" + header + "'.");
+			}
+			String headerName = header.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+			String value = header.substring(colon + 1).trim();
+			if (headerName.equals("content-disposition")) {
+				setContentDisposition(value);
+			} else if (headerName.equals("content-type")) {
+				try {
+					contentType = MimeType.of(value);
+				} catch (IllegalArgumentException e) {
+					throw new MultipartFormDataException("Invalid multipart Content-Type '" + value + "'.", e);
+				}
+			}
+		}
+
+		private void setContentDisposition(String value) throws MultipartFormDataException {
+			ParameterParser parser = new ParameterParser(value);
+			if (!parser.token().equalsIgnoreCase("form-data")) {
+				throw new MultipartFormDataException("Multipart part is not form-data (Content-Disposition: " + value + ").");
+			}
+			while (parser.nextParameter()) {
+				String parameterName = parser.token().toLowerCase(Locale.ROOT);
+				String parameterValue = parser.value();
+				if (parameterName.equals("name")) {
+					name = parameterValue;
+				} else if (parameterName.equals("filename") && !parameterValue.isEmpty()) {
+					try {
+						filename = Paths.get(parameterValue);
+					} catch (InvalidPathException e) {
+						throw new MultipartFormDataException("Invalid multipart filename '" + parameterValue + "'.", e);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Parses the parameters of a header value (e.g. form-data; name="field"; filename="file.pdf").
+	 *
+	 */
+	private static class ParameterParser {
+		private final String s;
+		private int i = 0;
+
+		private ParameterParser(String s) {
+			this.s = s;
+		}
+
+		private String token() {
+			skipWhitespace();
+			int start = i;
+			while (i < s.length() && s.charAt(i) != ';' && s.charAt(i) != '=' && !Character.isWhitespace(s.charAt(i))) {
+				i++;
+			}
+			return s.substring(start, i);
+		}
+
+		private boolean nextParameter() throws MultipartFormDataException {
+			skipWhitespace();
+			if (i >= s.length()) {
+				return false;
+			}
+			if (s.charAt(i) != ';') {
+				throw new MultipartFormDataException("Invalid multipart header parameters '" + s + "'.");
+			}
+			i++;
+			skipWhitespace();
+			return i < s.length();
+		}
+
+		private String value() throws MultipartFormDataException {
+			skipWhitespace();
+			if (i >= s.length() || s.charAt(i) != '=') {
+				throw new MultipartFormDataException("Missing value for multipart header parameter in '" + s + "'.");
+			}
+			i++;
+			skipWhitespace();
+			if (i < s.length() && s.charAt(i) == '"') {
+				StringBuilder value = new StringBuilder();
+				i++;
+				while (i < s.length() && s.charAt(i) != '"') {
+					if (s.charAt(i) == '\\' && i + 1 < s.length()) {
+						i++;
+					}
+					value.append(s.charAt(i++));
+				}
+				if (i >= s.length()) {
+					throw new MultipartFormDataException("Unterminated quoted string in multipart header '" + s + "'.");
+				}
+				i++;
+				return value.toString();
+			}
+			return token();
+		}
+
+		private void skipWhitespace() {
+			while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+				i++;
+			}
+		}
+	}
+
+	/**
+	 * Reads the contents of the current part, i.e. everything up to the next delimiter.  Bytes that might be the start
+	 * of the delimiter are held back in the buffer until enough input has arrived to tell.
+	 *
+	 */
+	private class PartInputStream extends InputStream {
+		private boolean partFinished = false;
+		private int scannedFills = -1;		// The buffer contents that delimiterIndex applies to.
+		private int delimiterIndex = -1;
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			int available = available();
+			while (available == 0) {
+				if (partFinished) {
+					return -1;
+				}
+				if (endOfInput) {
+					throw new MultipartFormDataException("Unexpected end of input, multipart body is missing its closing boundary.");
+				}
+				ensure(Math.min(limit - pos + 1, buffer.length));
+				available = available();
+			}
+			int count = Math.min(len, available);
+			System.arraycopy(buffer, pos, b, off, count);
+			pos += count;
+			return count;
+		}
+
+		/**
+		 * Returns the number of bytes in the buffer that are known to belong to this part.  If the delimiter is in the
+		 * buffer (and no part content precedes it), it is consumed and the part is marked as finished.
+		 */
+		@Override
+		public int available() throws IOException {
+			if (partFinished) {
+				return 0;
+			}
+			if (scannedFills != fills) {
+				// Only search again when new input has arrived, not every time some of the buffer is consumed.
+				delimiterIndex = indexOfDelimiter(pos, limit);
+				scannedFills = fills;
+			}
+			int index = delimiterIndex;
+			if (index == pos) {
+				pos += delimiter.length;
+				partFinished = true;
+				return 0;
+			} else if (index > pos) {
+				return index - pos;
+			}
+			return Math.max(0, limit - (delimiter.length - 1) - pos);
+		}
+
+		@Override
+		public void close() {
+			// Do not close the underlying stream, it contains the rest of the body.
+		}
+	}
+
+	/**
+	 * Thrown when the input being decoded is not a valid multipart/form-data body.
+	 *
+	 */
+	@SuppressWarnings("serial")
+	public static class MultipartFormDataException extends IOException {
+
+		public MultipartFormDataException(String message) {
+			super(message);
+		}
+
+		public MultipartFormDataException(String message, Throwable cause) {
+			super(message, cause);
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package com._4point.aem.formsfeeder.core.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+import com._4point.aem.formsfeeder.core.datasource.DataSource;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+
+/**
+ * Writes DataSources to an OutputStream as a multipart/form-data body (RFC 7578).
+ *
+ * Each DataSource is written as soon as write() is called: the boundary, the part's headers and then the contents,
+ * which are transferred straight from the DataSource to the OutputStream (see DataSource.transferTo()), so file-backed
+ * contents are copied by the channel rather than through an intermediate buffer.  The OutputStream is flushed after
+ * each part so that the client receives the first part without waiting for the rest.  finish() must be called after
+ * the last DataSource.
+ *
+ * The OutputStream is not closed by the encoder.
+ *
+ */
+public final class MultipartFormDataEncoder {
+	private static final byte[] CRLF = { '\r', '\n' };
+	private static final String BOUNDARY_PREFIX = "Boundary_";
+
+	private final OutputStream out;
+	private final WritableByteChannel channel;
+	private final byte[] dashBoundary;	// "--" boundary
+	private boolean finished = false;
+
+	public MultipartFormDataEncoder(OutputStream out, String boundary) {
+		this.out = Objects.requireNonNull(out, "OutputStream cannot be null.");
+		this.channel = Channels.newChannel(out);
+		this.dashBoundary = ("--" + validateBoundary(boundary)).getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private static String validateBoundary(String boundary) {
+		Objects.requireNonNull(boundary, "Boundary cannot be null.");
+		if (boundary.isEmpty() || boundary.length() > MultipartFormDataDecoder.MAX_BOUNDARY_LENGTH) {
+			throw new IllegalArgumentException("Invalid multipart boundary length (" + boundary.length() + ").");
+		}
+		for (int i = 0; i < boundary.length(); i++) {
+			char c = boundary.charAt(i);
+			if (c < 0x20 || c > 0x7e || c == '"') {
+				throw new IllegalArgumentException("Invalid character in multipart boundary '" + boundary + "'.");
+			}
+		}
+		return boundary;
+	}
+
+	/**
+	 * Generates a new random boundary.  The boundary is random so that the contents of a part cannot contain it.
+	 *
+	 * @return new boundary
+	 */
+	public static String newBoundary() {
+		return BOUNDARY_PREFIX + UUID.randomUUID().toString().replace("-", "");
+	}
+
+	/**
+	 * Encodes a complete DataSourceList.
+	 *
+	 * @param dataSourceList	list to encode
+	 * @param boundary	boundary to separate the parts with, this must match the boundary parameter of the Content-Type
+	 * @param out	stream to write to, it is flushed but not closed
+	 * @throws IOException
+	 */
+	public static void encode(DataSourceList dataSourceList, String boundary, OutputStream out) throws IOException {
+		MultipartFormDataEncoder encoder = new MultipartFormDataEncoder(out, boundary);
+		for (DataSource ds : dataSourceList.list()) {
+			encoder.write(ds);
+		}
+		encoder.finish();
+	}
+
+	/**
+	 * Writes a DataSource as the next part and flushes the OutputStream.
+	 *
+	 * @param ds	DataSource to write
+	 * @return this encoder
+	 * @throws IOException
+	 */
+	public MultipartFormDataEncoder write(DataSource ds) throws IOException {
+		if (finished) {
+			throw new IllegalStateException("Cannot write DataSource '" + ds.name() + "' after the encoder has been finished.");
+		}
+		out.write(dashBoundary);
+		out.write(CRLF);
+		out.write(headers(ds).getBytes(StandardCharsets.UTF_8));
+		ds.transferTo(channel);
+		out.write(CRLF);
+		out.flush();
+		return this;
+	}
+
+	/**
+	 * Writes the closing boundary and flushes the OutputStream.
+	 *
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		if (finished) {
+			return;
+		}
+		out.write(dashBoundary);
+		out.write(new byte[] { '-', '-', '\r', '\n' });
+		out.flush();
+		finished = true;
+	}
+
+	private static String headers(DataSource ds) {
+		StringBuilder headers = new StringBuilder(128)
+				.append("Content-Type: ").append(ds.contentType().asString()).append("\r\n")
+				.append("Content-Disposition: form-data; name=");
+		appendQuoted(headers, ds.name());
+		Optional<Path> filename = ds.filename().map(Path::getFileName);
+		if (filename.isPresent()) {
+			headers.append("; filename=");
+			appendQuoted(headers, filename.get().toString());
+		}
+		return headers.append("\r\n\r\n").toString();
+	}
+
+	/**
+	 * Appends a header parameter value as a quoted string.  Quotes and backslashes are escaped and line breaks are
+	 * dropped, so a value cannot end the header early.
+	 */
+	private static void appendQuoted(StringBuilder headers, String value) {
+		headers.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				headers.append('\\').append(c);
+			} else if (c != '\r' && c != '\n') {
+				headers.append(c);
+			}
+		}
+		headers.append('"');
+	}
+}
@@ -6,14 +6,16 @@ package com._4point.aem.formsfeeder.core.datasource;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
-import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
-
 /**
  * Abstract Data Source, provides a default implementation for handling attributes.
  *
@@ -21,40 +23,45 @@ import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
 public abstract class AbstractDataSource implements DataSource {
 	private String name;
 	private MimeType contentType;
-	private final Map<String, String> attributes = new HashMap<>();
-	private int isCounter = 0;	// Count of open InputStreams
-	private int osCounter = 0;	// Count of open OutputStreams
+	private volatile AttributeMap attributes;	// Immutable, so it can be shared and returned without copying.
+	// Open stream state: positive is the number of open InputStreams, negative is the number of open OutputStreams.
+	private final AtomicInteger streamState = new AtomicInteger(0);
+	private final AtomicInteger contentVersion = new AtomicInteger(0);	// Incremented whenever an OutputStream is opened or closed
+	private volatile DecodedValue decodedValue = null;	// Single-slot cache of the contents decoded into a value
 	
 	protected AbstractDataSource() {
 		super();
 		this.name = "";
 		this.contentType = StandardMimeTypes.APPLICATION_OCTET_STREAM_TYPE;
+		this.attributes = AttributeMap.EMPTY;
 	}
 
 	protected AbstractDataSource(String name) {
 		super();
 		this.name = name;
 		this.contentType = StandardMimeTypes.APPLICATION_OCTET_STREAM_TYPE;
+		this.attributes = AttributeMap.EMPTY;
 	}
 
 	protected AbstractDataSource(String name, Map<String, String> attributes) {
 		super();
 		this.name = name;
 		this.contentType = StandardMimeTypes.APPLICATION_OCTET_STREAM_TYPE;
-		this.attributes.putAll(attributes);
+		this.attributes = AttributeMap.copyOf(attributes);
 	}
 
 	protected AbstractDataSource(String name, MimeType contentType) {
 		super();
 		this.name = name;
 		this.contentType = contentType;
+		this.attributes = AttributeMap.EMPTY;
 	}
 
 	protected AbstractDataSource(String name, MimeType contentType, Map<String, String> attributes) {
 		super();
 		this.name = name;
 		this.contentType = contentType;
-		this.attributes.putAll(attributes);
+		this.attributes = AttributeMap.copyOf(attributes);
 	}
 
 	@Override
@@ -80,14 +87,34 @@ public abstract class AbstractDataSource implements DataSource {
 
 	@Override
 	public Map<String, String> attributes() {
-		// Return a defensive copy
-		return Jdk8Utils.copyOfMap(attributes);
+		// No defensive copy required, the map is immutable.
+		return attributes;
 	}
 
+	/**
+	 * Returns the attributes of this DataSource.
+	 * 
+	 * @return the attribute map
+	 * @deprecated The attributes are now held in an immutable map, so the map returned cannot be modified (put(),
+	 * remove(), etc. throw UnsupportedOperationException).  Use {@link #attributes()} to read the attributes and
+	 * {@link #attributes(Map)} to replace them.
+	 */
+	@Deprecated
 	protected Map<String, String> attributeMap() {
 		return attributes;
 	}
 	
+	/**
+	 * Replaces the attributes of this DataSource with a copy of the map provided.
+	 * 
+	 * @param attributes	new attributes
+	 * @return this DataSource
+	 */
+	protected AbstractDataSource attributes(Map<String, String> attributes) {
+		this.attributes = AttributeMap.copyOf(attributes);
+		return this;
+	}
+	
 	protected AbstractDataSource contentType(String contentType) {
 		this.contentType = MimeType.of(contentType);
 		return this;
@@ -103,20 +130,119 @@ public abstract class AbstractDataSource implements DataSource {
 		return this;
 	}
 	
+	/**
+	 * Writes all the remaining bytes in a buffer to a channel.  Used by DataSources that hold their contents in a
+	 * ByteBuffer to implement transferTo().
+	 * 
+	 * @param buffer	the buffer to write, its position is advanced to its limit.
+	 * @param target	the channel to write to
+	 * @return the number of bytes written
+	 * @throws IOException
+	 */
+	protected static long writeFully(ByteBuffer buffer, WritableByteChannel target) throws IOException {
+		long count = 0;
+		while (buffer.hasRemaining()) {
+			count += target.write(buffer);
+		}
+		return count;
+	}
+	
+	/**
+	 * Indicates whether values decoded from the contents of this DataSource may be cached.  Contents are assumed to
+	 * only change through outputStream(), so DataSources whose contents can change by other means (for example, a
+	 * file that can be changed on disk) should override this and return false.
+	 * 
+	 * @return true if decoded values may be cached
+	 */
+	protected boolean cacheDecodedValues() {
+		return true;
+	}
+
+	/**
+	 * Returns the contents of this DataSource decoded into a value of the type provided.  The most recently decoded
+	 * value is cached, so decoding the same DataSource repeatedly into the same type only costs anything the first
+	 * time.  The cache is discarded whenever the contents are rewritten.
+	 * 
+	 * @param type		the type of the value
+	 * @param decoder	function that decodes the contents into a value of the type provided
+	 * @return the decoded value
+	 */
+	/* package */ final <T> T decodedValue(Class<T> type, Function<? super DataSource, ? extends T> decoder) {
+		DecodedValue cached = decodedValue;
+		int version = contentVersion.get();
+		if (cached != null && cached.type == type && cached.version == version) {
+			return type.cast(cached.value);
+		}
+		T value = decoder.apply(this);
+		if (cacheDecodedValues() && value != null) {
+			// If the contents are rewritten while decoding, the version will no longer match and the value is ignored.
+			decodedValue = new DecodedValue(type, value, version);
+		}
+		return value;
+	}
+
+	/**
+	 * Seeds the decoded value cache with a value that is already known (e.g. the value the contents were created
+	 * from).
+	 * 
+	 * @param value
+	 */
+	protected final void seedDecodedValue(Object value) {
+		decodedValue = new DecodedValue(value.getClass(), value, contentVersion.get());
+	}
+
+	private static final class DecodedValue {
+		private final Class<?> type;
+		private final Object value;
+		private final int version;
+
+		private DecodedValue(Class<?> type, Object value, int version) {
+			this.type = type;
+			this.value = value;
+			this.version = version;
+		}
+	}
+
 	protected InputStream wrapInputStream(Supplier<InputStream> isSupplier) {
-		if (osCounter > 0) {
-			throw new IllegalStateException("Cannot open input stream while output stream is open.");
+		beginRead();
+		try {
+			return new InputStreamCounter(isSupplier.get());
+		} catch (RuntimeException | Error e) {
+			endRead();	// Stream was never opened, so release it.
+			throw e;
 		}
-		return new InputStreamCounter(isSupplier.get());
+	}
+
+	/**
+	 * Marks the start of a read that does not go through an InputStream (for example, transferTo()).  Until endRead()
+	 * is called, an OutputStream cannot be opened, just as if an InputStream were open.
+	 * 
+	 * @throws IllegalStateException if an OutputStream is open
+	 */
+	protected final void beginRead() {
+		int state;
+		do {
+			state = streamState.get();
+			if (state < 0) {
+				throw new IllegalStateException("Cannot open input stream while output stream is open.");
+			}
+		} while (!streamState.compareAndSet(state, state + 1));
+	}
+
+	/**
+	 * Marks the end of a read started by beginRead().
+	 */
+	protected final void endRead() {
+		streamState.decrementAndGet();
 	}
 	
 	private class InputStreamCounter extends InputStream {
 		private final InputStream is;
+		private final AtomicBoolean closed = new AtomicBoolean(false);
 
 		private InputStreamCounter(InputStream is) {
 			super();
 			this.is = is;
-			isCounter++;
 		}
 
 		@Override
@@ -178,8 +304,13 @@ public abstract class AbstractDataSource implements DataSource {
 
 		@Override
 		public void close() throws IOException {
-			is.close();
-			isCounter--;
+			try {
+				is.close();
+			} finally {
+				if (closed.compareAndSet(false, true)) {	// Only release once, even if close() is called repeatedly.
+					endRead();
+				}
+			}
 		}
 
 		@Override
@@ -207,19 +338,60 @@ public abstract class AbstractDataSource implements DataSource {
 	}
 	
 	protected OutputStream wrapOutputStream(Supplier<OutputStream> osSupplier) {
-		if (isCounter > 0) {
+		beginWrite();
+		try {
+			return new OutputStreamCounter(osSupplier.get());
+		} catch (RuntimeException | Error e) {
+			endWrite();	// Stream was never opened, so release it.
+			throw e;
+		}
+	}
+
+	/**
+	 * Marks the start of a change to the contents that does not go through an OutputStream (for example, discarding
+	 * them when the DataSource is closed).  Until endWrite() is called, an InputStream cannot be opened, just as if an
+	 * OutputStream were open.
+	 * 
+	 * @throws IllegalStateException if an InputStream is open
+	 */
+	protected final void beginWrite() {
+		if (!tryBeginWrite()) {
 			throw new IllegalStateException("Cannot open output stream while input stream is open.");
 		}
-		return new OutputStreamCounter(osSupplier.get());
+	}
+
+	/**
+	 * Same as beginWrite(), except that it returns false (rather than throwing) if an InputStream is open.
+	 * 
+	 * @return true if the change can go ahead, in which case endWrite() must be called once it is complete
+	 */
+	protected final boolean tryBeginWrite() {
+		int state;
+		do {
+			state = streamState.get();
+			if (state > 0) {
+				return false;
+			}
+		} while (!streamState.compareAndSet(state, state - 1));
+		contentVersion.incrementAndGet();	// Contents are about to change, so previously decoded values are no longer valid.
+		return true;
+	}
+
+	/**
+	 * Marks the end of a change started by beginWrite() or tryBeginWrite().
+	 */
+	protected final void endWrite() {
+		contentVersion.incrementAndGet();
+		streamState.incrementAndGet();
 	}
 	
 	private class OutputStreamCounter extends OutputStream {
 		private final OutputStream os;
+		private final AtomicBoolean closed = new AtomicBoolean(false);
 
 		private OutputStreamCounter(OutputStream os) {
 			super();
 			this.os = os;
-			osCounter++;
 		}
 
 		@Override
@@ -254,8 +426,13 @@ public abstract class AbstractDataSource implements DataSource {
 
 		@Override
 		public void close() throws IOException {
-			os.close();
-			osCounter--;
+			try {
+				os.close();
+			} finally {
+				if (closed.compareAndSet(false, true)) {	// Only release once, even if close() is called repeatedly.
+					endWrite();
+				}
+			}
 		}
 
 		@Override
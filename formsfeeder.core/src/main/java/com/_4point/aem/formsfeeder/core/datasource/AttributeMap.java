@@ -0,0 +1,141 @@
+package com._4point.aem.formsfeeder.core.datasource;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable map used to hold DataSource attributes.
+ * 
+ * Most DataSources have no attributes or only one or two, so the entries are held in a pair of arrays and searched
+ * linearly rather than in a HashMap.  Since instances cannot be modified, they can be shared between DataSources and
+ * returned to callers without making defensive copies.
+ *
+ */
+/* package */ final class AttributeMap extends AbstractMap<String, String> {
+	/* package */ static final AttributeMap EMPTY = new AttributeMap(new String[0], new String[0]);
+
+	private static final int LINEAR_SEARCH_LIMIT = 8;	// Above this, lookups use a HashMap instead of searching the arrays.
+
+	private final String[] keys;
+	private final String[] values;
+	private final Map<String, String> index;	// Only used for large maps, null otherwise.
+	private Set<Map.Entry<String, String>> entrySet = null;
+
+	private AttributeMap(String[] keys, String[] values) {
+		this.keys = keys;
+		this.values = values;
+		if (keys.length > LINEAR_SEARCH_LIMIT) {
+			Map<String, String> map = new HashMap<>((int)(keys.length / 0.75f) + 1);
+			for (int i = 0; i < keys.length; i++) {
+				map.put(keys[i], values[i]);
+			}
+			this.index = map;
+		} else {
+			this.index = null;
+		}
+	}
+
+	/**
+	 * Returns an AttributeMap containing the same entries as the map provided.  If the map provided is already an
+	 * AttributeMap, it is returned as is.
+	 * 
+	 * @param map
+	 * @return immutable map containing the entries in the map provided
+	 */
+	/* package */ static AttributeMap copyOf(Map<String, String> map) {
+		if (map instanceof AttributeMap) {
+			return (AttributeMap) map;
+		}
+		Objects.requireNonNull(map, "Attributes map cannot be null.");
+		if (map.isEmpty()) {
+			return EMPTY;
+		}
+		String[] keys = new String[map.size()];
+		String[] values = new String[keys.length];
+		int i = 0;
+		for (Map.Entry<String, String> entry : map.entrySet()) {
+			keys[i] = entry.getKey();
+			values[i] = entry.getValue();
+			i++;
+		}
+		return new AttributeMap(keys, values);
+	}
+
+	private int indexOf(Object key) {
+		for (int i = 0; i < keys.length; i++) {
+			if (Objects.equals(keys[i], key)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public String get(Object key) {
+		if (index != null) {
+			return index.get(key);
+		}
+		int i = indexOf(key);
+		return i < 0 ? null : values[i];
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return index != null ? index.containsKey(key) : indexOf(key) >= 0;
+	}
+
+	@Override
+	public int size() {
+		return keys.length;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return keys.length == 0;
+	}
+
+	@Override
+	public Set<Map.Entry<String, String>> entrySet() {
+		Set<Map.Entry<String, String>> result = entrySet;
+		if (result == null) {
+			result = keys.length == 0 ? Collections.emptySet() : new EntrySet();
+			entrySet = result;
+		}
+		return result;
+	}
+
+	private final class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+		@Override
+		public Iterator<Map.Entry<String, String>> iterator() {
+			return new Iterator<Map.Entry<String, String>>() {
+				private int next = 0;
+
+				@Override
+				public boolean hasNext() {
+					return next < keys.length;
+				}
+
+				@Override
+				public Map.Entry<String, String> next() {
+					if (next >= keys.length) {
+						throw new NoSuchElementException();
+					}
+					int i = next++;
+					return new AbstractMap.SimpleImmutableEntry<>(keys[i], values[i]);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return keys.length;
+		}
+	}
+}
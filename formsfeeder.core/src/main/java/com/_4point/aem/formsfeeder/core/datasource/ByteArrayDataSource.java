@@ -1,62 +1,125 @@
 package com._4point.aem.formsfeeder.core.datasource;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+
+import com._4point.aem.formsfeeder.core.support.ExposedByteArrayOutputStream;
 
 /* package */ class ByteArrayDataSource extends AbstractDataSource implements DataSource {
 
 	private byte[] contents;
+	private int length;		// Number of valid bytes in contents (contents may be longer if it was adopted from a buffer).
 	private Path filename = null;
 	
 	/* package */ ByteArrayDataSource() {
 		super();
 		this.contents = new byte[0];
+		this.length = 0;
 	}
 
 	/* package */ ByteArrayDataSource(byte[] contents) {
 		super();
 		this.contents = Arrays.copyOf(contents, contents.length);
+		this.length = contents.length;
 	}
 
 	/* package */ ByteArrayDataSource(byte[] contents, String name) {
 		super(name);
 		this.contents = Arrays.copyOf(contents, contents.length);
+		this.length = contents.length;
 	}
 
 	/* package */ ByteArrayDataSource(byte[] contents, String name, Map<String, String> attributes) {
 		super(name, attributes);
 		this.contents = Arrays.copyOf(contents, contents.length);
+		this.length = contents.length;
 	}
 
 	/* package */ ByteArrayDataSource(byte[] contents, String name, MimeType contentType) {
 		super(name, contentType);
 		this.contents = Arrays.copyOf(contents, contents.length);
+		this.length = contents.length;
 	}
 
 	/* package */ ByteArrayDataSource(byte[] contents, String name, MimeType contentType, Map<String, String> attributes) {
 		super(name, contentType, attributes);
 		this.contents = Arrays.copyOf(contents, contents.length);
+		this.length = contents.length;
+	}
+
+	/**
+	 * Constructor that takes ownership of the byte array provided rather than copying it.  Only the first length
+	 * bytes of the array are used.
+	 */
+	private ByteArrayDataSource(byte[] contents, int length, String name, MimeType contentType, Map<String, String> attributes) {
+		super(name, contentType, attributes);
+		if (length < 0 || length > contents.length) {
+			throw new IllegalArgumentException("Invalid length (" + length + ") for byte array of length " + contents.length + ".");
+		}
+		this.contents = contents;
+		this.length = length;
+	}
+
+	/**
+	 * Creates a ByteArrayDataSource that adopts the byte array provided rather than making a copy of it.
+	 * 
+	 * The caller is handing over ownership of the array and must not modify it afterwards.
+	 * 
+	 * @param contents	contents of the DataSource, this array is not copied
+	 * @param name
+	 * @param contentType
+	 * @param attributes
+	 * @return new ByteArrayDataSource that shares the array provided
+	 */
+	/* package */ static ByteArrayDataSource adopt(byte[] contents, String name, MimeType contentType, Map<String, String> attributes) {
+		return new ByteArrayDataSource(contents, contents.length, name, contentType, attributes);
 	}
 
 	/* package */ final byte[] getContents() {
+		if (contents.length != length) {
+			// Trim any unused space from an adopted buffer.  This happens at most once.
+			contents = Arrays.copyOf(contents, length);
+		}
 		return contents;
 	}
 
 	@Override
 	public InputStream inputStream() {
-		return wrapInputStream(()->new ByteArrayInputStream(contents));
+		return wrapInputStream(()->new ByteArrayInputStream(contents, 0, length));
+	}
+
+	@Override
+	public ByteBuffer asReadOnlyByteBuffer() {
+		return ByteBuffer.wrap(contents, 0, length).asReadOnlyBuffer();
+	}
+
+	@Override
+	public OptionalLong contentLength() {
+		return OptionalLong.of(length);
+	}
+
+	@Override
+	public long transferTo(WritableByteChannel target) throws IOException {
+		beginRead();	// Treat the transfer like an open InputStream.
+		try {
+			return writeFully(asReadOnlyByteBuffer(), target);
+		} finally {
+			endRead();
+		}
 	}
 
 	@Override
 	public OutputStream outputStream() {
-		return wrapOutputStream(()->new LocalByteArrayOutputStream(new ByteArrayOutputStream()));
+		return wrapOutputStream(()->new LocalByteArrayOutputStream(new ExposedByteArrayOutputStream()));
 	}
 
 	@Override
@@ -69,9 +132,9 @@ import java.util.Optional;
 	}
 
 	private class LocalByteArrayOutputStream extends OutputStream {
-		private final ByteArrayOutputStream bos;
+		private final ExposedByteArrayOutputStream bos;
 
-		private LocalByteArrayOutputStream(ByteArrayOutputStream bos) {
+		private LocalByteArrayOutputStream(ExposedByteArrayOutputStream bos) {
 			super();
 			this.bos = bos;
 		}
@@ -94,7 +157,9 @@ import java.util.Optional;
 		@Override
 		public void close() throws IOException {
 			bos.close();
-			ByteArrayDataSource.this.contents = bos.toByteArray();
+			// Take over the buffer rather than copying it.
+			ByteArrayDataSource.this.contents = bos.backingArray();
+			ByteArrayDataSource.this.length = bos.size();
 		}
 
 		@Override
@@ -0,0 +1,177 @@
+package com._4point.aem.formsfeeder.core.datasource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import com._4point.aem.formsfeeder.core.support.ExposedByteArrayOutputStream;
+
+/**
+ * In-memory DataSource that holds its contents in deflated form.
+ * 
+ * Text formats such as XML and XDP typically compress 5-10 times, so holding them deflated greatly reduces the heap
+ * used by each in-flight request.  The contents are inflated on demand each time inputStream() is called, which
+ * costs CPU on every read, so this is best suited to contents that are large and read only a few times.
+ *
+ */
+/* package */ class CompressedDataSource extends AbstractDataSource implements DataSource {
+	private static final int BUFFER_SIZE = 8192;
+
+	private byte[] compressed;
+	private int length;		// Uncompressed length of the contents.
+	private Path filename = null;
+
+	/* package */ CompressedDataSource(String name, MimeType contentType, Map<String, String> attributes) {
+		super(name, contentType, attributes);
+		this.compressed = deflate(new byte[0], 0);
+		this.length = 0;
+	}
+
+	/**
+	 * Constructor that takes ownership of contents that have already been deflated (see deflate()).
+	 */
+	private CompressedDataSource(byte[] compressed, int length, String name, MimeType contentType, Map<String, String> attributes) {
+		super(name, contentType, attributes);
+		this.compressed = compressed;
+		this.length = length;
+	}
+
+	/**
+	 * Creates a CompressedDataSource from uncompressed contents, if compressing them actually saves space.
+	 * 
+	 * @param contents	uncompressed contents, these are not retained
+	 * @param name
+	 * @param contentType
+	 * @param attributes
+	 * @return the new DataSource, or empty if the compressed contents would not be smaller than the contents provided
+	 */
+	/* package */ static Optional<CompressedDataSource> compress(byte[] contents, String name, MimeType contentType, Map<String, String> attributes) {
+		return compress(contents, contents.length, name, contentType, attributes);
+	}
+
+	/**
+	 * Same as compress(byte[], ...) but only compresses the first length bytes of the array provided.
+	 */
+	/* package */ static Optional<CompressedDataSource> compress(byte[] contents, int length, String name, MimeType contentType, Map<String, String> attributes) {
+		byte[] deflated = deflate(contents, length);
+		return deflated.length < length ? Optional.of(new CompressedDataSource(deflated, length, name, contentType, attributes)) : Optional.empty();
+	}
+
+	/* package */ final int compressedLength() {
+		return compressed.length;
+	}
+
+	@Override
+	public InputStream inputStream() {
+		return wrapInputStream(()->new InflatingInputStream(compressed));
+	}
+
+	@Override
+	public OptionalLong contentLength() {
+		return OptionalLong.of(length);
+	}
+
+	@Override
+	public OutputStream outputStream() {
+		return wrapOutputStream(DeflatingOutputStream::new);
+	}
+
+	@Override
+	public Optional<Path> filename() {
+		return Optional.ofNullable(filename);
+	}
+
+	final void filename(Path filename) {
+		this.filename = filename;
+	}
+
+	private static byte[] deflate(byte[] contents, int length) {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(contents, 0, length);
+			deflater.finish();
+			ExposedByteArrayOutputStream out = new ExposedByteArrayOutputStream(Math.max(64, length / 4));
+			byte[] buffer = new byte[Math.min(BUFFER_SIZE, Math.max(64, length))];
+			while (!deflater.finished()) {
+				int count = deflater.deflate(buffer);
+				out.write(buffer, 0, count);
+			}
+			return out.toByteArrayNoCopy();
+		} finally {
+			deflater.end();		// Release the native zlib memory now rather than waiting for finalization.
+		}
+	}
+
+	/**
+	 * InflaterInputStream does not release the native memory of an Inflater that it did not create, so this does.
+	 */
+	private static class InflatingInputStream extends InflaterInputStream {
+		private boolean closed = false;
+
+		private InflatingInputStream(byte[] compressed) {
+			super(new ByteArrayInputStream(compressed), new Inflater(), BUFFER_SIZE);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!closed) {
+				closed = true;
+				inf.end();
+				super.close();
+			}
+		}
+	}
+
+	/**
+	 * Deflates the bytes as they are written and replaces the contents when it is closed.
+	 */
+	private class DeflatingOutputStream extends DeflaterOutputStream {
+		private final ExposedByteArrayOutputStream bos;
+		private long count = 0;
+		private boolean closed = false;
+
+		private DeflatingOutputStream() {
+			this(new ExposedByteArrayOutputStream());
+		}
+
+		private DeflatingOutputStream(ExposedByteArrayOutputStream bos) {
+			super(bos, new Deflater(Deflater.BEST_SPEED), BUFFER_SIZE);
+			this.bos = bos;
+		}
+
+		// DeflaterOutputStream routes write(int) and write(byte[]) through this method, so every byte is counted here.
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			super.write(b, off, len);
+			count += len;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				finish();
+				super.close();
+			} finally {
+				def.end();
+			}
+			if (count > Integer.MAX_VALUE) {
+				throw new IllegalStateException("DataSource '" + name() + "' is too large (" + count + " bytes) to hold in memory.");
+			}
+			CompressedDataSource.this.compressed = bos.toByteArrayNoCopy();
+			CompressedDataSource.this.length = (int) count;
+		}
+	}
+}
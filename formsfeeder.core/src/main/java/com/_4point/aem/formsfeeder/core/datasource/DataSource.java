@@ -1,16 +1,102 @@
 package com._4point.aem.formsfeeder.core.datasource;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 
-public interface DataSource {
+import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
+
+public interface DataSource extends AutoCloseable {
 	MimeType contentType();
 	InputStream inputStream();
 	String name();	// Cannot be null, all data sources must have a name (empty string is valid though).
 	OutputStream outputStream();
 	Optional<Path> filename();
 	Map<String, String> attributes();
+
+	/**
+	 * Returns the contents of this DataSource as a read-only ByteBuffer.
+	 * 
+	 * The default implementation reads the contents into a heap buffer.  Implementations that already hold their
+	 * contents in memory (or can map them into memory) should override this to avoid the copy.  The buffer returned
+	 * reflects the contents at the time of the call and should not be used after the contents have been rewritten.
+	 * 
+	 * @return read-only ByteBuffer containing the contents of this DataSource
+	 */
+	default ByteBuffer asReadOnlyByteBuffer() {
+		try (InputStream is = inputStream()) {
+			return ByteBuffer.wrap(Jdk8Utils.readAllBytes(is, contentLength().orElse(is.available()))).asReadOnlyBuffer();
+		} catch (IOException e) {
+			throw new IllegalStateException("Error while reading DataSource '" + name() + "' into ByteBuffer.", e);
+		}
+	}
+
+	/**
+	 * Returns a channel that reads the contents of this DataSource.
+	 * 
+	 * The default implementation wraps inputStream(), so the same restrictions apply (i.e. it cannot be opened while
+	 * an output stream is open).  The caller is responsible for closing the channel.
+	 * 
+	 * @return channel that reads the contents of this DataSource
+	 */
+	default ReadableByteChannel readableChannel() {
+		return Channels.newChannel(inputStream());
+	}
+
+	/**
+	 * Writes the contents of this DataSource to the target channel.
+	 * 
+	 * The default implementation copies the contents from readableChannel() through a buffer.  Implementations that
+	 * can hand the contents to the target more directly (for example, FileChannel.transferTo()) should override this.
+	 * 
+	 * @param target	channel to write the contents to, it is not closed by this method.
+	 * @return the number of bytes written
+	 * @throws IOException
+	 */
+	default long transferTo(WritableByteChannel target) throws IOException {
+		try (ReadableByteChannel source = readableChannel()) {
+			ByteBuffer buffer = ByteBuffer.allocate(8192);
+			long count = 0;
+			while (source.read(buffer) >= 0) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					count += target.write(buffer);
+				}
+				buffer.clear();
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * Returns the length (in bytes) of the contents of this DataSource, if it is known without reading the contents.
+	 * 
+	 * This allows writers to set a Content-Length rather than using chunked encoding.  The default implementation
+	 * returns an empty OptionalLong (i.e. the length is unknown).
+	 * 
+	 * @return the length of the contents or an empty OptionalLong if the length is not known
+	 */
+	default OptionalLong contentLength() {
+		return OptionalLong.empty();
+	}
+
+	/**
+	 * Releases the resources (temporary files, pooled or off-heap memory, shared payload references) that hold the
+	 * contents of this DataSource, without waiting for it to be garbage collected.
+	 * 
+	 * The DataSource should not be used after it has been closed.  Closing a DataSource more than once has no further
+	 * effect.  The default implementation does nothing, which suits DataSources whose contents are ordinary heap
+	 * objects or files that belong to someone else.
+	 */
+	@Override
+	default void close() {
+	}
 }
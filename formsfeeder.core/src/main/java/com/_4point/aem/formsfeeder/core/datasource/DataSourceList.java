@@ -5,12 +5,20 @@ import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.RandomAccess;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -20,10 +28,11 @@ import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
  * Wraps a list of DataSource objects and provides common functions for operating on that list.
  *
  */
-public class DataSourceList {
+public class DataSourceList implements AutoCloseable {
 	private static final DataSourceList EMPTY_LIST = new DataSourceList();
 	
 	private final List<DataSource> list;
+	private volatile Map<String, NameIndexEntry> nameIndex = null;	// Lazily built on the first lookup by name.
 
 	/**
 	 * Constructs an empty list.  Just used by the EMPTY_LIST constant.
@@ -33,12 +42,14 @@ public class DataSourceList {
 	}
 	
 	/**
-	 * Private constructor that is used by from() method.  It makes a defensive copy of the provided list. 
+	 * Private constructor that is used by the from() methods and the Builder.  The list provided must be unmodifiable
+	 * and must not be modified by anyone else, so callers are responsible for making a defensive copy if one is
+	 * required.
 	 * 
 	 * @param list
 	 */
 	private DataSourceList(List<DataSource> list) {
-		this.list = Jdk8Utils.copyOfList(list);
+		this.list = list;
 	}
 
 	/**
@@ -65,13 +76,15 @@ public class DataSourceList {
 	 * 
 	 * Will generate a NullPointerException if the name parameter is null.
 	 * 
-	 * Shortcut function for <code>getDataSource((ds)-&gt;ds.name().equals(name))</code>
+	 * Equivalent to <code>getDataSource((ds)-&gt;ds.name().equals(name))</code>, but uses an index of names that is
+	 * built on the first lookup by name.
 	 * 
 	 * @param name
 	 * @return the first DataSource with the specified name
 	 */
 	public final Optional<DataSource> getDataSourceByName(final String name) {
-		return getDataSource(byName(name));
+		NameIndexEntry entry = nameIndex().get(Objects.requireNonNull(name, "Target DataSource name cannot be null."));
+		return entry == null ? Optional.empty() : entry.first;
 	}
 
 	/**
@@ -97,13 +110,15 @@ public class DataSourceList {
 	 * 
 	 * Will generate a NullPointerException if the name parameter is null.
 	 * 
-	 * Shortcut function for <code>getDataSources((ds)-&gt;ds.name().equals(name))</code>
+	 * Equivalent to <code>getDataSources((ds)-&gt;ds.name().equals(name))</code>, but uses an index of names that is
+	 * built on the first lookup by name.
 	 * 
 	 * @param name
 	 * @return a list of the DataSource objects with the specified name
 	 */
 	public final List<DataSource> getDataSourcesByName(String name) {
-		return getDataSources(byName(name));
+		NameIndexEntry entry = nameIndex().get(Objects.requireNonNull(name, "Target DataSource name cannot be null."));
+		return entry == null ? Collections.emptyList() : entry.all;
 	}
 
 	/**
@@ -125,6 +140,88 @@ public class DataSourceList {
 		return Jdk8Utils.copyOfList(found);
 	}
 
+	/**
+	 * Closes every DataSource in the list, releasing the temporary files, pooled or off-heap memory and shared
+	 * payloads behind them (see DataSource.close()).
+	 * 
+	 * Every DataSource is closed even if closing one of them fails.  The first failure is rethrown once all of them
+	 * have been closed (with any later failures added as suppressed exceptions).  A DataSource may appear in more
+	 * than one list (e.g. a plug-in may return some of its inputs), so closing it repeatedly is harmless.
+	 */
+	@Override
+	public void close() {
+		RuntimeException failure = null;
+		for (DataSource ds : list) {
+			try {
+				ds.close();
+			} catch (RuntimeException e) {
+				if (failure == null) {
+					failure = e;
+				} else {
+					failure.addSuppressed(e);
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Returns the index of DataSources by name, building it if this is the first lookup by name.
+	 * 
+	 * The index is immutable once built, so if two threads race to build it, they each build an identical index and
+	 * it doesn't matter which one wins.  DataSource names do not change once a DataSource is in a list.
+	 * 
+	 * @return map of DataSource name to the DataSources with that name (in list order)
+	 */
+	private Map<String, NameIndexEntry> nameIndex() {
+		Map<String, NameIndexEntry> index = nameIndex;
+		if (index == null) {
+			index = buildNameIndex(list);
+			nameIndex = index;
+		}
+		return index;
+	}
+
+	private static Map<String, NameIndexEntry> buildNameIndex(List<DataSource> list) {
+		Map<String, NameIndexEntry> index = new HashMap<>((int)(list.size() / 0.75f) + 1);
+		for (DataSource ds : list) {
+			NameIndexEntry entry = index.get(ds.name());
+			if (entry == null) {
+				index.put(ds.name(), new NameIndexEntry(ds));
+			} else {
+				entry.add(ds);
+			}
+		}
+		return Collections.unmodifiableMap(index);
+	}
+
+	/**
+	 * The DataSources that share a name.  The first one is pre-wrapped in an Optional so that lookups do not need
+	 * to allocate.  Entries are only modified while the index is being built, the index is published through a
+	 * volatile field afterwards.
+	 */
+	private static final class NameIndexEntry {
+		private final Optional<DataSource> first;
+		private List<DataSource> all;
+		private List<DataSource> duplicates = null;	// Backs "all" once a second DataSource with the same name is added.
+
+		private NameIndexEntry(DataSource ds) {
+			this.first = Optional.of(ds);
+			this.all = Collections.singletonList(ds);
+		}
+
+		private void add(DataSource ds) {
+			if (duplicates == null) {
+				duplicates = new ArrayList<>(4);
+				duplicates.add(first.get());
+				all = Collections.unmodifiableList(duplicates);
+			}
+			duplicates.add(ds);
+		}
+	}
+
 	/**
 	 * Static constructor for DataSourceList.  A defensive copy is made of the list, so that subsequent changes
 	 * do not affect the list.
@@ -136,23 +233,80 @@ public class DataSourceList {
 		if (list.isEmpty()) {
 			return EMPTY_LIST;	// Don't bother creating a new object.  Re-use EMPTY_LIST.
 		} else {
-			return new DataSourceList(list);
+			return new DataSourceList(Jdk8Utils.copyOfList(list));
 		}
 	}
 	
 	/**
 	 * Static constructor for DataSourceList.  Merges one or more other DataSourceLists into one. 
 	 * 
+	 * The DataSources are not copied.  Since DataSourceLists are immutable, the resulting list just refers to the
+	 * lists it was merged from, so merging costs O(number of lists) rather than O(number of DataSources).
+	 * 
 	 * @param srcLists
 	 * @return a DataSourceList containing all the DataSources in the DataSourceLists provided
 	 */
 	public static DataSourceList from(DataSourceList... srcLists) {
-		List<DataSource> accumulator = new ArrayList<>();
+		List<List<DataSource>> parts = new ArrayList<>(srcLists.length);
 		for(DataSourceList srcList : srcLists) {
-			accumulator.addAll(srcList.list());
+			CompositeList.addParts(parts, srcList.list());
+		}
+		if (parts.isEmpty()) {
+			return EMPTY_LIST;
+		} else if (parts.size() == 1) {
+			return new DataSourceList(parts.get(0));
 		}
-		return new DataSourceList(accumulator);
+		return new DataSourceList(new CompositeList(parts));
 	}
+
+	/**
+	 * Unmodifiable list that is the concatenation of several other unmodifiable lists.  Used to merge DataSourceLists
+	 * without copying their contents.
+	 * 
+	 * Nested CompositeLists are flattened and empty lists are dropped, so lookups by index only ever search one level.
+	 */
+	private static final class CompositeList extends AbstractList<DataSource> implements RandomAccess {
+		private final List<List<DataSource>> parts;
+		private final int[] offsets;	// offsets[i] is the index of the first element of parts[i]
+		private final int size;
+
+		private CompositeList(List<List<DataSource>> parts) {
+			this.parts = parts;
+			this.offsets = new int[parts.size()];
+			int total = 0;
+			for (int i = 0; i < offsets.length; i++) {
+				offsets[i] = total;
+				total += parts.get(i).size();
+			}
+			this.size = total;
+		}
+
+		private static void addParts(List<List<DataSource>> parts, List<DataSource> list) {
+			if (list instanceof CompositeList) {
+				parts.addAll(((CompositeList)list).parts);
+			} else if (!list.isEmpty()) {
+				parts.add(list);
+			}
+		}
+
+		@Override
+		public DataSource get(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+			int part = Arrays.binarySearch(offsets, index);
+			if (part < 0) {
+				part = -part - 2;	// Index falls inside the part that starts before the insertion point.
+			}
+			return parts.get(part).get(index - offsets[part]);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
 	/**
 	 * Static constructor for an empty DataSourceList.
 	 * 
@@ -192,6 +346,13 @@ public class DataSourceList {
 	public static class Builder {
 
 		List<DataSource> underConstruction = new ArrayList<>();
+		private DataSourceList built = EMPTY_LIST;	// DataSources from previous calls to build().
+		private int spoolThreshold = SpoolingDataSource.DEFAULT_THRESHOLD;
+		private Path spoolDirectory = null;
+		private int compressionThreshold = -1;		// Negative means compression is disabled.
+		private List<MimeType> compressedContentTypes = Collections.emptyList();
+		private PayloadStore payloadStore = null;
+		private OffHeapArena offHeapArena = null;
 		
 		private Builder() {
 		}
@@ -200,8 +361,156 @@ public class DataSourceList {
 			return new Builder();
 		}
 
+		/**
+		 * Builds the DataSourceList.
+		 * 
+		 * The DataSources added so far are handed over to the DataSourceList rather than copied.  The Builder can
+		 * continue to be used afterwards, subsequent builds will include the DataSources from previous builds.
+		 * 
+		 * @return a DataSourceList containing all the DataSources added to this Builder
+		 */
 		public DataSourceList build() {
-			return DataSourceList.from(underConstruction);
+			if (!underConstruction.isEmpty()) {
+				built = DataSourceList.from(built, new DataSourceList(Collections.unmodifiableList(underConstruction)));
+				underConstruction = new ArrayList<>();
+			}
+			return built;
+		}
+		
+		/**
+		 * Sets the maximum number of bytes that DataSources created from InputStreams will hold in memory.  Anything
+		 * larger is spooled to a temporary file.  Defaults to 1 MB.
+		 * 
+		 * Only affects InputStream DataSources added after this call.
+		 * 
+		 * @param threshold	maximum number of bytes to hold in memory
+		 * @return
+		 */
+		public Builder spoolThreshold(int threshold) {
+			if (threshold < 0) {
+				throw new IllegalArgumentException("Spool threshold cannot be negative (" + threshold + ").");
+			}
+			this.spoolThreshold = threshold;
+			return this;
+		}
+		
+		/**
+		 * Sets the directory where spooled InputStream DataSources write their temporary files.  Defaults to the system
+		 * temporary directory (when null).
+		 * 
+		 * Only affects InputStream DataSources added after this call.
+		 * 
+		 * @param directory	directory for temporary files, or null to use the system temporary directory
+		 * @return
+		 */
+		public Builder spoolDirectory(Path directory) {
+			this.spoolDirectory = directory;
+			return this;
+		}
+		
+		/**
+		 * Holds in-memory contents of the given content types in compressed form when they are larger than the
+		 * threshold.  The contents are inflated again each time they are read.
+		 * 
+		 * Text formats such as XML and XDP typically compress 5-10 times, so this greatly reduces the memory held by
+		 * large documents at the cost of CPU time on every read.  Content types are matched on type and subtype only
+		 * (i.e. any charset parameter is ignored).  Contents that do not get smaller when compressed are held as is.
+		 * 
+		 * Only affects byte array and InputStream DataSources added after this call.  InputStream contents are only
+		 * compressed if they are held in memory, so contents larger than the spool threshold (which are spooled to
+		 * disk) and contents read through a PayloadStore or into an OffHeapArena are not compressed.
+		 * 
+		 * @param threshold	minimum number of bytes before contents are compressed
+		 * @param contentTypes	content types to compress, for example StandardMimeTypes.APPLICATION_XML_TYPE
+		 * @return
+		 */
+		public Builder compressAbove(int threshold, MimeType... contentTypes) {
+			if (threshold < 0) {
+				throw new IllegalArgumentException("Compression threshold cannot be negative (" + threshold + ").");
+			}
+			this.compressionThreshold = threshold;
+			this.compressedContentTypes = Jdk8Utils.listOf(Arrays.copyOf(contentTypes, contentTypes.length));
+			return this;
+		}
+		
+		/**
+		 * Reads InputStream DataSources through a PayloadStore, so that identical contents are shared between
+		 * DataSources (including DataSources in other DataSourceLists) rather than being held once per DataSource.
+		 * 
+		 * Only affects InputStream DataSources added after this call.
+		 * 
+		 * @param store	store to read InputStreams through, or null to give each DataSource its own contents
+		 * @return
+		 */
+		public Builder payloadStore(PayloadStore store) {
+			this.payloadStore = store;
+			return this;
+		}
+		
+		/**
+		 * Reads InputStream DataSources into direct (off-heap) memory owned by an OffHeapArena.  The memory is freed
+		 * when the arena is closed, after which the DataSources must no longer be used.  Contents are never spooled to
+		 * disk.
+		 * 
+		 * If a PayloadStore has also been provided, then the PayloadStore takes precedence (shared contents cannot be
+		 * owned by a single arena).
+		 * 
+		 * Only affects InputStream DataSources added after this call.
+		 * 
+		 * @param arena	arena to hold InputStream contents, or null to hold them on the heap (or spool them)
+		 * @return
+		 */
+		public Builder offHeapArena(OffHeapArena arena) {
+			this.offHeapArena = arena;
+			return this;
+		}
+		
+		private DataSource inputStreamDataSource(InputStream is, String name, MimeType contentType, Path p, Map<String, String> attributes) {
+			if (payloadStore != null) {
+				StoredDataSource ds = payloadStore.add(is, name, contentType, attributes);
+				ds.filename(p);
+				return ds;
+			}
+			if (offHeapArena != null) {
+				OffHeapDataSource ds = offHeapArena.add(is, name, contentType, attributes);
+				ds.filename(p);
+				return ds;
+			}
+			SpoolingDataSource ds = new SpoolingDataSource(spoolThreshold, spoolDirectory, name, contentType, attributes);
+			ds.filename(p);
+			ds.readFrom(is);
+			if (shouldCompress(ds.contentLength().orElse(0), contentType)) {
+				Optional<CompressedDataSource> compressed = ds.compressedCopy();	// Contents are in memory, so nothing to release.
+				if (compressed.isPresent()) {
+					return compressed.get();
+				}
+			}
+			return ds;
+		}
+		
+		private DataSource byteArrayDataSource(byte[] ba, boolean owned, String name, MimeType contentType, Path p, Map<String, String> attributes) {
+			if (shouldCompress(ba.length, contentType)) {
+				Optional<CompressedDataSource> compressed = CompressedDataSource.compress(ba, name, contentType, attributes);
+				if (compressed.isPresent()) {
+					compressed.get().filename(p);
+					return compressed.get();
+				}
+			}
+			ByteArrayDataSource ds = owned ? ByteArrayDataSource.adopt(ba, name, contentType, attributes) : new ByteArrayDataSource(ba, name, contentType, attributes);
+			ds.filename(p);
+			return ds;
+		}
+		
+		private boolean shouldCompress(long length, MimeType contentType) {
+			if (compressionThreshold < 0 || length <= compressionThreshold || contentType == null) {
+				return false;
+			}
+			for (MimeType compressedType : compressedContentTypes) {
+				if (compressedType.type().equals(contentType.type()) && compressedType.subtype().equals(contentType.subtype())) {
+					return true;
+				}
+			}
+			return false;
 		}
 		
 		public Builder add(DataSource ds) {
@@ -219,52 +528,146 @@ public class DataSourceList {
 			return this;
 		}
 
+		/**
+		 * Adds a DataSource for a file that is memory-mapped when it is read.
+		 * 
+		 * Reads are served from a read-only mapping of the file rather than through heap buffers, which is useful for
+		 * large files (such as templates) that are read many times.  On some platforms a mapped file cannot be deleted
+		 * or replaced until the mapping has been garbage collected, so this is opt-in.  The DataSource is read-only,
+		 * its outputStream() throws an IllegalStateException.
+		 * 
+		 * @param name
+		 * @param p
+		 * @return
+		 */
+		public Builder addMapped(String name, Path p) {
+			underConstruction.add(new FileDataSource(p, Objects.requireNonNull(name, "Name cannot be null.")).memoryMapped(true));
+			return this;
+		}
+
+		public Builder addMapped(String name, Path p, Map<String, String> attributes) {
+			underConstruction.add(new FileDataSource(p, Objects.requireNonNull(name, "Name cannot be null."), attributes).memoryMapped(true));
+			return this;
+		}
+
+		/**
+		 * Adds a DataSource that reads an InputStream into a list of fixed-size (64 KB) segments taken from a shared
+		 * pool.
+		 * 
+		 * The contents are never spooled, grown or copied into one large array, so large contents do not cause
+		 * humongous allocations.  The segments are returned to the pool when the DataSource (or the DataSourceList it
+		 * is in) is closed.  If it is never closed, the segments are left to the garbage collector.
+		 * 
+		 * @param name
+		 * @param is
+		 * @param contentType
+		 * @return
+		 */
+		public Builder addSegmented(String name, InputStream is, MimeType contentType) {
+			return addSegmented(name, is, contentType, Collections.emptyMap());
+		}
+
+		public Builder addSegmented(String name, InputStream is, MimeType contentType, Map<String, String> attributes) {
+			underConstruction.add(new SegmentedDataSource(Objects.requireNonNull(name, "Name cannot be null."), contentType, attributes).readFrom(is));
+			return this;
+		}
+
 		public Builder add(String name, byte[] ba) {
-			underConstruction.add(new ByteArrayDataSource(ba, Objects.requireNonNull(name, "Name cannot be null.")));
+			underConstruction.add(byteArrayDataSource(ba, false, Objects.requireNonNull(name, "Name cannot be null."), StandardMimeTypes.APPLICATION_OCTET_STREAM_TYPE, null, Collections.emptyMap()));
 			return this;
 		}
 
 		public Builder add(String name, byte[] ba, MimeType contentType) {
-			underConstruction.add(new ByteArrayDataSource(ba, Objects.requireNonNull(name, "Name cannot be null."), contentType));
+			underConstruction.add(byteArrayDataSource(ba, false, Objects.requireNonNull(name, "Name cannot be null."), contentType, null, Collections.emptyMap()));
 			return this;
 		}
 
 		public Builder add(String name, byte[] ba, Path p) {
-			ByteArrayDataSource ds = new ByteArrayDataSource(ba, Objects.requireNonNull(name, "Name cannot be null."));
-			ds.filename(p);
-			underConstruction.add(ds);
+			underConstruction.add(byteArrayDataSource(ba, false, Objects.requireNonNull(name, "Name cannot be null."), StandardMimeTypes.APPLICATION_OCTET_STREAM_TYPE, p, Collections.emptyMap()));
 			return this;
 		}
 
 		public Builder add(String name, byte[] ba, MimeType contentType, Path p) {
-			ByteArrayDataSource ds = new ByteArrayDataSource(ba, Objects.requireNonNull(name, "Name cannot be null."), contentType);
-			ds.filename(p);
-			underConstruction.add(ds);
+			underConstruction.add(byteArrayDataSource(ba, false, Objects.requireNonNull(name, "Name cannot be null."), contentType, p, Collections.emptyMap()));
+			return this;
+		}
+
+		/**
+		 * Adds a DataSource that takes ownership of the byte array provided.
+		 * 
+		 * Unlike add(String, byte[], MimeType), the array is not copied, so the caller must not modify the array after
+		 * calling this method.  Use this when the array was created solely to be placed into a DataSource (for example,
+		 * the result of reading a stream) to avoid holding two copies of the contents in memory.
+		 * 
+		 * @param name
+		 * @param ba	contents of the DataSource, ownership is transferred to the DataSource
+		 * @param contentType
+		 * @return
+		 */
+		public Builder addOwned(String name, byte[] ba, MimeType contentType) {
+			underConstruction.add(byteArrayDataSource(ba, true, Objects.requireNonNull(name, "Name cannot be null."), contentType, null, Collections.emptyMap()));
+			return this;
+		}
+
+		public Builder addOwned(String name, byte[] ba, MimeType contentType, Path p) {
+			underConstruction.add(byteArrayDataSource(ba, true, Objects.requireNonNull(name, "Name cannot be null."), contentType, p, Collections.emptyMap()));
+			return this;
+		}
+
+		public Builder addOwned(String name, byte[] ba, MimeType contentType, Map<String, String> attributes) {
+			underConstruction.add(byteArrayDataSource(ba, true, Objects.requireNonNull(name, "Name cannot be null."), contentType, null, attributes));
+			return this;
+		}
+
+		public Builder addOwned(String name, byte[] ba, MimeType contentType, Path p, Map<String, String> attributes) {
+			underConstruction.add(byteArrayDataSource(ba, true, Objects.requireNonNull(name, "Name cannot be null."), contentType, p, attributes));
+			return this;
+		}
+
+		/**
+		 * Adds a DataSource containing the contents of an InputStream.  The InputStream is read until end of stream
+		 * but is not closed.
+		 * 
+		 * Contents that are larger than the spool threshold (see spoolThreshold(int)) are written out to a temporary
+		 * file rather than being held in memory.
+		 * 
+		 * @param name
+		 * @param is
+		 * @param contentType
+		 * @return
+		 */
+		public Builder add(String name, InputStream is, MimeType contentType) {
+			underConstruction.add(inputStreamDataSource(is, Objects.requireNonNull(name, "Name cannot be null."), contentType, null, Collections.emptyMap()));
+			return this;
+		}
+
+		public Builder add(String name, InputStream is, MimeType contentType, Path p) {
+			underConstruction.add(inputStreamDataSource(is, Objects.requireNonNull(name, "Name cannot be null."), contentType, p, Collections.emptyMap()));
 			return this;
 		}
 
 		public Builder add(String name, int i) {
-			underConstruction.add(new StringDataSource(Integer.toString(i), Objects.requireNonNull(name, "Name cannot be null.")));
+			underConstruction.add(new ScalarDataSource(i, Objects.requireNonNull(name, "Name cannot be null.")));
 			return this;
 		}
 
 		public Builder add(String name, boolean b) {
-			underConstruction.add(new StringDataSource(Boolean.toString(b), Objects.requireNonNull(name, "Name cannot be null.")));
+			underConstruction.add(new ScalarDataSource(b, Objects.requireNonNull(name, "Name cannot be null.")));
 			return this;
 		}
 
 		public Builder add(String name, float f) {
-			underConstruction.add(new StringDataSource(Float.toString(f), Objects.requireNonNull(name, "Name cannot be null.")));
+			underConstruction.add(new ScalarDataSource(f, Objects.requireNonNull(name, "Name cannot be null.")));
 			return this;
 		}
 
 		public Builder add(String name, double d) {
-			underConstruction.add(new StringDataSource(Double.toString(d), Objects.requireNonNull(name, "Name cannot be null.")));
+			underConstruction.add(new ScalarDataSource(d, Objects.requireNonNull(name, "Name cannot be null.")));
 			return this;
 		}
 
 		public Builder add(String name, long l) {
-			underConstruction.add(new StringDataSource(Long.toString(l), Objects.requireNonNull(name, "Name cannot be null.")));
+			underConstruction.add(new ScalarDataSource(l, Objects.requireNonNull(name, "Name cannot be null.")));
 			return this;
 		}
 
@@ -279,51 +682,57 @@ public class DataSourceList {
 		}
 
 		public Builder add(String name, byte[] ba, Map<String, String> attributes) {
-			underConstruction.add(new ByteArrayDataSource(ba, Objects.requireNonNull(name, "Name cannot be null."), attributes));
+			underConstruction.add(byteArrayDataSource(ba, false, Objects.requireNonNull(name, "Name cannot be null."), StandardMimeTypes.APPLICATION_OCTET_STREAM_TYPE, null, attributes));
 			return this;
 		}
 
 		public Builder add(String name, byte[] ba, MimeType contentType, Map<String, String> attributes) {
-			underConstruction.add(new ByteArrayDataSource(ba, Objects.requireNonNull(name, "Name cannot be null."), contentType, attributes));
+			underConstruction.add(byteArrayDataSource(ba, false, Objects.requireNonNull(name, "Name cannot be null."), contentType, null, attributes));
 			return this;
 		}
 
 		public Builder add(String name, byte[] ba, Path p, Map<String, String> attributes) {
-			ByteArrayDataSource ds = new ByteArrayDataSource(ba, Objects.requireNonNull(name, "Name cannot be null."), attributes);
-			ds.filename(p);
-			underConstruction.add(ds);
+			underConstruction.add(byteArrayDataSource(ba, false, Objects.requireNonNull(name, "Name cannot be null."), StandardMimeTypes.APPLICATION_OCTET_STREAM_TYPE, p, attributes));
 			return this;
 		}
 
 		public Builder add(String name, byte[] ba, MimeType contentType, Path p, Map<String, String> attributes) {
-			ByteArrayDataSource ds = new ByteArrayDataSource(ba, Objects.requireNonNull(name, "Name cannot be null."), contentType, attributes);
-			ds.filename(p);
-			underConstruction.add(ds);
+			underConstruction.add(byteArrayDataSource(ba, false, Objects.requireNonNull(name, "Name cannot be null."), contentType, p, attributes));
+			return this;
+		}
+
+		public Builder add(String name, InputStream is, MimeType contentType, Map<String, String> attributes) {
+			underConstruction.add(inputStreamDataSource(is, Objects.requireNonNull(name, "Name cannot be null."), contentType, null, attributes));
+			return this;
+		}
+
+		public Builder add(String name, InputStream is, MimeType contentType, Path p, Map<String, String> attributes) {
+			underConstruction.add(inputStreamDataSource(is, Objects.requireNonNull(name, "Name cannot be null."), contentType, p, attributes));
 			return this;
 		}
 
 		public Builder add(String name, int i, Map<String, String> attributes) {
-			underConstruction.add(new StringDataSource(Integer.toString(i), Objects.requireNonNull(name, "Name cannot be null."), attributes));
+			underConstruction.add(new ScalarDataSource(i, Objects.requireNonNull(name, "Name cannot be null."), attributes));
 			return this;
 		}
 
 		public Builder add(String name, boolean b, Map<String, String> attributes) {
-			underConstruction.add(new StringDataSource(Boolean.toString(b), Objects.requireNonNull(name, "Name cannot be null."), attributes));
+			underConstruction.add(new ScalarDataSource(b, Objects.requireNonNull(name, "Name cannot be null."), attributes));
 			return this;
 		}
 
 		public Builder add(String name, float f, Map<String, String> attributes) {
-			underConstruction.add(new StringDataSource(Float.toString(f), Objects.requireNonNull(name, "Name cannot be null."), attributes));
+			underConstruction.add(new ScalarDataSource(f, Objects.requireNonNull(name, "Name cannot be null."), attributes));
 			return this;
 		}
 
 		public Builder add(String name, double d, Map<String, String> attributes) {
-			underConstruction.add(new StringDataSource(Double.toString(d), Objects.requireNonNull(name, "Name cannot be null."), attributes));
+			underConstruction.add(new ScalarDataSource(d, Objects.requireNonNull(name, "Name cannot be null."), attributes));
 			return this;
 		}
 
 		public Builder add(String name, long l, Map<String, String> attributes) {
-			underConstruction.add(new StringDataSource(Long.toString(l), Objects.requireNonNull(name, "Name cannot be null."), attributes));
+			underConstruction.add(new ScalarDataSource(l, Objects.requireNonNull(name, "Name cannot be null."), attributes));
 			return this;
 		}
 
@@ -343,81 +752,90 @@ public class DataSourceList {
 		}
 
 		public Builder addByteArrays(String name, List<byte[]> baList) {
-			baList.forEach(ba->underConstruction.add(new ByteArrayDataSource(ba, Objects.requireNonNull(name, "Name cannot be null."))));
+			baList.forEach(ba->underConstruction.add(byteArrayDataSource(ba, false, Objects.requireNonNull(name, "Name cannot be null."), StandardMimeTypes.APPLICATION_OCTET_STREAM_TYPE, null, Collections.emptyMap())));
 			return this;
 		}
 
 		public Builder addByteArrays(String name, List<byte[]> baList, MimeType contentType) {
-			baList.forEach(ba->underConstruction.add(new ByteArrayDataSource(ba, Objects.requireNonNull(name, "Name cannot be null."), contentType)));
+			baList.forEach(ba->underConstruction.add(byteArrayDataSource(ba, false, Objects.requireNonNull(name, "Name cannot be null."), contentType, null, Collections.emptyMap())));
 			return this;
 		}
 
 		public Builder addIntegers(String name, List<Integer> iList) {
-			iList.forEach(i->underConstruction.add(new StringDataSource(i.toString(), Objects.requireNonNull(name, "Name cannot be null."))));
+			iList.forEach(i->underConstruction.add(new ScalarDataSource(i, Objects.requireNonNull(name, "Name cannot be null."))));
 			return this;
 		}
 
 		public Builder addBooleans(String name, List<Boolean> bList) {
-			bList.forEach(b->underConstruction.add(new StringDataSource(b.toString(), Objects.requireNonNull(name, "Name cannot be null."))));
+			bList.forEach(b->underConstruction.add(new ScalarDataSource(b, Objects.requireNonNull(name, "Name cannot be null."))));
 			return this;
 		}
 
 		public Builder addFloats(String name, List<Float> fList) {
-			fList.forEach(f->underConstruction.add(new StringDataSource(f.toString(), Objects.requireNonNull(name, "Name cannot be null."))));
+			fList.forEach(f->underConstruction.add(new ScalarDataSource(f, Objects.requireNonNull(name, "Name cannot be null."))));
 			return this;
 		}
 
 		public Builder addDoubles(String name, List<Double> dList) {
-			dList.forEach(d->underConstruction.add(new StringDataSource(d.toString(), Objects.requireNonNull(name, "Name cannot be null."))));
+			dList.forEach(d->underConstruction.add(new ScalarDataSource(d, Objects.requireNonNull(name, "Name cannot be null."))));
 			return this;
 		}
 
 		public Builder addLongs(String name, List<Long> lList) {
-			lList.forEach(l->underConstruction.add(new StringDataSource(l.toString(), Objects.requireNonNull(name, "Name cannot be null."))));
+			lList.forEach(l->underConstruction.add(new ScalarDataSource(l, Objects.requireNonNull(name, "Name cannot be null."))));
 			return this;
 		}
 		public Builder addStrings(String name, List<String> sList, Map<String, String> attributes) {
-			sList.forEach(s->underConstruction.add(new StringDataSource(s, Objects.requireNonNull(name, "Name cannot be null."), attributes)));
+			Map<String, String> sharedAttributes = AttributeMap.copyOf(attributes);	// Convert once so that all the DataSources share it.
+			sList.forEach(s->underConstruction.add(new StringDataSource(s, Objects.requireNonNull(name, "Name cannot be null."), sharedAttributes)));
 			return this;
 		}
 		
 		public Builder addPaths(String name, List<Path> pList, Map<String, String> attributes) {
-			pList.forEach(p->underConstruction.add(new FileDataSource(p, Objects.requireNonNull(name, "Name cannot be null."), attributes)));
+			Map<String, String> sharedAttributes = AttributeMap.copyOf(attributes);	// Convert once so that all the DataSources share it.
+			pList.forEach(p->underConstruction.add(new FileDataSource(p, Objects.requireNonNull(name, "Name cannot be null."), sharedAttributes)));
 			return this;
 		}
 
 		public Builder addByteArrays(String name, List<byte[]> baList, Map<String, String> attributes) {
-			baList.forEach(ba->underConstruction.add(new ByteArrayDataSource(ba, Objects.requireNonNull(name, "Name cannot be null."), attributes)));
+			Map<String, String> sharedAttributes = AttributeMap.copyOf(attributes);	// Convert once so that all the DataSources share it.
+			baList.forEach(ba->underConstruction.add(byteArrayDataSource(ba, false, Objects.requireNonNull(name, "Name cannot be null."), StandardMimeTypes.APPLICATION_OCTET_STREAM_TYPE, null, sharedAttributes)));
 			return this;
 		}
 
 		public Builder addByteArrays(String name, List<byte[]> baList, MimeType contentType, Map<String, String> attributes) {
-			baList.forEach(ba->underConstruction.add(new ByteArrayDataSource(ba, Objects.requireNonNull(name, "Name cannot be null."), contentType, attributes)));
+			Map<String, String> sharedAttributes = AttributeMap.copyOf(attributes);	// Convert once so that all the DataSources share it.
+			baList.forEach(ba->underConstruction.add(byteArrayDataSource(ba, false, Objects.requireNonNull(name, "Name cannot be null."), contentType, null, sharedAttributes)));
 			return this;
 		}
 
 		public Builder addIntegers(String name, List<Integer> iList, Map<String, String> attributes) {
-			iList.forEach(i->underConstruction.add(new StringDataSource(i.toString(), Objects.requireNonNull(name, "Name cannot be null."), attributes)));
+			Map<String, String> sharedAttributes = AttributeMap.copyOf(attributes);	// Convert once so that all the DataSources share it.
+			iList.forEach(i->underConstruction.add(new ScalarDataSource(i, Objects.requireNonNull(name, "Name cannot be null."), sharedAttributes)));
 			return this;
 		}
 
 		public Builder addBooleans(String name, List<Boolean> bList, Map<String, String> attributes) {
-			bList.forEach(b->underConstruction.add(new StringDataSource(b.toString(), Objects.requireNonNull(name, "Name cannot be null."), attributes)));
+			Map<String, String> sharedAttributes = AttributeMap.copyOf(attributes);	// Convert once so that all the DataSources share it.
+			bList.forEach(b->underConstruction.add(new ScalarDataSource(b, Objects.requireNonNull(name, "Name cannot be null."), sharedAttributes)));
 			return this;
 		}
 
 		public Builder addFloats(String name, List<Float> fList, Map<String, String> attributes) {
-			fList.forEach(f->underConstruction.add(new StringDataSource(f.toString(), Objects.requireNonNull(name, "Name cannot be null."), attributes)));
+			Map<String, String> sharedAttributes = AttributeMap.copyOf(attributes);	// Convert once so that all the DataSources share it.
+			fList.forEach(f->underConstruction.add(new ScalarDataSource(f, Objects.requireNonNull(name, "Name cannot be null."), sharedAttributes)));
 			return this;
 		}
 
 		public Builder addDoubles(String name, List<Double> dList, Map<String, String> attributes) {
-			dList.forEach(d->underConstruction.add(new StringDataSource(d.toString(), Objects.requireNonNull(name, "Name cannot be null."), attributes)));
+			Map<String, String> sharedAttributes = AttributeMap.copyOf(attributes);	// Convert once so that all the DataSources share it.
+			dList.forEach(d->underConstruction.add(new ScalarDataSource(d, Objects.requireNonNull(name, "Name cannot be null."), sharedAttributes)));
 			return this;
 		}
 
 		public Builder addLongs(String name, List<Long> lList, Map<String, String> attributes) {
-			lList.forEach(l->underConstruction.add(new StringDataSource(l.toString(), Objects.requireNonNull(name, "Name cannot be null."), attributes)));
+			Map<String, String> sharedAttributes = AttributeMap.copyOf(attributes);	// Convert once so that all the DataSources share it.
+			lList.forEach(l->underConstruction.add(new ScalarDataSource(l, Objects.requireNonNull(name, "Name cannot be null."), sharedAttributes)));
 			return this;
 		}
 	}
@@ -489,7 +907,20 @@ public class DataSourceList {
 				// Shortcut if this is already a StringDataSource
 				return ((StringDataSource) ds).contents();
 			}
-			return dsToString(ds, StandardCharsets.UTF_8);	// Assume UTF-8
+			return decode(ds, String.class, (d)->dsToString(d, StandardCharsets.UTF_8));	// Assume UTF-8
+		}
+		
+		/**
+		 * Decodes a DataSource into a value using the decoder provided.  If the DataSource supports it, the decoded
+		 * value is cached in the DataSource so that subsequent calls for the same type do not need to decode it again.
+		 * 
+		 * @param ds
+		 * @param type
+		 * @param decoder
+		 * @return the decoded value
+		 */
+		private static <T> T decode(DataSource ds, Class<T> type, Function<? super DataSource, ? extends T> decoder) {
+			return ds instanceof AbstractDataSource ? ((AbstractDataSource) ds).decodedValue(type, decoder) : decoder.apply(ds);
 		}
 		
 		/**
@@ -506,7 +937,7 @@ public class DataSourceList {
 				return ((StringDataSource) ds).contents();
 			}
 			try (InputStream inputStream = ds.inputStream()) {
-				return new String(Jdk8Utils.readAllBytes(inputStream), cs);
+				return new String(Jdk8Utils.readAllBytes(inputStream, ds.contentLength().orElse(inputStream.available())), cs);
 			} catch (IOException e) {
 				throw new IllegalStateException("Error while converting DataSource to String", e);
 			}
@@ -538,7 +969,7 @@ public class DataSourceList {
 				return ((ByteArrayDataSource) ds).getContents();
 			}
 			try (InputStream inputStream = ds.inputStream()) {
-				return Jdk8Utils.readAllBytes(inputStream);
+				return Jdk8Utils.readAllBytes(inputStream, ds.contentLength().orElse(inputStream.available()));
 			} catch (IOException e) {
 				throw new IllegalStateException("Error while converting DataSource to ByteArray", e);
 			}
@@ -566,7 +997,7 @@ public class DataSourceList {
 		}
 
 		public static final Boolean dsToBoolean(DataSource ds) {
-			return Boolean.valueOf(dsToString(ds));
+			return decode(ds, Boolean.class, (d)->Boolean.valueOf(dsToString(d)));
 		}
 
 		public final Optional<Boolean> getBooleanByName(String name) {
@@ -590,7 +1021,7 @@ public class DataSourceList {
 		}
 
 		public static final Double dsToDouble(DataSource ds) {
-			return Double.valueOf(dsToString(ds));
+			return decode(ds, Double.class, (d)->Double.valueOf(dsToString(d)));
 		}
 
 		public final Optional<Double> getDoubleByName(String name) {
@@ -613,8 +1044,22 @@ public class DataSourceList {
 					.collect(Collectors.toList());
 		}
 
+		public static final double dsToDoubleValue(DataSource ds) {
+			return dsToDouble(ds).doubleValue();
+		}
+
+		public final OptionalDouble getOptionalDoubleByName(String name) {
+			Optional<DataSource> ds = dsList.getDataSourceByName(name);
+			return ds.isPresent() ? OptionalDouble.of(dsToDoubleValue(ds.get())) : OptionalDouble.empty();
+		}
+
+		public final OptionalDouble getOptionalDouble(Predicate<DataSource> predicate) {
+			Optional<DataSource> ds = dsList.getDataSource(predicate);
+			return ds.isPresent() ? OptionalDouble.of(dsToDoubleValue(ds.get())) : OptionalDouble.empty();
+		}
+
 		public static final Float dsToFloat(DataSource ds) {
-			return Float.valueOf(dsToString(ds));
+			return decode(ds, Float.class, (d)->Float.valueOf(dsToString(d)));
 		}
 
 		public final Optional<Float> getFloatByName(String name) {
@@ -638,7 +1083,7 @@ public class DataSourceList {
 		}
 
 		public static final Integer dsToInteger(DataSource ds) {
-			return Integer.valueOf(dsToString(ds));
+			return decode(ds, Integer.class, (d)->Integer.valueOf(dsToString(d)));
 		}
 
 		public final Optional<Integer> getIntegerByName(String name) {
@@ -661,8 +1106,22 @@ public class DataSourceList {
 					.collect(Collectors.toList());
 		}
 
+		public static final int dsToIntValue(DataSource ds) {
+			return dsToInteger(ds).intValue();
+		}
+
+		public final OptionalInt getOptionalIntByName(String name) {
+			Optional<DataSource> ds = dsList.getDataSourceByName(name);
+			return ds.isPresent() ? OptionalInt.of(dsToIntValue(ds.get())) : OptionalInt.empty();
+		}
+
+		public final OptionalInt getOptionalInt(Predicate<DataSource> predicate) {
+			Optional<DataSource> ds = dsList.getDataSource(predicate);
+			return ds.isPresent() ? OptionalInt.of(dsToIntValue(ds.get())) : OptionalInt.empty();
+		}
+
 		public static final Long dsToLong(DataSource ds) {
-			return Long.valueOf(dsToString(ds));
+			return decode(ds, Long.class, (d)->Long.valueOf(dsToString(d)));
 		}
 
 		public final Optional<Long> getLongByName(String name) {
@@ -685,6 +1144,20 @@ public class DataSourceList {
 					.collect(Collectors.toList());
 		}
 
+		public static final long dsToLongValue(DataSource ds) {
+			return dsToLong(ds).longValue();
+		}
+
+		public final OptionalLong getOptionalLongByName(String name) {
+			Optional<DataSource> ds = dsList.getDataSourceByName(name);
+			return ds.isPresent() ? OptionalLong.of(dsToLongValue(ds.get())) : OptionalLong.empty();
+		}
+
+		public final OptionalLong getOptionalLong(Predicate<DataSource> predicate) {
+			Optional<DataSource> ds = dsList.getDataSource(predicate);
+			return ds.isPresent() ? OptionalLong.of(dsToLongValue(ds.get())) : OptionalLong.empty();
+		}
+
 
 	}
 }
@@ -3,14 +3,25 @@ package com._4point.aem.formsfeeder.core.datasource;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
+
+import com._4point.aem.formsfeeder.core.support.ByteBufferInputStream;
 
 /* package */ class FileDataSource extends AbstractDataSource implements DataSource {
 	private final Path filePath;
+	private boolean memoryMapped = false;
+	private boolean readOnly = false;	// Set once the file may have been mapped, views of the mapping may outlive any read.
+	private MappedByteBuffer mappedContents = null;	// Lazily mapped when memoryMapped is true.
 	
 	/* package */ FileDataSource(Path filePath) {
 		super("", determineMimeType(filePath, UnmodifiableFileExtensionsMap.DEFAULT_MAP));
@@ -65,6 +76,37 @@ import java.util.Optional;
 		return this.filePath;
 	}
 	
+	/**
+	 * Turns memory-mapped mode on or off.
+	 * 
+	 * In memory-mapped mode the file is mapped (read-only) into memory the first time it is read and all subsequent
+	 * reads are served from that mapping.  This avoids copying the file through a heap buffer on every read, which
+	 * helps when the same large file is read many times.
+	 * 
+	 * Turning memory-mapped mode on makes the DataSource read-only for good (outputStream() throws an
+	 * IllegalStateException), because views of the mapping handed out by asReadOnlyByteBuffer() would fault if the
+	 * file were truncated underneath them.
+	 * 
+	 * If the file system does not support mapping, or the file is too large to be mapped, reads fall back to
+	 * regular streams.
+	 * 
+	 * @param memoryMapped
+	 * @return this DataSource
+	 */
+	/* package */ final synchronized FileDataSource memoryMapped(boolean memoryMapped) {
+		this.memoryMapped = memoryMapped;
+		if (memoryMapped) {
+			this.readOnly = true;
+		} else {
+			this.mappedContents = null;
+		}
+		return this;
+	}
+	
+	/* package */ final synchronized boolean isMemoryMapped() {
+		return memoryMapped;
+	}
+	
 	@Override
 	public InputStream inputStream() {
 		return wrapInputStream(this::internalInputStream);
@@ -72,6 +114,10 @@ import java.util.Optional;
 
 	// Need this to convert checked IOExceptions to unchecked IllegalArgumentExceptions
 	private InputStream internalInputStream() {
+		ByteBuffer mapped = mappedContents();
+		if (mapped != null) {
+			return new ByteBufferInputStream(mapped);
+		}
 		try {
 			return Files.newInputStream(filePath);
 		} catch (IOException e) {
@@ -79,8 +125,94 @@ import java.util.Optional;
 		}
 	}
 
+	/**
+	 * Transfers the file contents using FileChannel.transferTo() (or, in memory-mapped mode, by writing the mapping)
+	 * so that, where the platform supports it, the bytes do not need to be copied through user space.
+	 */
+	@Override
+	public long transferTo(WritableByteChannel target) throws IOException {
+		beginRead();	// Treat the transfer like an open InputStream, so the contents cannot change underneath it.
+		try {
+			ByteBuffer mapped = mappedContents();
+			if (mapped != null) {
+				return writeFully(mapped, target);
+			}
+			try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+				long size = channel.size();
+				long position = 0;
+				while (position < size) {
+					long transferred = channel.transferTo(position, size - position, target);
+					if (transferred <= 0) {
+						break;	// File was truncated while we were transferring it.
+					}
+					position += transferred;
+				}
+				return position;
+			}
+		} finally {
+			endRead();
+		}
+	}
+
+	@Override
+	public ByteBuffer asReadOnlyByteBuffer() {
+		ByteBuffer mapped = mappedContents();
+		return mapped != null ? mapped.asReadOnlyBuffer() : super.asReadOnlyByteBuffer();
+	}
+
+	/**
+	 * Returns the current size of the file.  If the size cannot be determined (for example, because the file does
+	 * not exist yet) then the length is reported as unknown.
+	 */
+	@Override
+	public OptionalLong contentLength() {
+		try {
+			return OptionalLong.of(Files.size(filePath));
+		} catch (IOException e) {
+			return OptionalLong.empty();
+		}
+	}
+
+	/**
+	 * Returns the memory-mapped contents of the file, mapping it if necessary.
+	 * 
+	 * @return the mapped contents or null if the file is not (or cannot be) memory-mapped.
+	 */
+	private synchronized ByteBuffer mappedContents() {
+		if (!memoryMapped) {
+			return null;
+		}
+		if (mappedContents == null) {
+			try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+				long size = channel.size();
+				if (size > Integer.MAX_VALUE) {
+					return null;	// Too large to map into a single buffer, so fall back to streaming.
+				}
+				mappedContents = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			} catch (UnsupportedOperationException e) {
+				return null;	// File system does not support mapping, so fall back to streaming.
+			} catch (IOException e) {
+				throw new IllegalArgumentException("Unable to memory-map '" + filePath + "'.", e);
+			}
+		}
+		return mappedContents.asReadOnlyBuffer();
+	}
+
+	/**
+	 * Files can be changed outside of this DataSource, so decoded values are never cached.
+	 */
+	@Override
+	protected boolean cacheDecodedValues() {
+		return false;
+	}
+
 	@Override
 	public OutputStream outputStream() {
+		synchronized(this) {
+			if (readOnly) {
+				throw new IllegalStateException("Cannot open output stream on memory-mapped DataSource '" + name() + "' (" + filePath + ").");
+			}
+		}
 		return wrapOutputStream(this::internalOutputStream);
 	}
 
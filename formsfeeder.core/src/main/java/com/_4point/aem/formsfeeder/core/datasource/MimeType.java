@@ -2,8 +2,16 @@ package com._4point.aem.formsfeeder.core.datasource;
 
 import java.nio.charset.Charset;
 
+import com._4point.aem.formsfeeder.core.support.LruCache;
+
 public class MimeType {
 
+	// Cache of MimeTypes keyed by both the strings they were parsed from and their canonical string.  Content types
+	// can come from untrusted headers, so the cache is bounded and evicts the least recently used MimeTypes, so that
+	// junk content types cannot crowd out the ones that are in use.
+	private static final int MAX_CACHE_SIZE = 512;
+	private static final LruCache<String, MimeType> CACHE = new LruCache<>(MAX_CACHE_SIZE);
+
 	private static final String CHARSET_SEPARATOR = ";";
 	private static final String TYPE_SEPARATOR = "/";
 	private static final String EQUALS_CHAR = "=";
@@ -11,19 +19,18 @@ public class MimeType {
 	private final String type;
 	private final String subtype;
 	private final Charset charset;
+	private final String asString;	// Precomputed, since MimeTypes are immutable.
 
 	private MimeType(String type, String subtype, Charset charset) {
 		super();
 		this.type = type;
 		this.subtype = subtype;
 		this.charset = charset;
+		this.asString = charset != null ? type + TYPE_SEPARATOR + subtype + CHARSET_SEPARATOR + " charset=" + charset.name() : type + TYPE_SEPARATOR + subtype;
 	}
 
 	private MimeType(String type, String subtype) {
-		super();
-		this.type = type;
-		this.subtype = subtype;
-		this.charset = null;
+		this(type, subtype, null);
 	}
 
 	public String type() {
@@ -39,14 +46,29 @@ public class MimeType {
 	}
 
 	public String asString() {
-		String result = type + TYPE_SEPARATOR + subtype;
-		if (charset != null) {
-			result = result + CHARSET_SEPARATOR + " charset=" + charset.name();
-		}
-		return result; 
+		return asString; 
 	}
 	
+	/**
+	 * Returns the MimeType for a content type string (e.g. "text/plain; charset=UTF-8").
+	 * 
+	 * Parsed MimeTypes are cached, so the same (shared) instance is usually returned for strings that have been seen
+	 * before and for strings that describe the same MimeType (e.g. the StandardMimeTypes constants).  Since the cache
+	 * is bounded, MimeTypes that have not been used for a while may be replaced by new instances, so compare MimeTypes
+	 * with equals().
+	 * 
+	 * @param mimeType
+	 * @return
+	 */
 	public static MimeType of(String mimeType) {
+		MimeType cached = CACHE.get(mimeType);
+		if (cached != null) {
+			return cached;
+		}
+		return CACHE.putIfAbsent(mimeType, intern(parse(mimeType)));
+	}
+
+	private static MimeType parse(String mimeType) {
 		String[] parts = mimeType.split(TYPE_SEPARATOR);
 		if (parts.length != 2) {
 			throw new IllegalArgumentException("Invalid content type string - '" + mimeType + "'.  Expected exactly one separator character ('" + TYPE_SEPARATOR + "').");
@@ -75,11 +97,22 @@ public class MimeType {
 	}
 
 	public static MimeType of(String type, String subType) {
-		return new MimeType(type, subType);
+		return intern(new MimeType(type, subType));
 	}
 	
 	public static MimeType of(String type, String subType, Charset charset) {
-		return new MimeType(type, subType, charset);
+		return intern(new MimeType(type, subType, charset));
+	}
+
+	/**
+	 * Returns the canonical (shared) instance for a MimeType, making the MimeType provided the canonical instance if
+	 * there isn't one yet.
+	 * 
+	 * @param mimeType
+	 * @return
+	 */
+	private static MimeType intern(MimeType mimeType) {
+		return CACHE.putIfAbsent(mimeType.asString, mimeType);
 	}
 
 	@Override
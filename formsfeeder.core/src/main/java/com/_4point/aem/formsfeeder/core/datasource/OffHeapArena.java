@@ -0,0 +1,221 @@
+package com._4point.aem.formsfeeder.core.datasource;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com._4point.aem.formsfeeder.core.support.DirectBuffers;
+
+/**
+ * Holds the contents of InputStream DataSources in direct (off-heap) memory and releases it deterministically.
+ * 
+ * Large contents held in byte arrays become humongous allocations in G1 and lengthen garbage collections.  DataSources
+ * created through an arena hold their contents in direct ByteBuffers instead, and that memory is freed as soon as the
+ * arena is closed (typically when the request that created it has completed) rather than when the garbage collector
+ * gets around to it.  DataSources must not be used once their arena has been closed.
+ * 
+ * DataSources that are garbage collected without having been released are reported as leaks (through
+ * java.util.logging) and their memory is freed at that point.  The total amount of off-heap memory held by all arenas
+ * is available through bytesInUse().
+ * 
+ * Instances are thread-safe.
+ *
+ */
+public final class OffHeapArena implements AutoCloseable {
+	private static final Logger LOGGER = Logger.getLogger(OffHeapArena.class.getName());
+	private static final AtomicLong BYTES_IN_USE = new AtomicLong();
+	private static final AtomicLong BLOCKS_IN_USE = new AtomicLong();
+
+	private final List<OffHeapDataSource> dataSources = new ArrayList<>();
+	private boolean closed = false;
+
+	/**
+	 * Returns the number of bytes of off-heap memory currently held by all arenas.
+	 * 
+	 * @return number of bytes allocated and not yet released
+	 */
+	public static long bytesInUse() {
+		return BYTES_IN_USE.get();
+	}
+
+	/**
+	 * Returns the number of off-heap buffers currently held by all arenas.
+	 * 
+	 * @return number of buffers allocated and not yet released
+	 */
+	public static long buffersInUse() {
+		return BLOCKS_IN_USE.get();
+	}
+
+	/**
+	 * Returns the number of DataSources created through this arena.
+	 * 
+	 * @return number of DataSources
+	 */
+	public synchronized int size() {
+		return dataSources.size();
+	}
+
+	/**
+	 * Returns true if this arena has been closed.
+	 * 
+	 * @return true if the arena's DataSources have been released
+	 */
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/* package */ OffHeapDataSource add(InputStream is, String name, MimeType contentType, Map<String, String> attributes) {
+		OffHeapDataSource ds = new OffHeapDataSource(name, contentType, attributes);
+		synchronized (this) {
+			if (closed) {
+				throw new IllegalStateException("Cannot add DataSource '" + name + "' to an OffHeapArena that has been closed.");
+			}
+			dataSources.add(ds);
+		}
+		return ds.readFrom(is);
+	}
+
+	/**
+	 * Releases the off-heap memory held by all the DataSources created through this arena.  Closing an arena more than
+	 * once has no effect.
+	 */
+	@Override
+	public void close() {
+		List<OffHeapDataSource> toRelease;
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			toRelease = new ArrayList<>(dataSources);
+			dataSources.clear();
+		}
+		toRelease.forEach(OffHeapDataSource::release);
+	}
+
+	/**
+	 * A direct ByteBuffer that is freed explicitly.
+	 * 
+	 * Readers pin the block while they are using it.  Once the block has been released, the memory is freed as soon as
+	 * the last reader unpins it, so that memory is never freed underneath a reader.
+	 *
+	 */
+	/* package */ static final class Block {
+		private static final int FREED = -1;
+
+		private final ByteBuffer buffer;
+		private final AtomicInteger pins = new AtomicInteger(0);		// Number of readers, or FREED.
+		private final AtomicBoolean released = new AtomicBoolean(false);
+		private int length = 0;
+
+		/* package */ Block(int capacity) {
+			this.buffer = DirectBuffers.allocate(capacity);
+			BYTES_IN_USE.addAndGet(capacity);
+			BLOCKS_IN_USE.incrementAndGet();
+		}
+
+		/* package */ int capacity() {
+			return buffer.capacity();
+		}
+
+		/* package */ int length() {
+			return length;
+		}
+
+		/* package */ void length(int length) {
+			this.length = length;
+		}
+
+		/**
+		 * Returns a buffer positioned over the valid contents of the block.  The buffer must not be used after the block
+		 * has been released.
+		 * 
+		 * @return a duplicate of the block's buffer
+		 */
+		/* package */ ByteBuffer contents() {
+			ByteBuffer contents = buffer.duplicate();
+			contents.limit(length);
+			return contents;
+		}
+
+		/* package */ ByteBuffer writable() {
+			return buffer.duplicate();
+		}
+
+		/* package */ boolean isReleased() {
+			return released.get();
+		}
+
+		/* package */ boolean pin() {
+			int count;
+			do {
+				count = pins.get();
+				if (count == FREED || released.get()) {
+					return false;
+				}
+			} while (!pins.compareAndSet(count, count + 1));
+			return true;
+		}
+
+		/* package */ void unpin() {
+			if (pins.decrementAndGet() == 0 && released.get()) {
+				free();
+			}
+		}
+
+		/**
+		 * Releases the block.  The memory is freed immediately if there are no readers, otherwise when the last reader
+		 * unpins it.
+		 * 
+		 * @return true if this call released the block, false if it had already been released
+		 */
+		/* package */ boolean release() {
+			if (!released.compareAndSet(false, true)) {
+				return false;
+			}
+			free();
+			return true;
+		}
+
+		/**
+		 * Releases the block and frees its memory regardless of readers.  Only used once the block is unreachable.
+		 * 
+		 * @return true if this call released the block, false if it had already been released
+		 */
+		/* package */ boolean releaseUnreachable() {
+			if (!released.compareAndSet(false, true)) {
+				return false;
+			}
+			if (pins.getAndSet(FREED) != FREED) {
+				doFree();
+			}
+			return true;
+		}
+
+		private void free() {
+			if (pins.compareAndSet(0, FREED)) {
+				doFree();
+			}
+		}
+
+		private void doFree() {
+			BYTES_IN_USE.addAndGet(-buffer.capacity());
+			BLOCKS_IN_USE.decrementAndGet();
+			DirectBuffers.free(buffer);
+		}
+	}
+
+	/* package */ static void reportLeak(String name, Block block) {
+		if (block.releaseUnreachable()) {
+			LOGGER.log(Level.WARNING, "Off-heap DataSource ''{0}'' was garbage collected without being released ({1,number,#} bytes).  Close the OffHeapArena that created it once it is no longer required.", new Object[] {name, block.capacity()});
+		}
+	}
+}
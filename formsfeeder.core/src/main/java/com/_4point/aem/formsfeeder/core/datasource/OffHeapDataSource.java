@@ -0,0 +1,254 @@
+package com._4point.aem.formsfeeder.core.datasource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import com._4point.aem.formsfeeder.core.datasource.OffHeapArena.Block;
+import com._4point.aem.formsfeeder.core.support.ByteBufferInputStream;
+import com._4point.aem.formsfeeder.core.support.Jdk8Cleaner;
+import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
+
+/**
+ * DataSource that holds its contents in direct (off-heap) memory.
+ * 
+ * The memory is freed when release() or close() is called (usually by the OffHeapArena that created the DataSource).  Open
+ * InputStreams and transferTo() calls keep the memory alive until they are finished.  No view of the off-heap memory is
+ * ever handed out, so asReadOnlyByteBuffer() returns a heap copy of the contents.  If the DataSource is garbage
+ * collected without having been released, a leak is reported and the memory is freed at that point.
+ *
+ */
+/* package */ class OffHeapDataSource extends AbstractDataSource implements DataSource {
+
+	private static final int INITIAL_CAPACITY = 64 * 1024;
+	private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+	private Block contents = new Block(0);
+	private Jdk8Cleaner.Cleanable leakDetector = registerLeakDetector(contents);
+	private Path filename = null;
+
+	/* package */ OffHeapDataSource(String name, MimeType contentType, Map<String, String> attributes) {
+		super(name, contentType, attributes);
+	}
+
+	/**
+	 * Reads the contents of this DataSource from an InputStream.
+	 * 
+	 * @param is	InputStream to read from
+	 * @return this DataSource
+	 */
+	/* package */ final OffHeapDataSource readFrom(InputStream is) {
+		int initialCapacity = initialCapacity(is);
+		try (OutputStream os = wrapOutputStream(()->new OffHeapOutputStream(initialCapacity))) {
+			Jdk8Utils.transfer(is, os);
+		} catch (IOException e) {
+			throw new IllegalStateException("Error while reading InputStream into DataSource '" + name() + "'.", e);
+		}
+		return this;
+	}
+
+	/**
+	 * Frees the off-heap memory held by this DataSource.  The DataSource must not be used afterwards.
+	 */
+	/* package */ final synchronized void release() {
+		contents.release();
+		leakDetector.clean();
+	}
+
+	@Override
+	public void close() {
+		release();
+	}
+
+	/* package */ final synchronized boolean isReleased() {
+		return contents.isReleased();
+	}
+
+	@Override
+	public InputStream inputStream() {
+		return wrapInputStream(this::pinnedInputStream);
+	}
+
+	private InputStream pinnedInputStream() {
+		return new PinnedInputStream(pinnedContents());
+	}
+
+	private synchronized Block pinnedContents() {
+		Block block = contents;
+		if (!block.pin()) {
+			throw releasedException();
+		}
+		return block;
+	}
+
+	/**
+	 * Returns a copy of the contents.  A view of the off-heap memory could outlive the memory itself, since the memory
+	 * is freed explicitly rather than by the garbage collector.
+	 */
+	@Override
+	public synchronized ByteBuffer asReadOnlyByteBuffer() {
+		if (contents.isReleased()) {
+			throw releasedException();
+		}
+		ByteBuffer copy = ByteBuffer.allocate(contents.length());
+		copy.put(contents.contents()).flip();
+		return copy.asReadOnlyBuffer();
+	}
+
+	/**
+	 * Writes the off-heap memory straight to the channel, keeping it pinned until the write is complete.
+	 */
+	@Override
+	public long transferTo(WritableByteChannel target) throws IOException {
+		Block block = pinnedContents();
+		try {
+			return writeFully(block.contents(), target);
+		} finally {
+			block.unpin();
+		}
+	}
+
+	@Override
+	public synchronized OptionalLong contentLength() {
+		return OptionalLong.of(contents.length());
+	}
+
+	@Override
+	public OutputStream outputStream() {
+		return wrapOutputStream(()->new OffHeapOutputStream(INITIAL_CAPACITY));
+	}
+
+	@Override
+	public Optional<Path> filename() {
+		return Optional.ofNullable(filename);
+	}
+
+	final void filename(Path filename) {
+		this.filename = filename;
+	}
+
+	private synchronized void replaceContents(Block newContents) {
+		if (contents.isReleased()) {
+			newContents.release();
+			throw releasedException();
+		}
+		Block oldContents = this.contents;
+		Jdk8Cleaner.Cleanable oldLeakDetector = this.leakDetector;
+		this.contents = newContents;
+		this.leakDetector = registerLeakDetector(newContents);
+		oldContents.release();
+		oldLeakDetector.clean();
+	}
+
+	private Jdk8Cleaner.Cleanable registerLeakDetector(Block block) {
+		String dsName = name();	// The cleaning action must not refer to this DataSource.
+		return Jdk8Cleaner.common().register(this, ()->{
+			if (!block.isReleased()) {
+				OffHeapArena.reportLeak(dsName, block);
+			}
+		});
+	}
+
+	private IllegalStateException releasedException() {
+		return new IllegalStateException("DataSource '" + name() + "' has been released.");
+	}
+
+	// available() is only a hint (and may come from the client), so larger contents start at INITIAL_CAPACITY and grow.
+	private int initialCapacity(InputStream is) {
+		try {
+			int available = is.available();
+			return available > 0 ? Math.min(available, INITIAL_CAPACITY) : INITIAL_CAPACITY;
+		} catch (IOException e) {
+			throw new IllegalStateException("Error while reading InputStream into DataSource '" + name() + "'.", e);
+		}
+	}
+
+	/**
+	 * Reads from a pinned block and unpins it when it is closed.
+	 *
+	 */
+	private static class PinnedInputStream extends ByteBufferInputStream {
+		private final Block block;
+		private boolean closed = false;
+
+		private PinnedInputStream(Block block) {
+			super(block.contents());
+			this.block = block;
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			if (!closed) {
+				closed = true;
+				block.unpin();
+			}
+		}
+	}
+
+	/**
+	 * Writes into a new off-heap block, growing it as required, and swaps it in when it is closed.
+	 *
+	 */
+	private class OffHeapOutputStream extends OutputStream {
+		private Block block;
+		private ByteBuffer target;
+		private boolean closed = false;
+
+		private OffHeapOutputStream(int initialCapacity) {
+			this.block = new Block(initialCapacity);
+			this.target = block.writable();
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			ensureCapacity(1);
+			target.put((byte) b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (off < 0 || len < 0 || len > b.length - off) {
+				throw new IndexOutOfBoundsException();
+			}
+			ensureCapacity(len);
+			target.put(b, off, len);
+		}
+
+		private void ensureCapacity(int len) throws IOException {
+			if (closed) {
+				throw new IOException("Stream is closed.");
+			}
+			if (target.remaining() >= len) {
+				return;
+			}
+			long required = (long) target.position() + len;
+			if (required > MAX_CAPACITY) {
+				throw new IOException("DataSource '" + name() + "' cannot hold more than " + MAX_CAPACITY + " bytes off-heap.");
+			}
+			int newCapacity = (int) Math.min(Math.max(required, (long) block.capacity() * 2), MAX_CAPACITY);
+			Block newBlock = new Block(newCapacity);
+			ByteBuffer newTarget = newBlock.writable();
+			target.flip();
+			newTarget.put(target);
+			block.release();
+			block = newBlock;
+			target = newTarget;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			block.length(target.position());
+			replaceContents(block);
+		}
+	}
+}
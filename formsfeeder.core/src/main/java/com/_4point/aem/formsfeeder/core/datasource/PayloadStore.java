@@ -0,0 +1,192 @@
+package com._4point.aem.formsfeeder.core.datasource;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Content-addressed store that shares the contents of identical payloads between DataSources.
+ * 
+ * Clients often send the same templates and images with every request.  Each payload read through the store is
+ * hashed (SHA-256) while it is being read.  If a payload with the same hash and length is already held, then the new
+ * DataSource shares the existing contents and the copy that was just read is discarded.  Contents are held in memory
+ * or spooled to a temporary file in the same way as other InputStream DataSources.
+ * 
+ * Contents are reference counted and released once the last DataSource that refers to them has been garbage
+ * collected.  Writing to a DataSource created by the store gives that DataSource its own private copy of the
+ * contents, so other DataSources sharing the original contents are unaffected.
+ * 
+ * Instances are thread-safe and are intended to be shared across requests (for example, one per server).
+ *
+ */
+public final class PayloadStore {
+	private static final String HASH_ALGORITHM = "SHA-256";
+
+	private final ConcurrentMap<PayloadKey, Payload> payloads = new ConcurrentHashMap<>();
+	private final int spoolThreshold;
+	private final Path spoolDirectory;
+
+	/**
+	 * Creates a PayloadStore that holds payloads of up to 1 MB in memory and spools larger ones to the system
+	 * temporary directory.
+	 */
+	public PayloadStore() {
+		this(SpoolingDataSource.DEFAULT_THRESHOLD, null);
+	}
+
+	/**
+	 * Creates a PayloadStore.
+	 * 
+	 * @param spoolThreshold	maximum number of bytes of a payload to hold in memory, larger payloads are spooled
+	 * @param spoolDirectory	directory for temporary files, or null to use the system temporary directory
+	 */
+	public PayloadStore(int spoolThreshold, Path spoolDirectory) {
+		if (spoolThreshold < 0) {
+			throw new IllegalArgumentException("Spool threshold cannot be negative (" + spoolThreshold + ").");
+		}
+		this.spoolThreshold = spoolThreshold;
+		this.spoolDirectory = spoolDirectory;
+		newDigest();	// Fail fast if the hash algorithm is not available.
+	}
+
+	/**
+	 * Returns the number of distinct payloads currently held by the store.
+	 * 
+	 * @return number of distinct payloads
+	 */
+	public int size() {
+		return payloads.size();
+	}
+
+	/**
+	 * Returns the total number of bytes of the distinct payloads currently held by the store.
+	 * 
+	 * @return total payload bytes
+	 */
+	public long storedBytes() {
+		return payloads.keySet().stream().mapToLong((k)->k.length).sum();
+	}
+
+	/**
+	 * Reads an InputStream until end of stream and creates a DataSource for its contents, sharing the contents of an
+	 * identical payload if one is already held.  The InputStream is not closed.
+	 */
+	/* package */ StoredDataSource add(InputStream is, String name, MimeType contentType, Map<String, String> attributes) {
+		return new StoredDataSource(ingest(is), spoolThreshold, spoolDirectory, name, contentType, attributes);
+	}
+
+	private Payload ingest(InputStream is) {
+		MessageDigest digest = newDigest();
+		SpoolingDataSource contents = new SpoolingDataSource(spoolThreshold, spoolDirectory).readFrom(new DigestInputStream(is, digest));
+		Payload candidate = new Payload(new PayloadKey(digest.digest(), contents.contentLength().getAsLong()), contents, this);
+		while (true) {
+			Payload existing = payloads.putIfAbsent(candidate.key, candidate);
+			if (existing == null) {
+				return candidate;
+			}
+			if (existing.retain()) {
+				contents.discard();		// Identical payload is already held, so drop the copy we just read.
+				return existing;
+			}
+			payloads.remove(candidate.key, existing);	// Existing payload is being released, so replace it.
+		}
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Error while creating " + HASH_ALGORITHM + " digest for PayloadStore.", e);
+		}
+	}
+
+	/**
+	 * Reference counted contents.  Payloads that are not in a store (i.e. private copies) have a null store and key.
+	 *
+	 */
+	/* package */ static final class Payload {
+		private final PayloadKey key;
+		private final SpoolingDataSource contents;
+		private final PayloadStore store;
+		private final AtomicInteger references = new AtomicInteger(1);
+
+		private Payload(PayloadKey key, SpoolingDataSource contents, PayloadStore store) {
+			this.key = key;
+			this.contents = contents;
+			this.store = store;
+		}
+
+		/* package */ static Payload unshared(SpoolingDataSource contents) {
+			return new Payload(null, contents, null);
+		}
+
+		/* package */ SpoolingDataSource contents() {
+			return contents;
+		}
+
+		/**
+		 * Adds a reference, unless the payload has already been released.
+		 * 
+		 * @return true if a reference was added, false if the payload has been released
+		 */
+		private boolean retain() {
+			int current;
+			do {
+				current = references.get();
+				if (current <= 0) {
+					return false;
+				}
+			} while (!references.compareAndSet(current, current + 1));
+			return true;
+		}
+
+		/**
+		 * Removes a reference.  When the last reference is removed, the payload is removed from the store and its
+		 * contents (including any spool file) are discarded.
+		 */
+		/* package */ void release() {
+			if (references.decrementAndGet() == 0) {
+				if (store != null) {
+					store.payloads.remove(key, this);
+				}
+				contents.discard();
+			}
+		}
+	}
+
+	private static final class PayloadKey {
+		private final byte[] hash;
+		private final long length;
+		private final int hashCode;
+
+		private PayloadKey(byte[] hash, long length) {
+			this.hash = hash;
+			this.length = length;
+			this.hashCode = 31 * Arrays.hashCode(hash) + Long.hashCode(length);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof PayloadKey)) {
+				return false;
+			}
+			PayloadKey other = (PayloadKey) obj;
+			return length == other.length && Arrays.equals(hash, other.hash);
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package com._4point.aem.formsfeeder.core.datasource;
+
+import java.util.Map;
+
+/**
+ * StringDataSource created from a scalar value (e.g. an int or a boolean).
+ * 
+ * The contents are the String representation of the value, so it behaves exactly like a StringDataSource, but the
+ * original value is kept in the decoded value cache so that reading it back as the same type does not need to
+ * parse the String.
+ *
+ */
+/* package */ class ScalarDataSource extends StringDataSource {
+
+	/* package */ ScalarDataSource(Object value, String name) {
+		super(String.valueOf(value), name);
+		seedDecodedValue(value);
+	}
+
+	/* package */ ScalarDataSource(Object value, String name, Map<String, String> attributes) {
+		super(String.valueOf(value), name, attributes);
+		seedDecodedValue(value);
+	}
+}
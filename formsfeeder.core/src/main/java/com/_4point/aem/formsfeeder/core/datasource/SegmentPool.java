@@ -0,0 +1,84 @@
+package com._4point.aem.formsfeeder.core.datasource;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of fixed-size byte array segments that are shared by SegmentedDataSources.
+ * 
+ * Segments are small enough (64 KB) that they are never humongous allocations.  Segments that are returned to the pool
+ * are reused by subsequent writers, up to a maximum number of pooled segments; anything beyond that is left to the
+ * garbage collector.
+ * 
+ * Instances are thread-safe.
+ *
+ */
+/* package */ final class SegmentPool {
+	/* package */ static final int SEGMENT_SIZE = 64 * 1024;	// 64 KB
+	private static final int DEFAULT_MAX_POOLED = 256;			// 16 MB of pooled segments.
+	private static final SegmentPool COMMON_POOL = new SegmentPool(SEGMENT_SIZE, DEFAULT_MAX_POOLED);
+
+	private final int segmentSize;
+	private final int maxPooled;
+	private final ConcurrentLinkedQueue<byte[]> pooled = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pooledCount = new AtomicInteger(0);
+
+	/* package */ SegmentPool(int segmentSize, int maxPooled) {
+		if (segmentSize <= 0) {
+			throw new IllegalArgumentException("Segment size must be positive (" + segmentSize + ").");
+		}
+		this.segmentSize = segmentSize;
+		this.maxPooled = maxPooled;
+	}
+
+	/**
+	 * Returns the pool that is shared by all SegmentedDataSources.
+	 * 
+	 * @return the common pool
+	 */
+	/* package */ static SegmentPool common() {
+		return COMMON_POOL;
+	}
+
+	/* package */ int segmentSize() {
+		return segmentSize;
+	}
+
+	/* package */ int pooledCount() {
+		return pooledCount.get();
+	}
+
+	/**
+	 * Takes a segment from the pool, or allocates a new one if the pool is empty.  The contents of the segment are
+	 * undefined.
+	 * 
+	 * @return a segment of segmentSize() bytes
+	 */
+	/* package */ byte[] acquire() {
+		byte[] segment = pooled.poll();
+		if (segment == null) {
+			return new byte[segmentSize];
+		}
+		pooledCount.decrementAndGet();
+		return segment;
+	}
+
+	/**
+	 * Returns segments to the pool.  The segments must no longer be used by the caller.
+	 * 
+	 * @param segments
+	 */
+	/* package */ void release(List<byte[]> segments) {
+		for (byte[] segment : segments) {
+			if (segment.length != segmentSize) {
+				continue;	// Not one of ours.
+			}
+			if (pooledCount.incrementAndGet() > maxPooled) {
+				pooledCount.decrementAndGet();
+				continue;	// Pool is full, leave it to the garbage collector.
+			}
+			pooled.offer(segment);
+		}
+	}
+}
@@ -0,0 +1,315 @@
+package com._4point.aem.formsfeeder.core.datasource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+
+/**
+ * DataSource that stores its contents as a list of fixed-size segments taken from a SegmentPool.
+ * 
+ * Unlike a single byte array, the contents never need to be grown and copied while they are being written and no
+ * single allocation is larger than a segment, so large contents do not cause humongous allocations.  Readers walk the
+ * segments in place.  The segments are returned to the pool when the contents are replaced or the DataSource is
+ * closed.  Segments of DataSources that are simply dropped are left to the garbage collector (tracking them with a
+ * Cleaner would keep them reachable until the Cleaner ran, forcing the collector to copy them).
+ *
+ */
+/* package */ class SegmentedDataSource extends AbstractDataSource implements DataSource {
+
+	private final SegmentPool pool;
+	private Segments contents = Segments.EMPTY;
+	private Path filename = null;
+
+	/* package */ SegmentedDataSource() {
+		super();
+		this.pool = SegmentPool.common();
+	}
+
+	/* package */ SegmentedDataSource(String name, MimeType contentType, Map<String, String> attributes) {
+		this(SegmentPool.common(), name, contentType, attributes);
+	}
+
+	/* package */ SegmentedDataSource(SegmentPool pool, String name, MimeType contentType, Map<String, String> attributes) {
+		super(name, contentType, attributes);
+		this.pool = pool;
+	}
+
+	/**
+	 * Reads the contents of this DataSource from an InputStream.
+	 * 
+	 * @param is	InputStream to read from
+	 * @return this DataSource
+	 */
+	/* package */ final SegmentedDataSource readFrom(InputStream is) {
+		beginWrite();	// Treat the read like an open OutputStream.
+		try (SegmentedOutputStream target = new SegmentedOutputStream()) {
+			target.readFrom(is);	// Read straight into the segments rather than through a transfer buffer.
+		} catch (IOException e) {
+			throw new IllegalStateException("Error while reading InputStream into DataSource '" + name() + "'.", e);
+		} finally {
+			endWrite();
+		}
+		return this;
+	}
+
+	/* package */ final synchronized int segmentCount() {
+		return contents.segments.size();
+	}
+
+	@Override
+	public InputStream inputStream() {
+		return wrapInputStream(()->new SegmentedInputStream(contents()));
+	}
+
+	@Override
+	public OptionalLong contentLength() {
+		return OptionalLong.of(contents().length);
+	}
+
+	@Override
+	public long transferTo(WritableByteChannel target) throws IOException {
+		beginRead();	// Treat the transfer like an open InputStream.
+		try {
+			Segments segments = contents();
+			long count = 0;
+			for (int i = 0; i < segments.segments.size(); i++) {
+				count += writeFully(ByteBuffer.wrap(segments.segments.get(i), 0, segments.segmentLength(i)), target);
+			}
+			return count;
+		} finally {
+			endRead();
+		}
+	}
+
+	@Override
+	public OutputStream outputStream() {
+		return wrapOutputStream(SegmentedOutputStream::new);
+	}
+
+	@Override
+	public Optional<Path> filename() {
+		return Optional.ofNullable(filename);
+	}
+
+	final void filename(Path filename) {
+		this.filename = filename;
+	}
+
+	/**
+	 * Returns the segments to the pool.  If a reader still has the contents open, the segments cannot be reused
+	 * safely, so they are left to the garbage collector instead.
+	 */
+	@Override
+	public void close() {
+		if (!tryBeginWrite()) {
+			return;		// InputStreams are still open, so leave the segments where they are.
+		}
+		try {
+			replaceContents(Segments.EMPTY);
+		} finally {
+			endWrite();
+		}
+	}
+
+	private synchronized Segments contents() {
+		return contents;
+	}
+
+	private synchronized void replaceContents(Segments newContents) {
+		Segments oldContents = this.contents;
+		this.contents = newContents;
+		pool.release(oldContents.segments);	// No readers can be open while the contents are being written.
+	}
+
+	/**
+	 * Immutable snapshot of the contents.  All segments are full except (possibly) the last one.
+	 *
+	 */
+	private static final class Segments {
+		private static final Segments EMPTY = new Segments(Collections.emptyList(), 0, 0);
+
+		private final List<byte[]> segments;
+		private final long length;
+		private final int segmentSize;
+
+		private Segments(List<byte[]> segments, long length, int segmentSize) {
+			this.segments = segments;
+			this.length = length;
+			this.segmentSize = segmentSize;
+		}
+
+		private int segmentLength(int index) {
+			return (int) Math.min(segmentSize, length - (long) index * segmentSize);
+		}
+	}
+
+	/**
+	 * Reads the segments in place.
+	 *
+	 */
+	private static class SegmentedInputStream extends InputStream {
+		private final Segments contents;
+		private long position = 0;
+		private long mark = 0;
+
+		private SegmentedInputStream(Segments contents) {
+			this.contents = contents;
+		}
+
+		@Override
+		public int read() {
+			if (position >= contents.length) {
+				return -1;
+			}
+			int index = (int) (position / contents.segmentSize);
+			int offset = (int) (position % contents.segmentSize);
+			position++;
+			return contents.segments.get(index)[offset] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (off < 0 || len < 0 || len > b.length - off) {
+				throw new IndexOutOfBoundsException();
+			}
+			if (len == 0) {
+				return 0;
+			}
+			if (position >= contents.length) {
+				return -1;
+			}
+			int count = 0;
+			while (count < len && position < contents.length) {
+				int index = (int) (position / contents.segmentSize);
+				int offset = (int) (position % contents.segmentSize);
+				int chunk = Math.min(len - count, contents.segmentLength(index) - offset);
+				System.arraycopy(contents.segments.get(index), offset, b, off + count, chunk);
+				count += chunk;
+				position += chunk;
+			}
+			return count;
+		}
+
+		@Override
+		public long skip(long n) {
+			if (n <= 0) {
+				return 0;
+			}
+			long count = Math.min(n, contents.length - position);
+			position += count;
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return (int) Math.min(Integer.MAX_VALUE, contents.length - position);
+		}
+
+		@Override
+		public boolean markSupported() {
+			return true;
+		}
+
+		@Override
+		public synchronized void mark(int readlimit) {
+			mark = position;
+		}
+
+		@Override
+		public synchronized void reset() {
+			position = mark;
+		}
+	}
+
+	/**
+	 * Writes into segments taken from the pool and swaps them in when it is closed.
+	 *
+	 */
+	private class SegmentedOutputStream extends OutputStream {
+		private final List<byte[]> segments = new ArrayList<>();
+		private byte[] current = null;
+		private int currentCount = 0;
+		private long length = 0;
+		private boolean closed = false;
+
+		@Override
+		public void write(int b) throws IOException {
+			ensureOpen();
+			if (current == null || currentCount == current.length) {
+				nextSegment();
+			}
+			current[currentCount++] = (byte) b;
+			length++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (off < 0 || len < 0 || len > b.length - off) {
+				throw new IndexOutOfBoundsException();
+			}
+			ensureOpen();
+			while (len > 0) {
+				if (current == null || currentCount == current.length) {
+					nextSegment();
+				}
+				int chunk = Math.min(len, current.length - currentCount);
+				System.arraycopy(b, off, current, currentCount, chunk);
+				currentCount += chunk;
+				length += chunk;
+				off += chunk;
+				len -= chunk;
+			}
+		}
+
+		private void readFrom(InputStream is) throws IOException {
+			ensureOpen();
+			while (true) {
+				if (current == null || currentCount == current.length) {
+					nextSegment();
+				}
+				int count = is.read(current, currentCount, current.length - currentCount);
+				if (count < 0) {
+					if (currentCount == 0) {	// Don't hold on to an empty segment.
+						segments.remove(segments.size() - 1);
+						pool.release(Collections.singletonList(current));
+						current = null;
+					}
+					return;
+				}
+				currentCount += count;
+				length += count;
+			}
+		}
+
+		private void nextSegment() {
+			current = pool.acquire();
+			currentCount = 0;
+			segments.add(current);
+		}
+
+		private void ensureOpen() throws IOException {
+			if (closed) {
+				throw new IOException("Stream is closed.");
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			replaceContents(new Segments(Collections.unmodifiableList(segments), length, pool.segmentSize()));
+		}
+	}
+}
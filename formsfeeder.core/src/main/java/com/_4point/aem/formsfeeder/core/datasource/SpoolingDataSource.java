@@ -0,0 +1,327 @@
+package com._4point.aem.formsfeeder.core.datasource;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import com._4point.aem.formsfeeder.core.support.Jdk8Cleaner;
+import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
+
+/**
+ * DataSource that keeps small contents in memory and spools larger contents out to a temporary file.
+ *
+ * Contents that are no larger than the threshold are held in memory.  Once the threshold is crossed, the contents
+ * are written to a temporary file in the spool directory (or the system temporary directory if no spool directory
+ * is provided).  The temporary file is deleted when the contents are replaced, when this DataSource is closed or once
+ * it is no longer reachable.
+ *
+ */
+/* package */ class SpoolingDataSource extends AbstractDataSource implements DataSource {
+
+	public static final int DEFAULT_THRESHOLD = 1024 * 1024;	// 1 MB
+
+	private static final int INITIAL_BUFFER_SIZE = 8192;
+	private static final String TEMP_FILE_PREFIX = "formsfeeder";
+	private static final String TEMP_FILE_SUFFIX = ".spool";
+
+	private final int threshold;
+	private final Path spoolDirectory;
+	private Path filename = null;
+
+	// Current contents, either memory contents or spoolFile is used.
+	private byte[] memoryContents = new byte[0];
+	private int memoryLength = 0;
+	private Path spoolFile = null;
+	private Jdk8Cleaner.Cleanable spoolFileCleaner = null;
+
+	/* package */ SpoolingDataSource(int threshold, Path spoolDirectory) {
+		super();
+		this.threshold = validateThreshold(threshold);
+		this.spoolDirectory = spoolDirectory;
+	}
+
+	/* package */ SpoolingDataSource(int threshold, Path spoolDirectory, String name, MimeType contentType) {
+		super(name, contentType);
+		this.threshold = validateThreshold(threshold);
+		this.spoolDirectory = spoolDirectory;
+	}
+
+	/* package */ SpoolingDataSource(int threshold, Path spoolDirectory, String name, MimeType contentType, Map<String, String> attributes) {
+		super(name, contentType, attributes);
+		this.threshold = validateThreshold(threshold);
+		this.spoolDirectory = spoolDirectory;
+	}
+
+	private static int validateThreshold(int threshold) {
+		if (threshold < 0) {
+			throw new IllegalArgumentException("Spooling threshold cannot be negative (" + threshold + ").");
+		}
+		return threshold;
+	}
+
+	/**
+	 * Reads the InputStream provided until end of stream and makes that the contents of this DataSource.  The
+	 * InputStream is not closed.
+	 *
+	 * @param is
+	 * @return this DataSource
+	 */
+	/* package */ final SpoolingDataSource readFrom(InputStream is) {
+		try (OutputStream os = outputStream()) {
+			Jdk8Utils.transfer(is, os);
+		} catch (IOException e) {
+			discard();	// Nobody will ever see this DataSource, so delete anything that was spooled now.
+			throw new IllegalStateException("Error while reading InputStream into DataSource '" + name() + "'.", e);
+		}
+		return this;
+	}
+
+	/**
+	 * Creates a CompressedDataSource with the same contents, name, content type, attributes and filename as this one.
+	 * Only contents that are held in memory are compressed.
+	 *
+	 * @return the compressed copy, or empty if the contents have been spooled or do not get smaller when compressed
+	 */
+	/* package */ final synchronized Optional<CompressedDataSource> compressedCopy() {
+		if (spoolFile != null) {
+			return Optional.empty();
+		}
+		Optional<CompressedDataSource> compressed = CompressedDataSource.compress(memoryContents, memoryLength, name(), contentType(), attributes());
+		compressed.ifPresent((c)->c.filename(filename));
+		return compressed;
+	}
+
+	/**
+	 * Returns true if the contents of this DataSource have been spooled to a temporary file.
+	 *
+	 * @return true if the contents reside on disk, false if they reside in memory
+	 */
+	/* package */ final synchronized boolean isSpooled() {
+		return spoolFile != null;
+	}
+
+	@Override
+	public InputStream inputStream() {
+		return wrapInputStream(this::internalInputStream);
+	}
+
+	// Need this to convert checked IOExceptions to unchecked IllegalStateExceptions
+	private synchronized InputStream internalInputStream() {
+		if (spoolFile == null) {
+			return new ByteArrayInputStream(memoryContents, 0, memoryLength);
+		}
+		try {
+			return Files.newInputStream(spoolFile);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to open input stream on spool file '" + spoolFile + "'.", e);
+		}
+	}
+
+	/**
+	 * Writes the in-memory contents directly or, if the contents have been spooled, transfers the spool file using
+	 * FileChannel.transferTo() so that the bytes do not need to be copied through an intermediate buffer.
+	 */
+	@Override
+	public long transferTo(WritableByteChannel target) throws IOException {
+		beginRead();	// Treat the transfer like an open InputStream, so the contents cannot be replaced underneath it.
+		try {
+			Path file;
+			ByteBuffer contents;
+			synchronized (this) {
+				file = spoolFile;
+				contents = file == null ? ByteBuffer.wrap(memoryContents, 0, memoryLength) : null;
+			}
+			if (file == null) {
+				return writeFully(contents, target);
+			}
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				long size = channel.size();
+				long position = 0;
+				while (position < size) {
+					long transferred = channel.transferTo(position, size - position, target);
+					if (transferred <= 0) {
+						break;
+					}
+					position += transferred;
+				}
+				return position;
+			}
+		} finally {
+			endRead();
+		}
+	}
+
+	/**
+	 * Returns the in-memory contents directly or, if the contents have been spooled, a read-only mapping of the
+	 * spool file.
+	 */
+	@Override
+	public synchronized ByteBuffer asReadOnlyByteBuffer() {
+		if (spoolFile == null) {
+			return ByteBuffer.wrap(memoryContents, 0, memoryLength).asReadOnlyBuffer();
+		}
+		try (FileChannel channel = FileChannel.open(spoolFile, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IllegalStateException("DataSource '" + name() + "' is too large (" + size + " bytes) to fit in a ByteBuffer.");
+			}
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, size).asReadOnlyBuffer();
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to map spool file '" + spoolFile + "'.", e);
+		}
+	}
+
+	@Override
+	public synchronized OptionalLong contentLength() {
+		if (spoolFile == null) {
+			return OptionalLong.of(memoryLength);
+		}
+		try {
+			return OptionalLong.of(Files.size(spoolFile));
+		} catch (IOException e) {
+			return OptionalLong.empty();
+		}
+	}
+
+	@Override
+	public OutputStream outputStream() {
+		return wrapOutputStream(SpoolingOutputStream::new);
+	}
+
+	@Override
+	public Optional<Path> filename() {
+		return Optional.ofNullable(filename);
+	}
+
+	final void filename(Path filename) {
+		this.filename = filename;
+	}
+
+	/**
+	 * Discards the current contents (deleting any spool file) without waiting for this DataSource to become
+	 * unreachable.  The DataSource is left empty.
+	 */
+	/* package */ final void discard() {
+		replaceContents(new byte[0], 0, null, null);
+	}
+
+	/**
+	 * Deletes any spool file now rather than when this DataSource is garbage collected.
+	 */
+	@Override
+	public void close() {
+		discard();
+	}
+
+	/**
+	 * Replace the current contents with new contents.  Any existing spool file is deleted.
+	 */
+	private synchronized void replaceContents(byte[] newMemoryContents, int newMemoryLength, Path newSpoolFile, Jdk8Cleaner.Cleanable newSpoolFileCleaner) {
+		Jdk8Cleaner.Cleanable oldSpoolFileCleaner = this.spoolFileCleaner;
+		this.memoryContents = newMemoryContents;
+		this.memoryLength = newMemoryLength;
+		this.spoolFile = newSpoolFile;
+		this.spoolFileCleaner = newSpoolFileCleaner;
+		if (oldSpoolFileCleaner != null) {
+			oldSpoolFileCleaner.clean();
+		}
+	}
+
+	private static void deleteSpoolFile(Path spoolFile) {
+		try {
+			Files.deleteIfExists(spoolFile);
+		} catch (IOException e) {
+			// Nothing we can do about it at this point, so ignore it.
+		}
+	}
+
+	/**
+	 * OutputStream that buffers in memory until the threshold is crossed and then writes to a spool file.
+	 *
+	 */
+	private class SpoolingOutputStream extends OutputStream {
+		private byte[] buffer = new byte[Math.min(INITIAL_BUFFER_SIZE, threshold)];
+		private int count = 0;
+		private Path file = null;
+		private Jdk8Cleaner.Cleanable fileCleaner = null;
+		private OutputStream fileOutputStream = null;
+		private boolean closed = false;
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (closed) {
+				throw new IOException("Stream closed.");
+			}
+			if (fileOutputStream == null && (long) count + len > threshold) {
+				spill();
+			}
+			if (fileOutputStream != null) {
+				fileOutputStream.write(b, off, len);
+			} else {
+				ensureCapacity(count + len);
+				System.arraycopy(b, off, buffer, count, len);
+				count += len;
+			}
+		}
+
+		private void ensureCapacity(int minCapacity) {
+			if (minCapacity > buffer.length) {
+				buffer = Arrays.copyOf(buffer, Math.min(Math.max(buffer.length * 2, minCapacity), threshold));
+			}
+		}
+
+		private void spill() throws IOException {
+			file = spoolDirectory != null ? Files.createTempFile(spoolDirectory, TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX)
+										  : Files.createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+			final Path fileToDelete = file;
+			fileCleaner = Jdk8Cleaner.common().register(SpoolingDataSource.this, ()->deleteSpoolFile(fileToDelete));
+			fileOutputStream = new BufferedOutputStream(Files.newOutputStream(file));
+			fileOutputStream.write(buffer, 0, count);
+			buffer = null;
+			count = 0;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (fileOutputStream != null) {
+				fileOutputStream.flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			if (fileOutputStream != null) {
+				try {
+					fileOutputStream.close();
+				} catch (IOException e) {
+					fileCleaner.clean();
+					throw e;
+				}
+				replaceContents(null, 0, file, fileCleaner);
+			} else {
+				replaceContents(buffer, count, null, null);
+			}
+		}
+	}
+}
@@ -28,6 +28,8 @@ public class StandardMimeTypes {
 	public static final MimeType APPLICATION_VND_MS_EXCEL_TYPE = MimeType.of(APPLICATION_VND_MS_EXCEL_STR);
 	public static final String APPLICATION_VND_ADOBE_XFDF_STR = "application/vnd.adobe.xfdf";
 	public static final MimeType APPLICATION_VND_ADOBE_XFDF_TYPE = MimeType.of(APPLICATION_VND_ADOBE_XFDF_STR);
+	public static final String APPLICATION_VND_FORMSFEEDER_DATASOURCELIST_STR = "application/vnd.formsfeeder.datasourcelist";
+	public static final MimeType APPLICATION_VND_FORMSFEEDER_DATASOURCELIST_TYPE = MimeType.of(APPLICATION_VND_FORMSFEEDER_DATASOURCELIST_STR);
 
 	// Default
 	public static final String APPLICATION_OCTET_STREAM_STR = "application/octet-stream";
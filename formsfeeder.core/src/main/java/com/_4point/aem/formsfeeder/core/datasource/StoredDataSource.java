@@ -0,0 +1,127 @@
+package com._4point.aem.formsfeeder.core.datasource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import com._4point.aem.formsfeeder.core.datasource.PayloadStore.Payload;
+import com._4point.aem.formsfeeder.core.support.Jdk8Cleaner;
+
+/**
+ * DataSource whose contents are held by a PayloadStore and may be shared with other DataSources.
+ * 
+ * The shared contents are never written to.  Opening an OutputStream gives this DataSource a private copy of the
+ * contents and releases its reference to the shared contents when the OutputStream is closed.
+ *
+ */
+/* package */ class StoredDataSource extends AbstractDataSource implements DataSource {
+
+	private final int spoolThreshold;
+	private final Path spoolDirectory;
+	private Payload payload;
+	private Jdk8Cleaner.Cleanable payloadReleaser;
+	private Path filename = null;
+
+	/* package */ StoredDataSource(Payload payload, int spoolThreshold, Path spoolDirectory, String name, MimeType contentType, Map<String, String> attributes) {
+		super(name, contentType, attributes);
+		this.spoolThreshold = spoolThreshold;
+		this.spoolDirectory = spoolDirectory;
+		this.payload = payload;
+		this.payloadReleaser = Jdk8Cleaner.common().register(this, payload::release);
+	}
+
+	/* package */ final synchronized Payload payload() {
+		return payload;
+	}
+
+	/**
+	 * Releases this DataSource's reference to its contents.  The DataSource must not be used afterwards.
+	 */
+	/* package */ final synchronized void release() {
+		payloadReleaser.clean();
+	}
+
+	/**
+	 * Releases this DataSource's reference to its contents now rather than when it is garbage collected.
+	 */
+	@Override
+	public void close() {
+		release();
+	}
+
+	@Override
+	public InputStream inputStream() {
+		return wrapInputStream(()->payload().contents().inputStream());
+	}
+
+	@Override
+	public ByteBuffer asReadOnlyByteBuffer() {
+		return payload().contents().asReadOnlyByteBuffer();
+	}
+
+	@Override
+	public OptionalLong contentLength() {
+		return payload().contents().contentLength();
+	}
+
+	@Override
+	public OutputStream outputStream() {
+		return wrapOutputStream(CopyOnWriteOutputStream::new);
+	}
+
+	@Override
+	public Optional<Path> filename() {
+		return Optional.ofNullable(filename);
+	}
+
+	final void filename(Path filename) {
+		this.filename = filename;
+	}
+
+	private synchronized void replacePayload(Payload newPayload) {
+		Jdk8Cleaner.Cleanable oldPayloadReleaser = this.payloadReleaser;
+		this.payload = newPayload;
+		this.payloadReleaser = Jdk8Cleaner.common().register(this, newPayload::release);
+		oldPayloadReleaser.clean();
+	}
+
+	/**
+	 * Writes to a private copy and then swaps it in when it is closed.
+	 *
+	 */
+	private class CopyOnWriteOutputStream extends OutputStream {
+		private final SpoolingDataSource privateContents = new SpoolingDataSource(spoolThreshold, spoolDirectory);
+		private final OutputStream out = privateContents.outputStream();
+		private boolean closed = false;
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			out.close();
+			replacePayload(Payload.unshared(privateContents));
+		}
+	}
+}
@@ -5,16 +5,19 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.OptionalLong;
 
 /* package */ class StringDataSource extends AbstractDataSource implements DataSource {
 
 	public static final Charset ENCODING = StandardCharsets.UTF_8;
 	
 	private static final MimeType MIME_TYPE = StandardMimeTypes.TEXT_PLAIN_UTF8_TYPE;
-	private String contents; 
+	private volatile String contents; 
+	private volatile EncodedContents encoded = null;	// Lazily encoded version of contents.
 	
 	/* package */ StringDataSource() {
 		super("", MIME_TYPE);
@@ -38,7 +41,47 @@ import java.util.Map;
 
 	@Override
 	public InputStream inputStream() {
-		return wrapInputStream(()->new ByteArrayInputStream(contents.getBytes(ENCODING)));
+		return wrapInputStream(()->new ByteArrayInputStream(encodedContents()));
+	}
+
+	@Override
+	public ByteBuffer asReadOnlyByteBuffer() {
+		return ByteBuffer.wrap(encodedContents()).asReadOnlyBuffer();
+	}
+
+	@Override
+	public OptionalLong contentLength() {
+		return OptionalLong.of(encodedContents().length);
+	}
+
+	/**
+	 * Returns the contents encoded in the ENCODING character set.  The encoding is performed the first time it is
+	 * required and then cached until the contents change.  The array returned is shared, so it must not be modified.
+	 * 
+	 * @return encoded contents
+	 */
+	private byte[] encodedContents() {
+		String current = contents;
+		EncodedContents cached = encoded;
+		if (cached == null || cached.source != current) {
+			cached = new EncodedContents(current);
+			encoded = cached;
+		}
+		return cached.bytes;
+	}
+
+	/**
+	 * The encoded bytes along with the String they were encoded from, so that a stale encoding is never returned
+	 * if the contents are rewritten while the encoding is taking place.
+	 */
+	private static final class EncodedContents {
+		private final String source;
+		private final byte[] bytes;
+
+		private EncodedContents(String source) {
+			this.source = source;
+			this.bytes = source.getBytes(ENCODING);
+		}
 	}
 
 	@Override
@@ -76,7 +119,8 @@ import java.util.Map;
 		@Override
 		public void close() throws IOException {
 			bos.close();
-			StringDataSource.this.contents = new String(bos.toByteArray(), ENCODING);
+			StringDataSource.this.contents = bos.toString(ENCODING.name());	// Decodes straight from the buffer, no intermediate copy.
+			StringDataSource.this.encoded = null;	// Contents have changed, so the old encoding is no longer needed.
 		}
 
 		@Override
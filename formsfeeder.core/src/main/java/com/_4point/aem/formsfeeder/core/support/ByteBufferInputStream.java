@@ -0,0 +1,78 @@
+package com._4point.aem.formsfeeder.core.support;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * InputStream that reads from a ByteBuffer.
+ *
+ * The stream reads from its own duplicate of the buffer provided, so the position and limit of the original buffer
+ * are not affected.  This allows several streams to read the same (possibly memory-mapped or direct) buffer at once
+ * without copying it onto the heap first.
+ *
+ */
+public class ByteBufferInputStream extends InputStream {
+	private final ByteBuffer buffer;
+	private int mark;
+
+	/**
+	 * Creates an InputStream that reads the bytes between the position and the limit of the buffer provided.
+	 *
+	 * @param buffer
+	 */
+	public ByteBufferInputStream(ByteBuffer buffer) {
+		this.buffer = buffer.duplicate();
+		this.mark = this.buffer.position();
+	}
+
+	@Override
+	public int read() {
+		return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) {
+		if (off < 0 || len < 0 || len > b.length - off) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+		if (!buffer.hasRemaining()) {
+			return -1;
+		}
+		int count = Math.min(len, buffer.remaining());
+		buffer.get(b, off, count);
+		return count;
+	}
+
+	@Override
+	public long skip(long n) {
+		if (n <= 0) {
+			return 0;
+		}
+		int count = (int) Math.min(n, buffer.remaining());
+		buffer.position(buffer.position() + count);
+		return count;
+	}
+
+	@Override
+	public int available() {
+		return buffer.remaining();
+	}
+
+	@Override
+	public boolean markSupported() {
+		return true;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+		mark = buffer.position();
+	}
+
+	@Override
+	public synchronized void reset() {
+		buffer.position(mark);
+	}
+}
@@ -0,0 +1,95 @@
+package com._4point.aem.formsfeeder.core.support;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Allocates direct (off-heap) ByteBuffers and frees them explicitly.
+ *
+ * The memory behind a direct ByteBuffer is normally only freed once the buffer has been garbage collected, which may
+ * be long after it is no longer needed.  Where the JVM allows it, free() releases the memory immediately (using
+ * sun.misc.Unsafe.invokeCleaner() on JDK 9+ or the buffer's Cleaner on JDK 8).  Otherwise free() does nothing and the
+ * memory is released by the garbage collector as usual.
+ *
+ */
+public final class DirectBuffers {
+	private static final Freer FREER = findFreer();
+
+	private DirectBuffers() {
+	}
+
+	/**
+	 * Allocates a new direct ByteBuffer.
+	 *
+	 * @param capacity	size of the buffer in bytes
+	 * @return new direct ByteBuffer
+	 */
+	public static ByteBuffer allocate(int capacity) {
+		return ByteBuffer.allocateDirect(capacity);
+	}
+
+	/**
+	 * Frees the memory behind a direct ByteBuffer.  The buffer (and any duplicates or slices of it) must not be used
+	 * afterwards.  Heap buffers are ignored.
+	 *
+	 * @param buffer	buffer to free
+	 */
+	public static void free(ByteBuffer buffer) {
+		if (buffer != null && buffer.isDirect()) {
+			FREER.free(buffer);
+		}
+	}
+
+	/**
+	 * Returns true if free() actually frees memory on this JVM, false if it has to be left to the garbage collector.
+	 *
+	 * @return true if direct buffers can be freed explicitly
+	 */
+	public static boolean canFree() {
+		return FREER != NO_OP_FREER;
+	}
+
+	@FunctionalInterface
+	private interface Freer {
+		void free(ByteBuffer buffer);
+	}
+
+	private static final Freer NO_OP_FREER = (b)->{};
+
+	private static Freer findFreer() {
+		try {
+			// JDK 9+
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			Object unsafe = theUnsafe.get(null);
+			return (b)->invokeQuietly(invokeCleaner, unsafe, b);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// Not available, try the JDK 8 way.
+		}
+		try {
+			// JDK 8
+			Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+			Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+			return (b)->{
+				Object bufferCleaner = invokeQuietly(cleaner, b);
+				if (bufferCleaner != null) {
+					invokeQuietly(clean, bufferCleaner);
+				}
+			};
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// Not available either, so leave it to the garbage collector.
+		}
+		return NO_OP_FREER;
+	}
+
+	private static Object invokeQuietly(Method method, Object target, Object... args) {
+		try {
+			return method.invoke(target, args);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;	// Leave it to the garbage collector.
+		}
+	}
+}
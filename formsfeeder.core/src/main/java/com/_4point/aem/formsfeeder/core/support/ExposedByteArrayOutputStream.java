@@ -0,0 +1,43 @@
+package com._4point.aem.formsfeeder.core.support;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * ByteArrayOutputStream that can hand over its backing array instead of copying it.
+ *
+ * ByteArrayOutputStream.toByteArray() always returns a copy of the data that has been written.  For large contents
+ * that doubles the memory required at the point where the stream is converted into a byte array.  This class allows
+ * the caller to take over the backing array (which may be longer than the number of bytes written, see size()).
+ *
+ * Once the backing array has been handed over, the stream should no longer be written to.
+ *
+ */
+public class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+
+	public ExposedByteArrayOutputStream() {
+		super();
+	}
+
+	public ExposedByteArrayOutputStream(int size) {
+		super(size);
+	}
+
+	/**
+	 * Returns the backing array without copying it.  Only the first size() bytes are valid.
+	 *
+	 * @return the array that backs this output stream
+	 */
+	public synchronized byte[] backingArray() {
+		return buf;
+	}
+
+	/**
+	 * Returns the bytes written to this stream.  If the backing array is exactly full, then it is returned without
+	 * copying it, otherwise a copy of the valid portion is returned (just like toByteArray()).
+	 *
+	 * @return the bytes written to this stream
+	 */
+	public synchronized byte[] toByteArrayNoCopy() {
+		return count == buf.length ? buf : toByteArray();
+	}
+}
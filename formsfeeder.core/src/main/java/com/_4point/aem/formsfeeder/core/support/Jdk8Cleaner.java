@@ -0,0 +1,99 @@
+package com._4point.aem.formsfeeder.core.support;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Replaces the JDK9 java.lang.ref.Cleaner class.
+ *
+ * Registers cleanup actions that are run either explicitly (by calling Cleanable.clean()) or, at the latest, once the
+ * registered object has become phantom reachable.  Cleanup actions are run at most once.
+ *
+ * As with java.lang.ref.Cleaner, the cleanup action must not refer to the object being registered, otherwise the
+ * object will never become phantom reachable.
+ *
+ */
+public final class Jdk8Cleaner {
+	private static final Jdk8Cleaner COMMON_CLEANER = new Jdk8Cleaner("formsfeeder-cleaner");
+
+	private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+	private final Set<CleanableReference> registered = ConcurrentHashMap.newKeySet();	// Keeps the references reachable until they are cleaned.
+
+	private Jdk8Cleaner(String threadName) {
+		Thread thread = new Thread(this::processQueue, threadName);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Returns the cleaner that is shared by all the FormsFeeder classes.
+	 *
+	 * @return the common cleaner
+	 */
+	public static Jdk8Cleaner common() {
+		return COMMON_CLEANER;
+	}
+
+	/**
+	 * Registers an object and a cleaning action to run when the object becomes phantom reachable.
+	 *
+	 * @param obj	the object to monitor
+	 * @param action	a Runnable to invoke when the object becomes phantom reachable
+	 * @return a Cleanable instance that can be used to run the action early
+	 */
+	public Cleanable register(Object obj, Runnable action) {
+		CleanableReference ref = new CleanableReference(Objects.requireNonNull(obj, "Object cannot be null."), Objects.requireNonNull(action, "Action cannot be null."));
+		registered.add(ref);
+		return ref;
+	}
+
+	private void processQueue() {
+		while (true) {
+			try {
+				Reference<?> ref = queue.remove();
+				if (ref instanceof CleanableReference) {
+					((CleanableReference) ref).clean();
+				}
+			} catch (InterruptedException e) {
+				// Keep going, this thread runs for the life of the JVM.
+			} catch (RuntimeException e) {
+				// Exceptions from cleaning actions are ignored, just like java.lang.ref.Cleaner.
+			}
+		}
+	}
+
+	/**
+	 * Cleanable represents an object and a cleaning action registered with a Jdk8Cleaner.
+	 *
+	 */
+	public interface Cleanable {
+		/**
+		 * Unregisters the cleanable and invokes the cleaning action.  The action is invoked at most once.
+		 */
+		void clean();
+	}
+
+	private final class CleanableReference extends PhantomReference<Object> implements Cleanable {
+		private final Runnable action;
+		private final AtomicBoolean cleaned = new AtomicBoolean(false);
+
+		private CleanableReference(Object referent, Runnable action) {
+			super(referent, queue);
+			this.action = action;
+		}
+
+		@Override
+		public void clean() {
+			if (cleaned.compareAndSet(false, true)) {
+				registered.remove(this);
+				clear();
+				action.run();
+			}
+		}
+	}
+}
@@ -1,6 +1,5 @@
 package com._4point.aem.formsfeeder.core.support;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -25,31 +24,97 @@ import java.util.stream.Collectors;
  */
 public class Jdk8Utils {
 	private static final int DEFAULT_BUFFER_SIZE = 8192;
+	private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;	// Some VMs reserve header words in an array.
+	private static final int MAX_INITIAL_BUFFER_SIZE = 64 * 1024;	// Size hints can come from untrusted sources (e.g. headers).
+
+	// One transfer buffer per thread.  The slot is emptied while the buffer is in use so that a nested call on the
+	// same thread (e.g. from inside an OutputStream.write()) allocates its own buffer rather than sharing this one.
+	private static final ThreadLocal<byte[][]> TRANSFER_BUFFER = ThreadLocal.withInitial(()->new byte[][] { new byte[DEFAULT_BUFFER_SIZE] });
+
 	/**
 	 * Used to replace the JDK11 InputStream.readAllBytes() routine.
 	 * 
+	 * The InputStream's available() count is used as a size hint, so streams that know their length (such as
+	 * ByteArrayInputStream or FileInputStream) are read into a single array of the correct size.
+	 * 
 	 * @param is
 	 * @return
 	 */
 	public static byte[] readAllBytes(InputStream is) throws IOException {
-		ByteArrayOutputStream out = new ByteArrayOutputStream();
-        transfer(is, out);
-        return out.toByteArray();
+		return readAllBytes(is, is.available());
+	}
+
+	/**
+	 * Reads all the remaining bytes from an InputStream.
+	 * 
+	 * If the size hint is correct, then the bytes are read into an array of exactly that size and no further copies
+	 * are made (for hints up to 64K, larger hints start with a 64K array which is grown as the bytes arrive, so that a
+	 * bad hint cannot cause a huge allocation).  If the hint is wrong, the result is still correct, just more
+	 * expensive.  A hint less than or equal to zero means the size is unknown.
+	 * 
+	 * @param is
+	 * @param sizeHint	expected number of bytes remaining in the stream
+	 * @return
+	 * @throws IOException
+	 */
+	public static byte[] readAllBytes(InputStream is, long sizeHint) throws IOException {
+		if (sizeHint <= 0) {
+			ExposedByteArrayOutputStream out = new ExposedByteArrayOutputStream();
+			transfer(is, out);
+			return out.toByteArrayNoCopy();
+		}
+		int limit = (int) Math.min(sizeHint, MAX_ARRAY_SIZE);
+		byte[] buffer = new byte[Math.min(limit, MAX_INITIAL_BUFFER_SIZE)];
+		int count = 0;
+		int read;
+		while ((read = is.read(buffer, count, buffer.length - count)) >= 0) {
+			count += read;
+			if (count == buffer.length) {
+				if (buffer.length == limit) {
+					break;
+				}
+				buffer = Arrays.copyOf(buffer, (int) Math.min((long) buffer.length * 2, limit));	// Grow towards the hint.
+			}
+		}
+		if (count < buffer.length) {
+			return Arrays.copyOf(buffer, count);	// Stream was shorter than the hint.
+		}
+		int next = is.read();
+		if (next < 0) {
+			return buffer;		// Hint was exact, so the array can be returned as is.
+		}
+		// Stream was longer than the hint, so fall back to accumulating the remainder.
+		ExposedByteArrayOutputStream out = new ExposedByteArrayOutputStream((int) Math.min((long) buffer.length * 2, MAX_ARRAY_SIZE));
+		out.write(buffer, 0, count);
+		out.write(next);
+		transfer(is, out);
+		return out.toByteArrayNoCopy();
 	}
 
 	/**
 	 * Replaces InputStream transferTo()
 	 * 
+	 * The buffer used to copy the bytes is reused by subsequent calls on the same thread.
+	 * 
 	 * @param is
 	 * @param out
 	 * @throws IOException
 	 */
 	public static void transfer(InputStream is, OutputStream out) throws IOException {
-		byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
-        int read;
-        while ((read = is.read(buffer, 0, DEFAULT_BUFFER_SIZE)) >= 0) {
-            out.write(buffer, 0, read);
-        }
+		byte[][] slot = TRANSFER_BUFFER.get();
+		byte[] buffer = slot[0];
+		slot[0] = null;
+		if (buffer == null) {
+			buffer = new byte[DEFAULT_BUFFER_SIZE];	// Nested call, the thread's buffer is already in use.
+		}
+		try {
+			int read;
+			while ((read = is.read(buffer, 0, buffer.length)) >= 0) {
+				out.write(buffer, 0, read);
+			}
+		} finally {
+			slot[0] = buffer;
+		}
 	}
 
 	/**
@@ -0,0 +1,63 @@
+package com._4point.aem.formsfeeder.core.support;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small, thread-safe, least-recently-used cache.
+ *
+ * Once the cache is full, adding an entry evicts the entry that was used least recently.  This keeps the cache
+ * working for the entries that are actually in use, even if it is flooded with entries that are only used once (for
+ * example, values taken from untrusted headers).
+ *
+ * @param <K>	key type
+ * @param <V>	value type
+ */
+public final class LruCache<K, V> {
+	private final Map<K, V> map;
+
+	public LruCache(final int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("Cache size must be greater than zero (" + maxSize + ").");
+		}
+		this.map = new LinkedHashMap<K, V>(16, 0.75f, true) {	// Access order, so the eldest entry is the least recently used.
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns the value cached for a key.
+	 *
+	 * @param key
+	 * @return the value or null if the key is not in the cache
+	 */
+	public synchronized V get(final K key) {
+		return map.get(key);
+	}
+
+	/**
+	 * Adds an entry to the cache, unless there is already an entry for the key.
+	 *
+	 * @param key
+	 * @param value
+	 * @return the value that is now cached for the key (i.e. the existing value, if there was one)
+	 */
+	public synchronized V putIfAbsent(final K key, final V value) {
+		V existing = map.putIfAbsent(key, value);
+		return existing != null ? existing : value;
+	}
+
+	/**
+	 * Returns the number of entries in the cache.
+	 *
+	 * @return
+	 */
+	public synchronized int size() {
+		return map.size();
+	}
+}
@@ -0,0 +1,239 @@
+package com._4point.aem.formsfeeder.core.codec;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com._4point.aem.formsfeeder.core.codec.DataSourceListCodec.DataSourceListCodecException;
+import com._4point.aem.formsfeeder.core.datasource.DataSource;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+import com._4point.aem.formsfeeder.core.datasource.MimeType;
+import com._4point.aem.formsfeeder.core.datasource.StandardMimeTypes;
+import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
+
+class DataSourceListCodecTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void testRoundTrip() throws Exception {
+		byte[] pdfBytes = createBytes(100 * 1024);
+		Path xdpFile = Files.write(tempDir.resolve("sample.xdp"), "<xdp/>".getBytes());
+		Map<String, String> attributes = Jdk8Utils.mapOf("Key1", "Value1", "Key2", "Välue2");
+		DataSourceList expected = DataSourceList.builder()
+				.add("StringDS", "String Value ✓")
+				.add("PdfDS", pdfBytes, StandardMimeTypes.APPLICATION_PDF_TYPE, Paths.get("foo", "bar.pdf"), attributes)
+				.add("FileDS", xdpFile)
+				.add("EmptyDS", new byte[0])
+				.add("IntDS", 42)
+				.build();
+
+		DataSourceList result = DataSourceListDecoder.decode(new ByteArrayInputStream(encode(expected)));
+
+		assertEquals(expected.list().size(), result.list().size());
+		for (int i = 0; i < expected.list().size(); i++) {
+			assertDataSourceEquals(expected.list().get(i), result.list().get(i));
+		}
+		DataSourceList.Deconstructor deconstructor = result.deconstructor();
+		assertAll(
+				()->assertEquals("String Value ✓", deconstructor.getStringByName("StringDS").get()),
+				()->assertEquals(42, deconstructor.getIntegerByName("IntDS").get()),
+				()->assertArrayEquals(pdfBytes, deconstructor.getByteArrayByName("PdfDS").get())
+				);
+	}
+
+	@Test
+	void testUnknownLengthIsChunked() throws Exception {
+		byte[] expectedBytes = createBytes(DataSourceListCodec.MAX_CHUNK_SIZE * 2 + 10);
+		DataSource unknownLength = new UnknownLengthDataSource("Unknown", expectedBytes);
+		assertFalse(unknownLength.contentLength().isPresent());
+
+		DataSourceList result = DataSourceListDecoder.decode(new ByteArrayInputStream(encode(DataSourceList.builder().add(unknownLength).add("After", "After Value").build())));
+
+		assertAll(
+				()->assertEquals(2, result.list().size()),
+				()->assertDataSourceEquals(unknownLength, result.list().get(0)),
+				()->assertEquals("After Value", result.deconstructor().getStringByName("After").get())
+				);
+	}
+
+	@Test
+	void testEmptyList() throws Exception {
+		byte[] encoded = encode(DataSourceList.emptyList());
+		assertEquals(DataSourceListCodec.MAGIC.length + 2, encoded.length);
+		assertTrue(DataSourceListDecoder.decode(new ByteArrayInputStream(encoded)).isEmpty());
+	}
+
+	@Test
+	void testStreamingEncoderAndDecoder() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataSourceListEncoder encoder = new DataSourceListEncoder(out);
+		encoder.write(DataSourceList.builder().add("First", "1").build().list().get(0))
+			   .write(DataSourceList.builder().add("Second", "2").build().list().get(0))
+			   .finish();
+		assertThrows(IllegalStateException.class, ()->encoder.write(DataSourceList.builder().add("Third", "3").build().list().get(0)));
+		out.write("trailing".getBytes());	// Decoder must stop at the end of the list.
+
+		InputStream in = new ByteArrayInputStream(out.toByteArray());
+		DataSourceListDecoder decoder = new DataSourceListDecoder(in);
+		DataSourceList.Builder builder = DataSourceList.builder();
+		assertTrue(decoder.readNext(builder));
+		assertEquals(1, builder.build().list().size());
+		assertTrue(decoder.readNext(builder));
+		assertFalse(decoder.readNext(builder));
+		assertFalse(decoder.readNext(builder));
+		assertEquals(Arrays.asList("1", "2"), builder.build().deconstructor().getStrings(ds->true));
+		assertArrayEquals("trailing".getBytes(), Jdk8Utils.readAllBytes(in));
+	}
+
+	@Test
+	void testNotEncoded() throws Exception {
+		DataSourceListCodecException ex = assertThrows(DataSourceListCodecException.class, ()->DataSourceListDecoder.decode(new ByteArrayInputStream("--boundary\r\n".getBytes())));
+		assertTrue(ex.getMessage().contains("not an encoded DataSourceList"), "Unexpected message '" + ex.getMessage() + "'.");
+	}
+
+	@Test
+	void testUnsupportedVersion() throws Exception {
+		byte[] encoded = encode(DataSourceList.emptyList());
+		encoded[DataSourceListCodec.MAGIC.length] = 99;
+		DataSourceListCodecException ex = assertThrows(DataSourceListCodecException.class, ()->DataSourceListDecoder.decode(new ByteArrayInputStream(encoded)));
+		assertTrue(ex.getMessage().contains("99"), "Expected message to contain the version.");
+	}
+
+	@Test
+	void testTruncatedContent() throws Exception {
+		byte[] encoded = encode(DataSourceList.builder().add("PdfDS", createBytes(1000), StandardMimeTypes.APPLICATION_PDF_TYPE).build());
+		byte[] truncated = Arrays.copyOf(encoded, encoded.length - 100);
+		assertThrows(DataSourceListCodecException.class, ()->DataSourceListDecoder.decode(new ByteArrayInputStream(truncated)));
+	}
+
+	@Test
+	void testDeclaredLengthIsNotTrusted() throws Exception {
+		byte[] encoded = encode(DataSourceList.builder().add("PdfDS", createBytes(1000), StandardMimeTypes.APPLICATION_PDF_TYPE).build());
+		byte[] declaredLength = { 0, 0, 0, 0, 0, 0, 0x03, (byte) 0xE8 };	// 1000 as a long
+		int lengthOffset = indexOf(encoded, declaredLength);
+		assertTrue(lengthOffset > 0, "Expected to find the content length.");
+		encoded[lengthOffset + 4] = 0x7F;	// Claims almost 2GB but only 1000 bytes follow.
+		assertThrows(DataSourceListCodecException.class, ()->DataSourceListDecoder.decode(new ByteArrayInputStream(encoded)));
+	}
+
+	@Test
+	void testTruncatedHeader() throws Exception {
+		byte[] encoded = encode(DataSourceList.builder().add("StringDS", "Value").build());
+		byte[] truncated = Arrays.copyOf(encoded, 10);
+		DataSourceListCodecException ex = assertThrows(DataSourceListCodecException.class, ()->DataSourceListDecoder.decode(new ByteArrayInputStream(truncated)));
+		assertTrue(ex.getMessage().contains("end of input"), "Unexpected message '" + ex.getMessage() + "'.");
+	}
+
+	@Test
+	void testInvalidStringLength() throws Exception {
+		byte[] encoded = encode(DataSourceList.builder().add("StringDS", "Value").build());
+		int nameLengthOffset = DataSourceListCodec.MAGIC.length + 2;	// Magic, version and tag.
+		encoded[nameLengthOffset] = 0x7F;	// Huge length.
+		assertThrows(DataSourceListCodecException.class, ()->DataSourceListDecoder.decode(new ByteArrayInputStream(encoded)));
+	}
+
+	@Test
+	void testDecodeIntoConfiguredBuilder() throws Exception {
+		byte[] expectedBytes = createBytes(1000);
+		byte[] encoded = encode(DataSourceList.builder().add("PdfDS", expectedBytes, StandardMimeTypes.APPLICATION_PDF_TYPE).build());
+		DataSourceList result = new DataSourceListDecoder(new ByteArrayInputStream(encoded)).decode(DataSourceList.builder().spoolThreshold(0).spoolDirectory(tempDir));
+		assertArrayEquals(expectedBytes, result.deconstructor().getByteArrayByName("PdfDS").get());
+		try (Stream<Path> files = Files.list(tempDir)) {
+			assertEquals(1, files.count(), "Expected contents to be spooled by the builder provided.");
+		}
+	}
+
+	private static byte[] encode(DataSourceList dataSourceList) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataSourceListEncoder.encode(dataSourceList, out);
+		return out.toByteArray();
+	}
+
+	private static void assertDataSourceEquals(DataSource expected, DataSource actual) throws Exception {
+		try (InputStream expectedStream = expected.inputStream(); InputStream actualStream = actual.inputStream()) {
+			assertAll(
+					()->assertEquals(expected.name(), actual.name()),
+					()->assertEquals(expected.contentType(), actual.contentType()),
+					()->assertEquals(expected.attributes(), actual.attributes()),
+					()->assertEquals(expected.filename(), actual.filename()),
+					()->assertArrayEquals(Jdk8Utils.readAllBytes(expectedStream), Jdk8Utils.readAllBytes(actualStream))
+					);
+		}
+	}
+
+	private static int indexOf(byte[] bytes, byte[] target) {
+		for (int i = 0; i <= bytes.length - target.length; i++) {
+			if (Arrays.equals(target, Arrays.copyOfRange(bytes, i, i + target.length))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static byte[] createBytes(int length) {
+		byte[] bytes = new byte[length];
+		new Random(42).nextBytes(bytes);
+		return bytes;
+	}
+
+	/**
+	 * DataSource that does not know its length in advance.
+	 *
+	 */
+	private static class UnknownLengthDataSource implements DataSource {
+		private final String name;
+		private final byte[] contents;
+
+		private UnknownLengthDataSource(String name, byte[] contents) {
+			this.name = name;
+			this.contents = contents;
+		}
+
+		@Override
+		public MimeType contentType() {
+			return StandardMimeTypes.APPLICATION_OCTET_STREAM_TYPE;
+		}
+
+		@Override
+		public InputStream inputStream() {
+			return new ByteArrayInputStream(contents);
+		}
+
+		@Override
+		public String name() {
+			return name;
+		}
+
+		@Override
+		public OutputStream outputStream() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Optional<Path> filename() {
+			return Optional.empty();
+		}
+
+		@Override
+		public Map<String, String> attributes() {
+			return Collections.emptyMap();
+		}
+	}
+}
@@ -0,0 +1,278 @@
+package com._4point.aem.formsfeeder.core.codec;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com._4point.aem.formsfeeder.core.codec.MultipartFormDataDecoder.MultipartFormDataException;
+import com._4point.aem.formsfeeder.core.datasource.DataSource;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+import com._4point.aem.formsfeeder.core.datasource.MimeType;
+import com._4point.aem.formsfeeder.core.datasource.StandardMimeTypes;
+import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
+
+class MultipartFormDataDecoderTest {
+	private static final String BOUNDARY = "Boundary_1_2065384950_1590164375612";
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void testDecode() throws Exception {
+		byte[] pdfBytes = createBytes(100 * 1024);
+		byte[] body = new MultipartBody()
+				.preamble("This is a preamble.\r\n")
+				.field("Field1", "Field1 Value")
+				.part("Field2", "application/xml", null, "<root>Field2 Value</root>".getBytes(StandardCharsets.UTF_8))
+				.part("PdfFile", "application/pdf", "sample.pdf", pdfBytes)
+				.part("Field3", null, null, "Field3 Välue".getBytes(StandardCharsets.UTF_8))
+				.end("This is an epilogue.");
+
+		DataSourceList result = MultipartFormDataDecoder.decode(new ByteArrayInputStream(body), BOUNDARY);
+
+		assertEquals(4, result.list().size());
+		DataSourceList.Deconstructor deconstructor = result.deconstructor();
+		DataSource pdf = deconstructor.getDataSourceByName("PdfFile").get();
+		assertAll(
+				()->assertEquals("Field1 Value", deconstructor.getStringByName("Field1").get()),
+				()->assertEquals("<root>Field2 Value</root>", new String(deconstructor.getByteArrayByName("Field2").get(), StandardCharsets.UTF_8)),
+				()->assertEquals(StandardMimeTypes.APPLICATION_XML_TYPE, deconstructor.getDataSourceByName("Field2").get().contentType()),
+				()->assertEquals("Field3 Välue", deconstructor.getStringByName("Field3").get()),
+				()->assertEquals(StandardMimeTypes.APPLICATION_PDF_TYPE, pdf.contentType()),
+				()->assertEquals(Paths.get("sample.pdf"), pdf.filename().get()),
+				()->assertArrayEquals(pdfBytes, Jdk8Utils.readAllBytes(pdf.inputStream()))
+				);
+	}
+
+	@Test
+	void testDecode_PartsArrivingInSmallPieces() throws Exception {
+		// Content that contains the start of the delimiter, but not all of it.
+		byte[] tricky = ("abc\r\n--" + BOUNDARY.substring(0, 10) + "def\r\n-\r\n--" + BOUNDARY.substring(0, BOUNDARY.length() - 1) + "\r\n").getBytes(StandardCharsets.US_ASCII);
+		byte[] largeBytes = createBytes(MultipartFormDataDecoder.BUFFER_SIZE * 3 + 17);
+		byte[] body = new MultipartBody()
+				.part("Tricky", "application/octet-stream", "tricky.bin", tricky)
+				.part("Large", "application/octet-stream", "large.bin", largeBytes)
+				.part("Empty", "application/octet-stream", "empty.bin", new byte[0])
+				.end(null);
+
+		DataSourceList result = MultipartFormDataDecoder.decode(new TricklingInputStream(body), BOUNDARY);
+
+		DataSourceList.Deconstructor deconstructor = result.deconstructor();
+		assertAll(
+				()->assertEquals(3, result.list().size()),
+				()->assertArrayEquals(tricky, deconstructor.getByteArrayByName("Tricky").get()),
+				()->assertArrayEquals(largeBytes, deconstructor.getByteArrayByName("Large").get()),
+				()->assertArrayEquals(new byte[0], deconstructor.getByteArrayByName("Empty").get())
+				);
+	}
+
+	@Test
+	void testDecode_LargePartsAreSpooled() throws Exception {
+		byte[] largeBytes = createBytes(64 * 1024);
+		byte[] body = new MultipartBody()
+				.field("Small", "Small Value")
+				.part("Large", "application/pdf", "large.pdf", largeBytes)
+				.end(null);
+
+		DataSourceList.Builder builder = DataSourceList.builder().spoolThreshold(1024).spoolDirectory(tempDir);
+		try (DataSourceList result = new MultipartFormDataDecoder(new ByteArrayInputStream(body), BOUNDARY).decode(builder)) {
+			assertEquals(1, countFiles(tempDir), "Expected the large part to be spooled to disk.");
+			assertArrayEquals(largeBytes, result.deconstructor().getByteArrayByName("Large").get());
+		}
+		assertEquals(0, countFiles(tempDir), "Expected the spool file to be deleted once the list was closed.");
+	}
+
+	@Test
+	void testDecode_LargeFieldIsStreamed() throws Exception {
+		char[] chars = new char[MultipartFormDataDecoder.MAX_FIELD_LENGTH + 1];
+		Arrays.fill(chars, 'x');
+		String largeValue = new String(chars);
+		byte[] body = new MultipartBody().field("LargeField", largeValue).field("After", "After Value").end(null);
+
+		DataSourceList result = MultipartFormDataDecoder.decode(new ByteArrayInputStream(body), BOUNDARY);
+
+		DataSource largeField = result.deconstructor().getDataSourceByName("LargeField").get();
+		assertAll(
+				()->assertEquals(StandardMimeTypes.TEXT_PLAIN_TYPE, largeField.contentType()),
+				()->assertEquals(largeValue, new String(Jdk8Utils.readAllBytes(largeField.inputStream()), StandardCharsets.US_ASCII)),
+				()->assertEquals("After Value", result.deconstructor().getStringByName("After").get())
+				);
+	}
+
+	@Test
+	void testDecode_FieldCharset() throws Exception {
+		byte[] latin1Bytes = "Välue".getBytes(StandardCharsets.ISO_8859_1);
+		byte[] body = new MultipartBody()
+				.part("Latin1", "text/plain; charset=ISO-8859-1", null, latin1Bytes)
+				.part("Utf8", "text/plain; charset=UTF-8", null, "Välue".getBytes(StandardCharsets.UTF_8))
+				.end(null);
+
+		DataSourceList result = MultipartFormDataDecoder.decode(new ByteArrayInputStream(body), BOUNDARY);
+
+		// Parts that declare a charset are not converted to Strings, so the charset is not lost.
+		DataSource latin1 = result.deconstructor().getDataSourceByName("Latin1").get();
+		DataSource utf8 = result.deconstructor().getDataSourceByName("Utf8").get();
+		assertAll(
+				()->assertEquals(MimeType.of("text", "plain", StandardCharsets.ISO_8859_1), latin1.contentType()),
+				()->assertArrayEquals(latin1Bytes, Jdk8Utils.readAllBytes(latin1.inputStream())),
+				()->assertEquals("Välue", DataSourceList.Deconstructor.dsToString(latin1, latin1.contentType().charset())),
+				()->assertEquals(MimeType.of("text", "plain", StandardCharsets.UTF_8), utf8.contentType()),
+				()->assertEquals("Välue", result.deconstructor().getStringByName("Utf8").get())
+				);
+	}
+
+	@Test
+	void testDecode_QuotedParameters() throws Exception {
+		byte[] body = ("--" + BOUNDARY + "\r\n" +
+					   "Content-Disposition: form-data;name=\"Quoted \\\"Name\\\"; with semicolon\";\r\n" +
+					   "  filename=\"file name.txt\"\r\n" +
+					   "Content-Type: text/plain\r\n" +
+					   "\r\n" +
+					   "Contents\r\n" +
+					   "--" + BOUNDARY + "--").getBytes(StandardCharsets.UTF_8);
+
+		DataSource ds = MultipartFormDataDecoder.decode(new ByteArrayInputStream(body), BOUNDARY).list().get(0);
+
+		assertAll(
+				()->assertEquals("Quoted \"Name\"; with semicolon", ds.name()),
+				()->assertEquals(Paths.get("file name.txt"), ds.filename().get()),
+				()->assertEquals("Contents", new String(Jdk8Utils.readAllBytes(ds.inputStream()), StandardCharsets.UTF_8))
+				);
+	}
+
+	@Test
+	void testDecode_Empty() throws Exception {
+		byte[] body = new MultipartBody().end(null);
+		assertTrue(MultipartFormDataDecoder.decode(new ByteArrayInputStream(body), BOUNDARY).isEmpty());
+	}
+
+	@Test
+	void testDecode_MissingClosingBoundary() throws Exception {
+		byte[] body = new MultipartBody().field("Field1", "Field1 Value").part("Field2", "application/pdf", "file.pdf", createBytes(1000)).toByteArray();
+		MultipartFormDataException ex = assertThrows(MultipartFormDataException.class, ()->MultipartFormDataDecoder.decode(new ByteArrayInputStream(body), BOUNDARY));
+		assertTrue(ex.getMessage().contains("closing boundary"), "Unexpected message '" + ex.getMessage() + "'.");
+	}
+
+	@Test
+	void testDecode_NoBoundary() throws Exception {
+		byte[] body = "There is no boundary in this body.".getBytes(StandardCharsets.US_ASCII);
+		assertThrows(MultipartFormDataException.class, ()->MultipartFormDataDecoder.decode(new ByteArrayInputStream(body), BOUNDARY));
+	}
+
+	@Test
+	void testDecode_MissingName() throws Exception {
+		byte[] body = ("--" + BOUNDARY + "\r\nContent-Disposition: form-data; filename=\"foo.txt\"\r\n\r\nContents\r\n--" + BOUNDARY + "--").getBytes(StandardCharsets.US_ASCII);
+		MultipartFormDataException ex = assertThrows(MultipartFormDataException.class, ()->MultipartFormDataDecoder.decode(new ByteArrayInputStream(body), BOUNDARY));
+		assertTrue(ex.getMessage().contains("name"), "Unexpected message '" + ex.getMessage() + "'.");
+	}
+
+	@Test
+	void testDecode_HeadersTooLong() throws Exception {
+		char[] chars = new char[MultipartFormDataDecoder.MAX_HEADER_LENGTH];
+		Arrays.fill(chars, 'x');
+		byte[] body = ("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + new String(chars) + "\"\r\n\r\nContents\r\n--" + BOUNDARY + "--").getBytes(StandardCharsets.US_ASCII);
+		MultipartFormDataException ex = assertThrows(MultipartFormDataException.class, ()->MultipartFormDataDecoder.decode(new ByteArrayInputStream(body), BOUNDARY));
+		assertTrue(ex.getMessage().contains("maximum length"), "Unexpected message '" + ex.getMessage() + "'.");
+	}
+
+	@Test
+	void testDecode_InvalidBoundary() throws Exception {
+		char[] chars = new char[MultipartFormDataDecoder.MAX_BOUNDARY_LENGTH + 1];
+		Arrays.fill(chars, 'x');
+		InputStream in = new ByteArrayInputStream(new byte[0]);
+		assertAll(
+				()->assertThrows(IllegalArgumentException.class, ()->new MultipartFormDataDecoder(in, "")),
+				()->assertThrows(IllegalArgumentException.class, ()->new MultipartFormDataDecoder(in, new String(chars))),
+				()->assertThrows(NullPointerException.class, ()->new MultipartFormDataDecoder(in, null))
+				);
+	}
+
+	private static byte[] createBytes(int length) {
+		byte[] bytes = new byte[length];
+		new Random(42).nextBytes(bytes);
+		return bytes;
+	}
+
+	private static long countFiles(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	/**
+	 * Builds a multipart/form-data body.
+	 *
+	 */
+	private static class MultipartBody {
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+		private MultipartBody preamble(String preamble) {
+			write(preamble.getBytes(StandardCharsets.US_ASCII));
+			return this;
+		}
+
+		private MultipartBody field(String name, String value) {
+			return part(name, "text/plain", null, value.getBytes(StandardCharsets.UTF_8));
+		}
+
+		private MultipartBody part(String name, String contentType, String filename, byte[] contents) {
+			StringBuilder headers = new StringBuilder("--").append(BOUNDARY).append("\r\n");
+			if (contentType != null) {
+				headers.append("Content-Type: ").append(contentType).append("\r\n");
+			}
+			headers.append("Content-Disposition: form-data; name=\"").append(name).append('"');
+			if (filename != null) {
+				headers.append("; filename=\"").append(filename).append('"');
+			}
+			headers.append("\r\n\r\n");
+			write(headers.toString().getBytes(StandardCharsets.UTF_8));
+			write(contents);
+			write("\r\n".getBytes(StandardCharsets.US_ASCII));
+			return this;
+		}
+
+		private byte[] end(String epilogue) {
+			write(("--" + BOUNDARY + "--\r\n" + (epilogue != null ? epilogue : "")).getBytes(StandardCharsets.US_ASCII));
+			return toByteArray();
+		}
+
+		private byte[] toByteArray() {
+			return body.toByteArray();
+		}
+
+		private void write(byte[] bytes) {
+			body.write(bytes, 0, bytes.length);
+		}
+	}
+
+	/**
+	 * Returns at most a few bytes from each read, so that boundaries are split across reads.
+	 *
+	 */
+	private static class TricklingInputStream extends FilterInputStream {
+		private final Random random = new Random(42);
+
+		private TricklingInputStream(byte[] bytes) {
+			super(new ByteArrayInputStream(bytes));
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			return super.read(b, off, Math.min(len, 1 + random.nextInt(7)));
+		}
+	}
+}
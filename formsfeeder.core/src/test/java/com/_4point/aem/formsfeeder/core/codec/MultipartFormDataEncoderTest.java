@@ -0,0 +1,175 @@
+package com._4point.aem.formsfeeder.core.codec;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com._4point.aem.formsfeeder.core.datasource.DataSource;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+import com._4point.aem.formsfeeder.core.datasource.StandardMimeTypes;
+import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
+
+class MultipartFormDataEncoderTest {
+	private static final String BOUNDARY = "Boundary_1_2065384950_1590164375612";
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void testEncode() throws Exception {
+		byte[] pdfBytes = createBytes(100 * 1024);
+		Path file = tempDir.resolve("file.bin");
+		byte[] fileBytes = createBytes(MultipartFormDataDecoder.BUFFER_SIZE * 3 + 17);
+		Files.write(file, fileBytes);
+		DataSourceList dataSourceList = DataSourceList.builder()
+				.add("Field1", "Field1 Välue")
+				.add("PdfFile", pdfBytes, StandardMimeTypes.APPLICATION_PDF_TYPE, Paths.get("foo", "sample.pdf"))
+				.add("File", file)
+				.add("Empty", new byte[0], StandardMimeTypes.APPLICATION_OCTET_STREAM_TYPE)
+				.build();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		MultipartFormDataEncoder.encode(dataSourceList, BOUNDARY, out);
+		DataSourceList result = MultipartFormDataDecoder.decode(new ByteArrayInputStream(out.toByteArray()), BOUNDARY);
+
+		assertEquals(4, result.list().size());
+		DataSourceList.Deconstructor deconstructor = result.deconstructor();
+		DataSource pdf = deconstructor.getDataSourceByName("PdfFile").get();
+		DataSource fileDs = deconstructor.getDataSourceByName("File").get();
+		assertAll(
+				()->assertEquals("Field1 Välue", deconstructor.getStringByName("Field1").get()),
+				()->assertEquals(StandardMimeTypes.APPLICATION_PDF_TYPE, pdf.contentType()),
+				()->assertEquals(Paths.get("sample.pdf"), pdf.filename().get()),	// Only the last component of the filename is sent.
+				()->assertArrayEquals(pdfBytes, Jdk8Utils.readAllBytes(pdf.inputStream())),
+				()->assertEquals(Paths.get("file.bin"), fileDs.filename().get()),
+				()->assertArrayEquals(fileBytes, Jdk8Utils.readAllBytes(fileDs.inputStream())),
+				()->assertEquals(0, deconstructor.getByteArrayByName("Empty").get().length)
+				);
+	}
+
+	@Test
+	void testEncode_Layout() throws Exception {
+		DataSourceList dataSourceList = DataSourceList.builder()
+				.add("Field1", "Value1")
+				.add("Xml", "<root/>".getBytes(StandardCharsets.UTF_8), StandardMimeTypes.APPLICATION_XML_TYPE, Paths.get("data.xml"))
+				.build();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		MultipartFormDataEncoder.encode(dataSourceList, BOUNDARY, out);
+
+		String expected = "--" + BOUNDARY + "\r\n"
+				+ "Content-Type: " + StandardMimeTypes.TEXT_PLAIN_UTF8_TYPE.asString() + "\r\n"
+				+ "Content-Disposition: form-data; name=\"Field1\"\r\n"
+				+ "\r\n"
+				+ "Value1\r\n"
+				+ "--" + BOUNDARY + "\r\n"
+				+ "Content-Type: " + StandardMimeTypes.APPLICATION_XML_TYPE.asString() + "\r\n"
+				+ "Content-Disposition: form-data; name=\"Xml\"; filename=\"data.xml\"\r\n"
+				+ "\r\n"
+				+ "<root/>\r\n"
+				+ "--" + BOUNDARY + "--\r\n";
+		assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testEncode_EscapesNames() throws Exception {
+		String name = "Quote\" Backslash\\ Break\r\nContent-Type: text/html";
+		DataSourceList dataSourceList = DataSourceList.builder()
+				.add(name, "Value")
+				.build();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		MultipartFormDataEncoder.encode(dataSourceList, BOUNDARY, out);
+		String encoded = new String(out.toByteArray(), StandardCharsets.UTF_8);
+		DataSourceList result = MultipartFormDataDecoder.decode(new ByteArrayInputStream(out.toByteArray()), BOUNDARY);
+
+		assertAll(
+				()->assertTrue(encoded.contains("name=\"Quote\\\" Backslash\\\\ BreakContent-Type: text/html\"\r\n"), encoded),
+				()->assertEquals("Value", result.deconstructor().getStringByName("Quote\" Backslash\\ BreakContent-Type: text/html").get())
+				);
+	}
+
+	@Test
+	void testWrite_FlushesEachPart() throws Exception {
+		CountingOutputStream out = new CountingOutputStream();
+		MultipartFormDataEncoder encoder = new MultipartFormDataEncoder(out, BOUNDARY);
+
+		encoder.write(DataSourceList.builder().add("Field1", "Value1").build().list().get(0));
+		int afterFirst = out.size();
+		assertAll(
+				()->assertEquals(1, out.flushes),
+				()->assertTrue(afterFirst > 0, "Expected the first part to have been written.")
+				);
+		encoder.write(DataSourceList.builder().add("Field2", "Value2").build().list().get(0));
+		assertEquals(2, out.flushes);
+		encoder.finish();
+		assertEquals(3, out.flushes);
+		assertTrue(new String(out.toByteArray(), StandardCharsets.US_ASCII).endsWith("--" + BOUNDARY + "--\r\n"));
+	}
+
+	@Test
+	void testWrite_AfterFinish() throws Exception {
+		MultipartFormDataEncoder encoder = new MultipartFormDataEncoder(new ByteArrayOutputStream(), BOUNDARY);
+		encoder.finish();
+		DataSource ds = DataSourceList.builder().add("Field1", "Value1").build().list().get(0);
+		IllegalStateException ex = assertThrows(IllegalStateException.class, ()->encoder.write(ds));
+		assertTrue(ex.getMessage().contains("Field1"), "Expected message to contain the DataSource name.");
+	}
+
+	@Test
+	void testInvalidBoundary() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertAll(
+				()->assertThrows(IllegalArgumentException.class, ()->new MultipartFormDataEncoder(out, "")),
+				()->assertThrows(IllegalArgumentException.class, ()->new MultipartFormDataEncoder(out, "Bad\r\nBoundary")),
+				()->assertThrows(IllegalArgumentException.class, ()->new MultipartFormDataEncoder(out, createString(MultipartFormDataDecoder.MAX_BOUNDARY_LENGTH + 1)))
+				);
+	}
+
+	@Test
+	void testNewBoundary() throws Exception {
+		String boundary1 = MultipartFormDataEncoder.newBoundary();
+		String boundary2 = MultipartFormDataEncoder.newBoundary();
+		assertAll(
+				()->assertNotEquals(boundary1, boundary2),
+				()->assertTrue(boundary1.length() <= MultipartFormDataDecoder.MAX_BOUNDARY_LENGTH),
+				()->assertTrue(boundary1.matches("[A-Za-z0-9_]+"), boundary1)
+				);
+	}
+
+	private static byte[] createBytes(int length) {
+		byte[] bytes = new byte[length];
+		new Random(42).nextBytes(bytes);
+		return bytes;
+	}
+
+	private static String createString(int length) {
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append('a');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * ByteArrayOutputStream that counts how many times it has been flushed.
+	 *
+	 */
+	private static class CountingOutputStream extends ByteArrayOutputStream {
+		private int flushes = 0;
+
+		@Override
+		public void flush() {
+			flushes++;
+		}
+	}
+}
@@ -4,7 +4,17 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import org.junit.jupiter.api.Test;
 
@@ -98,22 +108,215 @@ class AbstractDataSourceTest {
 		assertNotEquals(expectedMimeType, underTest.contentType());
 		assertEquals(TestDataSource.DIFFERENT_NAME, underTest.name());
 		assertEquals(MimeType.of(TestDataSource.DIFFERENT_MIME_TYPE), underTest.contentType());
+		assertEquals(TestDataSource.DIFFERENT_ATTRIBUTES, underTest.attributes());
+		assertThrows(UnsupportedOperationException.class, ()->underTest.attributes().put("NewKey", "NewValue"));
 	}
 
+	@Test
+	void testAttributesSetterCopiesMap() {
+		Map<String, String> attributes = new java.util.HashMap<>(Jdk8Utils.mapOf("Key1", "Value1"));
+		TestDataSource underTest = new TestDataSource();
+
+		underTest.attributes(attributes);
+		attributes.put("Key2", "Value2");
+
+		assertEquals(Jdk8Utils.mapOf("Key1", "Value1"), underTest.attributes(), "Expected later changes to the map not to affect the DataSource.");
+	}
+
+	@SuppressWarnings("deprecation")
+	@Test
+	void testAttributeMapIsImmutable() {
+		// attributeMap() used to return the DataSource's own (mutable) map.  It now returns the immutable attributes,
+		// so subclasses must use attributes(Map) to change them.
+		TestDataSource underTest = new TestDataSource("name", Jdk8Utils.mapOf("Key1", "Value1"));
+		assertThrows(UnsupportedOperationException.class, ()->underTest.attributeMap().put("Key2", "Value2"));
+		assertEquals(Jdk8Utils.mapOf("Key1", "Value1"), underTest.attributes());
+	}
+
+	@Test
+	void testDecodedValueCache() throws Exception {
+		ByteArrayDataSource underTest = new ByteArrayDataSource("123".getBytes());
+		AtomicInteger decodeCount = new AtomicInteger();
+		Function<DataSource, Integer> decoder = (ds)->{ decodeCount.incrementAndGet(); return Integer.valueOf(DataSourceList.Deconstructor.dsToString(ds)); };
+
+		assertEquals(123, underTest.decodedValue(Integer.class, decoder));
+		assertEquals(123, underTest.decodedValue(Integer.class, decoder));
+		assertEquals(1, decodeCount.get(), "Expected the second call to be served from the cache.");
+
+		try (OutputStream outputStream = underTest.outputStream()) {
+			outputStream.write("456".getBytes());
+		}
+		assertEquals(456, underTest.decodedValue(Integer.class, decoder), "Expected the cache to be discarded when contents are rewritten.");
+		assertEquals(2, decodeCount.get());
+	}
+
+	@Test
+	void testDecodedValueCacheIgnoredWhileWriting() throws Exception {
+		ByteArrayDataSource underTest = new ByteArrayDataSource("123".getBytes());
+		try (OutputStream outputStream = underTest.outputStream()) {
+			outputStream.write("456".getBytes());
+			// Value decoded while the contents are being rewritten must not survive the rewrite.
+			assertEquals("old", underTest.decodedValue(String.class, (ds)->"old"));
+		}
+		assertEquals("new", underTest.decodedValue(String.class, (ds)->"new"));
+	}
+
+	@Test
+	void testDecodedValueNotCachedForFiles() throws Exception {
+		FileDataSource underTest = new FileDataSource(java.nio.file.Paths.get("NotCached.txt"));
+		AtomicInteger decodeCount = new AtomicInteger();
+		underTest.decodedValue(String.class, (ds)->Integer.toString(decodeCount.incrementAndGet()));
+		underTest.decodedValue(String.class, (ds)->Integer.toString(decodeCount.incrementAndGet()));
+		assertEquals(2, decodeCount.get(), "Expected file contents to be decoded every time.");
+	}
+
+	@Test
+	void testCloseIsIdempotent() throws Exception {
+		ByteArrayDataSource underTest = new ByteArrayDataSource("Test Data".getBytes());
+		InputStream inputStream1 = underTest.inputStream();
+		InputStream inputStream2 = underTest.inputStream();
+		inputStream1.close();
+		inputStream1.close();	// Closing twice must not release inputStream2 as well.
+		assertThrows(IllegalStateException.class, ()->underTest.outputStream());
+		inputStream2.close();
+
+		OutputStream outputStream = underTest.outputStream();
+		outputStream.close();
+		outputStream.close();
+		underTest.outputStream().close();	// Should still be able to open output streams.
+		underTest.inputStream().close();	// and input streams
+	}
+
+	@Test
+	void testFailedOpenReleasesState() throws Exception {
+		FailingDataSource underTest = new FailingDataSource();
+		assertThrows(IllegalArgumentException.class, ()->underTest.inputStream());
+		assertThrows(IllegalArgumentException.class, ()->underTest.outputStream());
+		// Neither failed open should have left the DataSource locked.
+		underTest.fail = false;
+		underTest.outputStream().close();
+		underTest.inputStream().close();
+	}
+
+	/**
+	 * Stress test where many threads read the same DataSource concurrently while another thread keeps trying to write
+	 * to it.  A writer must never succeed while a reader is open and vice versa, and once everything is closed the
+	 * DataSource must be writable again (i.e. no counts were lost).
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	void testConcurrentReadersExcludeWriters() throws Exception {
+		final int readerThreads = 8;
+		final int iterations = 20_000;
+		byte[] expectedBytes = "Concurrent Test Data".getBytes();
+		ByteArrayDataSource underTest = new ByteArrayDataSource(expectedBytes);
+		AtomicInteger activeReaders = new AtomicInteger();
+		AtomicBoolean writerActive = new AtomicBoolean(false);
+		AtomicInteger violations = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(readerThreads + 1);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < readerThreads; t++) {
+				futures.add(executor.submit(()->{
+					start.await();
+					for (int i = 0; i < iterations; i++) {
+						InputStream is;
+						try {
+							is = underTest.inputStream();
+						} catch (IllegalStateException e) {
+							continue;	// Writer is active, try again.
+						}
+						activeReaders.incrementAndGet();
+						if (writerActive.get()) {
+							violations.incrementAndGet();
+						}
+						activeReaders.decrementAndGet();
+						is.close();
+					}
+					return null;
+				}));
+			}
+			futures.add(executor.submit(()->{
+				start.await();
+				for (int i = 0; i < iterations; i++) {
+					OutputStream os;
+					try {
+						os = underTest.outputStream();
+					} catch (IllegalStateException e) {
+						continue;	// Readers are active, try again.
+					}
+					writerActive.set(true);
+					if (activeReaders.get() > 0) {
+						violations.incrementAndGet();
+					}
+					os.write(expectedBytes);
+					writerActive.set(false);
+					os.close();
+				}
+				return null;
+			}));
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(0, violations.get(), "Readers and writers were open at the same time.");
+		// If any counts were lost, one of these will throw.
+		try (OutputStream os = underTest.outputStream()) {
+			os.write(expectedBytes);
+		}
+		try (InputStream is = underTest.inputStream()) {
+			assertArrayEquals(expectedBytes, Jdk8Utils.readAllBytes(is));
+		}
+	}
+
+	@SuppressWarnings("deprecation")
 	private void basicChecks(TestDataSource underTest) {
 		assertNotNull(underTest.attributeMap());
 		assertNotNull(underTest.attributes());
 		assertEquals(underTest.attributeMap(), underTest.attributes());
-		assertNotSame(underTest.attributeMap(), underTest.attributes(), "Should not return original map but should return a copy instead.");
+		assertSame(underTest.attributeMap(), underTest.attributes(), "Attributes are immutable, so the original map should be returned rather than a copy.");
+		assertThrows(UnsupportedOperationException.class, ()->underTest.attributes().put("NewKey", "NewValue"));
 		assertNotNull(underTest.name());
 		assertNotNull(underTest.contentType());
 		assertNotNull(underTest.filename());
 	}
 
+	private static class FailingDataSource extends AbstractDataSource {
+		private volatile boolean fail = true;
+
+		@Override
+		public InputStream inputStream() {
+			return wrapInputStream(()->{
+				if (fail) {
+					throw new IllegalArgumentException("Unable to open input stream.");
+				}
+				return new java.io.ByteArrayInputStream(new byte[0]);
+			});
+		}
+
+		@Override
+		public OutputStream outputStream() {
+			return wrapOutputStream(()->{
+				if (fail) {
+					throw new IllegalArgumentException("Unable to open output stream.");
+				}
+				return new java.io.ByteArrayOutputStream();
+			});
+		}
+	}
+
 	private static class TestDataSource extends AbstractDataSource {
 
 		public static final String DIFFERENT_MIME_TYPE = "application/x-something-different";
 		public static final String DIFFERENT_NAME = "DifferentName";
+		public static final Map<String, String> DIFFERENT_ATTRIBUTES = Jdk8Utils.mapOf("DifferentKey", "DifferentValue");
 
 		private TestDataSource() {
 			super();
@@ -150,6 +353,7 @@ class AbstractDataSourceTest {
 		public void callSetters() {
 			this.name(DIFFERENT_NAME);
 			this.contentType(DIFFERENT_MIME_TYPE);
+			this.attributes(DIFFERENT_ATTRIBUTES);
 		}
 	}
 	
@@ -0,0 +1,100 @@
+package com._4point.aem.formsfeeder.core.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
+
+class AttributeMapTest {
+
+	@Test
+	void testEmpty() {
+		AttributeMap underTest = AttributeMap.copyOf(Collections.emptyMap());
+		assertAll(
+				()->assertSame(AttributeMap.EMPTY, underTest),
+				()->assertTrue(underTest.isEmpty()),
+				()->assertEquals(0, underTest.size()),
+				()->assertNull(underTest.get("Key")),
+				()->assertEquals(Collections.emptyMap(), underTest),
+				()->assertSame(underTest.entrySet(), underTest.entrySet(), "Expected entrySet to be cached.")
+				);
+	}
+
+	@Test
+	void testSmall() {
+		Map<String, String> expected = Jdk8Utils.mapOf("Key1", "Value1", "Key2", "Value2");
+		AttributeMap underTest = AttributeMap.copyOf(expected);
+		assertAll(
+				()->assertEquals(expected, underTest),
+				()->assertEquals(underTest, expected),
+				()->assertEquals(expected.hashCode(), underTest.hashCode()),
+				()->assertEquals("Value1", underTest.get("Key1")),
+				()->assertEquals("Value2", underTest.get("Key2")),
+				()->assertNull(underTest.get("Key3")),
+				()->assertTrue(underTest.containsKey("Key1")),
+				()->assertFalse(underTest.containsKey("Key3")),
+				()->assertTrue(underTest.containsValue("Value2")),
+				()->assertEquals(2, underTest.size())
+				);
+	}
+
+	@Test
+	void testLarge() {
+		Map<String, String> expected = new HashMap<>();
+		for (int i = 0; i < 20; i++) {
+			expected.put("Key" + i, "Value" + i);
+		}
+		AttributeMap underTest = AttributeMap.copyOf(expected);
+		assertEquals(expected, underTest);
+		for (int i = 0; i < 20; i++) {
+			assertEquals("Value" + i, underTest.get("Key" + i));
+			assertTrue(underTest.containsKey("Key" + i));
+		}
+		assertFalse(underTest.containsKey("Key20"));
+	}
+
+	@Test
+	void testCopyOfAttributeMapIsShared() {
+		AttributeMap first = AttributeMap.copyOf(Jdk8Utils.mapOf("Key1", "Value1"));
+		assertSame(first, AttributeMap.copyOf(first));
+	}
+
+	@Test
+	void testCopyIsIndependent() {
+		Map<String, String> source = new HashMap<>();
+		source.put("Key1", "Value1");
+		AttributeMap underTest = AttributeMap.copyOf(source);
+		source.put("Key2", "Value2");
+		assertEquals(1, underTest.size(), "Changes to the source map should not affect the copy.");
+	}
+
+	@Test
+	void testUnmodifiable() {
+		AttributeMap underTest = AttributeMap.copyOf(Jdk8Utils.mapOf("Key1", "Value1"));
+		assertAll(
+				()->assertThrows(UnsupportedOperationException.class, ()->underTest.put("Key2", "Value2")),
+				()->assertThrows(UnsupportedOperationException.class, ()->underTest.remove("Key1")),
+				()->assertThrows(UnsupportedOperationException.class, ()->underTest.clear()),
+				()->assertThrows(UnsupportedOperationException.class, ()->underTest.entrySet().iterator().next().setValue("NewValue")),
+				()->assertThrows(UnsupportedOperationException.class, ()->{
+					Iterator<Map.Entry<String, String>> iterator = underTest.entrySet().iterator();
+					iterator.next();
+					iterator.remove();
+				})
+				);
+	}
+
+	@Test
+	void testDataSourcesShareAttributes() {
+		Map<String, String> attributes = Jdk8Utils.mapOf("Key1", "Value1");
+		DataSourceList dsl = DataSourceList.builder().addStrings("Name", Jdk8Utils.listOf("One", "Two"), attributes).build();
+		assertSame(dsl.list().get(0).attributes(), dsl.list().get(1).attributes(), "Expected DataSources to share the same attribute map.");
+		assertSame(dsl.list().get(0).attributes(), dsl.list().get(0).attributes(), "Expected attributes() to return the map without copying.");
+	}
+}
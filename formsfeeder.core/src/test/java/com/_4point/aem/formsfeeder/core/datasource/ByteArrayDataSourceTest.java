@@ -2,8 +2,11 @@ package com._4point.aem.formsfeeder.core.datasource;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
@@ -111,6 +114,31 @@ class ByteArrayDataSourceTest {
 		}
 	}
 
+	@Test
+	void testAdopt() throws Exception {
+		byte[] expectedBytes = "Test Data".getBytes();
+		String expectedName = "DataSource Test Name";
+		MimeType expectedMimeType = StandardMimeTypes.APPLICATION_PDF_TYPE;
+		Map<String, String> expectedAttributes = Jdk8Utils.mapOf("TestAttribute1", "TestAttributeValue1");
+		ByteArrayDataSource underTest = ByteArrayDataSource.adopt(expectedBytes, expectedName, expectedMimeType, expectedAttributes);
+		try (InputStream inputStream = underTest.inputStream()) {
+			assertAll(
+					()->assertArrayEquals(expectedBytes, Jdk8Utils.readAllBytes(inputStream)),
+					()->assertSame(expectedBytes, underTest.getContents(), "Expected adopted array to be used without copying."),
+					()->assertEquals(expectedName, underTest.name()),
+					()->assertEquals(expectedMimeType, underTest.contentType()),
+					()->assertEquals(expectedAttributes, underTest.attributes())
+					);
+		}
+	}
+
+	@Test
+	void testConstructorCopies() throws Exception {
+		byte[] bytes = "Test Data".getBytes();
+		ByteArrayDataSource underTest = new ByteArrayDataSource(bytes);
+		assertNotSame(bytes, underTest.getContents(), "Expected constructor to make a defensive copy.");
+	}
+
 	/**
 	 * Should be able to write to an output stream and then read the bytes back.
 	 * 
@@ -127,6 +155,7 @@ class ByteArrayDataSourceTest {
 		try (InputStream inputStream = underTest.inputStream()) {
 			assertArrayEquals(expectedBytes, Jdk8Utils.readAllBytes(inputStream));
 		}
+		assertArrayEquals(expectedBytes, underTest.getContents(), "Expected contents to be trimmed to the bytes written.");
 	}
 	
 	/**
@@ -158,4 +187,41 @@ class ByteArrayDataSourceTest {
 
 	
 	
+
+	@Test
+	void testAsReadOnlyByteBuffer() throws Exception {
+		byte[] expectedBytes = "ByteBuffer Test Data".getBytes();
+		ByteArrayDataSource underTest = new ByteArrayDataSource();
+		try (OutputStream outputStream = underTest.outputStream()) {
+			outputStream.write(expectedBytes);	// Backing array may be longer than the data written.
+		}
+		ByteBuffer result = underTest.asReadOnlyByteBuffer();
+		byte[] resultBytes = new byte[result.remaining()];
+		result.get(resultBytes);
+		assertTrue(result.isReadOnly());
+		assertArrayEquals(expectedBytes, resultBytes);
+	}
+
+	@Test
+	void testTransferTo() throws Exception {
+		byte[] expectedBytes = "TransferTo Test Data".getBytes();
+		ByteArrayDataSource underTest = new ByteArrayDataSource(expectedBytes);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertEquals(expectedBytes.length, underTest.transferTo(Channels.newChannel(out)));
+		assertArrayEquals(expectedBytes, out.toByteArray());
+		try (OutputStream outputStream = underTest.outputStream()) {
+			assertThrows(IllegalStateException.class, ()->underTest.transferTo(Channels.newChannel(new ByteArrayOutputStream())));
+		}
+	}
+
+	@Test
+	void testContentLength() throws Exception {
+		byte[] expectedBytes = "ContentLength Test Data".getBytes();
+		ByteArrayDataSource underTest = new ByteArrayDataSource(expectedBytes);
+		assertEquals(expectedBytes.length, underTest.contentLength().getAsLong());
+		try (OutputStream outputStream = underTest.outputStream()) {
+			outputStream.write(expectedBytes, 0, 5);
+		}
+		assertEquals(5, underTest.contentLength().getAsLong(), "Expected length to track the new contents.");
+	}
 }
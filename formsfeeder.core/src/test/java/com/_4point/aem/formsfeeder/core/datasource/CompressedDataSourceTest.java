@@ -0,0 +1,119 @@
+package com._4point.aem.formsfeeder.core.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
+
+class CompressedDataSourceTest {
+
+	private static final String DS_NAME = "CompressedDS";
+	private static final MimeType XML_TYPE = StandardMimeTypes.APPLICATION_XML_TYPE;
+
+	@Test
+	void testCompress() throws Exception {
+		byte[] expectedBytes = DataSourceListBuilderTest.createXml(500);
+		Map<String, String> expectedAttributes = Jdk8Utils.mapOf("TestAttribute1", "TestAttributeValue1");
+		CompressedDataSource underTest = compress(expectedBytes, expectedAttributes);
+		try (InputStream inputStream = underTest.inputStream()) {
+			assertAll(
+					()->assertArrayEquals(expectedBytes, Jdk8Utils.readAllBytes(inputStream)),
+					()->assertEquals(DS_NAME, underTest.name()),
+					()->assertEquals(XML_TYPE, underTest.contentType()),
+					()->assertEquals(expectedAttributes, underTest.attributes()),
+					()->assertFalse(underTest.filename().isPresent()),
+					()->assertEquals(expectedBytes.length, underTest.contentLength().getAsLong()),
+					()->assertTrue(underTest.compressedLength() * 5 < expectedBytes.length, "Expected XML to compress at least 5 times, but compressed to " + underTest.compressedLength() + " bytes.")
+					);
+		}
+	}
+
+	@Test
+	void testCompressIncompressible() throws Exception {
+		byte[] bytes = new byte[] { 1, 2, 3 };	// Too short to get any smaller.
+		assertFalse(CompressedDataSource.compress(bytes, DS_NAME, XML_TYPE, Collections.emptyMap()).isPresent());
+	}
+
+	@Test
+	void testMultipleReads() throws Exception {
+		byte[] expectedBytes = DataSourceListBuilderTest.createXml(100);
+		CompressedDataSource underTest = compress(expectedBytes, Collections.emptyMap());
+		try (InputStream first = underTest.inputStream(); InputStream second = underTest.inputStream()) {
+			assertArrayEquals(expectedBytes, Jdk8Utils.readAllBytes(first));
+			assertArrayEquals(expectedBytes, Jdk8Utils.readAllBytes(second));
+		}
+		ByteBuffer buffer = underTest.asReadOnlyByteBuffer();
+		byte[] bufferBytes = new byte[buffer.remaining()];
+		buffer.get(bufferBytes);
+		assertArrayEquals(expectedBytes, bufferBytes);
+	}
+
+	@Test
+	void testOutputStream() throws Exception {
+		byte[] expectedBytes = DataSourceListBuilderTest.createXml(300);
+		CompressedDataSource underTest = new CompressedDataSource(DS_NAME, XML_TYPE, Collections.emptyMap());
+		assertEquals(0, underTest.contentLength().getAsLong());
+		try (OutputStream outputStream = underTest.outputStream()) {
+			outputStream.write(expectedBytes[0]);
+			outputStream.write(expectedBytes, 1, expectedBytes.length - 1);
+		}
+		try (InputStream inputStream = underTest.inputStream()) {
+			assertArrayEquals(expectedBytes, Jdk8Utils.readAllBytes(inputStream));
+		}
+		assertEquals(expectedBytes.length, underTest.contentLength().getAsLong());
+		assertTrue(underTest.compressedLength() < expectedBytes.length);
+	}
+
+	@Test
+	void testEmpty() throws Exception {
+		CompressedDataSource underTest = new CompressedDataSource(DS_NAME, XML_TYPE, Collections.emptyMap());
+		try (InputStream inputStream = underTest.inputStream()) {
+			assertEquals(0, Jdk8Utils.readAllBytes(inputStream).length);
+		}
+	}
+
+	@Test
+	void testFilename() throws Exception {
+		Path expectedFilename = Paths.get("foo", "bar.xml");
+		CompressedDataSource underTest = compress(DataSourceListBuilderTest.createXml(100), Collections.emptyMap());
+		underTest.filename(expectedFilename);
+		assertEquals(expectedFilename, underTest.filename().get());
+	}
+
+	/**
+	 * Shouldn't be able to open OutputStream while one or more InputStreams are open.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void testOutputStreamWhileInputStreamOpen() throws Exception {
+		byte[] expectedBytes = DataSourceListBuilderTest.createXml(100);
+		DataSourceTestUtils.openOutputStreamWhileInputStreamOpen(expectedBytes, compress(expectedBytes, Collections.emptyMap()));
+	}
+
+	/**
+	 * Shouldn't allow getting an input stream while there is still an output stream open.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void testInputStreamWhileOutputStreamOpen() throws Exception {
+		DataSourceTestUtils.openInputStreamAndOutputStream(new CompressedDataSource(DS_NAME, XML_TYPE, Collections.emptyMap()));
+	}
+
+	private static CompressedDataSource compress(byte[] bytes, Map<String, String> attributes) {
+		Optional<CompressedDataSource> result = CompressedDataSource.compress(bytes, DS_NAME, XML_TYPE, attributes);
+		assertTrue(result.isPresent(), "Expected contents to be compressible.");
+		return result.get();
+	}
+}
@@ -2,17 +2,21 @@ package com._4point.aem.formsfeeder.core.datasource;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
 
@@ -29,6 +33,7 @@ class DataSourceListBuilderTest {
 	private static final String STRING_DS_NAME = "StringDS";
 	private static final String DUMMY_DS_NAME = "DummyDS";
 	private static final String BYTE_ARRAY_W_CT_DS_NAME = "ByteArrayDSWithContentType";
+	private static final String INPUT_STREAM_DS_NAME = "InputStreamDS";
 	
 	// Custom Data Source
 	private static final DataSource dummyDS = new DataSource() {
@@ -212,6 +217,198 @@ class DataSourceListBuilderTest {
 		assertTrue(result.list().isEmpty());
 	}
 
+	@Test
+	void testBuildInputStreams(@TempDir Path spoolDir) throws Exception {
+		byte[] smallData = "Small Data".getBytes();
+		byte[] largeData = new byte[64];
+		Path filename = Paths.get("InputStreamDS.pdf");
+		Map<String, String> attributes = Jdk8Utils.mapOf("Key1", "Value1");
+		
+		DataSourceList result = DataSourceList.builder()
+				.spoolThreshold(32)
+				.spoolDirectory(spoolDir)
+				.add(INPUT_STREAM_DS_NAME, new ByteArrayInputStream(smallData), mimeType)
+				.add(INPUT_STREAM_DS_NAME, new ByteArrayInputStream(largeData), mimeType, filename)
+				.add(INPUT_STREAM_DS_NAME, new ByteArrayInputStream(smallData), mimeType, attributes)
+				.add(INPUT_STREAM_DS_NAME, new ByteArrayInputStream(largeData), mimeType, filename, attributes)
+				.build();
+		
+		List<DataSource> resultList = result.list();
+		assertAll(
+				()->assertEquals(4, resultList.size()),
+				()->assertEquals(INPUT_STREAM_DS_NAME, resultList.get(0).name()),
+				()->assertArrayEquals(smallData, Jdk8Utils.readAllBytes(resultList.get(0).inputStream())),
+				()->assertEquals(mimeType, resultList.get(0).contentType()),
+				()->assertFalse(resultList.get(0).filename().isPresent()),
+				()->assertArrayEquals(largeData, Jdk8Utils.readAllBytes(resultList.get(1).inputStream())),
+				()->assertEquals(filename, resultList.get(1).filename().get()),
+				()->assertTrue(((SpoolingDataSource)resultList.get(1)).isSpooled(), "Expected large InputStream to be spooled."),
+				()->assertArrayEquals(smallData, Jdk8Utils.readAllBytes(resultList.get(2).inputStream())),
+				()->assertEquals(attributes, resultList.get(2).attributes()),
+				()->assertArrayEquals(largeData, Jdk8Utils.readAllBytes(resultList.get(3).inputStream())),
+				()->assertEquals(filename, resultList.get(3).filename().get()),
+				()->assertEquals(attributes, resultList.get(3).attributes())
+				);
+	}
+
+	@Test
+	void testBuildOwned() throws Exception {
+		byte[] ownedData = "Owned Data".getBytes();
+		Path filename = Paths.get("OwnedDS.pdf");
+		Map<String, String> attributes = Jdk8Utils.mapOf("Key1", "Value1");
+		
+		DataSourceList result = DataSourceList.builder()
+				.addOwned(BYTE_ARRAY_DS_NAME, ownedData, mimeType)
+				.addOwned(BYTE_ARRAY_DS_NAME, ownedData, mimeType, filename)
+				.addOwned(BYTE_ARRAY_DS_NAME, ownedData, mimeType, attributes)
+				.addOwned(BYTE_ARRAY_DS_NAME, ownedData, mimeType, filename, attributes)
+				.build();
+		
+		List<DataSource> resultList = result.list();
+		assertAll(
+				()->assertEquals(4, resultList.size()),
+				()->assertEquals(BYTE_ARRAY_DS_NAME, resultList.get(0).name()),
+				()->assertEquals(mimeType, resultList.get(0).contentType()),
+				()->assertSame(ownedData, DataSourceList.Deconstructor.dsToByteArray(resultList.get(0)), "Expected the array to be adopted, not copied."),
+				()->assertFalse(resultList.get(0).filename().isPresent()),
+				()->assertEquals(filename, resultList.get(1).filename().get()),
+				()->assertArrayEquals(ownedData, Jdk8Utils.readAllBytes(resultList.get(1).inputStream())),
+				()->assertEquals(attributes, resultList.get(2).attributes()),
+				()->assertEquals(filename, resultList.get(3).filename().get()),
+				()->assertEquals(attributes, resultList.get(3).attributes())
+				);
+	}
+
+	@Test
+	void testBuildMapped(@TempDir Path tempDir) throws Exception {
+		byte[] fileData = "Mapped Data".getBytes();
+		Path filePath = Files.write(tempDir.resolve("MappedDS.pdf"), fileData);
+		Map<String, String> attributes = Jdk8Utils.mapOf("Key1", "Value1");
+		
+		DataSourceList result = DataSourceList.builder()
+				.addMapped(FILE_DS_NAME, filePath)
+				.addMapped(FILE_DS_NAME, filePath, attributes)
+				.build();
+		
+		List<DataSource> resultList = result.list();
+		assertAll(
+				()->assertEquals(2, resultList.size()),
+				()->assertEquals(FILE_DS_NAME, resultList.get(0).name()),
+				()->assertEquals(StandardMimeTypes.APPLICATION_PDF_TYPE, resultList.get(0).contentType()),
+				()->assertEquals(filePath, resultList.get(0).filename().get()),
+				()->assertArrayEquals(fileData, Jdk8Utils.readAllBytes(resultList.get(0).inputStream())),
+				()->assertTrue(((FileDataSource)resultList.get(0)).isMemoryMapped()),
+				()->assertEquals(attributes, resultList.get(1).attributes()),
+				()->assertTrue(((FileDataSource)resultList.get(1)).isMemoryMapped())
+				);
+	}
+
+	@Test
+	void testBuildTwice() throws Exception {
+		DataSourceList.Builder builder = DataSourceList.builder().add(STRING_DS_NAME, "First");
+		DataSourceList first = builder.build();
+		DataSourceList second = builder.add(STRING_DS_NAME, "Second").build();
+		assertAll(
+				()->assertEquals(1, first.list().size(), "Adding to the builder should not change previously built lists."),
+				()->assertEquals(2, second.list().size()),
+				()->assertSame(first.list().get(0), second.list().get(0)),
+				()->assertEquals("Second", second.deconstructor().getStringsByName(STRING_DS_NAME).get(1)),
+				()->assertSame(second, builder.build(), "Nothing added since last build, so expected the same list."),
+				()->assertThrows(UnsupportedOperationException.class, ()->first.list().add(first.list().get(0)))
+				);
+	}
+
+	@Test
+	void testNegativeSpoolThreshold() {
+		assertThrows(IllegalArgumentException.class, ()->DataSourceList.builder().spoolThreshold(-1));
+	}
+
+	@Test
+	void testCompressAbove() throws Exception {
+		byte[] largeXml = createXml(200);
+		byte[] smallXml = "<root/>".getBytes();
+		Path filename = Paths.get("data.xml");
+		Map<String, String> attributes = Jdk8Utils.mapOf("Key1", "Value1");
+		MimeType xmlWithCharset = MimeType.of("application/xml; charset=UTF-8");
+		
+		DataSourceList result = DataSourceList.builder()
+				.compressAbove(1024, StandardMimeTypes.APPLICATION_XML_TYPE, StandardMimeTypes.APPLICATION_VND_ADOBE_XDP_TYPE)
+				.add(BYTE_ARRAY_DS_NAME, largeXml, StandardMimeTypes.APPLICATION_XML_TYPE, filename, attributes)
+				.add(BYTE_ARRAY_DS_NAME, smallXml, StandardMimeTypes.APPLICATION_XML_TYPE)
+				.add(BYTE_ARRAY_DS_NAME, largeXml, StandardMimeTypes.APPLICATION_PDF_TYPE)
+				.addOwned(BYTE_ARRAY_DS_NAME, largeXml.clone(), xmlWithCharset)
+				.add(BYTE_ARRAY_DS_NAME, largeXml)
+				.build();
+		
+		List<DataSource> resultList = result.list();
+		assertAll(
+				()->assertTrue(resultList.get(0) instanceof CompressedDataSource, "Expected large XML to be compressed."),
+				()->assertEquals(StandardMimeTypes.APPLICATION_XML_TYPE, resultList.get(0).contentType()),
+				()->assertEquals(filename, resultList.get(0).filename().get()),
+				()->assertEquals(attributes, resultList.get(0).attributes()),
+				()->assertArrayEquals(largeXml, DataSourceList.Deconstructor.dsToByteArray(resultList.get(0))),
+				()->assertTrue(resultList.get(1) instanceof ByteArrayDataSource, "Expected small XML to be held as is."),
+				()->assertTrue(resultList.get(2) instanceof ByteArrayDataSource, "Expected other content types to be held as is."),
+				()->assertTrue(resultList.get(3) instanceof CompressedDataSource, "Expected charset parameter to be ignored."),
+				()->assertEquals(xmlWithCharset, resultList.get(3).contentType()),
+				()->assertTrue(resultList.get(4) instanceof ByteArrayDataSource, "Expected content type to default to octet-stream.")
+				);
+	}
+
+	@Test
+	void testCompressAboveInputStream() throws Exception {
+		byte[] largeXml = createXml(200);
+		Path filename = Paths.get("data.xml");
+		
+		DataSourceList result = DataSourceList.builder()
+				.compressAbove(1024, StandardMimeTypes.APPLICATION_XML_TYPE)
+				.add(BYTE_ARRAY_DS_NAME, new ByteArrayInputStream(largeXml), StandardMimeTypes.APPLICATION_XML_TYPE, filename)
+				.add(BYTE_ARRAY_DS_NAME, new ByteArrayInputStream(largeXml), StandardMimeTypes.APPLICATION_PDF_TYPE)
+				.spoolThreshold(1024)
+				.add(BYTE_ARRAY_DS_NAME, new ByteArrayInputStream(largeXml), StandardMimeTypes.APPLICATION_XML_TYPE)
+				.build();
+		
+		List<DataSource> resultList = result.list();
+		try {
+			assertAll(
+					()->assertTrue(resultList.get(0) instanceof CompressedDataSource, "Expected large in-memory XML to be compressed."),
+					()->assertEquals(filename, resultList.get(0).filename().get()),
+					()->assertArrayEquals(largeXml, DataSourceList.Deconstructor.dsToByteArray(resultList.get(0))),
+					()->assertTrue(resultList.get(1) instanceof SpoolingDataSource, "Expected other content types to be held as is."),
+					()->assertTrue(resultList.get(2) instanceof SpoolingDataSource, "Expected spooled XML to be held as is."),
+					()->assertArrayEquals(largeXml, DataSourceList.Deconstructor.dsToByteArray(resultList.get(2)))
+					);
+		} finally {
+			result.close();
+		}
+	}
+
+	@Test
+	void testCompressAboveIncompressible() throws Exception {
+		byte[] randomData = new byte[4096];
+		new Random(42).nextBytes(randomData);
+		
+		DataSource result = DataSourceList.builder()
+				.compressAbove(0, StandardMimeTypes.APPLICATION_XML_TYPE)
+				.add(BYTE_ARRAY_DS_NAME, randomData, StandardMimeTypes.APPLICATION_XML_TYPE)
+				.build().list().get(0);
+		assertTrue(result instanceof ByteArrayDataSource, "Expected contents that do not compress to be held as is.");
+		assertArrayEquals(randomData, DataSourceList.Deconstructor.dsToByteArray(result));
+	}
+
+	@Test
+	void testNegativeCompressionThreshold() {
+		assertThrows(IllegalArgumentException.class, ()->DataSourceList.builder().compressAbove(-1, StandardMimeTypes.APPLICATION_XML_TYPE));
+	}
+
+	/* package */ static byte[] createXml(int numElements) {
+		StringBuilder sb = new StringBuilder("<root>");
+		for (int i = 0; i < numElements; i++) {
+			sb.append("<field name=\"Field").append(i).append("\">Value ").append(i).append("</field>");
+		}
+		return sb.append("</root>").toString().getBytes();
+	}
+
 	private static String readIntoString(InputStream is) throws IOException {
 		return new String(Jdk8Utils.readAllBytes(is));
 	}
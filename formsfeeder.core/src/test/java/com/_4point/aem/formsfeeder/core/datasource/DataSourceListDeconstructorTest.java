@@ -263,6 +263,35 @@ class DataSourceListDeconstructorTest {
 		assertEquals("Error while converting DataSource to String", msg2);
 	}
 	
+	@Test
+	void testGetOptionalPrimitives() {
+		Deconstructor underTest = sampleDataSource.deconstructor();
+		Deconstructor emptyDeconstructor = DataSourceList.emptyList().deconstructor();
+		assertAll(
+				()->assertEquals(intData, underTest.getOptionalIntByName(INTEGER_DS_NAME).getAsInt()),
+				()->assertEquals(intData, underTest.getOptionalInt(DataSourceList.byName(INTEGER_DS_NAME)).getAsInt()),
+				()->assertEquals(longData, underTest.getOptionalLongByName(LONG_DS_NAME).getAsLong()),
+				()->assertEquals(longData, underTest.getOptionalLong(DataSourceList.byName(LONG_DS_NAME)).getAsLong()),
+				()->assertEquals(doubleData, underTest.getOptionalDoubleByName(DOUBLE_DS_NAME).getAsDouble()),
+				()->assertEquals(doubleData, underTest.getOptionalDouble(DataSourceList.byName(DOUBLE_DS_NAME)).getAsDouble()),
+				()->assertFalse(emptyDeconstructor.getOptionalIntByName(INTEGER_DS_NAME).isPresent()),
+				()->assertFalse(emptyDeconstructor.getOptionalInt(DataSourceList.byName(INTEGER_DS_NAME)).isPresent()),
+				()->assertFalse(emptyDeconstructor.getOptionalLongByName(LONG_DS_NAME).isPresent()),
+				()->assertFalse(emptyDeconstructor.getOptionalLong(DataSourceList.byName(LONG_DS_NAME)).isPresent()),
+				()->assertFalse(emptyDeconstructor.getOptionalDoubleByName(DOUBLE_DS_NAME).isPresent()),
+				()->assertFalse(emptyDeconstructor.getOptionalDouble(DataSourceList.byName(DOUBLE_DS_NAME)).isPresent())
+				);
+	}
+
+	@Test
+	void testDecodedValuesAreCached() {
+		DataSourceList dsl = DataSourceList.builder().add(INTEGER_DS_NAME, "123456".getBytes(StandardCharsets.UTF_8)).build();
+		Deconstructor underTest = dsl.deconstructor();
+		Integer first = underTest.getIntegerByName(INTEGER_DS_NAME).get();
+		assertSame(first, underTest.getIntegerByName(INTEGER_DS_NAME).get(), "Expected the second read to be served from the cache.");
+		assertEquals(123456, underTest.getOptionalIntByName(INTEGER_DS_NAME).getAsInt());
+	}
+
 	@Test
 	void testGetStringWithCharset() {
 		Deconstructor underTest = sampleDataSource.deconstructor();
@@ -2,6 +2,7 @@ package com._4point.aem.formsfeeder.core.datasource;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Predicate;
@@ -51,6 +52,33 @@ class DataSourceListTest {
 		);
 	}
 
+	@Test
+	void testGetDataSourceByNameNull() {
+		assertThrows(NullPointerException.class, ()->underTest.getDataSourceByName(null));
+		assertThrows(NullPointerException.class, ()->underTest.getDataSourcesByName(null));
+	}
+
+	@Test
+	void testGetByNameMatchesScan() {
+		// Build a large list with repeated names and make sure the indexed lookups match the predicate scans.
+		List<DataSource> bigList = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			bigList.add(new StringDataSource("Entry" + i, "Name" + (i % 37)));
+		}
+		DataSourceList bigDsl = DataSourceList.from(bigList);
+		for (int i = 0; i < 40; i++) {
+			String name = "Name" + i;
+			assertEquals(bigDsl.getDataSource(DataSourceList.byName(name)), bigDsl.getDataSourceByName(name), name);
+			assertIterableEquals(bigDsl.getDataSources(DataSourceList.byName(name)), bigDsl.getDataSourcesByName(name), name);
+		}
+	}
+
+	@Test
+	void testGetDataSourcesByNameIsUnmodifiable() {
+		assertThrows(UnsupportedOperationException.class, ()->underTest.getDataSourcesByName(SECOND_NAME).add(DS1));
+		assertThrows(UnsupportedOperationException.class, ()->underTest.getDataSourcesByName(FIRST_NAME).add(DS1));
+	}
+
 	@Test
 	void testGetDataSource() {
 		assertAll(
@@ -131,4 +159,88 @@ class DataSourceListTest {
 				);
 		
 	}
+
+	@Test
+	void testFrom_MultipleDataSourceLists_Nested() {
+		DataSourceList second = DataSourceList.from(Jdk8Utils.listOf(DS4, DS1));
+		DataSourceList merged = DataSourceList.from(underTest, DataSourceList.emptyList(), second);
+		DataSourceList underTest2 = DataSourceList.from(merged, DataSourceList.from(merged, underTest));
+		List<DataSource> expected = new ArrayList<>();
+		expected.addAll(srcList);
+		expected.addAll(Jdk8Utils.listOf(DS4, DS1));
+		expected.addAll(srcList);
+		expected.addAll(Jdk8Utils.listOf(DS4, DS1));
+		expected.addAll(srcList);
+		List<DataSource> result = underTest2.list();
+		assertAll(
+				()->assertEquals(expected, result),
+				()->assertEquals(expected.size(), result.size()),
+				()->assertSame(DS4, result.get(4)),
+				()->assertSame(DS1, result.get(5)),
+				()->assertSame(DS4, result.get(result.size() - 1)),
+				()->assertThrows(IndexOutOfBoundsException.class, ()->result.get(result.size())),
+				()->assertThrows(IndexOutOfBoundsException.class, ()->result.get(-1)),
+				()->assertThrows(UnsupportedOperationException.class, ()->result.add(DS1)),
+				()->assertThrows(UnsupportedOperationException.class, ()->result.set(0, DS1)),
+				()->assertThrows(UnsupportedOperationException.class, ()->result.remove(0))
+				);
+	}
+
+	@Test
+	void testFrom_MultipleDataSourceLists_AllEmpty() {
+		assertSame(DataSourceList.emptyList(), DataSourceList.from(DataSourceList.emptyList(), DataSourceList.emptyList()));
+		assertSame(DataSourceList.emptyList(), DataSourceList.from());
+	}
+
+	@Test
+	void testClose() {
+		CloseCountingDataSource first = new CloseCountingDataSource(FIRST_NAME, null);
+		CloseCountingDataSource second = new CloseCountingDataSource(SECOND_NAME, new IllegalStateException("First failure"));
+		CloseCountingDataSource third = new CloseCountingDataSource(THIRD_NAME, new IllegalStateException("Second failure"));
+		DataSourceList underTest2 = DataSourceList.from(Jdk8Utils.listOf(first, second, third, first));
+
+		IllegalStateException ex = assertThrows(IllegalStateException.class, ()->underTest2.close());
+		assertAll(
+				()->assertEquals("First failure", ex.getMessage()),
+				()->assertEquals(1, ex.getSuppressed().length),
+				()->assertEquals("Second failure", ex.getSuppressed()[0].getMessage()),
+				()->assertEquals(2, first.closeCount, "Expected each entry in the list to be closed."),
+				()->assertEquals(1, second.closeCount),
+				()->assertEquals(1, third.closeCount, "Expected DataSources after a failure to be closed.")
+				);
+	}
+
+	@Test
+	void testClose_EmptyList() {
+		DataSourceList.emptyList().close();	// Should do nothing.
+		underTest.close();	// DataSources with nothing to release are unaffected.
+		assertEquals("FirstEntry", DataSourceList.Deconstructor.dsToString(DS1));
+	}
+
+	private static class CloseCountingDataSource extends StringDataSource {
+		private final RuntimeException failure;
+		private int closeCount = 0;
+
+		private CloseCountingDataSource(String name, RuntimeException failure) {
+			super("Contents", name);
+			this.failure = failure;
+		}
+
+		@Override
+		public void close() {
+			closeCount++;
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+
+	@Test
+	void testFrom_ListIsCopied() {
+		List<DataSource> modifiableList = new ArrayList<>(srcList);
+		DataSourceList underTest2 = DataSourceList.from(modifiableList);
+		modifiableList.clear();
+		assertEquals(srcList, underTest2.list());
+		assertThrows(UnsupportedOperationException.class, ()->underTest2.list().add(DS1));
+	}
 }
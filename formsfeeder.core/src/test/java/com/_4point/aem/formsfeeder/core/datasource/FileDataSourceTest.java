@@ -2,14 +2,20 @@ package com._4point.aem.formsfeeder.core.datasource;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
 import com.google.common.jimfs.Configuration;
@@ -19,6 +25,9 @@ class FileDataSourceTest {
 
 	private static FileSystem fs = Jimfs.newFileSystem(Configuration.unix());
 	
+	@TempDir
+	Path tempDir;
+	
 	@Test
 	void testFileDataSourcePath() throws Exception {
 		Path expectedFilePath = fs.getPath("ConstructorTests", "testFileDataSourcePath.htm");
@@ -269,4 +278,118 @@ class FileDataSourceTest {
 	}
 
 
+
+	@Test
+	void testMemoryMappedInputStream() throws Exception {
+		byte[] expectedBytes = "Memory Mapped Test Data".getBytes();
+		Path filePath = Files.write(tempDir.resolve("testMemoryMappedInputStream.pdf"), expectedBytes);
+		FileDataSource underTest = new FileDataSource(filePath).memoryMapped(true);
+		assertTrue(underTest.isMemoryMapped());
+		
+		// Read it twice to make sure the second read is served from the same mapping.
+		for (int i = 0; i < 2; i++) {
+			try (InputStream inputStream = underTest.inputStream()) {
+				assertArrayEquals(expectedBytes, Jdk8Utils.readAllBytes(inputStream));
+			}
+		}
+	}
+
+	@Test
+	void testMemoryMappedIsReadOnly() throws Exception {
+		byte[] expectedBytes = "Original Data".getBytes();
+		Path filePath = Files.write(tempDir.resolve("testMemoryMappedIsReadOnly.pdf"), expectedBytes);
+		FileDataSource underTest = new FileDataSource(filePath).memoryMapped(true);
+		ByteBuffer mapped = underTest.asReadOnlyByteBuffer();
+
+		assertThrows(IllegalStateException.class, ()->underTest.outputStream());
+		// Turning the mapping off does not make it writable, since the buffer above may still be in use.
+		underTest.memoryMapped(false);
+		assertThrows(IllegalStateException.class, ()->underTest.outputStream());
+		assertArrayEquals(expectedBytes, toByteArray(mapped));
+		assertArrayEquals(expectedBytes, Files.readAllBytes(filePath));
+	}
+
+	@Test
+	void testMemoryMappedFallsBackWhenUnsupported() throws Exception {
+		// Jimfs does not support memory-mapping, so reads should fall back to regular streams.
+		byte[] expectedBytes = "Fallback Test Data".getBytes();
+		Path filePath = fs.getPath("testMemoryMappedFallsBackWhenUnsupported.pdf");
+		Files.write(filePath, expectedBytes);
+		FileDataSource underTest = new FileDataSource(filePath).memoryMapped(true);
+		try (InputStream inputStream = underTest.inputStream()) {
+			assertArrayEquals(expectedBytes, Jdk8Utils.readAllBytes(inputStream));
+		}
+		assertArrayEquals(expectedBytes, toByteArray(underTest.asReadOnlyByteBuffer()));
+	}
+
+	@Test
+	void testAsReadOnlyByteBuffer() throws Exception {
+		byte[] expectedBytes = "ByteBuffer Test Data".getBytes();
+		Path filePath = Files.write(tempDir.resolve("testAsReadOnlyByteBuffer.pdf"), expectedBytes);
+		ByteBuffer mapped = new FileDataSource(filePath).memoryMapped(true).asReadOnlyByteBuffer();
+		ByteBuffer unmapped = new FileDataSource(filePath).asReadOnlyByteBuffer();
+		assertAll(
+				()->assertTrue(mapped.isReadOnly()),
+				()->assertTrue(mapped.isDirect(), "Expected memory-mapped buffer to be direct."),
+				()->assertArrayEquals(expectedBytes, toByteArray(mapped)),
+				()->assertTrue(unmapped.isReadOnly()),
+				()->assertArrayEquals(expectedBytes, toByteArray(unmapped))
+				);
+	}
+
+	private static byte[] toByteArray(ByteBuffer buffer) {
+		byte[] result = new byte[buffer.remaining()];
+		buffer.duplicate().get(result);
+		return result;
+	}
+
+	@Test
+	void testTransferTo() throws Exception {
+		byte[] expectedBytes = "TransferTo Test Data".getBytes();
+		Path filePath = Files.write(tempDir.resolve("testTransferTo.pdf"), expectedBytes);
+		for (boolean mapped : new boolean[] { false, true }) {
+			FileDataSource underTest = new FileDataSource(filePath).memoryMapped(mapped);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			assertEquals(expectedBytes.length, underTest.transferTo(Channels.newChannel(out)));
+			assertArrayEquals(expectedBytes, out.toByteArray(), "memoryMapped=" + mapped);
+		}
+	}
+
+	@Test
+	void testTransferToFileChannel() throws Exception {
+		byte[] expectedBytes = "TransferTo FileChannel Test Data".getBytes();
+		Path filePath = Files.write(tempDir.resolve("testTransferToFileChannel.pdf"), expectedBytes);
+		Path targetPath = tempDir.resolve("testTransferToFileChannel_target.pdf");
+		try (FileChannel target = FileChannel.open(targetPath, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW)) {
+			assertEquals(expectedBytes.length, new FileDataSource(filePath).transferTo(target));
+		}
+		assertArrayEquals(expectedBytes, Files.readAllBytes(targetPath));
+	}
+
+	@Test
+	void testTransferToWhileOutputStreamOpen() throws Exception {
+		Path filePath = Files.write(tempDir.resolve("testTransferToWhileOutputStreamOpen.pdf"), "Test Data".getBytes());
+		FileDataSource underTest = new FileDataSource(filePath);
+		try (OutputStream outputStream = underTest.outputStream()) {
+			assertThrows(IllegalStateException.class, ()->underTest.transferTo(Channels.newChannel(new ByteArrayOutputStream())));
+		}
+	}
+
+	@Test
+	void testContentLength() throws Exception {
+		byte[] expectedBytes = "ContentLength Test Data".getBytes();
+		Path filePath = Files.write(tempDir.resolve("testContentLength.pdf"), expectedBytes);
+		FileDataSource underTest = new FileDataSource(filePath);
+		assertEquals(expectedBytes.length, underTest.contentLength().getAsLong());
+		try (OutputStream outputStream = underTest.outputStream()) {
+			outputStream.write(expectedBytes, 0, 5);
+		}
+		assertEquals(5, underTest.contentLength().getAsLong(), "Expected length to track the file size.");
+	}
+
+	@Test
+	void testContentLengthOnNonexistentFile() throws Exception {
+		FileDataSource underTest = new FileDataSource(tempDir.resolve("nonexistent.pdf"));
+		assertFalse(underTest.contentLength().isPresent());
+	}
 }
@@ -3,6 +3,7 @@ package com._4point.aem.formsfeeder.core.datasource;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -96,4 +97,35 @@ class MimeTypeTest {
 		assertEquals(MimeType.of("application/xml; charset=ISO-8859-1"), MimeType.of("application","xml", StandardCharsets.ISO_8859_1));
 
 	}
+
+	@Test
+	void testOf_ReturnsSharedInstances() {
+		assertAll(
+				()->assertSame(StandardMimeTypes.APPLICATION_PDF_TYPE, MimeType.of("application/pdf")),
+				()->assertSame(StandardMimeTypes.APPLICATION_PDF_TYPE, MimeType.of(" Application/PDF ")),
+				()->assertSame(StandardMimeTypes.APPLICATION_PDF_TYPE, MimeType.of("application", "pdf")),
+				()->assertSame(MimeType.of("text/x-test; charset=UTF-8"), MimeType.of("text/x-test;charset=utf-8")),
+				()->assertSame(MimeType.of("text/x-test; charset=UTF-8"), MimeType.of("text", "x-test", StandardCharsets.UTF_8)),
+				()->assertSame(MimeType.of("text/x-test").asString(), MimeType.of("text/x-test").asString())
+				);
+	}
+
+	@Test
+	void testOf_CacheSurvivesFlood() {
+		// Flood the cache with content types that are only seen once (as a hostile client could).
+		for (int i = 0; i < 2000; i++) {
+			MimeType.of("application/x-junk-" + i);
+		}
+		assertSame(MimeType.of("text/x-after-flood"), MimeType.of("text/x-after-flood"), "Expected new content types to still be cached.");
+	}
+
+	@Test
+	void testOf_CacheIsBounded() {
+		// Parse more distinct types than the cache holds, they should all still be parsed correctly.
+		for (int i = 0; i < 2000; i++) {
+			MimeType result = MimeType.of("application/x-bounded-test-" + i);
+			assertEquals("x-bounded-test-" + i, result.subtype());
+		}
+		assertEquals("application/x-bounded-test-5", MimeType.of("application/x-bounded-test-5").asString());
+	}
 }
@@ -0,0 +1,288 @@
+package com._4point.aem.formsfeeder.core.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
+
+class OffHeapArenaTest {
+
+	private static final String DS_NAME = "OffHeapDS";
+	private static final MimeType PDF_TYPE = StandardMimeTypes.APPLICATION_PDF_TYPE;
+
+	@Test
+	void testAddAndRead() throws Exception {
+		byte[] expectedBytes = createBytes(200 * 1024);	// Larger than the initial capacity, so the buffer has to grow.
+		Map<String, String> expectedAttributes = Jdk8Utils.mapOf("Key1", "Value1");
+		try (OffHeapArena underTest = new OffHeapArena()) {
+			OffHeapDataSource ds = underTest.add(new UnknownLengthInputStream(expectedBytes), DS_NAME, PDF_TYPE, expectedAttributes);
+			assertAll(
+					()->assertEquals(DS_NAME, ds.name()),
+					()->assertEquals(PDF_TYPE, ds.contentType()),
+					()->assertEquals(expectedAttributes, ds.attributes()),
+					()->assertEquals(expectedBytes.length, ds.contentLength().getAsLong()),
+					()->assertArrayEquals(expectedBytes, readAll(ds)),
+					()->assertTrue(ds.asReadOnlyByteBuffer().isReadOnly()),
+					()->assertArrayEquals(expectedBytes, toByteArray(ds.asReadOnlyByteBuffer())),
+					()->assertEquals(1, underTest.size())
+					);
+		}
+	}
+
+	@Test
+	void testCloseReleasesMemory() throws Exception {
+		long bytesBefore = OffHeapArena.bytesInUse();
+		long buffersBefore = OffHeapArena.buffersInUse();
+		byte[] expectedBytes = createBytes(1000);
+		OffHeapArena underTest = new OffHeapArena();
+		OffHeapDataSource first = underTest.add(new ByteArrayInputStream(expectedBytes), DS_NAME, PDF_TYPE, Collections.emptyMap());
+		OffHeapDataSource second = underTest.add(new ByteArrayInputStream(expectedBytes), DS_NAME, PDF_TYPE, Collections.emptyMap());
+		assertEquals(2 * expectedBytes.length, OffHeapArena.bytesInUse() - bytesBefore, "Expected exact sized buffers when the length is known.");
+		assertEquals(2, OffHeapArena.buffersInUse() - buffersBefore);
+
+		underTest.close();
+		assertAll(
+				()->assertTrue(underTest.isClosed()),
+				()->assertEquals(bytesBefore, OffHeapArena.bytesInUse()),
+				()->assertEquals(buffersBefore, OffHeapArena.buffersInUse()),
+				()->assertTrue(first.isReleased()),
+				()->assertTrue(second.isReleased()),
+				()->assertThrows(IllegalStateException.class, ()->first.inputStream()),
+				()->assertThrows(IllegalStateException.class, ()->first.asReadOnlyByteBuffer())
+				);
+		underTest.close();	// Closing again does nothing.
+		assertEquals(bytesBefore, OffHeapArena.bytesInUse());
+	}
+
+	@Test
+	void testCloseDataSourceReleasesMemory() throws Exception {
+		long bytesBefore = OffHeapArena.bytesInUse();
+		try (OffHeapArena underTest = new OffHeapArena()) {
+			OffHeapDataSource ds = underTest.add(new ByteArrayInputStream(createBytes(1000)), DS_NAME, PDF_TYPE, Collections.emptyMap());
+			ds.close();
+			assertAll(
+					()->assertTrue(ds.isReleased()),
+					()->assertFalse(underTest.isClosed()),
+					()->assertEquals(bytesBefore, OffHeapArena.bytesInUse())
+					);
+		}
+		assertEquals(bytesBefore, OffHeapArena.bytesInUse());
+	}
+
+	@Test
+	void testOpenInputStreamDefersFree() throws Exception {
+		long bytesBefore = OffHeapArena.bytesInUse();
+		byte[] expectedBytes = createBytes(1000);
+		OffHeapArena underTest = new OffHeapArena();
+		OffHeapDataSource ds = underTest.add(new ByteArrayInputStream(expectedBytes), DS_NAME, PDF_TYPE, Collections.emptyMap());
+		try (InputStream inputStream = ds.inputStream()) {
+			underTest.close();
+			assertEquals(expectedBytes.length, OffHeapArena.bytesInUse() - bytesBefore, "Expected memory to be held while it is being read.");
+			assertArrayEquals(expectedBytes, Jdk8Utils.readAllBytes(inputStream));
+		}
+		assertEquals(bytesBefore, OffHeapArena.bytesInUse(), "Expected memory to be freed when the last reader closes.");
+	}
+
+	@Test
+	void testByteBufferOutlivesClose() throws Exception {
+		byte[] expectedBytes = createBytes(1000);
+		OffHeapArena underTest = new OffHeapArena();
+		OffHeapDataSource ds = underTest.add(new ByteArrayInputStream(expectedBytes), DS_NAME, PDF_TYPE, Collections.emptyMap());
+		ByteBuffer buffer = ds.asReadOnlyByteBuffer();
+		underTest.close();
+		assertArrayEquals(expectedBytes, toByteArray(buffer), "Expected the buffer to remain usable once the memory was freed.");
+	}
+
+	@Test
+	void testTransferTo() throws Exception {
+		long bytesBefore = OffHeapArena.bytesInUse();
+		byte[] expectedBytes = createBytes(1000);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (OffHeapArena underTest = new OffHeapArena()) {
+			OffHeapDataSource ds = underTest.add(new ByteArrayInputStream(expectedBytes), DS_NAME, PDF_TYPE, Collections.emptyMap());
+			assertEquals(expectedBytes.length, ds.transferTo(Channels.newChannel(out)));
+			ds.close();
+			assertThrows(IllegalStateException.class, ()->ds.transferTo(Channels.newChannel(out)));
+		}
+		assertArrayEquals(expectedBytes, out.toByteArray());
+		assertEquals(bytesBefore, OffHeapArena.bytesInUse(), "Expected the memory to be unpinned after the transfer.");
+	}
+
+	@Test
+	void testAvailableIsNotTrusted() throws Exception {
+		long bytesBefore = OffHeapArena.bytesInUse();
+		byte[] expectedBytes = createBytes(1000);
+		try (OffHeapArena underTest = new OffHeapArena()) {
+			OffHeapDataSource ds = underTest.add(new OverstatedLengthInputStream(expectedBytes), DS_NAME, PDF_TYPE, Collections.emptyMap());
+			assertAll(
+					()->assertArrayEquals(expectedBytes, readAll(ds)),
+					()->assertTrue(OffHeapArena.bytesInUse() - bytesBefore <= 64 * 1024, "Expected the initial buffer size to be capped.")
+					);
+		}
+	}
+
+	@Test
+	void testAddAfterClose() throws Exception {
+		OffHeapArena underTest = new OffHeapArena();
+		underTest.close();
+		IllegalStateException ex = assertThrows(IllegalStateException.class, ()->underTest.add(new ByteArrayInputStream(new byte[0]), DS_NAME, PDF_TYPE, Collections.emptyMap()));
+		assertTrue(ex.getMessage().contains(DS_NAME), "Expected message to contain the DataSource name.");
+	}
+
+	@Test
+	void testWriteReplacesContents() throws Exception {
+		long bytesBefore = OffHeapArena.bytesInUse();
+		byte[] expectedBytes = "Replacement Data".getBytes();
+		try (OffHeapArena underTest = new OffHeapArena()) {
+			OffHeapDataSource ds = underTest.add(new ByteArrayInputStream(createBytes(1000)), DS_NAME, PDF_TYPE, Collections.emptyMap());
+			try (OutputStream outputStream = ds.outputStream()) {
+				for (byte b : expectedBytes) {
+					outputStream.write(b);
+				}
+			}
+			assertArrayEquals(expectedBytes, readAll(ds));
+			assertEquals(expectedBytes.length, ds.contentLength().getAsLong());
+		}
+		assertEquals(bytesBefore, OffHeapArena.bytesInUse());
+	}
+
+	@Test
+	void testBuilderUsesOffHeapArena() throws Exception {
+		byte[] expectedBytes = createBytes(1000);
+		Path filename = Paths.get("foo", "bar.pdf");
+		try (OffHeapArena arena = new OffHeapArena()) {
+			DataSourceList result = DataSourceList.builder().offHeapArena(arena).add(DS_NAME, new ByteArrayInputStream(expectedBytes), PDF_TYPE, filename).build();
+			DataSource ds = result.list().get(0);
+			assertAll(
+					()->assertTrue(ds instanceof OffHeapDataSource),
+					()->assertEquals(filename, ds.filename().get()),
+					()->assertArrayEquals(expectedBytes, DataSourceList.Deconstructor.dsToByteArray(ds)),
+					()->assertEquals(1, arena.size())
+					);
+		}
+	}
+
+	@Test
+	void testUnreleasedDataSourceIsReported() throws Exception {
+		List<LogRecord> records = Collections.synchronizedList(new ArrayList<>());
+		Logger logger = Logger.getLogger(OffHeapArena.class.getName());
+		Handler handler = new Handler() {
+			@Override
+			public void publish(LogRecord record) {
+				records.add(record);
+			}
+			@Override
+			public void flush() {
+			}
+			@Override
+			public void close() {
+			}
+		};
+		logger.addHandler(handler);
+		try {
+			long bytesBefore = OffHeapArena.bytesInUse();
+			new OffHeapArena().add(new ByteArrayInputStream(createBytes(1000)), "LeakedDS", PDF_TYPE, Collections.emptyMap());
+			assertEquals(1000, OffHeapArena.bytesInUse() - bytesBefore);
+			for (int i = 0; i < 100 && OffHeapArena.bytesInUse() != bytesBefore; i++) {
+				System.gc();
+				Thread.sleep(50);
+			}
+			assertEquals(bytesBefore, OffHeapArena.bytesInUse(), "Expected leaked memory to be freed once the DataSource was collected.");
+			assertTrue(records.stream().anyMatch(r->r.getParameters() != null && "LeakedDS".equals(r.getParameters()[0])), "Expected the leak to be logged.");
+		} finally {
+			logger.removeHandler(handler);
+		}
+	}
+
+	/**
+	 * Shouldn't allow getting an input stream while there is still an output stream open.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void testInputStreamWhileOutputStreamOpen() throws Exception {
+		try (OffHeapArena underTest = new OffHeapArena()) {
+			DataSourceTestUtils.openInputStreamAndOutputStream(underTest.add(new ByteArrayInputStream(new byte[0]), DS_NAME, PDF_TYPE, Collections.emptyMap()));
+		}
+	}
+
+	/**
+	 * Shouldn't be able to open OutputStream while one or more InputStreams are open.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void testOutputStreamWhileInputStreamOpen() throws Exception {
+		byte[] expectedBytes = "Expected Test Data".getBytes();
+		try (OffHeapArena underTest = new OffHeapArena()) {
+			DataSourceTestUtils.openOutputStreamWhileInputStreamOpen(expectedBytes, underTest.add(new ByteArrayInputStream(expectedBytes), DS_NAME, PDF_TYPE, Collections.emptyMap()));
+		}
+	}
+
+	private static byte[] readAll(DataSource ds) throws IOException {
+		try (InputStream inputStream = ds.inputStream()) {
+			return Jdk8Utils.readAllBytes(inputStream);
+		}
+	}
+
+	private static byte[] toByteArray(ByteBuffer buffer) {
+		byte[] result = new byte[buffer.remaining()];
+		buffer.duplicate().get(result);
+		return result;
+	}
+
+	private static byte[] createBytes(int length) {
+		byte[] bytes = new byte[length];
+		new Random(42).nextBytes(bytes);
+		return bytes;
+	}
+
+	/**
+	 * InputStream that does not report how many bytes are available.
+	 *
+	 */
+	private static class UnknownLengthInputStream extends ByteArrayInputStream {
+		private UnknownLengthInputStream(byte[] buf) {
+			super(buf);
+		}
+
+		@Override
+		public synchronized int available() {
+			return 0;
+		}
+	}
+
+	/**
+	 * InputStream that claims far more bytes are available than it contains.
+	 *
+	 */
+	private static class OverstatedLengthInputStream extends ByteArrayInputStream {
+		private OverstatedLengthInputStream(byte[] buf) {
+			super(buf);
+		}
+
+		@Override
+		public synchronized int available() {
+			return Integer.MAX_VALUE;
+		}
+	}
+}
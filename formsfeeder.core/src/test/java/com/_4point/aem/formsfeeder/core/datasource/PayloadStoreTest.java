@@ -0,0 +1,181 @@
+package com._4point.aem.formsfeeder.core.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
+
+class PayloadStoreTest {
+
+	private static final int TEST_THRESHOLD = 16;
+	private static final String DS_NAME = "StoredDS";
+	private static final MimeType XDP_TYPE = StandardMimeTypes.APPLICATION_VND_ADOBE_XDP_TYPE;
+
+	@TempDir
+	Path spoolDir;
+
+	@Test
+	void testIdenticalPayloadsAreShared() throws Exception {
+		PayloadStore underTest = new PayloadStore(TEST_THRESHOLD, spoolDir);
+		byte[] expectedBytes = "Small Data".getBytes();
+		Map<String, String> expectedAttributes = Jdk8Utils.mapOf("Key1", "Value1");
+		StoredDataSource first = underTest.add(new ByteArrayInputStream(expectedBytes), DS_NAME, XDP_TYPE, expectedAttributes);
+		StoredDataSource second = underTest.add(new ByteArrayInputStream(expectedBytes.clone()), "OtherName", StandardMimeTypes.APPLICATION_OCTET_STREAM_TYPE, Collections.emptyMap());
+		assertAll(
+				()->assertSame(first.payload(), second.payload(), "Expected identical payloads to share contents."),
+				()->assertEquals(1, underTest.size()),
+				()->assertEquals(expectedBytes.length, underTest.storedBytes()),
+				()->assertEquals(DS_NAME, first.name()),
+				()->assertEquals(XDP_TYPE, first.contentType()),
+				()->assertEquals(expectedAttributes, first.attributes()),
+				()->assertEquals("OtherName", second.name()),
+				()->assertEquals(expectedBytes.length, second.contentLength().getAsLong()),
+				()->assertArrayEquals(expectedBytes, readAll(first)),
+				()->assertArrayEquals(expectedBytes, readAll(second))
+				);
+	}
+
+	@Test
+	void testDifferentPayloadsAreNotShared() throws Exception {
+		PayloadStore underTest = new PayloadStore(TEST_THRESHOLD, spoolDir);
+		StoredDataSource first = underTest.add(new ByteArrayInputStream("Data 1".getBytes()), DS_NAME, XDP_TYPE, Collections.emptyMap());
+		StoredDataSource second = underTest.add(new ByteArrayInputStream("Data 2".getBytes()), DS_NAME, XDP_TYPE, Collections.emptyMap());
+		assertNotSame(first.payload(), second.payload());
+		assertEquals(2, underTest.size());
+		assertArrayEquals("Data 1".getBytes(), readAll(first));
+		assertArrayEquals("Data 2".getBytes(), readAll(second));
+	}
+
+	@Test
+	void testSpooledPayloadsShareOneFile() throws Exception {
+		PayloadStore underTest = new PayloadStore(TEST_THRESHOLD, spoolDir);
+		byte[] expectedBytes = createBytes(TEST_THRESHOLD * 10);
+		StoredDataSource first = underTest.add(new ByteArrayInputStream(expectedBytes), DS_NAME, XDP_TYPE, Collections.emptyMap());
+		StoredDataSource second = underTest.add(new ByteArrayInputStream(expectedBytes), DS_NAME, XDP_TYPE, Collections.emptyMap());
+		assertTrue(first.payload().contents().isSpooled());
+		assertEquals(1, countSpoolFiles(), "Expected the duplicate's spool file to be deleted.");
+		assertArrayEquals(expectedBytes, readAll(second));
+
+		first.release();
+		assertEquals(1, underTest.size(), "Expected payload to be held while it is still referenced.");
+		assertArrayEquals(expectedBytes, readAll(second));
+
+		second.release();
+		assertEquals(0, underTest.size(), "Expected payload to be released with the last reference.");
+		assertEquals(0, countSpoolFiles(), "Expected spool file to be deleted with the last reference.");
+	}
+
+	@Test
+	void testCloseReleasesReference() throws Exception {
+		PayloadStore underTest = new PayloadStore(TEST_THRESHOLD, spoolDir);
+		byte[] expectedBytes = createBytes(TEST_THRESHOLD * 10);
+		StoredDataSource first = underTest.add(new ByteArrayInputStream(expectedBytes), DS_NAME, XDP_TYPE, Collections.emptyMap());
+		StoredDataSource second = underTest.add(new ByteArrayInputStream(expectedBytes), DS_NAME, XDP_TYPE, Collections.emptyMap());
+
+		DataSourceList.from(Jdk8Utils.listOf(first, first)).close();	// Closing the same DataSource twice only releases it once.
+		assertEquals(1, underTest.size(), "Expected payload to be held while it is still referenced.");
+		assertArrayEquals(expectedBytes, readAll(second));
+
+		second.close();
+		assertEquals(0, underTest.size(), "Expected payload to be released when the last DataSource is closed.");
+		assertEquals(0, countSpoolFiles(), "Expected spool file to be deleted when the last DataSource is closed.");
+	}
+
+	@Test
+	void testReleasedPayloadIsReplaced() throws Exception {
+		PayloadStore underTest = new PayloadStore(TEST_THRESHOLD, spoolDir);
+		byte[] expectedBytes = "Small Data".getBytes();
+		StoredDataSource first = underTest.add(new ByteArrayInputStream(expectedBytes), DS_NAME, XDP_TYPE, Collections.emptyMap());
+		first.release();
+		StoredDataSource second = underTest.add(new ByteArrayInputStream(expectedBytes), DS_NAME, XDP_TYPE, Collections.emptyMap());
+		assertNotSame(first.payload(), second.payload());
+		assertEquals(1, underTest.size());
+		assertArrayEquals(expectedBytes, readAll(second));
+	}
+
+	@Test
+	void testWriteDoesNotAffectSharedContents() throws Exception {
+		PayloadStore underTest = new PayloadStore(TEST_THRESHOLD, spoolDir);
+		byte[] sharedBytes = "Shared Data".getBytes();
+		byte[] privateBytes = "Private Data".getBytes();
+		StoredDataSource first = underTest.add(new ByteArrayInputStream(sharedBytes), DS_NAME, XDP_TYPE, Collections.emptyMap());
+		StoredDataSource second = underTest.add(new ByteArrayInputStream(sharedBytes), DS_NAME, XDP_TYPE, Collections.emptyMap());
+		try (OutputStream outputStream = first.outputStream()) {
+			outputStream.write(privateBytes);
+		}
+		assertAll(
+				()->assertArrayEquals(privateBytes, readAll(first)),
+				()->assertEquals(privateBytes.length, first.contentLength().getAsLong()),
+				()->assertArrayEquals(sharedBytes, readAll(second)),
+				()->assertNotSame(first.payload(), second.payload()),
+				()->assertEquals(1, underTest.size(), "Expected the private copy not to be in the store.")
+				);
+		second.release();
+		assertEquals(0, underTest.size());
+	}
+
+	@Test
+	void testBuilderUsesPayloadStore() throws Exception {
+		PayloadStore store = new PayloadStore(TEST_THRESHOLD, spoolDir);
+		byte[] expectedBytes = "Template Data".getBytes();
+		Path filename = spoolDir.resolve("template.xdp");
+		DataSourceList first = DataSourceList.builder().payloadStore(store).add(DS_NAME, new ByteArrayInputStream(expectedBytes), XDP_TYPE, filename).build();
+		DataSourceList second = DataSourceList.builder().payloadStore(store).add(DS_NAME, new ByteArrayInputStream(expectedBytes), XDP_TYPE).build();
+		List<DataSource> dataSources = DataSourceList.from(first, second).list();
+		assertAll(
+				()->assertTrue(dataSources.get(0) instanceof StoredDataSource),
+				()->assertSame(((StoredDataSource)dataSources.get(0)).payload(), ((StoredDataSource)dataSources.get(1)).payload()),
+				()->assertEquals(filename, dataSources.get(0).filename().get()),
+				()->assertFalse(dataSources.get(1).filename().isPresent()),
+				()->assertArrayEquals(expectedBytes, DataSourceList.Deconstructor.dsToByteArray(dataSources.get(1)))
+				);
+	}
+
+	@Test
+	void testNegativeThreshold() {
+		assertThrows(IllegalArgumentException.class, ()->new PayloadStore(-1, spoolDir));
+	}
+
+	/**
+	 * Shouldn't allow getting an input stream while there is still an output stream open.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void testInputStreamWhileOutputStreamOpen() throws Exception {
+		PayloadStore underTest = new PayloadStore(TEST_THRESHOLD, spoolDir);
+		DataSourceTestUtils.openInputStreamAndOutputStream(underTest.add(new ByteArrayInputStream(new byte[0]), DS_NAME, XDP_TYPE, Collections.emptyMap()));
+	}
+
+	private static byte[] readAll(DataSource ds) throws IOException {
+		try (InputStream inputStream = ds.inputStream()) {
+			return Jdk8Utils.readAllBytes(inputStream);
+		}
+	}
+
+	private static byte[] createBytes(int length) {
+		byte[] bytes = new byte[length];
+		Arrays.fill(bytes, (byte)'X');
+		return bytes;
+	}
+
+	private long countSpoolFiles() throws IOException {
+		try (Stream<Path> files = Files.list(spoolDir)) {
+			return files.count();
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com._4point.aem.formsfeeder.core.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList.Deconstructor;
+import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
+
+class ScalarDataSourceTest {
+
+	@Test
+	void testScalarDataSource() throws Exception {
+		String expectedName = "ScalarName";
+		Integer expectedValue = Integer.valueOf(12345);
+		ScalarDataSource underTest = new ScalarDataSource(expectedValue, expectedName);
+		try (InputStream inputStream = underTest.inputStream()) {
+			assertAll(
+					()->assertEquals("12345", new String(Jdk8Utils.readAllBytes(inputStream), StandardCharsets.UTF_8)),
+					()->assertEquals("12345", underTest.contents()),
+					()->assertEquals(expectedName, underTest.name()),
+					()->assertEquals(StandardMimeTypes.TEXT_PLAIN_UTF8_TYPE, underTest.contentType()),
+					()->assertEquals(0, underTest.attributes().size()),
+					()->assertSame(expectedValue, Deconstructor.dsToInteger(underTest), "Expected the original value, not a parsed one.")
+					);
+		}
+	}
+
+	@Test
+	void testScalarDataSourceAttributes() throws Exception {
+		Map<String, String> expectedAttributes = Jdk8Utils.mapOf("TestAttribute1", "TestAttributeValue1");
+		Double expectedValue = Double.valueOf(1.5);
+		ScalarDataSource underTest = new ScalarDataSource(expectedValue, "ScalarName", expectedAttributes);
+		assertAll(
+				()->assertEquals(expectedAttributes, underTest.attributes()),
+				()->assertEquals("1.5", underTest.contents()),
+				()->assertSame(expectedValue, Deconstructor.dsToDouble(underTest)),
+				()->assertEquals(15L, (long)(Deconstructor.dsToDoubleValue(underTest) * 10))
+				);
+	}
+
+	@Test
+	void testDifferentTypeIsParsed() throws Exception {
+		ScalarDataSource underTest = new ScalarDataSource(Integer.valueOf(42), "ScalarName");
+		assertAll(
+				()->assertEquals(42L, Deconstructor.dsToLongValue(underTest)),
+				()->assertEquals(42.0, Deconstructor.dsToDoubleValue(underTest)),
+				()->assertEquals(42, Deconstructor.dsToIntValue(underTest))
+				);
+	}
+
+	@Test
+	void testOutputStreamReplacesValue() throws Exception {
+		ScalarDataSource underTest = new ScalarDataSource(Boolean.TRUE, "ScalarName");
+		assertTrue(Deconstructor.dsToBoolean(underTest));
+		try (OutputStream outputStream = underTest.outputStream()) {
+			outputStream.write("false".getBytes(StandardCharsets.UTF_8));
+		}
+		assertFalse(Deconstructor.dsToBoolean(underTest), "Expected the new contents to be decoded, not the original value.");
+	}
+}
@@ -0,0 +1,207 @@
+package com._4point.aem.formsfeeder.core.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
+
+class SegmentedDataSourceTest {
+
+	private static final int TEST_SEGMENT_SIZE = 16;
+	private static final String DS_NAME = "SegmentedDS";
+	private static final MimeType PDF_TYPE = StandardMimeTypes.APPLICATION_PDF_TYPE;
+
+	@Test
+	void testSegmentedDataSource() throws Exception {
+		SegmentedDataSource underTest = new SegmentedDataSource();
+		try (InputStream inputStream = underTest.inputStream()) {
+			assertAll(
+					()->assertEquals(0, Jdk8Utils.readAllBytes(inputStream).length),
+					()->assertEquals("", underTest.name()),
+					()->assertEquals(StandardMimeTypes.APPLICATION_OCTET_STREAM_TYPE, underTest.contentType()),
+					()->assertEquals(0, underTest.attributes().size()),
+					()->assertFalse(underTest.filename().isPresent()),
+					()->assertEquals(0, underTest.contentLength().getAsLong()),
+					()->assertEquals(0, underTest.segmentCount())
+					);
+		}
+	}
+
+	@Test
+	void testReadFromSpansSegments() throws Exception {
+		SegmentPool pool = new SegmentPool(TEST_SEGMENT_SIZE, 10);
+		byte[] expectedBytes = createBytes(TEST_SEGMENT_SIZE * 3 + 5);
+		Map<String, String> expectedAttributes = Jdk8Utils.mapOf("Key1", "Value1");
+		SegmentedDataSource underTest = new SegmentedDataSource(pool, DS_NAME, PDF_TYPE, expectedAttributes).readFrom(new ByteArrayInputStream(expectedBytes));
+		assertAll(
+				()->assertEquals(DS_NAME, underTest.name()),
+				()->assertEquals(PDF_TYPE, underTest.contentType()),
+				()->assertEquals(expectedAttributes, underTest.attributes()),
+				()->assertEquals(4, underTest.segmentCount()),
+				()->assertEquals(expectedBytes.length, underTest.contentLength().getAsLong()),
+				()->assertArrayEquals(expectedBytes, readAll(underTest)),
+				()->assertArrayEquals(expectedBytes, readOneByteAtATime(underTest)),
+				()->assertEquals(expectedBytes.length, underTest.asReadOnlyByteBuffer().remaining())
+				);
+	}
+
+	@Test
+	void testExactlyFullSegments() throws Exception {
+		SegmentPool pool = new SegmentPool(TEST_SEGMENT_SIZE, 10);
+		byte[] expectedBytes = createBytes(TEST_SEGMENT_SIZE * 2);
+		SegmentedDataSource underTest = new SegmentedDataSource(pool, DS_NAME, PDF_TYPE, Collections.emptyMap()).readFrom(new ByteArrayInputStream(expectedBytes));
+		assertEquals(2, underTest.segmentCount());
+		assertEquals(1, pool.pooledCount(), "Expected the empty segment read at the end of the stream to be returned to the pool.");
+		assertArrayEquals(expectedBytes, readAll(underTest));
+	}
+
+	@Test
+	void testTransferTo() throws Exception {
+		SegmentPool pool = new SegmentPool(TEST_SEGMENT_SIZE, 10);
+		byte[] expectedBytes = createBytes(TEST_SEGMENT_SIZE * 5 + 1);
+		SegmentedDataSource underTest = new SegmentedDataSource(pool, DS_NAME, PDF_TYPE, Collections.emptyMap()).readFrom(new ByteArrayInputStream(expectedBytes));
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+		assertEquals(expectedBytes.length, underTest.transferTo(Channels.newChannel(target)));
+		assertArrayEquals(expectedBytes, target.toByteArray());
+	}
+
+	@Test
+	void testSkipAndMark() throws Exception {
+		SegmentPool pool = new SegmentPool(TEST_SEGMENT_SIZE, 10);
+		byte[] expectedBytes = createBytes(TEST_SEGMENT_SIZE * 3);
+		SegmentedDataSource underTest = new SegmentedDataSource(pool, DS_NAME, PDF_TYPE, Collections.emptyMap()).readFrom(new ByteArrayInputStream(expectedBytes));
+		try (InputStream inputStream = underTest.inputStream()) {
+			assertEquals(TEST_SEGMENT_SIZE + 3, inputStream.skip(TEST_SEGMENT_SIZE + 3));
+			inputStream.mark(0);
+			assertEquals(expectedBytes[TEST_SEGMENT_SIZE + 3] & 0xFF, inputStream.read());
+			inputStream.reset();
+			assertEquals(expectedBytes.length - TEST_SEGMENT_SIZE - 3, inputStream.available());
+			assertEquals(expectedBytes.length - TEST_SEGMENT_SIZE - 3, inputStream.skip(Long.MAX_VALUE));
+			assertEquals(-1, inputStream.read());
+		}
+	}
+
+	@Test
+	void testReplacingContentsReturnsSegmentsToPool() throws Exception {
+		SegmentPool pool = new SegmentPool(TEST_SEGMENT_SIZE, 10);
+		SegmentedDataSource underTest = new SegmentedDataSource(pool, DS_NAME, PDF_TYPE, Collections.emptyMap()).readFrom(new ByteArrayInputStream(createBytes(TEST_SEGMENT_SIZE * 3 - 1)));
+		assertEquals(0, pool.pooledCount());
+
+		byte[] expectedBytes = "Small Data".getBytes();
+		try (OutputStream outputStream = underTest.outputStream()) {
+			for (byte b : expectedBytes) {
+				outputStream.write(b);
+			}
+		}
+		assertAll(
+				()->assertArrayEquals(expectedBytes, readAll(underTest)),
+				()->assertEquals(1, underTest.segmentCount()),
+				()->assertEquals(3, pool.pooledCount(), "Expected old segments to be returned to the pool.")
+				);
+	}
+
+	@Test
+	void testCloseReturnsSegmentsToPool() throws Exception {
+		SegmentPool pool = new SegmentPool(TEST_SEGMENT_SIZE, 10);
+		SegmentedDataSource underTest = new SegmentedDataSource(pool, DS_NAME, PDF_TYPE, Collections.emptyMap()).readFrom(new ByteArrayInputStream(createBytes(TEST_SEGMENT_SIZE * 3 - 1)));
+		underTest.close();
+		assertAll(
+				()->assertEquals(0, underTest.segmentCount()),
+				()->assertEquals(3, pool.pooledCount(), "Expected segments to be returned to the pool.")
+				);
+		underTest.close();	// Closing again does nothing.
+		assertEquals(3, pool.pooledCount());
+	}
+
+	@Test
+	void testCloseWhileInputStreamOpen() throws Exception {
+		SegmentPool pool = new SegmentPool(TEST_SEGMENT_SIZE, 10);
+		byte[] expectedBytes = createBytes(TEST_SEGMENT_SIZE * 2);
+		SegmentedDataSource underTest = new SegmentedDataSource(pool, DS_NAME, PDF_TYPE, Collections.emptyMap()).readFrom(new ByteArrayInputStream(expectedBytes));
+		int pooledBefore = pool.pooledCount();
+		try (InputStream inputStream = underTest.inputStream()) {
+			underTest.close();
+			assertEquals(pooledBefore, pool.pooledCount(), "Expected segments that are being read to be kept out of the pool.");
+			assertArrayEquals(expectedBytes, Jdk8Utils.readAllBytes(inputStream));
+		}
+	}
+
+	@Test
+	void testPoolIsBounded() throws Exception {
+		SegmentPool pool = new SegmentPool(TEST_SEGMENT_SIZE, 2);
+		SegmentedDataSource underTest = new SegmentedDataSource(pool, DS_NAME, PDF_TYPE, Collections.emptyMap()).readFrom(new ByteArrayInputStream(createBytes(TEST_SEGMENT_SIZE * 5)));
+		try (OutputStream outputStream = underTest.outputStream()) {
+			// Replace with empty contents
+		}
+		assertEquals(2, pool.pooledCount());
+	}
+
+	@Test
+	void testBuilderAddSegmented() throws Exception {
+		byte[] expectedBytes = createBytes(SegmentPool.SEGMENT_SIZE * 2 + 100);
+		DataSource ds = DataSourceList.builder().addSegmented(DS_NAME, new ByteArrayInputStream(expectedBytes), PDF_TYPE).build().list().get(0);
+		assertAll(
+				()->assertTrue(ds instanceof SegmentedDataSource),
+				()->assertEquals(3, ((SegmentedDataSource)ds).segmentCount()),
+				()->assertEquals(DS_NAME, ds.name()),
+				()->assertEquals(PDF_TYPE, ds.contentType()),
+				()->assertArrayEquals(expectedBytes, DataSourceList.Deconstructor.dsToByteArray(ds))
+				);
+	}
+
+	/**
+	 * Shouldn't be able to open OutputStream while one or more InputStreams are open.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void testOutputStreamWhileInputStreamOpen() throws Exception {
+		byte[] expectedBytes = "Expected Test Data".getBytes();
+		SegmentedDataSource underTest = new SegmentedDataSource(new SegmentPool(TEST_SEGMENT_SIZE, 10), DS_NAME, PDF_TYPE, Collections.emptyMap()).readFrom(new ByteArrayInputStream(expectedBytes));
+		DataSourceTestUtils.openOutputStreamWhileInputStreamOpen(expectedBytes, underTest);
+	}
+
+	/**
+	 * Shouldn't allow getting an input stream while there is still an output stream open.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void testInputStreamWhileOutputStreamOpen() throws Exception {
+		DataSourceTestUtils.openInputStreamAndOutputStream(new SegmentedDataSource());
+	}
+
+	private static byte[] readAll(DataSource ds) throws IOException {
+		try (InputStream inputStream = ds.inputStream()) {
+			return Jdk8Utils.readAllBytes(inputStream);
+		}
+	}
+
+	private static byte[] readOneByteAtATime(DataSource ds) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		try (InputStream inputStream = ds.inputStream()) {
+			int b;
+			while ((b = inputStream.read()) >= 0) {
+				result.write(b);
+			}
+		}
+		return result.toByteArray();
+	}
+
+	private static byte[] createBytes(int length) {
+		byte[] bytes = new byte[length];
+		new Random(42).nextBytes(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,250 @@
+package com._4point.aem.formsfeeder.core.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com._4point.aem.formsfeeder.core.support.Jdk8Utils;
+
+class SpoolingDataSourceTest {
+
+	private static final int TEST_THRESHOLD = 16;
+
+	@TempDir
+	Path spoolDir;
+
+	@Test
+	void testSpoolingDataSource() throws Exception {
+		SpoolingDataSource underTest = new SpoolingDataSource(TEST_THRESHOLD, spoolDir);
+		try (InputStream inputStream = underTest.inputStream()) {
+			assertAll(
+					()->assertEquals(0, Jdk8Utils.readAllBytes(inputStream).length),
+					()->assertEquals("", underTest.name()),
+					()->assertEquals(StandardMimeTypes.APPLICATION_OCTET_STREAM_TYPE, underTest.contentType()),
+					()->assertEquals(0, underTest.attributes().size()),
+					()->assertFalse(underTest.filename().isPresent()),
+					()->assertFalse(underTest.isSpooled())
+					);
+		}
+	}
+
+	@Test
+	void testSpoolingDataSourceNameMimeTypeAttributes() throws Exception {
+		String expectedName = "DataSource Test Name";
+		MimeType expectedMimeType = StandardMimeTypes.APPLICATION_PDF_TYPE;
+		Map<String, String> expectedAttributes = Jdk8Utils.mapOf("TestAttribute1", "TestAttributeValue1","TestAttribute2", "TestAttributeValue2");
+		SpoolingDataSource underTest = new SpoolingDataSource(TEST_THRESHOLD, spoolDir, expectedName, expectedMimeType, expectedAttributes);
+		assertAll(
+				()->assertEquals(expectedName, underTest.name()),
+				()->assertEquals(expectedMimeType, underTest.contentType()),
+				()->assertEquals(expectedAttributes, underTest.attributes())
+				);
+	}
+
+	@Test
+	void testNegativeThreshold() throws Exception {
+		IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, ()->new SpoolingDataSource(-1, spoolDir));
+		assertTrue(ex.getMessage().contains("-1"), "Expected message to contain the threshold value.");
+	}
+
+	@Test
+	void testReadFromSmallStaysInMemory() throws Exception {
+		byte[] expectedBytes = "Small Data".getBytes();	// Less than threshold
+		SpoolingDataSource underTest = new SpoolingDataSource(TEST_THRESHOLD, spoolDir).readFrom(new ByteArrayInputStream(expectedBytes));
+		try (InputStream inputStream = underTest.inputStream()) {
+			assertArrayEquals(expectedBytes, Jdk8Utils.readAllBytes(inputStream));
+		}
+		assertFalse(underTest.isSpooled(), "Expected contents to remain in memory.");
+		assertEquals(0, countSpoolFiles(), "Expected no spool files to be created.");
+	}
+
+	@Test
+	void testReadFromExactlyThresholdStaysInMemory() throws Exception {
+		byte[] expectedBytes = createBytes(TEST_THRESHOLD);
+		SpoolingDataSource underTest = new SpoolingDataSource(TEST_THRESHOLD, spoolDir).readFrom(new ByteArrayInputStream(expectedBytes));
+		try (InputStream inputStream = underTest.inputStream()) {
+			assertArrayEquals(expectedBytes, Jdk8Utils.readAllBytes(inputStream));
+		}
+		assertFalse(underTest.isSpooled(), "Expected contents to remain in memory.");
+	}
+
+	@Test
+	void testReadFromLargeIsSpooled() throws Exception {
+		byte[] expectedBytes = createBytes(TEST_THRESHOLD * 100 + 3);
+		SpoolingDataSource underTest = new SpoolingDataSource(TEST_THRESHOLD, spoolDir).readFrom(new ByteArrayInputStream(expectedBytes));
+		try (InputStream inputStream = underTest.inputStream()) {
+			assertArrayEquals(expectedBytes, Jdk8Utils.readAllBytes(inputStream));
+		}
+		assertTrue(underTest.isSpooled(), "Expected contents to be spooled to disk.");
+		assertEquals(1, countSpoolFiles(), "Expected one spool file to be created.");
+	}
+
+	@Test
+	void testReplacingContentsDeletesSpoolFile() throws Exception {
+		SpoolingDataSource underTest = new SpoolingDataSource(TEST_THRESHOLD, spoolDir).readFrom(new ByteArrayInputStream(createBytes(TEST_THRESHOLD * 2)));
+		assertEquals(1, countSpoolFiles(), "Expected one spool file to be created.");
+
+		byte[] expectedBytes = "Small Data".getBytes();	// Less than threshold
+		try (OutputStream outputStream = underTest.outputStream()) {
+			outputStream.write(expectedBytes);
+		}
+		try (InputStream inputStream = underTest.inputStream()) {
+			assertArrayEquals(expectedBytes, Jdk8Utils.readAllBytes(inputStream));
+		}
+		assertFalse(underTest.isSpooled(), "Expected contents to be back in memory.");
+		assertEquals(0, countSpoolFiles(), "Expected spool file to be deleted.");
+	}
+
+	@Test
+	void testCloseDeletesSpoolFile() throws Exception {
+		SpoolingDataSource underTest = new SpoolingDataSource(TEST_THRESHOLD, spoolDir).readFrom(new ByteArrayInputStream(createBytes(TEST_THRESHOLD * 2)));
+		assertEquals(1, countSpoolFiles(), "Expected one spool file to be created.");
+
+		underTest.close();
+		assertFalse(underTest.isSpooled());
+		assertEquals(0, countSpoolFiles(), "Expected spool file to be deleted when the DataSource is closed.");
+		underTest.close();	// Closing again does nothing.
+	}
+
+	@Test
+	void testSingleByteWrites() throws Exception {
+		byte[] expectedBytes = createBytes(TEST_THRESHOLD * 3);
+		SpoolingDataSource underTest = new SpoolingDataSource(TEST_THRESHOLD, spoolDir);
+		try (OutputStream outputStream = underTest.outputStream()) {
+			for (byte b : expectedBytes) {
+				outputStream.write(b);
+			}
+		}
+		try (InputStream inputStream = underTest.inputStream()) {
+			assertArrayEquals(expectedBytes, Jdk8Utils.readAllBytes(inputStream));
+		}
+		assertTrue(underTest.isSpooled(), "Expected contents to be spooled to disk.");
+	}
+
+	@Test
+	void testZeroThresholdAlwaysSpools() throws Exception {
+		byte[] expectedBytes = "A".getBytes();
+		SpoolingDataSource underTest = new SpoolingDataSource(0, spoolDir).readFrom(new ByteArrayInputStream(expectedBytes));
+		try (InputStream inputStream = underTest.inputStream()) {
+			assertArrayEquals(expectedBytes, Jdk8Utils.readAllBytes(inputStream));
+		}
+		assertTrue(underTest.isSpooled(), "Expected contents to be spooled to disk.");
+	}
+
+	@Test
+	void testFilename() throws Exception {
+		Path expectedFilename = Paths.get("foo", "bar.pdf");
+		SpoolingDataSource underTest = new SpoolingDataSource(TEST_THRESHOLD, spoolDir).readFrom(new ByteArrayInputStream(createBytes(TEST_THRESHOLD * 2)));
+		underTest.filename(expectedFilename);
+		assertEquals(expectedFilename, underTest.filename().get(), "Filename should be the one provided, not the spool file.");
+	}
+
+	/**
+	 * Shouldn't be able to open OutputStream while one or more InputStreams are open.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void testOutputStreamWhileInputStreamOpen() throws Exception {
+		byte[] expectedBytes = "Expected Test Data".getBytes();
+		SpoolingDataSource underTest = new SpoolingDataSource(TEST_THRESHOLD, spoolDir).readFrom(new ByteArrayInputStream(expectedBytes));
+
+		DataSourceTestUtils.openOutputStreamWhileInputStreamOpen(expectedBytes, underTest);
+	}
+
+	/**
+	 * Shouldn't allow getting an input stream while there is still an output stream open.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void testInputStreamWhileOutputStreamOpen() throws Exception {
+		SpoolingDataSource underTest = new SpoolingDataSource(TEST_THRESHOLD, spoolDir);
+		DataSourceTestUtils.openInputStreamAndOutputStream(underTest);
+	}
+
+	private static byte[] createBytes(int length) {
+		byte[] bytes = new byte[length];
+		Arrays.fill(bytes, (byte)'X');
+		for (int i = 0; i < length; i += 7) {
+			bytes[i] = (byte)('A' + (i % 26));
+		}
+		return bytes;
+	}
+
+	private long countSpoolFiles() throws IOException {
+		try (Stream<Path> files = Files.list(spoolDir)) {
+			return files.count();
+		}
+	}
+
+	@Test
+	void testAsReadOnlyByteBuffer() throws Exception {
+		byte[] smallBytes = "Small Data".getBytes();
+		byte[] largeBytes = createBytes(TEST_THRESHOLD * 10);
+		ByteBuffer inMemory = new SpoolingDataSource(TEST_THRESHOLD, spoolDir).readFrom(new ByteArrayInputStream(smallBytes)).asReadOnlyByteBuffer();
+		ByteBuffer spooled = new SpoolingDataSource(TEST_THRESHOLD, spoolDir).readFrom(new ByteArrayInputStream(largeBytes)).asReadOnlyByteBuffer();
+		assertAll(
+				()->assertTrue(inMemory.isReadOnly()),
+				()->assertArrayEquals(smallBytes, toByteArray(inMemory)),
+				()->assertTrue(spooled.isReadOnly()),
+				()->assertArrayEquals(largeBytes, toByteArray(spooled))
+				);
+	}
+
+	private static byte[] toByteArray(ByteBuffer buffer) {
+		byte[] result = new byte[buffer.remaining()];
+		buffer.duplicate().get(result);
+		return result;
+	}
+
+	@Test
+	void testContentLength() throws Exception {
+		byte[] smallBytes = "Small Data".getBytes();
+		byte[] largeBytes = createBytes(TEST_THRESHOLD * 10 + 1);
+		SpoolingDataSource inMemory = new SpoolingDataSource(TEST_THRESHOLD, spoolDir).readFrom(new ByteArrayInputStream(smallBytes));
+		SpoolingDataSource spooled = new SpoolingDataSource(TEST_THRESHOLD, spoolDir).readFrom(new ByteArrayInputStream(largeBytes));
+		assertAll(
+				()->assertEquals(smallBytes.length, inMemory.contentLength().getAsLong()),
+				()->assertTrue(spooled.isSpooled()),
+				()->assertEquals(largeBytes.length, spooled.contentLength().getAsLong())
+				);
+	}
+
+	@Test
+	void testTransferTo() throws Exception {
+		byte[] smallBytes = "Small Data".getBytes();
+		byte[] largeBytes = createBytes(TEST_THRESHOLD * 10 + 1);
+		SpoolingDataSource inMemory = new SpoolingDataSource(TEST_THRESHOLD, spoolDir).readFrom(new ByteArrayInputStream(smallBytes));
+		SpoolingDataSource spooled = new SpoolingDataSource(TEST_THRESHOLD, spoolDir).readFrom(new ByteArrayInputStream(largeBytes));
+		ByteArrayOutputStream inMemoryOut = new ByteArrayOutputStream();
+		ByteArrayOutputStream spooledOut = new ByteArrayOutputStream();
+		assertAll(
+				()->assertEquals(smallBytes.length, inMemory.transferTo(Channels.newChannel(inMemoryOut))),
+				()->assertArrayEquals(smallBytes, inMemoryOut.toByteArray()),
+				()->assertTrue(spooled.isSpooled()),
+				()->assertEquals(largeBytes.length, spooled.transferTo(Channels.newChannel(spooledOut))),
+				()->assertArrayEquals(largeBytes, spooledOut.toByteArray())
+				);
+		// The transfers are finished, so the contents can be replaced.
+		try (OutputStream os = spooled.outputStream()) {
+			os.write(smallBytes);
+		}
+		assertFalse(spooled.isSpooled(), "Expected new contents to be held in memory.");
+	}
+}
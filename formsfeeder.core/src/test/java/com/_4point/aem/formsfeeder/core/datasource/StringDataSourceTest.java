@@ -2,8 +2,13 @@ package com._4point.aem.formsfeeder.core.datasource;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
@@ -121,4 +126,57 @@ class StringDataSourceTest {
 	}
 
 	
+
+	@Test
+	void testAsReadOnlyByteBuffer() throws Exception {
+		String expectedString = "ByteBuffer Test Data \u00e9";
+		ByteBuffer result = new StringDataSource(expectedString).asReadOnlyByteBuffer();
+		byte[] resultBytes = new byte[result.remaining()];
+		result.get(resultBytes);
+		assertTrue(result.isReadOnly());
+		assertEquals(expectedString, new String(resultBytes, StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testReadableChannelAndTransferTo() throws Exception {
+		String expectedString = "Channel Test Data";
+		StringDataSource underTest = new StringDataSource(expectedString);
+		try (ReadableByteChannel channel = underTest.readableChannel()) {
+			ByteBuffer buffer = ByteBuffer.allocate(100);
+			while (channel.read(buffer) >= 0) {
+				// Keep reading until the end of the channel.
+			}
+			assertEquals(expectedString, new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertEquals(expectedString.length(), underTest.transferTo(Channels.newChannel(out)));
+		assertEquals(expectedString, new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testContentLength() throws Exception {
+		String initialString = "Caf\u00e9";	// Multi-byte character, so byte length differs from String length.
+		StringDataSource underTest = new StringDataSource(initialString);
+		assertEquals(initialString.getBytes(StandardCharsets.UTF_8).length, underTest.contentLength().getAsLong());
+
+		String expectedString = "Replacement Contents";
+		try (OutputStream outputStream = underTest.outputStream()) {
+			outputStream.write(expectedString.getBytes(StandardCharsets.UTF_8));
+		}
+		assertEquals(expectedString.length(), underTest.contentLength().getAsLong(), "Expected length to reflect the new contents.");
+		try (InputStream inputStream = underTest.inputStream()) {
+			assertEquals(expectedString, new String(Jdk8Utils.readAllBytes(inputStream), StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	void testInputStreamRepeatable() throws Exception {
+		String expectedString = "Repeatable Data";
+		StringDataSource underTest = new StringDataSource(expectedString);
+		for (int i = 0; i < 3; i++) {
+			try (InputStream inputStream = underTest.inputStream()) {
+				assertEquals(expectedString, new String(Jdk8Utils.readAllBytes(inputStream), StandardCharsets.UTF_8));
+			}
+		}
+	}
 }
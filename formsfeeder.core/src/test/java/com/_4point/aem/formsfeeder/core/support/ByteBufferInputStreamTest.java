@@ -0,0 +1,60 @@
+package com._4point.aem.formsfeeder.core.support;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+class ByteBufferInputStreamTest {
+
+	private static final byte[] TEST_DATA = "0123456789".getBytes();
+
+	@Test
+	void testReadAll() throws Exception {
+		ByteBuffer buffer = ByteBuffer.wrap(TEST_DATA);
+		try (InputStream underTest = new ByteBufferInputStream(buffer)) {
+			assertArrayEquals(TEST_DATA, Jdk8Utils.readAllBytes(underTest));
+			assertEquals(-1, underTest.read());
+		}
+		assertEquals(0, buffer.position(), "Original buffer position should not change.");
+	}
+
+	@Test
+	void testReadFromPosition() throws Exception {
+		ByteBuffer buffer = ByteBuffer.wrap(TEST_DATA);
+		buffer.position(5);
+		try (InputStream underTest = new ByteBufferInputStream(buffer)) {
+			assertEquals(5, underTest.available());
+			assertEquals('5', underTest.read());
+			assertArrayEquals("6789".getBytes(), Jdk8Utils.readAllBytes(underTest));
+		}
+	}
+
+	@Test
+	void testSkipMarkReset() throws Exception {
+		try (InputStream underTest = new ByteBufferInputStream(ByteBuffer.wrap(TEST_DATA))) {
+			assertTrue(underTest.markSupported());
+			assertEquals(2, underTest.skip(2));
+			underTest.mark(0);
+			assertEquals('2', underTest.read());
+			underTest.reset();
+			assertEquals('2', underTest.read());
+			assertEquals(7, underTest.skip(100));
+			assertEquals(0, underTest.skip(1));
+			assertEquals(-1, underTest.read(new byte[1], 0, 1));
+		}
+	}
+
+	@Test
+	void testReadIntoArray() throws Exception {
+		byte[] result = new byte[4];
+		try (InputStream underTest = new ByteBufferInputStream(ByteBuffer.wrap(TEST_DATA))) {
+			assertEquals(3, underTest.read(result, 1, 3));
+			assertEquals(0, underTest.read(result, 0, 0));
+			assertThrows(IndexOutOfBoundsException.class, ()->underTest.read(result, 2, 3));
+		}
+		assertArrayEquals(new byte[] { 0, '0', '1', '2' }, result);
+	}
+}
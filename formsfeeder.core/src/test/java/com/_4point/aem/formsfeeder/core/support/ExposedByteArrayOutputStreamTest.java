@@ -0,0 +1,44 @@
+package com._4point.aem.formsfeeder.core.support;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class ExposedByteArrayOutputStreamTest {
+
+	@Test
+	void testBackingArray() throws Exception {
+		byte[] expectedBytes = "Test Data".getBytes();
+		ExposedByteArrayOutputStream underTest = new ExposedByteArrayOutputStream(64);
+		underTest.write(expectedBytes);
+		
+		byte[] result = underTest.backingArray();
+		assertEquals(64, result.length, "Expected the backing array to be returned, not a trimmed copy.");
+		assertEquals(expectedBytes.length, underTest.size());
+		assertArrayEquals(expectedBytes, Arrays.copyOf(result, underTest.size()));
+	}
+
+	@Test
+	void testToByteArrayNoCopy_ExactlyFull() throws Exception {
+		byte[] expectedBytes = "Test Data".getBytes();
+		ExposedByteArrayOutputStream underTest = new ExposedByteArrayOutputStream(expectedBytes.length);
+		underTest.write(expectedBytes);
+		
+		byte[] result = underTest.toByteArrayNoCopy();
+		assertSame(underTest.backingArray(), result, "Expected the backing array to be returned when it is exactly full.");
+		assertArrayEquals(expectedBytes, result);
+	}
+
+	@Test
+	void testToByteArrayNoCopy_PartiallyFull() throws Exception {
+		byte[] expectedBytes = "Test Data".getBytes();
+		ExposedByteArrayOutputStream underTest = new ExposedByteArrayOutputStream(expectedBytes.length * 2);
+		underTest.write(expectedBytes);
+		
+		byte[] result = underTest.toByteArrayNoCopy();
+		assertNotSame(underTest.backingArray(), result, "Expected a copy to be returned when the backing array is not full.");
+		assertArrayEquals(expectedBytes, result);
+	}
+}
@@ -4,6 +4,11 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.AbstractMap;
 import java.util.ArrayList;
@@ -35,6 +40,63 @@ class Jdk8UtilsTest {
 		assertArrayEquals(expectedOuput, out.toByteArray());
 	}
 
+	@ParameterizedTest
+	@ValueSource(longs = {-1, 0, 1, 9999, 10000, 10001, 100000, Integer.MAX_VALUE, Long.MAX_VALUE})
+	void testReadAllBytes_SizeHint(long sizeHint) throws Exception {
+		final byte[] expectedOuput = createBytes(10000);
+		
+		assertArrayEquals(expectedOuput, Jdk8Utils.readAllBytes(new ByteArrayInputStream(expectedOuput), sizeHint));
+	}
+
+	@ParameterizedTest
+	@ValueSource(longs = {1, 65536, 199999, 200000, 200001})
+	void testReadAllBytes_LargeSizeHint(long sizeHint) throws Exception {
+		final byte[] expectedOuput = createBytes(200000);
+		
+		assertArrayEquals(expectedOuput, Jdk8Utils.readAllBytes(new ByteArrayInputStream(expectedOuput), sizeHint));
+	}
+
+	@Test
+	void testReadAllBytes_NoAvailable() throws Exception {
+		final byte[] expectedOuput = createBytes(20000);
+		InputStream noAvailable = new FilterInputStream(new ByteArrayInputStream(expectedOuput)) {
+			@Override
+			public int available() {
+				return 0;
+			}
+		};
+		
+		assertArrayEquals(expectedOuput, Jdk8Utils.readAllBytes(noAvailable));
+	}
+
+	@Test
+	void testTransfer_Nested() throws Exception {
+		final byte[] innerBytes = createBytes(20000);
+		final byte[] outerBytes = "Outer Data".getBytes(StandardCharsets.UTF_8);
+		ByteArrayOutputStream innerOut = new ByteArrayOutputStream();
+		ByteArrayOutputStream outerOut = new ByteArrayOutputStream();
+		// OutputStream that performs its own transfer on every write, so both transfers are active on this thread at once.
+		OutputStream nesting = new FilterOutputStream(outerOut) {
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				Jdk8Utils.transfer(new ByteArrayInputStream(innerBytes), innerOut);
+				out.write(b, off, len);
+			}
+		};
+		
+		Jdk8Utils.transfer(new ByteArrayInputStream(outerBytes), nesting);
+		assertArrayEquals(outerBytes, outerOut.toByteArray());
+		assertArrayEquals(innerBytes, innerOut.toByteArray());
+	}
+
+	private static byte[] createBytes(int length) {
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = (byte)('A' + (i % 26));
+		}
+		return bytes;
+	}
+
 	@ParameterizedTest
 	@ValueSource(strings = {"", "   ", " 	   "})
 	void testIsBlank_Blank(String input) {
@@ -0,0 +1,54 @@
+package com._4point.aem.formsfeeder.core.support;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class LruCacheTest {
+
+	@Test
+	void testPutIfAbsent() {
+		LruCache<String, String> underTest = new LruCache<>(10);
+		assertAll(
+				()->assertEquals("Value1", underTest.putIfAbsent("Key", "Value1")),
+				()->assertEquals("Value1", underTest.putIfAbsent("Key", "Value2"), "Expected the existing value to be kept."),
+				()->assertEquals("Value1", underTest.get("Key")),
+				()->assertNull(underTest.get("NotAKey")),
+				()->assertEquals(1, underTest.size())
+				);
+	}
+
+	@Test
+	void testEvictsLeastRecentlyUsed() {
+		LruCache<String, Integer> underTest = new LruCache<>(3);
+		underTest.putIfAbsent("One", 1);
+		underTest.putIfAbsent("Two", 2);
+		underTest.putIfAbsent("Three", 3);
+		underTest.get("One");	// "Two" is now the least recently used.
+		underTest.putIfAbsent("Four", 4);
+		assertAll(
+				()->assertEquals(3, underTest.size()),
+				()->assertEquals(1, underTest.get("One")),
+				()->assertNull(underTest.get("Two")),
+				()->assertEquals(3, underTest.get("Three")),
+				()->assertEquals(4, underTest.get("Four"))
+				);
+	}
+
+	@Test
+	void testFloodDoesNotEvictEntriesInUse() {
+		LruCache<String, Integer> underTest = new LruCache<>(16);
+		underTest.putIfAbsent("InUse", 0);
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(0, underTest.get("InUse"));
+			underTest.putIfAbsent("Junk" + i, i);
+		}
+		assertEquals(16, underTest.size());
+		assertEquals(0, underTest.get("InUse"));
+	}
+
+	@Test
+	void testInvalidSize() {
+		assertThrows(IllegalArgumentException.class, ()->new LruCache<String, String>(0));
+	}
+}
@@ -94,7 +94,7 @@ public class ExamplePlugin extends Plugin {
 			
 				// return the result 
 				return DataSourceList.builder()
-									 .add("Result", result.getInputStream().readAllBytes(), MimeType.of(result.getContentType()))
+									 .addOwned("Result", result.getInputStream().readAllBytes(), MimeType.of(result.getContentType()))
 									 .build();
 			} catch (OutputServiceException e) {
 				throw new FeedConsumerInternalErrorException("Error while generating PDF.", e);
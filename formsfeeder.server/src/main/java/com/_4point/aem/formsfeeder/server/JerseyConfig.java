@@ -5,6 +5,8 @@ import org.glassfish.jersey.media.multipart.MultiPartFeature;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.springframework.stereotype.Component;
 
+import com._4point.aem.formsfeeder.server.support.RequestScopedResources;
+
 @Component
 public class JerseyConfig extends ResourceConfig {
 
@@ -16,6 +18,7 @@ public class JerseyConfig extends ResourceConfig {
     	// Additional JAX-RS Features 
     	register(MultiPartFeature.class);
     	register(LoggingFeature.class);
+    	register(RequestScopedResources.Releaser.class);
     	
     	// Internal classes that contain JAX-RS Annotations
     	register(ServicesEndpoint.class);
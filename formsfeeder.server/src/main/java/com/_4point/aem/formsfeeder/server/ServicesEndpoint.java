@@ -6,11 +6,14 @@ import java.nio.charset.Charset;
 import java.nio.file.Paths;
 import java.text.ParseException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
@@ -18,17 +21,20 @@ import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.glassfish.jersey.media.multipart.ContentDisposition;
 import org.glassfish.jersey.media.multipart.FormDataBodyPart;
 import org.glassfish.jersey.media.multipart.FormDataContentDisposition;
-import org.glassfish.jersey.media.multipart.FormDataMultiPart;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,14 +43,29 @@ import com._4point.aem.formsfeeder.core.api.FeedConsumer;
 import com._4point.aem.formsfeeder.core.api.FeedConsumer.FeedConsumerBadRequestException;
 import com._4point.aem.formsfeeder.core.api.FeedConsumer.FeedConsumerException;
 import com._4point.aem.formsfeeder.core.api.FeedConsumer.FeedConsumerInternalErrorException;
+import com._4point.aem.formsfeeder.core.api.NamedFeedConsumer;
+import com._4point.aem.formsfeeder.core.codec.DataSourceListCodec;
+import com._4point.aem.formsfeeder.core.codec.DataSourceListCodec.DataSourceListCodecException;
+import com._4point.aem.formsfeeder.core.codec.DataSourceListDecoder;
+import com._4point.aem.formsfeeder.core.codec.DataSourceListEncoder;
+import com._4point.aem.formsfeeder.core.codec.MultipartFormDataDecoder.MultipartFormDataException;
+import com._4point.aem.formsfeeder.core.codec.MultipartFormDataEncoder;
 import com._4point.aem.formsfeeder.core.datasource.DataSource;
 import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
 import com._4point.aem.formsfeeder.core.datasource.DataSourceList.Builder;
 import com._4point.aem.formsfeeder.core.datasource.MimeType;
+import com._4point.aem.formsfeeder.core.datasource.OffHeapArena;
+import com._4point.aem.formsfeeder.core.datasource.PayloadStore;
 import com._4point.aem.formsfeeder.server.pf4j.FeedConsumers;
 import com._4point.aem.formsfeeder.server.support.CorrelationId;
 import com._4point.aem.formsfeeder.server.support.DataSourceListJaxRsUtils;
 import com._4point.aem.formsfeeder.server.support.FfLoggerFactory;
+import com._4point.aem.formsfeeder.server.support.MultipartSettings;
+import com._4point.aem.formsfeeder.server.support.OffHeapArenas;
+import com._4point.aem.formsfeeder.server.support.PluginBulkhead;
+import com._4point.aem.formsfeeder.server.support.PluginBulkheads;
+import com._4point.aem.formsfeeder.server.support.PluginExecutor;
+import com._4point.aem.formsfeeder.server.support.RequestScopedResources;
 
 /**
  * Class that contains the code for handling plug-in services.
@@ -68,9 +89,32 @@ public class ServicesEndpoint {
 	// Data Source Name we use to pass in the bytes from a POST body that does not include name. 
 	private static final String FORMSFEEDER_BODY_BYTES_DS_NAME = FORMSFEEDER_PREFIX + "BodyBytes";
 	
+	// Media type of the binary DataSourceList encoding that FormsFeeder clients can use instead of multipart/form-data.
+	private static final MediaType DATASOURCELIST_MEDIA_TYPE = MediaType.valueOf(DataSourceListCodec.CONTENT_TYPE_STR);
+	
 	@Autowired
 	private FeedConsumers feedConsumers;
 	
+	// Only present when the payload store is enabled (see PayloadStoreConfiguration).
+	@Autowired(required = false)
+	private PayloadStore payloadStore;
+	
+	// Only present when off-heap DataSources are enabled (see OffHeapConfiguration).
+	@Autowired(required = false)
+	private OffHeapArenas offHeapArenas;
+	
+	@Autowired
+	private PluginExecutor pluginExecutor;
+	
+	@Autowired
+	private PluginBulkheads pluginBulkheads;
+	
+	@Autowired
+	private MultipartSettings multipartSettings;
+	
+	@Context
+	private ContainerRequestContext requestContext;
+	
 	/**
 	 * Method that gets invoked for all GET transactions
 	 *  
@@ -81,11 +125,11 @@ public class ServicesEndpoint {
 	 * @param remainder
 	 * @param correlationIdHdr
 	 * @param uriInfo
-	 * @return
+	 * @param asyncResponse	resumed with the response once the plug-in has completed
 	 */
 	@Path(PLUGIN_NAME_REMAINDER_PATH)
 	@GET
-    public Response invokeNoBody(@PathParam("remainder") String remainder, @Context HttpHeaders httpHeaders, @HeaderParam(CorrelationId.CORRELATION_ID_HDR) final String correlationIdHdr, @Context UriInfo uriInfo) {
+    public void invokeNoBody(@PathParam("remainder") String remainder, @Context HttpHeaders httpHeaders, @HeaderParam(CorrelationId.CORRELATION_ID_HDR) final String correlationIdHdr, @Context UriInfo uriInfo, @Suspended final AsyncResponse asyncResponse) {
 		final String correlationId = CorrelationId.generate(correlationIdHdr);
 		final Logger logger = FfLoggerFactory.wrap(correlationId, baseLogger);
 		logger.info("Recieved GET request to '" + API_V1_PATH + "/" + remainder + "'.");
@@ -99,13 +143,15 @@ public class ServicesEndpoint {
 		}
 		final DataSourceList dataSourceList1 = convertQueryParamsToDataSourceList(uriInfo.getQueryParameters().entrySet(), logger);
 		final DataSourceList dataSourceList2 = generateFormsFeederDataSourceList(correlationId);
-		return invokePlugin(remainder, DataSourceList.from(dataSourceList1, dataSourceList2), logger, correlationId);
+		invokePlugin(remainder, DataSourceList.from(dataSourceList1, dataSourceList2), logger, correlationId, acceptsDataSourceList(httpHeaders), asyncResponse);
 	}
 
 	/**
 	 * Method that gets invoked for POST transactions that contain multipart/form-data.
 	 * 
-	 * This breaks apart the multipart/form-data into fields, converts the fields to DataSources.  Merges the DataSources
+	 * This breaks apart the multipart/form-data into fields, converts the fields to DataSources.  The body is streamed
+	 * straight from the request, each part is converted as it arrives (large parts are written to temporary files, see
+	 * MultipartSettings) rather than the whole body being buffered before this method is called.  Merges the DataSources
 	 * from the query parameters with the field DataSources and then calls the appropriate plug-in.  It then returns
 	 * the results of the plug-in as either a single response (if the plug-in returned just one DataSource) or as a
 	 * multipart/form-data response (if the plug-in returned multiple DataSources).
@@ -113,14 +159,14 @@ public class ServicesEndpoint {
 	 * @param remainder
 	 * @param correlationIdHdr
 	 * @param uriInfo
-	 * @param formData
-	 * @return
+	 * @param in
+	 * @param asyncResponse	resumed with the response once the plug-in has completed
 	 * @throws IOException 
 	 */
 	@Path(PLUGIN_NAME_REMAINDER_PATH)
 	@Consumes(MediaType.MULTIPART_FORM_DATA)
 	@POST
-    public Response invokeWithMultipartFormDataBody(@PathParam("remainder") String remainder, @Context HttpHeaders httpHeaders, @HeaderParam(CorrelationId.CORRELATION_ID_HDR) final String correlationIdHdr, @Context UriInfo uriInfo, FormDataMultiPart formData) throws IOException {
+    public void invokeWithMultipartFormDataBody(@PathParam("remainder") String remainder, @Context HttpHeaders httpHeaders, @HeaderParam(CorrelationId.CORRELATION_ID_HDR) final String correlationIdHdr, @Context UriInfo uriInfo, InputStream in, @Suspended final AsyncResponse asyncResponse) throws IOException {
 		final String correlationId = CorrelationId.generate(correlationIdHdr);
 		final Logger logger = FfLoggerFactory.wrap(correlationId, baseLogger);
 		logger.info("Received " + MediaType.MULTIPART_FORM_DATA + " POST request to '" + API_V1_PATH + "/" + remainder + "'.");
@@ -132,10 +178,50 @@ public class ServicesEndpoint {
 				}
 			}
 		}
-		final DataSourceList dataSourceList1 = DataSourceListJaxRsUtils.asDataSourceList(formData, logger);
-		final DataSourceList dataSourceList2 = convertQueryParamsToDataSourceList(uriInfo.getQueryParameters().entrySet(), logger);
-		final DataSourceList dataSourceList3 = generateFormsFeederDataSourceList(correlationId);
-		return invokePlugin(remainder, DataSourceList.from(dataSourceList1, dataSourceList2, dataSourceList3), logger, correlationId);
+		try {
+			final DataSourceList dataSourceList1 = decodeBody(multipartSettings.builder().payloadStore(payloadStore).offHeapArena(requestArena()), (b)->DataSourceListJaxRsUtils.asDataSourceListFromMultipart(in, httpHeaders.getMediaType(), b, logger));
+			final DataSourceList dataSourceList2 = convertQueryParamsToDataSourceList(uriInfo.getQueryParameters().entrySet(), logger);
+			final DataSourceList dataSourceList3 = generateFormsFeederDataSourceList(correlationId);
+			invokePlugin(remainder, DataSourceList.from(dataSourceList1, dataSourceList2, dataSourceList3), logger, correlationId, acceptsDataSourceList(httpHeaders), asyncResponse);
+		} catch (MultipartFormDataException e) {
+			String msg = "Error while decoding " + MediaType.MULTIPART_FORM_DATA + " body (" + e.getMessage() + ").";
+			logger.error(msg + ", Returning \"Bad Request\" status code.", e);
+			asyncResponse.resume(buildResponse(Response.status(Response.Status.BAD_REQUEST).entity(msg).type(MediaType.TEXT_PLAIN_TYPE), correlationId));
+		}
+	}
+
+	/**
+	 * Method that gets invoked for POST transactions that contain a binary encoded DataSourceList (see DataSourceListCodec).
+	 * 
+	 * This is the binary equivalent of a multipart/form-data POST.  It is used by FormsFeeder clients that have been
+	 * configured to use the binary encoding, since it avoids boundary scanning and per-part header parsing.
+	 * 
+	 * @param remainder
+	 * @param httpHeaders
+	 * @param correlationIdHdr
+	 * @param uriInfo
+	 * @param in
+	 * @param asyncResponse	resumed with the response once the plug-in has completed
+	 * @throws IOException
+	 */
+	@Path(PLUGIN_NAME_REMAINDER_PATH)
+	@Consumes(DataSourceListCodec.CONTENT_TYPE_STR)
+	@POST
+    public void invokeWithDataSourceListBody(@PathParam("remainder") String remainder, @Context HttpHeaders httpHeaders, @HeaderParam(CorrelationId.CORRELATION_ID_HDR) final String correlationIdHdr, @Context UriInfo uriInfo, InputStream in, @Suspended final AsyncResponse asyncResponse) throws IOException {
+		final String correlationId = CorrelationId.generate(correlationIdHdr);
+		final Logger logger = FfLoggerFactory.wrap(correlationId, baseLogger);
+		logger.info("Received " + DataSourceListCodec.CONTENT_TYPE_STR + " POST request to '" + API_V1_PATH + "/" + remainder + "'.");
+		try {
+			final DataSourceList dataSourceList1 = decodeBody(multipartSettings.builder().payloadStore(payloadStore).offHeapArena(requestArena()), new DataSourceListDecoder(in)::decode);
+			logger.debug("Decoded {} DataSources.", dataSourceList1.list().size());
+			final DataSourceList dataSourceList2 = convertQueryParamsToDataSourceList(uriInfo.getQueryParameters().entrySet(), logger);
+			final DataSourceList dataSourceList3 = generateFormsFeederDataSourceList(correlationId);
+			invokePlugin(remainder, DataSourceList.from(dataSourceList1, dataSourceList2, dataSourceList3), logger, correlationId, acceptsDataSourceList(httpHeaders), asyncResponse);
+		} catch (DataSourceListCodecException e) {
+			String msg = "Error while decoding " + DataSourceListCodec.CONTENT_TYPE_STR + " body (" + e.getMessage() + ").";
+			logger.error(msg + ", Returning \"Bad Request\" status code.", e);
+			asyncResponse.resume(buildResponse(Response.status(Response.Status.BAD_REQUEST).entity(msg).type(MediaType.TEXT_PLAIN_TYPE), correlationId));
+		}
 	}
 
 	/**
@@ -151,13 +237,13 @@ public class ServicesEndpoint {
 	 * @param correlationIdHdr
 	 * @param uriInfo
 	 * @param in
-	 * @return
+	 * @param asyncResponse	resumed with the response once the plug-in has completed
 	 * @throws IOException
 	 */
 	@Path(PLUGIN_NAME_REMAINDER_PATH)
 	@Consumes(MediaType.WILDCARD)
 	@POST
-    public Response invokeWithBody(@PathParam("remainder") String remainder, @Context HttpHeaders httpHeaders, @HeaderParam(CorrelationId.CORRELATION_ID_HDR) final String correlationIdHdr, @Context UriInfo uriInfo, InputStream in) throws IOException {
+    public void invokeWithBody(@PathParam("remainder") String remainder, @Context HttpHeaders httpHeaders, @HeaderParam(CorrelationId.CORRELATION_ID_HDR) final String correlationIdHdr, @Context UriInfo uriInfo, InputStream in, @Suspended final AsyncResponse asyncResponse) throws IOException {
 		final String correlationId = CorrelationId.generate(correlationIdHdr);
 		final Logger logger = FfLoggerFactory.wrap(correlationId, baseLogger);
 		MediaType mediaType = httpHeaders.getMediaType();
@@ -172,59 +258,153 @@ public class ServicesEndpoint {
 		}
 		try {
 			final ContentDisposition contentDisposition = determineContentDisposition(httpHeaders);
-			final DataSourceList dataSourceList1 = DataSourceListJaxRsUtils.asDataSourceList(in, mediaType, contentDisposition, FORMSFEEDER_BODY_BYTES_DS_NAME, logger);
+			final DataSourceList dataSourceList1 = DataSourceListJaxRsUtils.asDataSourceList(in, mediaType, contentDisposition, FORMSFEEDER_BODY_BYTES_DS_NAME, multipartSettings.builder().payloadStore(payloadStore).offHeapArena(requestArena()), logger);
 			final DataSourceList dataSourceList2 = convertQueryParamsToDataSourceList(uriInfo.getQueryParameters().entrySet(), logger);
 			final DataSourceList dataSourceList3 = generateFormsFeederDataSourceList(correlationId);
-			return invokePlugin(remainder, DataSourceList.from(dataSourceList1, dataSourceList2, dataSourceList3), logger, correlationId);
+			invokePlugin(remainder, DataSourceList.from(dataSourceList1, dataSourceList2, dataSourceList3), logger, correlationId, acceptsDataSourceList(httpHeaders), asyncResponse);
 		} catch (ContentDispositionHeaderException e) {
 			// If we encounter Parse Errors while determining ContentDisposition, it must be a BadRequest.
 			logger.error(e.getMessage() + ", Returning \"Bad Request\" status code.", e);
-			return buildResponse(Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).type(MediaType.TEXT_PLAIN_TYPE), correlationId);
+			asyncResponse.resume(buildResponse(Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).type(MediaType.TEXT_PLAIN_TYPE), correlationId));
 		}
 	}
 
 	/**
-	 * Determines if there is a plug-in associated with an Url provided and, if so, then invokes that plug-in.  Also
-	 * captures any exceptions that a plugin throws and converts it to a response.
+	 * Determines if there is a plug-in associated with an Url provided and, if so, then invokes that plug-in on the
+	 * PluginExecutor.  The container's thread is released while the plug-in runs, the response is resumed once the
+	 * plug-in completes (or with "Service Unavailable" if it does not complete in time).
 	 * 
-	 * We're intentionally sparse in the information about exceptions that we return to the client for security reasons.
-	 * We just pass back the exception message.  Full details (and a stack trace) are written to the log.  That's where
-	 * someone should go in order to get a fuller picture of what the issue is.
+	 * The invocation goes through the plug-in's bulkhead, so it may wait for other invocations of the same plug-in to
+	 * complete.  If too many are already waiting, the client receives "Too Many Requests" straight away.
+	 * 
+	 * The request's resources (the inputs, the plug-in's outputs and the request's off-heap arena) are not closed until
+	 * the invocation has finished, even if the response was sent without waiting for it (for example, on a timeout).
 	 * 
 	 * @param remainder
 	 * @param dataSourceList
 	 * @param logger
-	 * @return
+	 * @param binaryResponse	true if the results should be returned as a binary encoded DataSourceList
+	 * @param asyncResponse		response to resume once the plug-in has completed
 	 */
-	private final Response invokePlugin(final String remainder, final DataSourceList dataSourceList, final Logger logger, final String correlationId) {
+	private final void invokePlugin(final String remainder, final DataSourceList dataSourceList, final Logger logger, final String correlationId, final boolean binaryResponse, final AsyncResponse asyncResponse) {
+		closeOnCompletion(dataSourceList);
 		Optional<FeedConsumer> optConsumer = feedConsumers.consumer(determineConsumerName(remainder));
 		if (optConsumer.isEmpty()) {
 			String msg = "Resource '" + API_V1_PATH + "/" + remainder + "' does not exist.";
 			logger.error(msg + " Returning \"Not Found\" status code.");
-			return buildResponse(Response.status(Response.Status.NOT_FOUND).entity(msg).type(MediaType.TEXT_PLAIN_TYPE), correlationId);
-		} else {
+			asyncResponse.resume(buildResponse(Response.status(Response.Status.NOT_FOUND).entity(msg).type(MediaType.TEXT_PLAIN_TYPE), correlationId));
+			return;
+		}
+		final FeedConsumer consumer = optConsumer.get();
+		final PluginBulkhead bulkhead = pluginBulkheads.forPlugin(consumer instanceof NamedFeedConsumer ? ((NamedFeedConsumer)consumer).name() : determineConsumerName(remainder));
+		final PluginOutputs outputs = new PluginOutputs();
+		RequestScopedResources.closeOnCompletion(requestContext, outputs);	// Registered here, the plug-in runs on another thread.
+		final AtomicReference<PluginBulkhead.Invocation> invocation = new AtomicReference<>();
+		final long timeoutMillis = pluginExecutor.timeoutMillis();
+		if (timeoutMillis > 0) {
+			asyncResponse.setTimeoutHandler((ar)->{
+				String msg = "Plugin processor did not complete within " + timeoutMillis + "ms.";
+				logger.error(msg + " Returning \"Service Unavailable\" status code.");
+				ar.resume(buildRetryLaterResponse(Response.Status.SERVICE_UNAVAILABLE, msg, correlationId));
+				PluginBulkhead.Invocation running = invocation.get();
+				if (running != null) {
+					running.cancel();
+				}
+			});
+			asyncResponse.setTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+		}
+		final Runnable task = ()->{
 			try {
-				return convertToResponse(invokeConsumer(dataSourceList, optConsumer.get(), logger), logger, correlationId);
-			} catch (FeedConsumerInternalErrorException e) {
-				String msg = String.format("Plugin processor experienced an Internal Server Error. (%s)", e.getMessage());
-				logger.error(msg + ", Returning \"Internal Server Error\" status code.",e);
-				return buildResponse(Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(msg).type(MediaType.TEXT_PLAIN_TYPE), correlationId);
-			} catch (FeedConsumerBadRequestException e) {
-				String msg = String.format("Plugin processor detected Bad Request. (%s)", e.getMessage());
-				logger.error(msg + ", Returning \"Bad Request\" status code.", e);
-				return buildResponse(Response.status(Response.Status.BAD_REQUEST).entity(msg).type(MediaType.TEXT_PLAIN_TYPE), correlationId);
-			} catch (FeedConsumerException e) {
-				String msg = String.format("Plugin processor error. (%s)", e.getMessage());
-				logger.error(msg + ", Returning \"Internal Server Error\" status code.", e);
-				return buildResponse(Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(msg).type(MediaType.TEXT_PLAIN_TYPE), correlationId);
-			} catch (Exception e) {
-				String msg = String.format("Error within Plugin processor. (%s)", e.getMessage());
-				logger.error(msg + ", Returning \"Internal Server Error\" status code.", e);
-				return buildResponse(Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(msg).type(MediaType.TEXT_PLAIN_TYPE), correlationId);
+				asyncResponse.resume(runPlugin(dataSourceList, consumer, logger, correlationId, binaryResponse, outputs));
+			} catch (RuntimeException e) {
+				asyncResponse.resume(e);
 			}
+		};
+		final Runnable releaseResources = RequestScopedResources.hold(requestContext);
+		invocation.set(bulkhead.submit(pluginExecutor, task, (e)->{
+			String msg = "Plugin processor is not accepting requests.";
+			logger.error(msg + " Returning \"Service Unavailable\" status code.", e);
+			asyncResponse.resume(buildRetryLaterResponse(Response.Status.SERVICE_UNAVAILABLE, msg, correlationId));
+		}, releaseResources));
+		if (invocation.get() == null) {
+			releaseResources.run();
+			String msg = "Plugin processor '" + bulkhead.name() + "' is handling too many requests (limit=" + bulkhead.limit() + ").";
+			logger.warn(msg + " Returning \"Too Many Requests\" status code.");
+			asyncResponse.resume(buildRetryLaterResponse(Response.Status.TOO_MANY_REQUESTS, msg, correlationId));
+		}
+	}
+
+	/**
+	 * Builds a response that asks the client to retry later (see PluginBulkheads.retryAfterSeconds()).
+	 * 
+	 * @param status
+	 * @param msg
+	 * @param correlationId
+	 * @return
+	 */
+	private final Response buildRetryLaterResponse(final Response.Status status, final String msg, final String correlationId) {
+		return buildResponse(Response.status(status).entity(msg).type(MediaType.TEXT_PLAIN_TYPE).header(HttpHeaders.RETRY_AFTER, pluginBulkheads.retryAfterSeconds()), correlationId);
+	}
+
+	/**
+	 * Invokes a plug-in and converts its outputs to a response.  Also captures any exceptions that a plugin throws and
+	 * converts it to a response.
+	 * 
+	 * We're intentionally sparse in the information about exceptions that we return to the client for security reasons.
+	 * We just pass back the exception message.  Full details (and a stack trace) are written to the log.  That's where
+	 * someone should go in order to get a fuller picture of what the issue is.
+	 * 
+	 * @param dataSourceList
+	 * @param consumer
+	 * @param logger
+	 * @param binaryResponse	true if the results should be returned as a binary encoded DataSourceList
+	 * @param pluginOutputs		receives the plug-in's outputs so that they are closed once the request completes
+	 * @return
+	 */
+	private static final Response runPlugin(final DataSourceList dataSourceList, final FeedConsumer consumer, final Logger logger, final String correlationId, final boolean binaryResponse, final PluginOutputs pluginOutputs) {
+		try {
+			DataSourceList outputs = invokeConsumer(dataSourceList, consumer, logger);
+			pluginOutputs.set(outputs);
+			return binaryResponse ? convertToBinaryResponse(outputs, logger, correlationId) : convertToResponse(outputs, logger, correlationId);
+		} catch (FeedConsumerInternalErrorException e) {
+			String msg = String.format("Plugin processor experienced an Internal Server Error. (%s)", e.getMessage());
+			logger.error(msg + ", Returning \"Internal Server Error\" status code.",e);
+			return buildResponse(Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(msg).type(MediaType.TEXT_PLAIN_TYPE), correlationId);
+		} catch (FeedConsumerBadRequestException e) {
+			String msg = String.format("Plugin processor detected Bad Request. (%s)", e.getMessage());
+			logger.error(msg + ", Returning \"Bad Request\" status code.", e);
+			return buildResponse(Response.status(Response.Status.BAD_REQUEST).entity(msg).type(MediaType.TEXT_PLAIN_TYPE), correlationId);
+		} catch (FeedConsumerException e) {
+			String msg = String.format("Plugin processor error. (%s)", e.getMessage());
+			logger.error(msg + ", Returning \"Internal Server Error\" status code.", e);
+			return buildResponse(Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(msg).type(MediaType.TEXT_PLAIN_TYPE), correlationId);
+		} catch (Exception e) {
+			String msg = String.format("Error within Plugin processor. (%s)", e.getMessage());
+			logger.error(msg + ", Returning \"Internal Server Error\" status code.", e);
+			return buildResponse(Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(msg).type(MediaType.TEXT_PLAIN_TYPE), correlationId);
 		}
 	}
 	
+	/**
+	 * Returns an arena for holding this request's DataSources off-heap, or null if off-heap DataSources are not enabled.
+	 * The arena is released once the response has been written and the plug-in has finished.
+	 * 
+	 * @return
+	 */
+	private final OffHeapArena requestArena() {
+		return offHeapArenas != null ? offHeapArenas.forRequest(requestContext) : null;
+	}
+
+	/**
+	 * Closes a DataSourceList (releasing any temporary files and pooled or off-heap memory behind its DataSources) once
+	 * the response has been written and the plug-in has finished, whether or not the request succeeded.
+	 * 
+	 * @param dataSourceList
+	 */
+	private final void closeOnCompletion(final DataSourceList dataSourceList) {
+		RequestScopedResources.closeOnCompletion(requestContext, dataSourceList);
+	}
+
 	/**
 	 * Converts the incoming Query Parameters into a DataSourceList so that they can be processed by a plug-in
 	 * 
@@ -244,13 +424,18 @@ public class ServicesEndpoint {
 	}
 
 	/**
-	 * For now, this is a nop, however it's here in case we want to map the paths to FeedConsumer names in the future.
+	 * Normalizes the path after API_V1_PATH into a FeedConsumer name.  FeedConsumers resolves the name, including
+	 * versioned names and paths below a consumer's name.
 	 * 
 	 * @param remainder
 	 * @return
 	 */
 	private static final String determineConsumerName(final String remainder) {
-		return remainder;
+		int end = remainder.length();
+		while (end > 1 && remainder.charAt(end - 1) == '/') {
+			end--;	// Ignore trailing slashes
+		}
+		return remainder.substring(0, end);
 	}
 
 	/**
@@ -292,6 +477,9 @@ public class ServicesEndpoint {
 	/**
 	 * Converts the DataSourceList returned by a plug-in to a Response that will get sent back to the caller
 	 * 
+	 * Multiple DataSources are returned as multipart/form-data, which is encoded as the response is written, so each
+	 * part is streamed straight to the client (and flushed) in turn.
+	 * 
 	 * @param outputs
 	 * @param logger
 	 * @return
@@ -306,15 +494,53 @@ public class ServicesEndpoint {
 			// One data source, so return the contents in the body of the response.
 			return buildResponse(DataSourceListJaxRsUtils.asResponseBuilder(outputs.list().get(0), logger), correlationId);
 		} else { // More than one return.
-			// Convert DataSourceList to MultipartFormData.
-	    	FormDataMultiPart responsesData = DataSourceListJaxRsUtils.asFormDataMultipart(outputs);
+			// Stream DataSourceList as MultipartFormData.
+			String boundary = MultipartFormDataEncoder.newBoundary();
+			MediaType responsesType = new MediaType("multipart", "form-data", Collections.singletonMap("boundary", boundary));
 	    	logger.debug("Returning multiple data sources.");
-			for (var bp : responsesData.getBodyParts()) {
-				logger.debug("Added {} -> {}", bp.getMediaType().toString(), bp.getContentDisposition());
+			for (var ds : dsList) {
+				logger.debug("Added {} -> name='{}', filename='{}'", ds.contentType().asString(), ds.name(), ds.filename().orElse(null));
+			}
+			logger.debug("Responses mediatype='{}'.", responsesType.toString());
+			StreamingOutput entity = (out)->MultipartFormDataEncoder.encode(outputs, boundary, out);
+			return buildResponse(Response.ok(entity, responsesType), correlationId);
+		}
+	}
+
+	/**
+	 * Converts the DataSourceList returned by a plug-in to a binary encoded DataSourceList response.  The DataSources
+	 * are encoded as the response is written, so they are streamed straight to the client.
+	 * 
+	 * @param outputs
+	 * @param logger
+	 * @return
+	 */
+	private static final Response convertToBinaryResponse(final DataSourceList outputs, final Logger logger, final String correlationId) {
+		Objects.requireNonNull(outputs, "Plugin returned null DataSourceList!");
+		if (outputs.isEmpty()) {
+			// Nothing in the response, so return no content.
+	    	logger.debug("Returning no data sources.");
+			return buildResponse(Response.noContent(), correlationId);
+		}
+		logger.debug("Returning {} data sources as '{}'.", outputs.list().size(), DataSourceListCodec.CONTENT_TYPE_STR);
+		StreamingOutput entity = (out)->DataSourceListEncoder.encode(outputs, out);
+		return buildResponse(Response.ok(entity, DATASOURCELIST_MEDIA_TYPE), correlationId);
+	}
+
+	/**
+	 * Determines whether the client has asked for a binary encoded DataSourceList response.  Only an explicit request
+	 * counts, wildcards do not.
+	 * 
+	 * @param httpHeaders
+	 * @return
+	 */
+	private static final boolean acceptsDataSourceList(final HttpHeaders httpHeaders) {
+		for (MediaType mediaType : httpHeaders.getAcceptableMediaTypes()) {
+			if (!mediaType.isWildcardType() && !mediaType.isWildcardSubtype() && mediaType.isCompatible(DATASOURCELIST_MEDIA_TYPE)) {
+				return true;
 			}
-			logger.debug("Responses mediatype='{}'.", responsesData.getMediaType().toString());
-			return buildResponse(Response.ok(responsesData, responsesData.getMediaType()), correlationId);
 		}
+		return false;
 	}
 
 	/**
@@ -335,12 +561,75 @@ public class ServicesEndpoint {
 	 * @param correlationId
 	 * @return
 	 */
+	/**
+	 * Decodes a body into the builder provided.  If the body turns out to be malformed or truncated, the DataSources
+	 * that were decoded before the error are closed, so that their temporary files (or PayloadStore references) are
+	 * released now rather than whenever they are garbage collected.
+	 * 
+	 * @param builder	builder to decode the body into
+	 * @param decoder	decodes the body into a builder
+	 * @return the decoded DataSourceList
+	 * @throws IOException
+	 */
+	private static final DataSourceList decodeBody(final Builder builder, final BodyDecoder decoder) throws IOException {
+		try {
+			return decoder.decode(builder);
+		} catch (IOException | RuntimeException e) {
+			try {
+				builder.build().close();
+			} catch (RuntimeException closeFailure) {
+				e.addSuppressed(closeFailure);
+			}
+			throw e;
+		}
+	}
+
+	@FunctionalInterface
+	private interface BodyDecoder {
+		DataSourceList decode(Builder builder) throws IOException;
+	}
+
 	private static final DataSourceList generateFormsFeederDataSourceList(final String correlationId) {
 		return DataSourceList.builder()
 				.add(FORMSFEEDER_CORRELATION_ID_DS_NAME, correlationId)
 				.build();
 	}
 	
+	/**
+	 * Holds the DataSourceList returned by a plug-in so that it can be closed once the request has completed.  If the
+	 * request has already completed (because the plug-in timed out), the outputs are closed as soon as they arrive.
+	 *
+	 */
+	private static final class PluginOutputs implements AutoCloseable {
+		private DataSourceList outputs = null;
+		private boolean closed = false;
+
+		private void set(DataSourceList outputs) {
+			synchronized (this) {
+				if (!closed) {
+					this.outputs = outputs;
+					return;
+				}
+			}
+			if (outputs != null) {
+				outputs.close();
+			}
+		}
+
+		@Override
+		public void close() {
+			DataSourceList toClose;
+			synchronized (this) {
+				closed = true;
+				toClose = outputs;
+				outputs = null;
+			}
+			if (toClose != null) {
+				toClose.close();
+			}
+		}
+	}
+
 	/**
 	 * Exceptions that occur while performing ContentDisposition processing. 
 	 *
@@ -1,11 +1,17 @@
 package com._4point.aem.formsfeeder.server.pf4j;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.PostConstruct;
 
+import org.pf4j.PluginState;
+import org.pf4j.PluginStateEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,6 +26,15 @@ import com._4point.aem.formsfeeder.pf4j.SpringPluginManager;
 import com._4point.aem.formsfeeder.pf4j.spring.ApplicationContextConsumer;
 import com._4point.aem.formsfeeder.pf4j.spring.EnvironmentConsumer;
 
+/**
+ * Locates the FeedConsumer extensions provided by plug-ins.
+ *
+ * The extensions are initialized once and indexed by name in an immutable PluginRoutes.  The routes are published
+ * through an AtomicReference, so requests look up consumers without locking, and are replaced as a whole if a
+ * plug-in is started or stopped.  Extensions that survive a refresh are live (and may be serving requests), so they
+ * are not initialized again, only extensions that are new to the plug-in manager are.
+ *
+ */
 @Component
 public class FeedConsumers {
 	private final Logger logger = LoggerFactory.getLogger(this.getClass());
@@ -33,32 +48,69 @@ public class FeedConsumers {
 	@Autowired
 	private ApplicationContext applicationContext;
 	
-	private List<NamedFeedConsumer> consumers = null;
+	private final AtomicReference<PluginRoutes> routes = new AtomicReference<>();
+	private Set<NamedFeedConsumer> initialized = Collections.emptySet();	// Extensions that have been initialized, guarded by this.
 	
 	/* package */ FeedConsumers() {
 		super();
 	}
 	
-	private void consumersInfo() {
-		logger.debug("Found {} extensions for extension point '{}'", consumers().size(), NamedFeedConsumer.class.getName());
-		for (NamedFeedConsumer consumer : consumers()) {
-				logger.info("Found FeedConsumer extension named '{}'.", consumer.name());
+	private void consumersInfo(PluginRoutes pluginRoutes) {
+		logger.debug("Found {} extensions for extension point '{}'", pluginRoutes.consumers().size(), NamedFeedConsumer.class.getName());
+		for (String name : pluginRoutes.consumers().keySet()) {
+				logger.info("Found FeedConsumer extension named '{}'.", name);
 		}
 	}
 	
-	private List<NamedFeedConsumer> consumers() {
-		if (this.consumers != null) {
-			return this.consumers;
-		} else {
-			return this.consumers = initializeExtensions();
+	private PluginRoutes routes() {
+		PluginRoutes current = routes.get();
+		if (current != null) {
+			return current;
+		}
+		synchronized (this) {	// Make sure that the extensions are only initialized once.
+			current = routes.get();
+			if (current == null) {
+				current = PluginRoutes.of(initializeExtensions());
+				routes.set(current);
+			}
+			return current;
+		}
+	}
+
+	/**
+	 * Re-reads the extensions from the plug-in manager and replaces the routes with routes to the new extensions.
+	 * Requests that are already running continue to use the extensions that they found.
+	 */
+	public synchronized void refresh() {
+		PluginRoutes newRoutes = PluginRoutes.of(initializeExtensions());
+		routes.set(newRoutes);
+		consumersInfo(newRoutes);
+	}
+
+	private void onPluginStateChanged(PluginStateEvent event) {
+		if (event.getPluginState() == PluginState.STARTED || event.getOldState() == PluginState.STARTED) {
+			logger.info("Plugin '{}' changed from {} to {}, refreshing FeedConsumer extensions.", event.getPlugin().getPluginId(), event.getOldState(), event.getPluginState());
+			refresh();
 		}
 	}
 
+	/**
+	 * Gets the extensions from the plug-in manager and initializes any that have not been initialized before.
+	 * 
+	 * Must be called while holding this object's lock.
+	 * 
+	 * @return all the extensions
+	 */
 	private List<NamedFeedConsumer> initializeExtensions() {
 		
 		List<NamedFeedConsumer> extensions = Objects.requireNonNull(springPluginManager, "SpringPluginManager has not been initialized!").getExtensions(NamedFeedConsumer.class);
+		Set<NamedFeedConsumer> nowInitialized = Collections.newSetFromMap(new IdentityHashMap<>());
 		// Populate extensions with Spring beans
 		for (NamedFeedConsumer extension:extensions) {
+			nowInitialized.add(extension);
+			if (initialized.contains(extension)) {
+				continue;	// Already live, so do not inject it again.
+			}
 			if (extension instanceof EnvironmentConsumer) {
 				EnvironmentConsumer envConsumer = (EnvironmentConsumer)extension;
 				logger.info("Initializing EnvironmentConsumer extension '{}'.", extension.name());
@@ -75,16 +127,19 @@ public class FeedConsumers {
 				pluginsConsumer.accept(extensions);
 			}
 		}
+		initialized = nowInitialized;	// Forget extensions that are gone, so that they are initialized if they come back.
 		return extensions;
 	}
 	
+	/**
+	 * Finds the FeedConsumer for a name.  Besides exact names, this resolves versioned names and paths that start with
+	 * a consumer's name (see PluginRoutes).
+	 * 
+	 * @param name	name (or path) of the consumer
+	 * @return the consumer or empty if there is no consumer by that name
+	 */
 	public Optional<FeedConsumer> consumer(String name) {
-		for (NamedFeedConsumer consumer : consumers()) {
-			if (Objects.requireNonNull(name, "name argument cannot be null.").equals(consumer.name())) {
-				return Optional.of(consumer);
-			}
-		}
-		return Optional.empty();
+		return routes().route(Objects.requireNonNull(name, "name argument cannot be null."));
 	}
 	
     /**
@@ -93,6 +148,7 @@ public class FeedConsumers {
     @PostConstruct
     public void init() {
     	logger.debug("PostConstruct of FeedConsumers, SpringPluginManager is " + (springPluginManager != null ? "not " : "") + "null.");
-    	consumersInfo();
+    	consumersInfo(routes());
+    	springPluginManager.addPluginStateListener(this::onPluginStateChanged);
     }
 }
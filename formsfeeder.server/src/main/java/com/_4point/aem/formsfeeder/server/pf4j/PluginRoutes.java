@@ -0,0 +1,108 @@
+package com._4point.aem.formsfeeder.server.pf4j;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com._4point.aem.formsfeeder.core.api.FeedConsumer;
+import com._4point.aem.formsfeeder.core.api.NamedFeedConsumer;
+
+/**
+ * Immutable index that maps request paths to FeedConsumers.
+ *
+ * A path is resolved by looking for (in order):
+ *   - a consumer whose name matches the path exactly,
+ *   - the latest version of a versioned consumer, if the path is the consumer's name without its version (for
+ *     example "Forms" resolves to "Forms/v2" when consumers named "Forms/v1" and "Forms/v2" exist),
+ *   - the consumer with the longest name that matches the start of the path up to a '/' (for example "Forms/v1/Pdf"
+ *     resolves to "Forms/v1").  An unversioned name is not used for a path that asks for a version that does not
+ *     exist, so "Forms/v3" does not resolve to "Forms/v2".
+ *
+ * Each step is a hash lookup, so the cost of resolving a path depends on the number of segments in the path rather
+ * than the number of consumers.
+ *
+ */
+/* package */ final class PluginRoutes {
+	private final static Logger logger = LoggerFactory.getLogger(PluginRoutes.class);
+
+	private static final Pattern VERSIONED_NAME = Pattern.compile("(.+)/v(\\d{1,9})");
+	private static final Pattern VERSION_SEGMENT = Pattern.compile("v\\d+");
+
+	private final Map<String, NamedFeedConsumer> byName;	// Name -> consumer
+	private final Map<String, NamedFeedConsumer> latest;	// Unversioned name -> latest version of the consumer
+
+	private PluginRoutes(Map<String, NamedFeedConsumer> byName, Map<String, NamedFeedConsumer> latest) {
+		this.byName = byName;
+		this.latest = latest;
+	}
+
+	/**
+	 * Builds the routes for a list of consumers.  If more than one consumer has the same name, the first one is used.
+	 *
+	 * @param consumers
+	 * @return routes to the consumers
+	 */
+	/* package */ static PluginRoutes of(List<? extends NamedFeedConsumer> consumers) {
+		Map<String, NamedFeedConsumer> byName = new HashMap<>();
+		for (NamedFeedConsumer consumer : consumers) {
+			String name = consumer.name();
+			if (name == null || name.isEmpty()) {
+				logger.warn("Ignoring FeedConsumer extension '{}' because it has no name.", consumer.getClass().getName());
+			} else if (byName.putIfAbsent(name, consumer) != null) {
+				logger.warn("Ignoring FeedConsumer extension '{}' because another extension is already named '{}'.", consumer.getClass().getName(), name);
+			}
+		}
+		Map<String, NamedFeedConsumer> latest = new HashMap<>();
+		Map<String, Integer> latestVersions = new HashMap<>();
+		for (Map.Entry<String, NamedFeedConsumer> entry : byName.entrySet()) {
+			Matcher matcher = VERSIONED_NAME.matcher(entry.getKey());
+			if (matcher.matches()) {
+				String baseName = matcher.group(1);
+				int version = Integer.parseInt(matcher.group(2));
+				Integer latestVersion = latestVersions.get(baseName);
+				if (latestVersion == null || version > latestVersion) {
+					latestVersions.put(baseName, version);
+					latest.put(baseName, entry.getValue());
+				}
+			}
+		}
+		return new PluginRoutes(Collections.unmodifiableMap(byName), Collections.unmodifiableMap(latest));
+	}
+
+	/**
+	 * Finds the consumer for a path.
+	 *
+	 * @param path	path (relative to the services path) to resolve
+	 * @return the consumer or empty if there is no consumer for the path
+	 */
+	/* package */ Optional<FeedConsumer> route(final String path) {
+		String candidate = path;
+		String nextSegment = null;	// Segment that followed the candidate in the path.
+		while (true) {
+			NamedFeedConsumer consumer = byName.get(candidate);
+			if (consumer == null && (nextSegment == null || !VERSION_SEGMENT.matcher(nextSegment).matches())) {
+				consumer = latest.get(candidate);
+			}
+			if (consumer != null) {
+				return Optional.of(consumer);
+			}
+			int slash = candidate.lastIndexOf('/');
+			if (slash <= 0) {
+				return Optional.empty();
+			}
+			nextSegment = candidate.substring(slash + 1);
+			candidate = candidate.substring(0, slash);
+		}
+	}
+
+	/* package */ Map<String, NamedFeedConsumer> consumers() {
+		return byName;
+	}
+}
@@ -0,0 +1,65 @@
+package com._4point.aem.formsfeeder.server.support;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrency limit that adjusts itself from the latency of completed invocations (additive increase, multiplicative
+ * decrease).
+ *
+ * While invocations complete within the target latency and all the permits are in use, the limit grows by one per
+ * invocation.  Whenever an invocation takes longer than the target latency (or is abandoned because it timed out),
+ * the limit is cut by the backoff ratio.  The limit never leaves the range minLimit..maxLimit.
+ *
+ */
+public class AimdLimit {
+	/* package */ static final double BACKOFF_RATIO = 0.9;
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final long targetLatencyNanos;
+
+	/**
+	 * Creates an adaptive limit.
+	 *
+	 * @param minLimit				lowest the limit can go, at least 1
+	 * @param maxLimit				highest the limit can go
+	 * @param targetLatencyMillis	invocations that take longer than this reduce the limit
+	 */
+	public AimdLimit(int minLimit, int maxLimit, long targetLatencyMillis) {
+		if (minLimit < 1 || maxLimit < minLimit) {
+			throw new IllegalArgumentException("Invalid adaptive concurrency limits (min=" + minLimit + ", max=" + maxLimit + ").");
+		}
+		if (targetLatencyMillis < 1) {
+			throw new IllegalArgumentException("Target latency must be at least 1ms (" + targetLatencyMillis + ").");
+		}
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+	}
+
+	/**
+	 * Calculates the new limit after an invocation has completed.
+	 *
+	 * @param limit			current limit
+	 * @param inFlight		number of invocations running, including the one that has just completed
+	 * @param latencyNanos	how long the invocation ran for
+	 * @param dropped		true if the invocation was abandoned (e.g. it timed out)
+	 * @return the new limit
+	 */
+	public int update(int limit, int inFlight, long latencyNanos, boolean dropped) {
+		if (dropped || latencyNanos > targetLatencyNanos) {
+			return Math.max(minLimit, (int)(limit * BACKOFF_RATIO));
+		} else if (inFlight >= limit) {
+			return Math.min(maxLimit, limit + 1);
+		}
+		return limit;
+	}
+
+	public int minLimit() {
+		return minLimit;
+	}
+
+	public int maxLimit() {
+		return maxLimit;
+	}
+}
@@ -2,29 +2,28 @@ package com._4point.aem.formsfeeder.server.support;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
 import java.nio.charset.Charset;
 import java.nio.file.Paths;
 import java.text.ParseException;
-import java.util.Date;
-import java.util.List;
 import java.util.Optional;
-import java.util.Map.Entry;
 
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.glassfish.jersey.media.multipart.ContentDisposition;
-import org.glassfish.jersey.media.multipart.FormDataBodyPart;
-import org.glassfish.jersey.media.multipart.FormDataContentDisposition;
-import org.glassfish.jersey.media.multipart.FormDataMultiPart;
 import org.slf4j.Logger;
 
+import com._4point.aem.formsfeeder.core.codec.MultipartFormDataDecoder;
+import com._4point.aem.formsfeeder.core.codec.MultipartFormDataDecoder.MultipartFormDataException;
 import com._4point.aem.formsfeeder.core.datasource.DataSource;
 import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
 import com._4point.aem.formsfeeder.core.datasource.MimeType;
 import com._4point.aem.formsfeeder.core.datasource.DataSourceList.Builder;
+import com._4point.aem.formsfeeder.core.support.LruCache;
 
 /**
  * This class provides support classes for translating formsfeeder.core object (i.e. DataSourceList and DataSources)
@@ -44,6 +43,12 @@ public class DataSourceListJaxRsUtils {
 	private static final String FORMSFEEDER_PREFIX = "formsfeeder:";
 
 
+	// Caches for converting between MediaType and MimeType.  These are bounded because content types can come from
+	// untrusted headers.  Once a cache is full, the least recently used conversions are evicted.
+	private static final int MAX_CONVERSION_CACHE_SIZE = 256;
+	private static final LruCache<MimeType, MediaType> MEDIA_TYPES = new LruCache<>(MAX_CONVERSION_CACHE_SIZE);
+	private static final LruCache<MediaType, MimeType> MIME_TYPES = new LruCache<>(MAX_CONVERSION_CACHE_SIZE);
+
 	// Attribute that is used for Content Disposition
 	private static final String FORMSFEEDER_CONTENT_DISPOSITION_ATTRIBUTE = FORMSFEEDER_PREFIX + "Content-Disposition"; 
 	
@@ -56,43 +61,29 @@ public class DataSourceListJaxRsUtils {
 	}
 
 	/**
-	 * Converts the incoming multipart/form-data into a DataSourceList so that they can be processed by a plug-in
+	 * Converts an incoming multipart/form-data body into a DataSourceList by streaming it straight from the
+	 * InputStream.  Unlike reading a FormDataMultiPart, the body is not buffered first, each part is added to the
+	 * builder (which determines whether it is held in memory, spooled to disk, etc.) as it arrives.
 	 * 
-	 * @param formData
+	 * @param in			the multipart/form-data body
+	 * @param multipartType	the Content-Type of the body, which contains the boundary
+	 * @param builder		builder to add the parts to
 	 * @return
-	 * @throws IOException 
+	 * @throws IOException	if the body cannot be read or is not valid multipart/form-data (MultipartFormDataException)
 	 */
-	public static final DataSourceList asDataSourceList(final FormDataMultiPart formData, final Logger logger) throws IOException {
-		Builder builder = DataSourceList.builder();
-		for (Entry<String, List<FormDataBodyPart>> entry : formData.getFields().entrySet()) {
-			String name = entry.getKey();
-			for(FormDataBodyPart part : entry.getValue()) {
-				if (part.isSimple()) {
-					logger.debug("Found simple Form Data Part '" + name + "' (" + part.getName() + ").");
-					builder.add(name, part.getValue());
-				} else {
-					logger.debug("Found complex Form Data Part '" + name + "' (" + part.getName() + ").");
-					ContentDisposition contentDisposition = part.getContentDisposition();
-					String fileName = contentDisposition.getFileName();
-					if (logger.isDebugEnabled()) {
-						Date creationDate = contentDisposition.getCreationDate();
-						Date modificationDate = contentDisposition.getModificationDate();
-						Date readDate = contentDisposition.getReadDate();
-						logger.debug("    Filename='" + fileName + "'.");
-						logger.debug("    CreationDate='" + (creationDate != null ? creationDate.toString() : "null") + "'.");
-						logger.debug("    ModificationDate='" + (modificationDate != null ? modificationDate : "null") + "'.");
-						logger.debug("    ReadDate='" + (readDate != null ? readDate : "null") + "'.");
-					}
-					// TODO: This is a naive implementation that just reads the whole InputStream into memory.  Should fix this.
-					if (fileName != null) {
-						builder.add(name, part.getEntityAs(InputStream.class).readAllBytes(), asMimeType(part.getMediaType()), Paths.get(fileName));
-					} else {
-						builder.add(name, part.getEntityAs(InputStream.class).readAllBytes(), asMimeType(part.getMediaType()));
-					}
-				}
+	public static final DataSourceList asDataSourceListFromMultipart(final InputStream in, final MediaType multipartType, final Builder builder, final Logger logger) throws IOException {
+		String boundary = multipartType.getParameters().get("boundary");
+		if (boundary == null) {
+			throw new MultipartFormDataException("No boundary found in Content-Type '" + multipartType.toString() + "'.");
+		}
+		DataSourceList dataSourceList = new MultipartFormDataDecoder(in, boundary).decode(builder);
+		if (logger.isDebugEnabled()) {
+			for (DataSource dataSource : dataSourceList.list()) {
+				logger.debug("Found Form Data Part '" + dataSource.name() + "' (" + dataSource.contentType().asString() + ")" + 
+							 dataSource.filename().map((f)->", Filename='" + f + "'.").orElse("."));
 			}
 		}
-		return builder.build();
+		return dataSourceList;
 	}
 	
 	/**
@@ -102,12 +93,14 @@ public class DataSourceListJaxRsUtils {
 	 * @return
 	 */
 	public static final MediaType asMediaType(final MimeType mimeType) {
-		Charset charset = mimeType.charset();
-		if (charset != null) {
-			return new MediaType(mimeType.type(), mimeType.subtype(), charset.name());
-		} else {
-			return new MediaType(mimeType.type(), mimeType.subtype());
+		MediaType cached = MEDIA_TYPES.get(mimeType);
+		if (cached != null) {
+			return cached;
 		}
+		Charset charset = mimeType.charset();
+		MediaType mediaType = charset != null ? new MediaType(mimeType.type(), mimeType.subtype(), charset.name())
+											  : new MediaType(mimeType.type(), mimeType.subtype());
+		return MEDIA_TYPES.putIfAbsent(mimeType, mediaType);
 	}
 	
 	/**
@@ -117,62 +110,32 @@ public class DataSourceListJaxRsUtils {
 	 * @return
 	 */
 	public static final MimeType asMimeType(final MediaType mediaType) {
-		return MimeType.of(mediaType.toString());
-	}
-
-	/**
-	 * Convert a DataSourceList to a FormDataMultipart object.
-	 * 
-	 * @param dataSourceList
-	 * @return FormDataMultipart
-	 */
-	public static FormDataMultiPart asFormDataMultipart(final DataSourceList dataSourceList) {
-		FormDataMultiPart responsesData = new FormDataMultiPart();
-		for(var dataSource : dataSourceList.list()) {
-			addFormDataPart(responsesData, dataSource);
+		MimeType cached = MIME_TYPES.get(mediaType);
+		if (cached != null) {
+			return cached;
 		}
-		return responsesData;
+		return MIME_TYPES.putIfAbsent(mediaType, MimeType.of(mediaType.toString()));
 	}
 
 	/**
-	 * Add FormDataPart to the FormDataMultiPart response based on the DataSource.
+	 * Converts an incoming body into a DataSourceList containing a single DataSource.
 	 * 
-	 * @param responsesData
-	 * @param dataSource
-	 * @return
-	 */
-	private static final FormDataMultiPart addFormDataPart(FormDataMultiPart responsesData, DataSource dataSource) {
-		Optional<java.nio.file.Path> optFilename = dataSource.filename();
-		if (optFilename.isPresent()) {
-			java.nio.file.Path filename = optFilename.get();
-			FormDataContentDisposition cd = FormDataContentDisposition.name(dataSource.name()).fileName(filename.getFileName().toString()).build();
-			responsesData.bodyPart(new FormDataBodyPart(cd, dataSource.inputStream(), asMediaType(dataSource.contentType())));
-		} else {
-			responsesData.field(dataSource.name(), dataSource.inputStream(), asMediaType(dataSource.contentType()));
-		}
-		return responsesData;
-	}
-
-	/**
-	 * This is a rather naive implementation.  It reads the incoming data into memory.
-	 * 
-	 * A better implementation would create a DataSource from the inputStream but that would require a little more
-	 * work, so I am postponing that until later.
-	 * 
-	 * TODO: Create a better implementation for this.
+	 * The builder determines how the body is held (e.g. in memory, spooled to disk, through a PayloadStore or in an
+	 * OffHeapArena), so that the memory used per request is bounded regardless of the size of the body.
 	 * 
 	 * @param in
 	 * @param contentType
+	 * @param builder		builder to add the body to
 	 * @return
 	 * @throws IOException
 	 */
-	public static final DataSourceList asDataSourceList(final InputStream in, final MediaType contentType, final ContentDisposition contentDisposition, final String dataSourceName, final Logger logger) throws IOException {
+	public static final DataSourceList asDataSourceList(final InputStream in, final MediaType contentType, final ContentDisposition contentDisposition, final String dataSourceName, final Builder builder, final Logger logger) throws IOException {
 		logger.debug("Found Body Parameter of type '" + contentType.toString() + "'.");
 		String filename = contentDisposition != null ? contentDisposition.getFileName() : null;
 		if (filename != null) {
-			return DataSourceList.builder().add(dataSourceName, in.readAllBytes(), asMimeType(contentType), Paths.get(filename)).build();
+			return builder.add(dataSourceName, in, asMimeType(contentType), Paths.get(filename)).build();
 		} else {
-			return DataSourceList.builder().add(dataSourceName, in.readAllBytes(), asMimeType(contentType)).build();
+			return builder.add(dataSourceName, in, asMimeType(contentType)).build();
 		}
 	}
 
@@ -189,7 +152,7 @@ public class DataSourceListJaxRsUtils {
 	public static final DataSourceList asDataSourceList(Response response, final String dataSourceName, final Logger logger) throws IOException, ParseException {
 		String headerString = response.getHeaderString(HttpHeaders.CONTENT_DISPOSITION);
 		var contentDisposition = headerString != null ? new ContentDisposition(headerString) : null;
-		return asDataSourceList((InputStream)response.getEntity(), response.getMediaType(), contentDisposition, dataSourceName, logger);
+		return asDataSourceList((InputStream)response.getEntity(), response.getMediaType(), contentDisposition, dataSourceName, DataSourceList.builder(), logger);
 	}
 
 	/**
@@ -203,7 +166,12 @@ public class DataSourceListJaxRsUtils {
 	public static ResponseBuilder asResponseBuilder(DataSource dataSource, final Logger logger) {
 		MediaType mediaType = asMediaType(dataSource.contentType());
 		logger.debug("Returning one data source. mediatype='{}'.", mediaType.toString());
-		ResponseBuilder responseBuilder = Response.ok(dataSource.inputStream(), mediaType);
+		// Let the DataSource write itself to the response so that it can use the most efficient transfer available.
+		StreamingOutput entity = (out)->dataSource.transferTo(Channels.newChannel(out));
+		ResponseBuilder responseBuilder = Response.ok(entity, mediaType);
+		
+		// If the length is known up front, set the Content-Length so that the response is not chunked.
+		dataSource.contentLength().ifPresent((l)->responseBuilder.header(HttpHeaders.CONTENT_LENGTH, l));
 		
 		// If a Content-Disposition attribute is present on the datasource, use it, otherwise default to "inline"
 		String contentDispositionType = Optional.ofNullable(dataSource.attributes().get(FORMSFEEDER_CONTENT_DISPOSITION_ATTRIBUTE)).orElse("inline");
@@ -0,0 +1,49 @@
+package com._4point.aem.formsfeeder.server.support;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com._4point.aem.formsfeeder.core.datasource.MimeType;
+
+/**
+ * Creates the MultipartSettings used to decode incoming bodies.
+ * 
+ * formsfeeder.server.multipart.memory-threshold is the largest part (in bytes) that is held in memory (default
+ * 1048576) and formsfeeder.server.multipart.temp-directory is where larger parts are written (defaults to the system
+ * temporary directory).  In-memory parts whose content type is in formsfeeder.server.multipart.compressed-content-types
+ * (a comma separated list, by default XML and XDP) are held compressed if they are larger than
+ * formsfeeder.server.multipart.compression-threshold (default -1, which disables compression).  If the payload store
+ * or off-heap DataSources are enabled, then they take precedence and these settings do not apply.
+ *
+ */
+@Configuration
+public class MultipartConfiguration {
+	private final static Logger logger = LoggerFactory.getLogger(MultipartConfiguration.class);
+
+	@Bean
+	public MultipartSettings multipartSettings(@Value("${formsfeeder.server.multipart.memory-threshold:1048576}") int memoryThreshold,
+											   @Value("${formsfeeder.server.multipart.temp-directory:}") String tempDirectory,
+											   @Value("${formsfeeder.server.multipart.compression-threshold:-1}") int compressionThreshold,
+											   @Value("${formsfeeder.server.multipart.compressed-content-types:application/xml,application/vnd.adobe.xdp+xml}") String compressedContentTypes) {
+		Path directory = tempDirectory.trim().isEmpty() ? null : Paths.get(tempDirectory.trim());
+		List<MimeType> contentTypes = Stream.of(compressedContentTypes.split(","))
+											.map(String::trim)
+											.filter((s)->!s.isEmpty())
+											.map(MimeType::of)
+											.collect(Collectors.toList());
+		logger.info("Multipart memoryThreshold={}, tempDirectory='{}'.", memoryThreshold, directory != null ? directory : "(system temporary directory)");
+		if (compressionThreshold >= 0) {
+			logger.info("Multipart compressionThreshold={}, compressedContentTypes={}.", compressionThreshold, contentTypes.stream().map(MimeType::asString).collect(Collectors.toList()));
+		}
+		return new MultipartSettings(memoryThreshold, directory, compressionThreshold, contentTypes);
+	}
+}
@@ -0,0 +1,77 @@
+package com._4point.aem.formsfeeder.server.support;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+import com._4point.aem.formsfeeder.core.datasource.MimeType;
+
+/**
+ * Settings used when incoming bodies (multipart/form-data parts, binary encoded DataSourceLists and single bodies)
+ * are decoded.
+ * 
+ * Parts that are no larger than the memory threshold are held in memory, larger parts are written to a temporary file
+ * in the temporary directory as they arrive.  In-memory parts of the compressed content types that are larger than
+ * the compression threshold are held in compressed form.
+ *
+ */
+public class MultipartSettings {
+	private final int memoryThreshold;
+	private final Path tempDirectory;
+	private final int compressionThreshold;		// Negative means compression is disabled.
+	private final List<MimeType> compressedContentTypes;
+
+	/**
+	 * @param memoryThreshold	largest part (in bytes) to hold in memory
+	 * @param tempDirectory		directory for the temporary files, or null to use the system temporary directory
+	 */
+	public MultipartSettings(int memoryThreshold, Path tempDirectory) {
+		this(memoryThreshold, tempDirectory, -1, Collections.emptyList());
+	}
+
+	/**
+	 * @param memoryThreshold			largest part (in bytes) to hold in memory
+	 * @param tempDirectory				directory for the temporary files, or null to use the system temporary directory
+	 * @param compressionThreshold		smallest part (in bytes) to compress, or a negative number to disable compression
+	 * @param compressedContentTypes	content types to compress
+	 */
+	public MultipartSettings(int memoryThreshold, Path tempDirectory, int compressionThreshold, List<MimeType> compressedContentTypes) {
+		if (memoryThreshold < 0) {
+			throw new IllegalArgumentException("Multipart memory threshold cannot be negative (" + memoryThreshold + ").");
+		}
+		this.memoryThreshold = memoryThreshold;
+		this.tempDirectory = tempDirectory;
+		this.compressionThreshold = compressionThreshold;
+		this.compressedContentTypes = Collections.unmodifiableList(compressedContentTypes);
+	}
+
+	/**
+	 * Creates a DataSourceList.Builder that applies these settings to the parts added to it.
+	 * 
+	 * @return new Builder
+	 */
+	public DataSourceList.Builder builder() {
+		DataSourceList.Builder builder = DataSourceList.builder().spoolThreshold(memoryThreshold).spoolDirectory(tempDirectory);
+		if (compressionThreshold >= 0 && !compressedContentTypes.isEmpty()) {
+			builder.compressAbove(compressionThreshold, compressedContentTypes.toArray(new MimeType[0]));
+		}
+		return builder;
+	}
+
+	public int memoryThreshold() {
+		return memoryThreshold;
+	}
+
+	public Path tempDirectory() {
+		return tempDirectory;
+	}
+
+	public int compressionThreshold() {
+		return compressionThreshold;
+	}
+
+	public List<MimeType> compressedContentTypes() {
+		return compressedContentTypes;
+	}
+}
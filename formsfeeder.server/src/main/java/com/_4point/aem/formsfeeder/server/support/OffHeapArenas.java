@@ -0,0 +1,37 @@
+package com._4point.aem.formsfeeder.server.support;
+
+import javax.ws.rs.container.ContainerRequestContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com._4point.aem.formsfeeder.core.datasource.OffHeapArena;
+
+/**
+ * Creates an OffHeapArena for each request and releases it once the request has completed.
+ *
+ * The arena is registered with RequestScopedResources, which closes it once the response has been written to the
+ * client (or the request has failed) and any plug-in still using it has finished, so the off-heap memory held by the
+ * request's DataSources is freed deterministically rather than whenever the garbage collector runs.
+ *
+ */
+public class OffHeapArenas {
+	private final static Logger logger = LoggerFactory.getLogger(OffHeapArenas.class);
+
+	/**
+	 * Creates a new arena that is released when the request has completed.
+	 *
+	 * @param requestContext	the current request
+	 * @return new arena
+	 */
+	public OffHeapArena forRequest(final ContainerRequestContext requestContext) {
+		OffHeapArena arena = new OffHeapArena();
+		RequestScopedResources.closeOnCompletion(requestContext, ()->release(arena));
+		return arena;
+	}
+
+	private static void release(final OffHeapArena arena) {
+		arena.close();
+		logger.debug("Released off-heap arena, {} bytes of off-heap memory still in use.", OffHeapArena.bytesInUse());
+	}
+}
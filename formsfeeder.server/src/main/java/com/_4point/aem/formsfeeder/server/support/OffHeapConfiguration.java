@@ -0,0 +1,74 @@
+package com._4point.aem.formsfeeder.server.support;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com._4point.aem.formsfeeder.core.datasource.OffHeapArena;
+
+/**
+ * Enables holding incoming parts in off-heap memory that is released when the request completes.
+ * 
+ * When enabled (formsfeeder.server.off-heap.enabled=true), incoming parts are held in direct ByteBuffers rather than
+ * in byte arrays (or spool files), which keeps large documents out of the Java heap.  If the payload store is also
+ * enabled, then it takes precedence.
+ * 
+ * The off-heap memory in use is published through JMX as com._4point.aem.formsfeeder:type=OffHeapMemory.
+ *
+ */
+@Configuration
+public class OffHeapConfiguration {
+	private final static Logger logger = LoggerFactory.getLogger(OffHeapConfiguration.class);
+
+	/* package */ static final String ENABLED_PROPERTY = "formsfeeder.server.off-heap.enabled";
+	/* package */ static final String MBEAN_NAME = "com._4point.aem.formsfeeder:type=OffHeapMemory";
+
+	@Bean
+	@ConditionalOnProperty(name = ENABLED_PROPERTY, havingValue = "true")
+	public OffHeapArenas offHeapArenas() {
+		logger.info("Off-heap DataSources enabled.");
+		registerMBean();
+		return new OffHeapArenas();
+	}
+
+	private static void registerMBean() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(MBEAN_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(new OffHeapMemory(), name);
+			}
+		} catch (JMException e) {
+			logger.warn("Unable to register off-heap memory MBean '" + MBEAN_NAME + "'.", e);
+		}
+	}
+
+	/**
+	 * JMX view of the off-heap memory held by OffHeapArenas.
+	 *
+	 */
+	public interface OffHeapMemoryMXBean {
+		long getBytesInUse();
+		long getBuffersInUse();
+	}
+
+	private static class OffHeapMemory implements OffHeapMemoryMXBean {
+		@Override
+		public long getBytesInUse() {
+			return OffHeapArena.bytesInUse();
+		}
+
+		@Override
+		public long getBuffersInUse() {
+			return OffHeapArena.buffersInUse();
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package com._4point.aem.formsfeeder.server.support;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com._4point.aem.formsfeeder.core.datasource.PayloadStore;
+
+/**
+ * Creates the PayloadStore that incoming parts are read through when the payload store is enabled.
+ * 
+ * When enabled (formsfeeder.server.payload-store.enabled=true), parts with identical contents (for example, the same
+ * template uploaded with every request) share a single copy across all in-flight requests.
+ *
+ */
+@Configuration
+public class PayloadStoreConfiguration {
+	private final static Logger logger = LoggerFactory.getLogger(PayloadStoreConfiguration.class);
+
+	/* package */ static final String ENABLED_PROPERTY = "formsfeeder.server.payload-store.enabled";
+
+	@Bean
+	@ConditionalOnProperty(name = ENABLED_PROPERTY, havingValue = "true")
+	public PayloadStore payloadStore(@Value("${formsfeeder.server.payload-store.spool-threshold:1048576}") int spoolThreshold, 
+									 @Value("${formsfeeder.server.payload-store.spool-directory:}") String spoolDirectory) {
+		Path directory = spoolDirectory.trim().isEmpty() ? null : Paths.get(spoolDirectory.trim());
+		logger.info("Payload store enabled, spoolThreshold={}, spoolDirectory='{}'.", spoolThreshold, directory != null ? directory : "(system temporary directory)");
+		return new PayloadStore(spoolThreshold, directory);
+	}
+}
@@ -0,0 +1,219 @@
+package com._4point.aem.formsfeeder.server.support;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Limits the number of invocations of a single plug-in that run at once, so that one slow plug-in cannot take every
+ * PluginExecutor thread while other plug-ins wait behind it.
+ *
+ * Invocations beyond the limit wait in a bounded queue and are submitted to the PluginExecutor, in the order that they
+ * arrived, as earlier invocations complete.  Nothing blocks while an invocation waits.  Once the queue is full,
+ * submit() returns null so that the caller can reject the request straight away.
+ *
+ * The limit is either fixed or (if an AimdLimit is provided) adjusted after each invocation based on its latency.
+ *
+ */
+public class PluginBulkhead {
+	private final String name;
+	private final int maxQueued;
+	private final AimdLimit adaptiveLimit;	// null if the limit is fixed
+	private final Deque<Invocation> queue = new ArrayDeque<>();
+	private int limit;
+	private int inFlight = 0;
+
+	/**
+	 * Creates a bulkhead.
+	 *
+	 * @param name				name of the plug-in
+	 * @param maxConcurrency	maximum number of invocations that run at once (the initial limit when adaptive)
+	 * @param maxQueued			maximum number of invocations that wait for a permit
+	 * @param adaptiveLimit		adjusts the limit from observed latency, or null for a fixed limit
+	 */
+	public PluginBulkhead(String name, int maxConcurrency, int maxQueued, AimdLimit adaptiveLimit) {
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("Maximum concurrency for plug-in '" + name + "' must be at least 1 (" + maxConcurrency + ").");
+		}
+		if (maxQueued < 0) {
+			throw new IllegalArgumentException("Maximum queue size for plug-in '" + name + "' cannot be negative (" + maxQueued + ").");
+		}
+		this.name = name;
+		this.maxQueued = maxQueued;
+		this.adaptiveLimit = adaptiveLimit;
+		this.limit = adaptiveLimit != null ? Math.max(adaptiveLimit.minLimit(), Math.min(adaptiveLimit.maxLimit(), maxConcurrency)) : maxConcurrency;
+	}
+
+	/**
+	 * Creates a bulkhead that never limits invocations.
+	 *
+	 * @param name	name of the plug-in
+	 * @return new bulkhead
+	 */
+	public static PluginBulkhead unlimited(String name) {
+		return new PluginBulkhead(name, Integer.MAX_VALUE, 0, null);
+	}
+
+	/**
+	 * Runs a task on the executor once there is a permit for it.
+	 *
+	 * @param executor		executor to run the task on
+	 * @param task			the plug-in invocation
+	 * @param onRejected	called (possibly on another thread) if the executor rejects the task
+	 * @param onComplete	called (possibly on another thread) once the task has finished running, or once it is
+	 * 						certain that it never will (because it was cancelled or rejected)
+	 * @return the invocation, or null if all the permits are in use and the queue is full (onComplete is not called)
+	 */
+	public Invocation submit(PluginExecutor executor, Runnable task, Consumer<RejectedExecutionException> onRejected, Runnable onComplete) {
+		Invocation invocation = new Invocation(executor, task, onRejected, onComplete);
+		synchronized (this) {
+			if (inFlight >= limit) {
+				if (queue.size() >= maxQueued) {
+					return null;
+				}
+				queue.add(invocation);
+				return invocation;
+			}
+			inFlight++;
+		}
+		invocation.start();
+		return invocation;
+	}
+
+	private void release(long latencyNanos, boolean dropped) {
+		List<Invocation> next = new ArrayList<>();
+		synchronized (this) {
+			if (adaptiveLimit != null) {
+				limit = adaptiveLimit.update(limit, inFlight, latencyNanos, dropped);
+			}
+			inFlight--;
+			while (inFlight < limit && !queue.isEmpty()) {
+				next.add(queue.poll());
+				inFlight++;
+			}
+		}
+		for (Invocation invocation : next) {
+			invocation.start();
+		}
+	}
+
+	private synchronized boolean dequeue(Invocation invocation) {
+		return queue.remove(invocation);
+	}
+
+	public String name() {
+		return name;
+	}
+
+	public synchronized int limit() {
+		return limit;
+	}
+
+	public synchronized int inFlight() {
+		return inFlight;
+	}
+
+	public synchronized int queued() {
+		return queue.size();
+	}
+
+	/**
+	 * A plug-in invocation that has been accepted by the bulkhead.  It is either waiting for a permit, running or
+	 * complete.
+	 *
+	 */
+	public class Invocation {
+		private final PluginExecutor executor;
+		private final Runnable task;
+		private final Consumer<RejectedExecutionException> onRejected;
+		private final Runnable onComplete;
+		private final AtomicBoolean started = new AtomicBoolean(false);		// Set by whichever of run() or cancel() gets there first.
+		private final AtomicBoolean released = new AtomicBoolean(false);
+		private final AtomicBoolean completed = new AtomicBoolean(false);
+		private volatile Future<?> future = null;
+		private volatile boolean cancelled = false;
+
+		private Invocation(PluginExecutor executor, Runnable task, Consumer<RejectedExecutionException> onRejected, Runnable onComplete) {
+			this.executor = executor;
+			this.task = task;
+			this.onRejected = onRejected;
+			this.onComplete = onComplete;
+		}
+
+		// Called once this invocation holds a permit.
+		private void start() {
+			try {
+				future = executor.submit(this::run);
+				if (cancelled) {
+					future.cancel(false);	// Cancelled while it was being submitted, it will not run.
+				}
+			} catch (RejectedExecutionException e) {
+				release(0, false);
+				try {
+					onRejected.accept(e);
+				} finally {
+					complete();
+				}
+			}
+		}
+
+		private void run() {
+			if (!started.compareAndSet(false, true)) {
+				return;		// Cancelled before it started, the permit has already been released.
+			}
+			long startNanos = System.nanoTime();
+			try {
+				task.run();
+			} finally {
+				long latencyNanos = System.nanoTime() - startNanos;
+				try {
+					complete();		// Before the permit is released, so the next invocation is not admitted until this one has cleaned up.
+				} finally {
+					release(latencyNanos, cancelled);
+				}
+			}
+		}
+
+		private void release(long latencyNanos, boolean dropped) {
+			if (released.compareAndSet(false, true)) {
+				PluginBulkhead.this.release(latencyNanos, dropped);
+			}
+		}
+
+		private void complete() {
+			if (completed.compareAndSet(false, true)) {
+				onComplete.run();
+			}
+		}
+
+		/**
+		 * Abandons this invocation.  If it is waiting, it is removed from the queue.  If it is running, it is
+		 * interrupted and its permit is released (and onComplete called) once it stops.
+		 */
+		public void cancel() {
+			cancelled = true;
+			if (dequeue(this)) {
+				complete();
+				return;
+			}
+			if (started.compareAndSet(false, true)) {
+				release(0, true);	// Holds a permit but has not started running, so it never will.
+				Future<?> submitted = future;
+				if (submitted != null) {
+					submitted.cancel(false);
+				}
+				complete();
+				return;
+			}
+			Future<?> running = future;
+			if (running != null) {
+				running.cancel(true);
+			}
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com._4point.aem.formsfeeder.server.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Creates the PluginBulkheads that limit how many invocations of each plug-in run at once.
+ *
+ * Individual plug-ins are configured with formsfeeder.plugins.&lt;name&gt;.maxConcurrency, .maxQueued, .adaptive,
+ * .minConcurrency and .targetLatency.  Plug-ins without their own settings use
+ * formsfeeder.server.plugin-bulkheads.max-concurrency (default 0, no limit), .max-queued (default 100), .adaptive
+ * (default false), .min-concurrency (default 1) and .target-latency (milliseconds, default 1000).  Requests that are
+ * rejected ask the client to retry after formsfeeder.server.plugin-bulkheads.retry-after seconds (default 1).
+ *
+ */
+@Configuration
+public class PluginBulkheadConfiguration {
+	private final static Logger logger = LoggerFactory.getLogger(PluginBulkheadConfiguration.class);
+
+	@Bean
+	public PluginBulkheads pluginBulkheads(Environment environment,
+										   @Value("${formsfeeder.server.plugin-bulkheads.max-concurrency:0}") int maxConcurrency,
+										   @Value("${formsfeeder.server.plugin-bulkheads.max-queued:100}") int maxQueued,
+										   @Value("${formsfeeder.server.plugin-bulkheads.adaptive:false}") boolean adaptive,
+										   @Value("${formsfeeder.server.plugin-bulkheads.min-concurrency:1}") int minConcurrency,
+										   @Value("${formsfeeder.server.plugin-bulkheads.target-latency:1000}") long targetLatencyMillis,
+										   @Value("${formsfeeder.server.plugin-bulkheads.retry-after:1}") long retryAfterSeconds) {
+		logger.info("Plug-in bulkhead defaults maxConcurrency={}, maxQueued={}, adaptive={}, minConcurrency={}, targetLatency={}ms, retryAfter={}s.", maxConcurrency, maxQueued, adaptive, minConcurrency, targetLatencyMillis, retryAfterSeconds);
+		return new PluginBulkheads(environment, new PluginBulkheads.Settings(maxConcurrency, maxQueued, adaptive, minConcurrency, targetLatencyMillis), retryAfterSeconds);
+	}
+}
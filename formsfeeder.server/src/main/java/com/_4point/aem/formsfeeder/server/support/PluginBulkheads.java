@@ -0,0 +1,136 @@
+package com._4point.aem.formsfeeder.server.support;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.PropertyResolver;
+
+/**
+ * Creates a PluginBulkhead for each plug-in the first time that the plug-in is invoked.
+ *
+ * Each plug-in's settings are read from formsfeeder.plugins.&lt;name&gt;.maxConcurrency, .maxQueued, .adaptive,
+ * .minConcurrency and .targetLatency.  Settings that are not provided for a plug-in come from the defaults that
+ * this was created with.  A maxConcurrency of 0 means that the plug-in is not limited.  Invalid per-plug-in settings
+ * are logged and replaced (by the default, or by the nearest valid value) rather than failing every invocation of
+ * the plug-in.
+ *
+ */
+public class PluginBulkheads {
+	private final static Logger logger = LoggerFactory.getLogger(PluginBulkheads.class);
+
+	private static final String PLUGIN_PROPERTY_PREFIX = "formsfeeder.plugins.";
+
+	private final PropertyResolver properties;
+	private final Settings defaults;
+	private final long retryAfterSeconds;
+	private final ConcurrentMap<String, PluginBulkhead> bulkheads = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates the bulkheads.
+	 *
+	 * @param properties		where the per-plug-in settings are read from
+	 * @param defaults			settings for plug-ins that do not have their own
+	 * @param retryAfterSeconds	how long clients are asked to wait before retrying a rejected request
+	 */
+	public PluginBulkheads(PropertyResolver properties, Settings defaults, long retryAfterSeconds) {
+		if (retryAfterSeconds < 0) {
+			throw new IllegalArgumentException("Retry-After cannot be negative (" + retryAfterSeconds + ").");
+		}
+		this.properties = properties;
+		this.defaults = defaults;
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	/**
+	 * Returns the bulkhead for a plug-in.
+	 *
+	 * @param name	name of the plug-in
+	 * @return the plug-in's bulkhead
+	 */
+	public PluginBulkhead forPlugin(String name) {
+		return bulkheads.computeIfAbsent(name, this::create);
+	}
+
+	/**
+	 * @return number of seconds that clients are asked to wait before retrying a rejected request
+	 */
+	public long retryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+
+	private PluginBulkhead create(String name) {
+		String prefix = PLUGIN_PROPERTY_PREFIX + name + ".";
+		int maxConcurrency = properties.getProperty(prefix + "maxConcurrency", Integer.class, defaults.maxConcurrency);
+		if (maxConcurrency < 0) {
+			logger.warn("Plug-in '{}' maxConcurrency cannot be negative ({}), using {}.", name, maxConcurrency, defaults.maxConcurrency);
+			maxConcurrency = defaults.maxConcurrency;
+		}
+		if (maxConcurrency == 0) {
+			return PluginBulkhead.unlimited(name);
+		}
+		int maxQueued = properties.getProperty(prefix + "maxQueued", Integer.class, defaults.maxQueued);
+		if (maxQueued < 0) {
+			logger.warn("Plug-in '{}' maxQueued cannot be negative ({}), using {}.", name, maxQueued, defaults.maxQueued);
+			maxQueued = defaults.maxQueued;
+		}
+		boolean adaptive = properties.getProperty(prefix + "adaptive", Boolean.class, defaults.adaptive);
+		AimdLimit adaptiveLimit = null;
+		if (adaptive) {
+			int minConcurrency = properties.getProperty(prefix + "minConcurrency", Integer.class, Math.min(defaults.minConcurrency, maxConcurrency));
+			if (minConcurrency < 1 || minConcurrency > maxConcurrency) {
+				int clamped = Math.max(1, Math.min(minConcurrency, maxConcurrency));
+				logger.warn("Plug-in '{}' minConcurrency must be between 1 and maxConcurrency ({}) but was {}, using {}.", name, maxConcurrency, minConcurrency, clamped);
+				minConcurrency = clamped;
+			}
+			long targetLatency = properties.getProperty(prefix + "targetLatency", Long.class, defaults.targetLatencyMillis);
+			if (targetLatency <= 0) {
+				logger.warn("Plug-in '{}' targetLatency must be greater than zero ({}), using {}.", name, targetLatency, defaults.targetLatencyMillis);
+				targetLatency = defaults.targetLatencyMillis;
+			}
+			adaptiveLimit = new AimdLimit(minConcurrency, maxConcurrency, targetLatency);
+		}
+		logger.info("Plug-in '{}' bulkhead maxConcurrency={}, maxQueued={}, adaptive={}.", name, maxConcurrency, maxQueued, adaptive);
+		return new PluginBulkhead(name, maxConcurrency, maxQueued, adaptiveLimit);
+	}
+
+	/**
+	 * Default bulkhead settings.
+	 *
+	 */
+	public static class Settings {
+		private final int maxConcurrency;
+		private final int maxQueued;
+		private final boolean adaptive;
+		private final int minConcurrency;
+		private final long targetLatencyMillis;
+
+		/**
+		 * @param maxConcurrency		maximum number of invocations of a plug-in that run at once, 0 for no limit
+		 * @param maxQueued				maximum number of invocations of a plug-in that wait for a permit
+		 * @param adaptive				true to adjust the limit from observed latency (see AimdLimit)
+		 * @param minConcurrency		lowest that an adaptive limit can go
+		 * @param targetLatencyMillis	invocations that take longer than this reduce an adaptive limit
+		 */
+		public Settings(int maxConcurrency, int maxQueued, boolean adaptive, int minConcurrency, long targetLatencyMillis) {
+			if (maxConcurrency < 0) {
+				throw new IllegalArgumentException("Maximum plug-in concurrency cannot be negative (" + maxConcurrency + ").");
+			}
+			if (maxQueued < 0) {
+				throw new IllegalArgumentException("Maximum queued plug-in invocations cannot be negative (" + maxQueued + ").");
+			}
+			if (minConcurrency < 1) {
+				throw new IllegalArgumentException("Minimum plug-in concurrency must be at least 1 (" + minConcurrency + ").");
+			}
+			if (targetLatencyMillis <= 0) {
+				throw new IllegalArgumentException("Plug-in target latency must be greater than zero (" + targetLatencyMillis + ").");
+			}
+			this.maxConcurrency = maxConcurrency;
+			this.maxQueued = maxQueued;
+			this.adaptive = adaptive;
+			this.minConcurrency = minConcurrency;
+			this.targetLatencyMillis = targetLatencyMillis;
+		}
+	}
+}
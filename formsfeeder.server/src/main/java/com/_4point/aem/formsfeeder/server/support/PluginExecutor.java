@@ -0,0 +1,127 @@
+package com._4point.aem.formsfeeder.server.support;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executor that plug-ins are invoked on, so that the servlet container's threads are not tied up while a plug-in runs.
+ * 
+ * Plug-ins run either on a bounded pool of platform threads or (on JDK 21 and later, if requested) on a new virtual
+ * thread per invocation.  When all the platform threads are busy, invocations wait in a bounded queue.  Once that is
+ * full, submit() throws a RejectedExecutionException and the client receives a "Service Unavailable" response.
+ * Virtual threads start each invocation straight away, so nothing is queued.  Invocations that take longer than the
+ * timeout are abandoned and the client receives a "Service Unavailable" response.
+ *
+ */
+public class PluginExecutor implements AutoCloseable {
+	private final static Logger logger = LoggerFactory.getLogger(PluginExecutor.class);
+
+	private static final String THREAD_NAME_PREFIX = "formsfeeder-plugin-";
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	private final ExecutorService executorService;
+	private final long timeoutMillis;
+
+	/**
+	 * Creates an executor.
+	 * 
+	 * @param maxThreads		maximum number of platform threads (ignored when virtual threads are used)
+	 * @param queueSize			maximum number of invocations that wait for a platform thread (ignored when virtual
+	 * 							threads are used)
+	 * @param virtualThreads	true to run each invocation on a virtual thread, if the JDK supports them
+	 * @param timeoutMillis		number of milliseconds a plug-in is allowed to run for, 0 for no limit
+	 */
+	public PluginExecutor(int maxThreads, int queueSize, boolean virtualThreads, long timeoutMillis) {
+		if (maxThreads < 1) {
+			throw new IllegalArgumentException("Maximum number of plug-in threads must be at least 1 (" + maxThreads + ").");
+		}
+		if (queueSize < 0) {
+			throw new IllegalArgumentException("Plug-in queue size cannot be negative (" + queueSize + ").");
+		}
+		if (timeoutMillis < 0) {
+			throw new IllegalArgumentException("Plug-in timeout cannot be negative (" + timeoutMillis + ").");
+		}
+		ExecutorService virtualThreadExecutor = virtualThreads ? newVirtualThreadPerTaskExecutor() : null;
+		this.executorService = virtualThreadExecutor != null ? virtualThreadExecutor : newPlatformThreadExecutor(maxThreads, queueSize);
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * Runs a plug-in invocation.
+	 * 
+	 * @param invocation
+	 * @return Future that can be used to cancel the invocation
+	 * @throws RejectedExecutionException if the queue is full or the executor has been closed
+	 */
+	public Future<?> submit(Runnable invocation) {
+		return executorService.submit(invocation);
+	}
+
+	/**
+	 * @return number of milliseconds a plug-in is allowed to run for, 0 for no limit
+	 */
+	public long timeoutMillis() {
+		return timeoutMillis;
+	}
+
+	/**
+	 * Stops accepting new invocations.  Invocations that are already running are allowed to complete.
+	 */
+	@Override
+	public void close() {
+		executorService.shutdown();
+	}
+
+	private static ExecutorService newPlatformThreadExecutor(int maxThreads, int queueSize) {
+		BlockingQueue<Runnable> queue = queueSize > 0 ? new ArrayBlockingQueue<>(queueSize) : new SynchronousQueue<>();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, queue, new PluginThreadFactory());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Creates a virtual thread per task executor (JDK 21+).  This is looked up reflectively, since the server is
+	 * compiled for earlier JDKs.
+	 * 
+	 * @return the executor or null if virtual threads are not available.
+	 */
+	private static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+			logger.warn("Virtual threads are not available in this JVM ({}), plug-ins will run on platform threads.", System.getProperty("java.version"));
+			return null;
+		}
+	}
+
+	/**
+	 * Creates daemon threads that use the class loader that was current when the executor was created (i.e. the
+	 * application's class loader) rather than whichever request happened to cause the thread to be created.
+	 *
+	 */
+	private static class PluginThreadFactory implements ThreadFactory {
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+		private final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, THREAD_NAME_PREFIX + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			thread.setContextClassLoader(contextClassLoader);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package com._4point.aem.formsfeeder.server.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates the PluginExecutor that plug-ins are invoked on.
+ * 
+ * formsfeeder.server.plugin-executor.max-threads limits the number of plug-ins that run at once (default 200),
+ * formsfeeder.server.plugin-executor.queue-size limits the number that wait for a thread before further requests
+ * receive a "Service Unavailable" response (default 1000), formsfeeder.server.plugin-executor.virtual-threads runs
+ * each plug-in on its own virtual thread instead (JDK 21+, default false) and
+ * formsfeeder.server.plugin-executor.timeout is the number of milliseconds a plug-in may run for before the client
+ * receives a "Service Unavailable" response (default 300000, 0 for no limit).
+ *
+ */
+@Configuration
+public class PluginExecutorConfiguration {
+	private final static Logger logger = LoggerFactory.getLogger(PluginExecutorConfiguration.class);
+
+	@Bean(destroyMethod = "close")
+	public PluginExecutor pluginExecutor(@Value("${formsfeeder.server.plugin-executor.max-threads:200}") int maxThreads,
+										 @Value("${formsfeeder.server.plugin-executor.queue-size:1000}") int queueSize,
+										 @Value("${formsfeeder.server.plugin-executor.virtual-threads:false}") boolean virtualThreads,
+										 @Value("${formsfeeder.server.plugin-executor.timeout:300000}") long timeoutMillis) {
+		logger.info("Plug-in executor maxThreads={}, queueSize={}, virtualThreads={}, timeout={}ms.", maxThreads, queueSize, virtualThreads, timeoutMillis);
+		return new PluginExecutor(maxThreads, queueSize, virtualThreads, timeoutMillis);
+	}
+}
@@ -0,0 +1,144 @@
+package com._4point.aem.formsfeeder.server.support;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.container.ContainerRequestContext;
+
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Closes resources (DataSourceLists, OffHeapArenas, etc.) that belong to a request once the request has completed.
+ *
+ * Resources are stored in a property of the request.  Releaser (a Jersey event listener) closes them once the
+ * response has been written to the client, or once the request has failed, so temporary files, pooled and off-heap
+ * memory are released deterministically rather than whenever the garbage collector runs.  Resources are closed in the
+ * reverse of the order in which they were registered.
+ *
+ * Work that is done on behalf of a request can outlive the response (for example, a plug-in that is still running
+ * when the request times out).  That work takes a hold() on the request's resources, and they are only closed once
+ * every hold has been released as well as the request having completed.
+ *
+ * The Releaser keeps its own reference to each request's resources because the request properties are backed by the
+ * servlet request's attributes, which the container may clear before the FINISHED event of an asynchronous request
+ * is delivered.
+ *
+ */
+public class RequestScopedResources {
+	private final static Logger logger = LoggerFactory.getLogger(RequestScopedResources.class);
+
+	private static final String RESOURCES_PROPERTY = RequestScopedResources.class.getName() + ".resources";
+
+	private RequestScopedResources() {
+	}
+
+	/**
+	 * Registers a resource to be closed once the request has completed.
+	 *
+	 * @param requestContext	the current request
+	 * @param resource			resource to close, null is ignored
+	 */
+	public static void closeOnCompletion(final ContainerRequestContext requestContext, final AutoCloseable resource) {
+		if (resource == null) {
+			return;
+		}
+		resources(requestContext).push(resource);
+	}
+
+	/**
+	 * Holds back the closing of the request's resources until the Runnable returned has been run, even if the request
+	 * completes first.
+	 *
+	 * @param requestContext	the current request
+	 * @return releases the hold, running it more than once has no further effect
+	 */
+	public static Runnable hold(final ContainerRequestContext requestContext) {
+		return resources(requestContext).hold();
+	}
+
+	private static Resources resources(final ContainerRequestContext requestContext) {
+		Resources resources = (Resources) requestContext.getProperty(RESOURCES_PROPERTY);
+		if (resources == null) {
+			resources = new Resources();
+			requestContext.setProperty(RESOURCES_PROPERTY, resources);
+		}
+		return resources;
+	}
+
+	/**
+	 * Closes the resources provided.  A failure to close one resource is logged and does not prevent the others from
+	 * being closed.
+	 *
+	 * @param resources
+	 */
+	/* package */ static void closeAll(final Deque<AutoCloseable> resources) {
+		AutoCloseable resource;
+		while ((resource = resources.poll()) != null) {
+			try {
+				resource.close();
+			} catch (Exception e) {
+				logger.warn("Error while closing request resource ({}).", resource, e);
+			}
+		}
+	}
+
+	/**
+	 * The resources that belong to one request.  The request itself holds them until it has finished.
+	 *
+	 */
+	private static class Resources {
+		private final Deque<AutoCloseable> resources = new ArrayDeque<>();
+		private final AtomicInteger holds = new AtomicInteger(1);
+
+		private synchronized void push(final AutoCloseable resource) {
+			resources.push(resource);
+		}
+
+		private Runnable hold() {
+			holds.incrementAndGet();
+			final AtomicBoolean released = new AtomicBoolean(false);
+			return ()->{
+				if (released.compareAndSet(false, true)) {
+					release();
+				}
+			};
+		}
+
+		private void release() {
+			if (holds.decrementAndGet() == 0) {
+				synchronized (this) {
+					closeAll(resources);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Jersey listener that closes each request's resources once the request has finished (and any holds on them have
+	 * been released).
+	 *
+	 */
+	public static class Releaser implements ApplicationEventListener {
+		@Override
+		public void onEvent(ApplicationEvent event) {
+		}
+
+		@Override
+		public RequestEventListener onRequest(RequestEvent requestEvent) {
+			final Resources resources = new Resources();
+			requestEvent.getContainerRequest().setProperty(RESOURCES_PROPERTY, resources);
+			return (event)->{
+				if (event.getType() == RequestEvent.Type.FINISHED) {
+					resources.release();
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package com._4point.aem.formsfeeder.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import com._4point.aem.formsfeeder.core.api.FeedConsumer;
+import com._4point.aem.formsfeeder.core.api.FeedConsumer.FeedConsumerInternalErrorException;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+import com._4point.aem.formsfeeder.core.datasource.OffHeapArena;
+import com._4point.aem.formsfeeder.server.pf4j.FeedConsumers;
+import com._4point.aem.formsfeeder.server.support.CorrelationId;
+
+/**
+ * Tests that plug-ins run off the container's threads and that plug-ins which run too long are timed out.
+ * 
+ * The container only has one worker thread, so a slow plug-in would block every other request if it ran on it.
+ *
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, classes = Application.class,
+				properties = {"server.tomcat.max-threads=1", "formsfeeder.server.plugin-executor.timeout=2000",
+							  "formsfeeder.server.off-heap.enabled=true"})
+class ServicesEndpointAsyncTest {
+
+	private static final String SLOW_PLUGIN_PATH = "/api/v1/Slow";
+	private static final String FAST_PLUGIN_PATH = "/api/v1/Fast";
+	private static final String STUBBORN_PLUGIN_PATH = "/api/v1/Stubborn";
+	private static final String BODY_DS_NAME = "formsfeeder:BodyBytes";
+	private static final String FAST_RESULT = "Fast Result";
+
+	@LocalServerPort
+	private int port;
+
+	@MockBean
+	private FeedConsumers feedConsumers;
+
+	private URI uri;
+	private final CountDownLatch slowPluginStarted = new CountDownLatch(1);
+	private final CountDownLatch slowPluginRelease = new CountDownLatch(1);
+	private final CountDownLatch stubbornPluginDone = new CountDownLatch(1);
+	private final AtomicReference<String> stubbornPluginInput = new AtomicReference<>();
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		uri = new URI("http://localhost:" + port);
+		FeedConsumer slowPlugin = (inputs)->{
+			slowPluginStarted.countDown();
+			try {
+				slowPluginRelease.await(30, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				throw new FeedConsumerInternalErrorException("Slow plugin was interrupted.");
+			}
+			return DataSourceList.builder().add("Result", "Slow Result").build();
+		};
+		FeedConsumer fastPlugin = (inputs)->DataSourceList.builder().add("Result", FAST_RESULT).build();
+		// Ignores being interrupted and reads its inputs once the request has timed out.
+		FeedConsumer stubbornPlugin = (inputs)->{
+			try {
+				awaitUninterruptibly(slowPluginRelease);
+				stubbornPluginInput.set(inputs.deconstructor().getStringByName(BODY_DS_NAME).orElse(null));
+			} finally {
+				stubbornPluginDone.countDown();
+			}
+			return DataSourceList.builder().add("Result", "Stubborn Result").build();
+		};
+		when(feedConsumers.consumer("Slow")).thenReturn(Optional.of(slowPlugin));
+		when(feedConsumers.consumer("Fast")).thenReturn(Optional.of(fastPlugin));
+		when(feedConsumers.consumer("Stubborn")).thenReturn(Optional.of(stubbornPlugin));
+	}
+
+	@AfterEach
+	public void tearDown() {
+		slowPluginRelease.countDown();
+	}
+
+	@Test
+	void testSlowPluginDoesNotBlockOtherRequests() throws Exception {
+		Future<Response> slowResponse = ClientBuilder.newClient().target(uri).path(SLOW_PLUGIN_PATH).request().async().get();
+		assertTrue(slowPluginStarted.await(10, TimeUnit.SECONDS), "Expected slow plugin to have been invoked.");
+
+		Response fastResponse = ClientBuilder.newClient().target(uri).path(FAST_PLUGIN_PATH).request().get();
+		assertEquals(Response.Status.OK.getStatusCode(), fastResponse.getStatus());
+		assertEquals(FAST_RESULT, fastResponse.readEntity(String.class));
+		assertFalse(slowResponse.isDone(), "Expected slow request to still be running.");
+
+		slowPluginRelease.countDown();
+		assertEquals(Response.Status.OK.getStatusCode(), slowResponse.get(10, TimeUnit.SECONDS).getStatus());
+	}
+
+	@Test
+	void testTimeout() throws Exception {
+		Response response = ClientBuilder.newClient().target(uri).path(SLOW_PLUGIN_PATH).request().get();
+
+		assertEquals(Response.Status.SERVICE_UNAVAILABLE.getStatusCode(), response.getStatus());
+		assertNotNull(response.getHeaderString(CorrelationId.CORRELATION_ID_HDR));
+		assertNotNull(response.getHeaderString(HttpHeaders.RETRY_AFTER), "Expected the client to be told when to retry.");
+		String responseBody = response.readEntity(String.class);
+		assertTrue(responseBody.contains("2000ms"), "Expected response body to contain the timeout, but was '" + responseBody + "'.");
+	}
+
+	@Test
+	void testInputsOutliveTimeout() throws Exception {
+		long bytesBefore = OffHeapArena.bytesInUse();
+		String expectedBodyText = "This body is held off-heap.";
+		Response response = ClientBuilder.newClient().target(uri).path(STUBBORN_PLUGIN_PATH).request().post(Entity.entity(expectedBodyText, MediaType.TEXT_PLAIN_TYPE));
+		assertEquals(Response.Status.SERVICE_UNAVAILABLE.getStatusCode(), response.getStatus());
+		response.close();
+		assertTrue(OffHeapArena.bytesInUse() > bytesBefore, "Expected the inputs to be held while the plug-in is still running.");
+
+		slowPluginRelease.countDown();
+		assertTrue(stubbornPluginDone.await(10, TimeUnit.SECONDS), "Expected the plug-in to have finished.");
+		assertEquals(expectedBodyText, stubbornPluginInput.get(), "Expected the plug-in to be able to read its inputs after the timeout.");
+		for (int i = 0; i < 100 && OffHeapArena.bytesInUse() != bytesBefore; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(bytesBefore, OffHeapArena.bytesInUse(), "Expected the inputs to be released once the plug-in finished.");
+	}
+
+	@Test
+	void testPluginNotFound() throws Exception {
+		Response response = ClientBuilder.newClient().target(uri).path("/api/v1/NotAPlugin").request().get();
+		assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
+	}
+
+	private static void awaitUninterruptibly(CountDownLatch latch) {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					latch.await(30, TimeUnit.SECONDS);
+					return;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
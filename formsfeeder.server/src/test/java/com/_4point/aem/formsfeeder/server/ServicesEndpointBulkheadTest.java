@@ -0,0 +1,119 @@
+package com._4point.aem.formsfeeder.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import com._4point.aem.formsfeeder.core.api.FeedConsumer;
+import com._4point.aem.formsfeeder.core.api.FeedConsumer.FeedConsumerInternalErrorException;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+import com._4point.aem.formsfeeder.server.pf4j.FeedConsumers;
+import com._4point.aem.formsfeeder.server.support.CorrelationId;
+import com._4point.aem.formsfeeder.server.support.PluginBulkhead;
+import com._4point.aem.formsfeeder.server.support.PluginBulkheads;
+
+/**
+ * Tests that a plug-in that has used up its bulkhead (formsfeeder.plugins.&lt;name&gt;.maxConcurrency and .maxQueued)
+ * gets fast "Too Many Requests" responses while other plug-ins carry on as normal.
+ *
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, classes = Application.class,
+				properties = {"formsfeeder.plugins.Slow.maxConcurrency=1",
+							  "formsfeeder.plugins.Slow.maxQueued=1",
+							  "formsfeeder.server.plugin-bulkheads.retry-after=5"})
+class ServicesEndpointBulkheadTest {
+
+	private static final String SLOW_PLUGIN_PATH = "/api/v1/Slow";
+	private static final String FAST_PLUGIN_PATH = "/api/v1/Fast";
+
+	@LocalServerPort
+	private int port;
+
+	@MockBean
+	private FeedConsumers feedConsumers;
+
+	@Autowired
+	private PluginBulkheads pluginBulkheads;
+
+	private URI uri;
+	private final CountDownLatch slowPluginStarted = new CountDownLatch(1);
+	private final CountDownLatch slowPluginRelease = new CountDownLatch(1);
+	private final AtomicInteger slowPluginRunning = new AtomicInteger();
+	private final AtomicInteger slowPluginMaxRunning = new AtomicInteger();
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		uri = new URI("http://localhost:" + port);
+		FeedConsumer slowPlugin = (inputs)->{
+			slowPluginMaxRunning.accumulateAndGet(slowPluginRunning.incrementAndGet(), Math::max);
+			slowPluginStarted.countDown();
+			try {
+				slowPluginRelease.await(30, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				throw new FeedConsumerInternalErrorException("Slow plugin was interrupted.");
+			} finally {
+				slowPluginRunning.decrementAndGet();
+			}
+			return DataSourceList.builder().add("Result", "Slow Result").build();
+		};
+		FeedConsumer fastPlugin = (inputs)->DataSourceList.builder().add("Result", "Fast Result").build();
+		when(feedConsumers.consumer("Slow")).thenReturn(Optional.of(slowPlugin));
+		when(feedConsumers.consumer("Fast")).thenReturn(Optional.of(fastPlugin));
+	}
+
+	@AfterEach
+	public void tearDown() {
+		slowPluginRelease.countDown();
+	}
+
+	@Test
+	void testOverloadedPluginIsRejected() throws Exception {
+		Future<Response> running = ClientBuilder.newClient().target(uri).path(SLOW_PLUGIN_PATH).request().async().get();
+		assertTrue(slowPluginStarted.await(10, TimeUnit.SECONDS), "Expected slow plugin to have been invoked.");
+		Future<Response> queued = ClientBuilder.newClient().target(uri).path(SLOW_PLUGIN_PATH).request().async().get();
+		waitForQueuedRequest();
+		Response rejected = ClientBuilder.newClient().target(uri).path(SLOW_PLUGIN_PATH).request().get();
+
+		assertEquals(Response.Status.TOO_MANY_REQUESTS.getStatusCode(), rejected.getStatus());
+		assertEquals("5", rejected.getHeaderString(HttpHeaders.RETRY_AFTER));
+		assertNotNull(rejected.getHeaderString(CorrelationId.CORRELATION_ID_HDR));
+
+		Response fastResponse = ClientBuilder.newClient().target(uri).path(FAST_PLUGIN_PATH).request().get();
+		assertEquals(Response.Status.OK.getStatusCode(), fastResponse.getStatus(), "Expected other plug-ins not to be affected.");
+
+		slowPluginRelease.countDown();
+		assertEquals(Response.Status.OK.getStatusCode(), running.get(10, TimeUnit.SECONDS).getStatus());
+		assertEquals(Response.Status.OK.getStatusCode(), queued.get(10, TimeUnit.SECONDS).getStatus());
+		assertEquals(1, slowPluginMaxRunning.get(), "Expected only one invocation of the slow plug-in to run at a time.");
+	}
+
+	// The second request is sent asynchronously, so wait for it to reach the bulkhead.
+	private void waitForQueuedRequest() throws InterruptedException {
+		PluginBulkhead bulkhead = pluginBulkheads.forPlugin("Slow");
+		for (int i = 0; i < 100 && bulkhead.queued() == 0; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(1, bulkhead.queued(), "Expected the second request to be waiting.");
+	}
+}
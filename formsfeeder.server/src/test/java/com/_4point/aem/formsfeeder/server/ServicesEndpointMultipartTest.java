@@ -0,0 +1,226 @@
+package com._4point.aem.formsfeeder.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.glassfish.jersey.media.multipart.FormDataBodyPart;
+import org.glassfish.jersey.media.multipart.FormDataContentDisposition;
+import org.glassfish.jersey.media.multipart.FormDataMultiPart;
+import org.glassfish.jersey.media.multipart.MultiPartFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import com._4point.aem.formsfeeder.core.api.FeedConsumer;
+import com._4point.aem.formsfeeder.core.datasource.DataSource;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList.Deconstructor;
+import com._4point.aem.formsfeeder.server.pf4j.FeedConsumers;
+
+/**
+ * Tests that multipart/form-data parts larger than formsfeeder.server.multipart.memory-threshold are written to
+ * formsfeeder.server.multipart.temp-directory while the plug-in runs and are deleted once the request has completed,
+ * and that smaller XML parts are held compressed once formsfeeder.server.multipart.compression-threshold is set.
+ *
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, classes = Application.class,
+				properties = {"formsfeeder.server.multipart.memory-threshold=1024",
+							  "formsfeeder.server.multipart.temp-directory=" + ServicesEndpointMultipartTest.TEMP_DIRECTORY,
+							  "formsfeeder.server.multipart.compression-threshold=64"})
+class ServicesEndpointMultipartTest {
+
+	/* package */ static final String TEMP_DIRECTORY = "target/multipart-temp";
+	private static final String SPOOL_PLUGIN_PATH = "/api/v1/Spool";
+	private static final String ECHO_PLUGIN_PATH = "/api/v1/Echo";
+	private static final String COMPRESS_PLUGIN_PATH = "/api/v1/Compress";
+	private static final String BODY_DS_NAME = "formsfeeder:BodyBytes";
+
+	@LocalServerPort
+	private int port;
+
+	@MockBean
+	private FeedConsumers feedConsumers;
+
+	private URI uri;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		uri = new URI("http://localhost:" + port);
+		Files.createDirectories(Paths.get(TEMP_DIRECTORY));
+		// Reports how many temporary files exist while it runs and echoes back the large part.
+		FeedConsumer spoolPlugin = (inputs)->{
+			Deconstructor deconstructor = inputs.deconstructor();
+			try {
+				return DataSourceList.builder()
+						.add("TempFiles", countTempFiles())
+						.add("Small", deconstructor.getStringByName("Small").get())
+						.add("Large", deconstructor.getByteArrayByName("Large").get())
+						.build();
+			} catch (IOException e) {
+				throw new FeedConsumer.FeedConsumerInternalErrorException(e);
+			}
+		};
+		when(feedConsumers.consumer("Spool")).thenReturn(Optional.of(spoolPlugin));
+		when(feedConsumers.consumer("Echo")).thenReturn(Optional.of((inputs)->inputs));
+		// Reports how the XML input is held and echoes it back.
+		FeedConsumer compressPlugin = (inputs)->{
+			DataSource xml = inputs.getDataSourceByName("Xml").orElseGet(()->inputs.getDataSourceByName(BODY_DS_NAME).get());
+			return DataSourceList.builder()
+					.add("Type", xml.getClass().getSimpleName())
+					.add("Xml", inputs.deconstructor().getByteArrayByName(xml.name()).get())
+					.build();
+		};
+		when(feedConsumers.consumer("Compress")).thenReturn(Optional.of(compressPlugin));
+	}
+
+	@Test
+	void testLargePartIsWrittenToTempDirectory() throws Exception {
+		long tempFilesBefore = countTempFiles();
+		byte[] largeBytes = new byte[16 * 1024];
+		new Random(42).nextBytes(largeBytes);
+		FormDataMultiPart formData = new FormDataMultiPart();
+		formData.field("Small", "Small Value");
+		formData.field("Large", largeBytes, MediaType.APPLICATION_OCTET_STREAM_TYPE);
+
+		Response response = ClientBuilder.newClient()
+				 .register(MultiPartFeature.class)
+				 .target(uri)
+				 .path(SPOOL_PLUGIN_PATH)
+				 .request()
+				 .post(Entity.entity(formData, formData.getMediaType()));
+
+		assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+		FormDataMultiPart responseData = response.readEntity(FormDataMultiPart.class);
+		assertEquals(tempFilesBefore + 1, Long.parseLong(responseData.getField("TempFiles").getValue()), "Expected the large part to be in the temporary directory while the plug-in ran.");
+		assertEquals("Small Value", responseData.getField("Small").getValue());
+		assertArrayEquals(largeBytes, responseData.getField("Large").getEntityAs(byte[].class));
+		assertTempFilesDeleted(tempFilesBefore);
+	}
+
+	@Test
+	void testTempFilesAreStreamedBack() throws Exception {
+		long tempFilesBefore = countTempFiles();
+		byte[] largeBytes = new byte[256 * 1024];
+		new Random(42).nextBytes(largeBytes);
+		FormDataMultiPart formData = new FormDataMultiPart();
+		formData.field("Small", "Small Value");
+		formData.bodyPart(new FormDataBodyPart(FormDataContentDisposition.name("Large").fileName("large.pdf").build(), largeBytes, new MediaType("application", "pdf")));
+
+		Response response = ClientBuilder.newClient()
+				 .register(MultiPartFeature.class)
+				 .target(uri)
+				 .path(ECHO_PLUGIN_PATH)
+				 .request()
+				 .post(Entity.entity(formData, formData.getMediaType()));
+
+		assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+		assertNotNull(response.getMediaType().getParameters().get("boundary"), "Expected the response to have a boundary.");
+		FormDataMultiPart responseData = response.readEntity(FormDataMultiPart.class);
+		FormDataBodyPart large = responseData.getField("Large");
+		assertEquals("Small Value", responseData.getField("Small").getValue());
+		assertEquals("large.pdf", large.getContentDisposition().getFileName());
+		assertTrue(new MediaType("application", "pdf").isCompatible(large.getMediaType()), "Unexpected media type (" + large.getMediaType() + ").");
+		assertArrayEquals(largeBytes, large.getEntityAs(byte[].class));
+		assertTempFilesDeleted(tempFilesBefore);
+	}
+
+	@Test
+	void testTruncatedBodyDeletesTempFiles() throws Exception {
+		long tempFilesBefore = countTempFiles();
+		String largePart = Stream.generate(()->"Large Part Data ").limit(1024).collect(Collectors.joining());
+		String body = "--Boundary\r\n"
+					+ "Content-Disposition: form-data; name=\"Large1\"\r\n"
+					+ "Content-Type: application/octet-stream\r\n\r\n"
+					+ largePart + "\r\n"
+					+ "--Boundary\r\n"
+					+ "Content-Disposition: form-data; name=\"Large2\"\r\n"
+					+ "Content-Type: application/octet-stream\r\n\r\n"
+					+ largePart;	// No closing boundary.
+
+		Response response = ClientBuilder.newClient()
+				 .target(uri)
+				 .path(ECHO_PLUGIN_PATH)
+				 .request()
+				 .post(Entity.entity(body.getBytes(StandardCharsets.US_ASCII), MediaType.valueOf("multipart/form-data; boundary=Boundary")));
+
+		assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+		assertEquals(tempFilesBefore, countTempFiles(), "Expected the parts decoded before the error to be deleted.");
+	}
+
+	@Test
+	void testXmlPartIsCompressed() throws Exception {
+		byte[] xmlBytes = xmlOfLength(512);
+		FormDataMultiPart formData = new FormDataMultiPart();
+		formData.field("Xml", xmlBytes, MediaType.APPLICATION_XML_TYPE);
+
+		Response response = ClientBuilder.newClient()
+				 .register(MultiPartFeature.class)
+				 .target(uri)
+				 .path(COMPRESS_PLUGIN_PATH)
+				 .request()
+				 .post(Entity.entity(formData, formData.getMediaType()));
+
+		assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+		FormDataMultiPart responseData = response.readEntity(FormDataMultiPart.class);
+		assertEquals("CompressedDataSource", responseData.getField("Type").getValue());
+		assertArrayEquals(xmlBytes, responseData.getField("Xml").getEntityAs(byte[].class));
+	}
+
+	@Test
+	void testXmlBodyIsCompressed() throws Exception {
+		byte[] xmlBytes = xmlOfLength(512);
+
+		Response response = ClientBuilder.newClient()
+				 .register(MultiPartFeature.class)
+				 .target(uri)
+				 .path(COMPRESS_PLUGIN_PATH)
+				 .request()
+				 .post(Entity.entity(xmlBytes, MediaType.APPLICATION_XML_TYPE));
+
+		assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+		FormDataMultiPart responseData = response.readEntity(FormDataMultiPart.class);
+		assertEquals("CompressedDataSource", responseData.getField("Type").getValue());
+		assertArrayEquals(xmlBytes, responseData.getField("Xml").getEntityAs(byte[].class));
+	}
+
+	private static byte[] xmlOfLength(int length) {
+		String elements = Stream.generate(()->"<e>Value</e>").limit((length - 13) / 12).collect(Collectors.joining());
+		return ("<root>" + elements + "</root>").getBytes(StandardCharsets.UTF_8);
+	}
+
+	// The temporary files are deleted after the response has been written, which may be just after the client has read it.
+	private static void assertTempFilesDeleted(long tempFilesBefore) throws Exception {
+		for (int i = 0; i < 100 && countTempFiles() != tempFilesBefore; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(tempFilesBefore, countTempFiles(), "Expected temporary files to be deleted once the request completed.");
+	}
+
+	private static long countTempFiles() throws IOException {
+		try (Stream<Path> files = Files.list(Paths.get(TEMP_DIRECTORY))) {
+			return files.count();
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package com._4point.aem.formsfeeder.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+
+import javax.management.ObjectName;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.glassfish.jersey.media.multipart.FormDataMultiPart;
+import org.glassfish.jersey.media.multipart.MultiPartFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import com._4point.aem.formsfeeder.core.datasource.OffHeapArena;
+
+/**
+ * Tests that off-heap DataSources are released once each request has completed.
+ *
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, classes = Application.class,
+				properties = {"formsfeeder.server.off-heap.enabled=true"})
+class ServicesEndpointOffHeapTest {
+
+	private static final String DEBUG_PLUGIN_PATH = "/api/v1/Debug";
+	private static final String MBEAN_NAME = "com._4point.aem.formsfeeder:type=OffHeapMemory";
+
+	@LocalServerPort
+	private int port;
+
+	private URI uri;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		uri = new URI("http://localhost:" + port);
+	}
+
+	@Test
+	void testBodyIsReleased() throws Exception {
+		long bytesBefore = OffHeapArena.bytesInUse();
+		String expectedBodyText = "This is some text.";
+		Response response = ClientBuilder.newClient()
+				 .target(uri)
+				 .path(DEBUG_PLUGIN_PATH)
+				 .request()
+				 .post(Entity.entity(expectedBodyText, MediaType.TEXT_PLAIN_TYPE));
+
+		assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+		String responseBody = response.readEntity(String.class);
+		assertTrue(responseBody.contains(expectedBodyText), "Expected response body to contain '" + expectedBodyText + "', but was '" + responseBody + "'.");
+		assertReleased(bytesBefore);
+	}
+
+	@Test
+	void testFormDataIsReleased() throws Exception {
+		long bytesBefore = OffHeapArena.bytesInUse();
+		FormDataMultiPart formData = new FormDataMultiPart();
+		formData.field("Field1", "Field1 Value");
+		formData.field("Field2", "<root>Field2 Value</root>", MediaType.APPLICATION_XML_TYPE);
+		Response response = ClientBuilder.newClient()
+				 .register(MultiPartFeature.class)
+				 .target(uri)
+				 .path(DEBUG_PLUGIN_PATH)
+				 .request()
+				 .post(Entity.entity(formData, formData.getMediaType()));
+
+		assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+		response.readEntity(String.class);
+		assertReleased(bytesBefore);
+	}
+
+	@Test
+	void testMBeanIsRegistered() throws Exception {
+		Object bytesInUse = ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName(MBEAN_NAME), "BytesInUse");
+		assertTrue(bytesInUse instanceof Long, "Expected BytesInUse attribute to be a long.");
+	}
+
+	// The arena is released after the response has been written, which may be just after the client has read it.
+	private static void assertReleased(long bytesBefore) throws InterruptedException {
+		for (int i = 0; i < 100 && OffHeapArena.bytesInUse() != bytesBefore; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(bytesBefore, OffHeapArena.bytesInUse(), "Expected off-heap memory to be released once the request completed.");
+	}
+}
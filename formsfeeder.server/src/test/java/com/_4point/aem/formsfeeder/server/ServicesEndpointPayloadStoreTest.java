@@ -0,0 +1,119 @@
+package com._4point.aem.formsfeeder.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.Random;
+
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.glassfish.jersey.media.multipart.FormDataMultiPart;
+import org.glassfish.jersey.media.multipart.MultiPartFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import com._4point.aem.formsfeeder.core.api.FeedConsumer;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList.Deconstructor;
+import com._4point.aem.formsfeeder.core.datasource.PayloadStore;
+import com._4point.aem.formsfeeder.server.pf4j.FeedConsumers;
+
+/**
+ * Tests that, when formsfeeder.server.payload-store.enabled is set, incoming bodies are read through the PayloadStore
+ * (so identical parts share one copy) and that the stored payloads are released once each request has completed.
+ *
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, classes = Application.class,
+				properties = {"formsfeeder.server.payload-store.enabled=true"})
+class ServicesEndpointPayloadStoreTest {
+
+	private static final String STORE_PLUGIN_PATH = "/api/v1/Store";
+	private static final String BODY_DS_NAME = "formsfeeder:BodyBytes";
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private PayloadStore payloadStore;
+
+	@MockBean
+	private FeedConsumers feedConsumers;
+
+	private URI uri;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		uri = new URI("http://localhost:" + port);
+		// Reports how many payloads are stored while it runs and echoes back the first input it knows about.
+		FeedConsumer storePlugin = (inputs)->{
+			Deconstructor deconstructor = inputs.deconstructor();
+			byte[] contents = deconstructor.getByteArrayByName("Copy1").orElseGet(()->deconstructor.getByteArrayByName(BODY_DS_NAME).get());
+			return DataSourceList.builder()
+					.add("StoredPayloads", payloadStore.size())
+					.add("Contents", contents)
+					.build();
+		};
+		when(feedConsumers.consumer("Store")).thenReturn(Optional.of(storePlugin));
+	}
+
+	@Test
+	void testIdenticalPartsAreStoredOnce() throws Exception {
+		int storedBefore = payloadStore.size();
+		byte[] contents = new byte[16 * 1024];
+		new Random(42).nextBytes(contents);
+		FormDataMultiPart formData = new FormDataMultiPart();
+		formData.field("Copy1", contents, MediaType.APPLICATION_OCTET_STREAM_TYPE);
+		formData.field("Copy2", contents, MediaType.APPLICATION_OCTET_STREAM_TYPE);
+
+		Response response = ClientBuilder.newClient()
+				 .register(MultiPartFeature.class)
+				 .target(uri)
+				 .path(STORE_PLUGIN_PATH)
+				 .request()
+				 .post(Entity.entity(formData, formData.getMediaType()));
+
+		assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+		FormDataMultiPart responseData = response.readEntity(FormDataMultiPart.class);
+		assertEquals(storedBefore + 1, Integer.parseInt(responseData.getField("StoredPayloads").getValue()), "Expected identical parts to share one stored payload.");
+		assertArrayEquals(contents, responseData.getField("Contents").getEntityAs(byte[].class));
+		assertPayloadsReleased(storedBefore);
+	}
+
+	@Test
+	void testBodyIsStored() throws Exception {
+		int storedBefore = payloadStore.size();
+		byte[] contents = "This body is read through the payload store.".getBytes();
+
+		Response response = ClientBuilder.newClient()
+				 .register(MultiPartFeature.class)
+				 .target(uri)
+				 .path(STORE_PLUGIN_PATH)
+				 .request()
+				 .post(Entity.entity(contents, MediaType.APPLICATION_OCTET_STREAM_TYPE));
+
+		assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+		FormDataMultiPart responseData = response.readEntity(FormDataMultiPart.class);
+		assertEquals(storedBefore + 1, Integer.parseInt(responseData.getField("StoredPayloads").getValue()));
+		assertArrayEquals(contents, responseData.getField("Contents").getEntityAs(byte[].class));
+		assertPayloadsReleased(storedBefore);
+	}
+
+	// The DataSources are closed after the response has been written, which may be just after the client has read it.
+	private void assertPayloadsReleased(int storedBefore) throws Exception {
+		for (int i = 0; i < 100 && payloadStore.size() != storedBefore; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(storedBefore, payloadStore.size(), "Expected stored payloads to be released once the request completed.");
+	}
+}
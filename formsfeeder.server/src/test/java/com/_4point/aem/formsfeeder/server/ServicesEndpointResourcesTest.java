@@ -0,0 +1,83 @@
+package com._4point.aem.formsfeeder.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.web.server.LocalServerPort;
+
+/**
+ * Tests that the resources behind a request's DataSources (in this case spool files) are released once the request
+ * has completed rather than when the DataSources are garbage collected.
+ *
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, classes = Application.class,
+				properties = {"formsfeeder.server.payload-store.enabled=true", 
+							  "formsfeeder.server.payload-store.spool-threshold=16",
+							  "formsfeeder.server.payload-store.spool-directory=" + ServicesEndpointResourcesTest.SPOOL_DIRECTORY})
+class ServicesEndpointResourcesTest {
+
+	/* package */ static final String SPOOL_DIRECTORY = "target/request-resources-spool";
+	private static final String DEBUG_PLUGIN_PATH = "/api/v1/Debug";
+
+	@LocalServerPort
+	private int port;
+
+	private URI uri;
+
+	@BeforeAll
+	static void setUpSpoolDirectory() throws IOException {
+		Files.createDirectories(Paths.get(SPOOL_DIRECTORY));
+	}
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		uri = new URI("http://localhost:" + port);
+	}
+
+	@Test
+	void testSpoolFileIsDeleted() throws Exception {
+		long spoolFilesBefore = countSpoolFiles();
+		String expectedBodyText = "This body is larger than the spool threshold, so it is spooled to disk.";
+		Response response = ClientBuilder.newClient()
+				 .target(uri)
+				 .path(DEBUG_PLUGIN_PATH)
+				 .request()
+				 .post(Entity.entity(expectedBodyText, MediaType.TEXT_PLAIN_TYPE));
+
+		assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+		String responseBody = response.readEntity(String.class);
+		assertTrue(responseBody.contains(expectedBodyText), "Expected response body to contain '" + expectedBodyText + "', but was '" + responseBody + "'.");
+		assertSpoolFilesDeleted(spoolFilesBefore);
+	}
+
+	// The DataSources are closed after the response has been written, which may be just after the client has read it.
+	private static void assertSpoolFilesDeleted(long spoolFilesBefore) throws Exception {
+		for (int i = 0; i < 100 && countSpoolFiles() != spoolFilesBefore; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(spoolFilesBefore, countSpoolFiles(), "Expected spool files to be deleted once the request completed.");
+	}
+
+	private static long countSpoolFiles() throws IOException {
+		try (Stream<Path> files = Files.list(Paths.get(SPOOL_DIRECTORY))) {
+			return files.count();
+		}
+	}
+}
@@ -9,6 +9,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
@@ -52,6 +53,11 @@ import org.springframework.core.env.Environment;
 import org.springframework.core.env.MapPropertySource;
 import org.springframework.core.env.MutablePropertySources;
 
+import com._4point.aem.formsfeeder.core.codec.DataSourceListCodec;
+import com._4point.aem.formsfeeder.core.codec.DataSourceListDecoder;
+import com._4point.aem.formsfeeder.core.codec.DataSourceListEncoder;
+import com._4point.aem.formsfeeder.core.datasource.DataSource;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
 import com._4point.aem.formsfeeder.server.support.CorrelationId;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.github.tomakehurst.wiremock.WireMockServer;
@@ -351,6 +357,7 @@ class ServicesEndpointTest implements EnvironmentAware {
 		assertNotNull(response.getHeaderString(CorrelationId.CORRELATION_ID_HDR));
 		String responseBody = getResponseBody(response);
 		assertTrue(responseBody.contains(expectedBodyText), "Expected response body to contain '" + expectedBodyText + "', but was '" + responseBody + "'.");
+		assertEquals(Integer.toString(responseBody.getBytes(StandardCharsets.UTF_8).length), response.getHeaderString(HttpHeaders.CONTENT_LENGTH), "Expected Content-Length to be set for text response.");
 	}
 
 	@Test
@@ -568,6 +575,66 @@ class ServicesEndpointTest implements EnvironmentAware {
 		assertEquals(3, returnsCount);
 	}
 
+	@Test
+	void testInvokePostDataSourceListBody() throws Exception {
+		String bodyParamString = "BodyParam";
+		String bodyValueString = "Value";
+		DataSourceList.Builder builder = DataSourceList.builder();
+		for (int i = 1; i <= 3; i++) {
+			builder.add(bodyParamString + i, bodyParamString + i + " " + bodyValueString);
+		}
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		DataSourceListEncoder.encode(builder.build(), body);
+
+		Response response = ClientBuilder.newClient()
+				 .target(uri)
+				 .path(DEBUG_PLUGIN_PATH)
+				 .request()
+				 .accept(DataSourceListCodec.CONTENT_TYPE_STR)
+				 .post(Entity.entity(body.toByteArray(), DataSourceListCodec.CONTENT_TYPE_STR));
+
+		assertEquals(Response.Status.OK.getStatusCode(), response.getStatus(), ()->"Unexpected response status returned from URL (" + DEBUG_PLUGIN_PATH + ")." + getResponseBody(response));
+		assertTrue(MediaType.valueOf(DataSourceListCodec.CONTENT_TYPE_STR).isCompatible(response.getMediaType()), "Expected response media type (" + response.getMediaType().toString() + ") to be compatible with '" + DataSourceListCodec.CONTENT_TYPE_STR + "'.");
+		assertNotNull(response.getHeaderString(CorrelationId.CORRELATION_ID_HDR));
+
+		DataSourceList result = DataSourceListDecoder.decode(response.readEntity(InputStream.class));
+		assertEquals(3, result.list().size());
+		for (DataSource ds : result.list()) {
+			assertTrue(MediaType.TEXT_PLAIN_TYPE.isCompatible(MediaType.valueOf(ds.contentType().asString())), "Expected response media type (" + ds.contentType().asString() + ") to be compatible with 'text/plain'.");
+			String value = DataSourceList.Deconstructor.dsToString(ds);
+			assertTrue(value.contains(bodyParamString), "Expected response body to contain '" + bodyParamString + "', but was '" + value + "'.");
+			assertTrue(value.contains(bodyValueString), "Expected response body to contain '" + bodyValueString + "', but was '" + value + "'.");
+		}
+	}
+
+	@Test
+	void testInvokePostDataSourceListBody_Malformed() {
+		Response response = ClientBuilder.newClient()
+				 .target(uri)
+				 .path(DEBUG_PLUGIN_PATH)
+				 .request()
+				 .post(Entity.entity("Not a DataSourceList".getBytes(), DataSourceListCodec.CONTENT_TYPE_STR));
+
+		assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus(), ()->"Unexpected response status returned from URL (" + DEBUG_PLUGIN_PATH + ")." + getResponseBody(response));
+		assertNotNull(response.getHeaderString(CorrelationId.CORRELATION_ID_HDR));
+		String responseBody = getResponseBody(response);
+		assertTrue(responseBody.contains(DataSourceListCodec.CONTENT_TYPE_STR), "Expected response body to mention the media type, but was '" + responseBody + "'.");
+	}
+
+	@Test
+	void testInvokePostMultipartFormDataBody_Malformed() {
+		Response response = ClientBuilder.newClient()
+				 .target(uri)
+				 .path(DEBUG_PLUGIN_PATH)
+				 .request()
+				 .post(Entity.entity("--TestBoundary\r\nContent-Type: text/plain\r\n\r\nNo Content-Disposition and no closing boundary", MediaType.MULTIPART_FORM_DATA + ";boundary=TestBoundary"));
+
+		assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus(), ()->"Unexpected response status returned from URL (" + DEBUG_PLUGIN_PATH + ")." + getResponseBody(response));
+		assertNotNull(response.getHeaderString(CorrelationId.CORRELATION_ID_HDR));
+		String responseBody = getResponseBody(response);
+		assertTrue(responseBody.contains(MediaType.MULTIPART_FORM_DATA), "Expected response body to mention the media type, but was '" + responseBody + "'.");
+	}
+
 	@Test
 	void testInvokePostManyQueryParamsOneFormParam() {
 		String expectedBodyParamName = "BodyParam1";
@@ -814,6 +881,7 @@ class ServicesEndpointTest implements EnvironmentAware {
 		assertNotNull(contentDisposition.getFileName());
 		assertEquals(SAMPLE_PDF.getFileName().toString(), contentDisposition.getFileName());
 		assertEquals("attachment", contentDisposition.getType());
+		assertEquals(Long.toString(Files.size(SAMPLE_PDF)), response.getHeaderString(HttpHeaders.CONTENT_LENGTH), "Expected Content-Length to be set for file response.");
 		assertTrue(response.hasEntity(), "Expected response to have entity");
 		PDDocument pdf = PDDocument.load((InputStream)response.getEntity());
 		PDDocumentCatalog catalog = pdf.getDocumentCatalog();
@@ -993,6 +1061,19 @@ class ServicesEndpointTest implements EnvironmentAware {
 		assertNotNull(response.getHeaderString(CorrelationId.CORRELATION_ID_HDR));
 	}
 
+	@ParameterizedTest
+	@ValueSource(strings = {"/", "/SubPath", "/SubPath/"})
+	void testInvokeGetNoParams_PathBelowPlugin(String subPath) {
+		Response response = ClientBuilder.newClient()
+				 .target(uri)
+				 .path(DEBUG_PLUGIN_PATH + subPath)
+				 .request()
+				 .get();
+		
+		assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus(), ()->"Unexpected response status returned from URL (" + DEBUG_PLUGIN_PATH + subPath + ")." + getResponseBody(response));
+		assertNotNull(response.getHeaderString(CorrelationId.CORRELATION_ID_HDR));
+	}
+
 	private enum PdfScenario {
 		INTERACTIVE(true), NON_INTERACTIVE(false);
 		
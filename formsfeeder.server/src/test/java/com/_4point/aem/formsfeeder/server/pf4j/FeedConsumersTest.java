@@ -3,13 +3,20 @@ package com._4point.aem.formsfeeder.server.pf4j;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.core.env.Environment;
 
 import com._4point.aem.formsfeeder.core.api.NamedFeedConsumer;
 import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
 import com._4point.aem.formsfeeder.pf4j.SpringPluginManager;
+import com._4point.aem.formsfeeder.pf4j.spring.EnvironmentConsumer;
 
 class FeedConsumersTest {
 	
@@ -34,6 +41,60 @@ class FeedConsumersTest {
 		assertEquals(1, mockSpringPluginManager.timesCalled());
 	}
 
+	@Test
+	void testConcurrentFirstRequests() throws Exception {
+		// Several requests arriving at once should still only initialize the extensions once
+		final int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				results.add(executor.submit(()->{ start.await(); return underTest.consumer("Mock").isPresent(); }));
+			}
+			start.countDown();
+			for (Future<Boolean> result : results) {
+				assertTrue(result.get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1, mockSpringPluginManager.timesCalled());
+	}
+
+	@Test
+	void testPrefixRoute() {
+		assertTrue(underTest.consumer("Mock/Extra").isPresent());
+		assertTrue(underTest.consumer("MockExtra").isEmpty());
+	}
+
+	@Test
+	void testRefresh() {
+		assertTrue(underTest.consumer("Mock").isPresent());
+		mockSpringPluginManager.name = "NewMock";
+		underTest.refresh();
+		assertTrue(underTest.consumer("Mock").isEmpty());
+		assertTrue(underTest.consumer("NewMock").isPresent());
+		assertEquals(2, mockSpringPluginManager.timesCalled());
+	}
+
+	@Test
+	void testRefreshDoesNotInitializeLiveExtensions() {
+		MockEnvironmentFeedConsumer live = new MockEnvironmentFeedConsumer("Mock");
+		mockSpringPluginManager.extension = live;
+		assertTrue(underTest.consumer("Mock").isPresent());
+		underTest.refresh();
+		underTest.refresh();
+		assertEquals(3, mockSpringPluginManager.timesCalled());
+		assertEquals(1, live.timesInitialized, "Expected a live extension to only be initialized once.");
+
+		MockEnvironmentFeedConsumer added = new MockEnvironmentFeedConsumer("Mock");
+		mockSpringPluginManager.extension = added;
+		underTest.refresh();
+		assertEquals(1, live.timesInitialized);
+		assertEquals(1, added.timesInitialized, "Expected a new extension to be initialized.");
+	}
+
 
 	private FeedConsumers constructFeedConsumers() {
 		FeedConsumers feedConsumers = new FeedConsumers();
@@ -49,19 +110,26 @@ class FeedConsumersTest {
 	
 	private static class MockSpringPluginManager extends SpringPluginManager {
 		private int timesCalled = 0;
+		private volatile String name = "Mock";
+		private volatile NamedFeedConsumer extension = null;	// If set, the same instance is returned every time, like pf4j does.
 
 		@Override
-		public <T> List<T> getExtensions(Class<T> type) {
+		public synchronized <T> List<T> getExtensions(Class<T> type) {
 			timesCalled++;
-			return List.of((T)new MockNamedFeedConsumer());
+			return List.of((T)(extension != null ? extension : new MockNamedFeedConsumer(name)));
 		}
 
-		public final int timesCalled() {
+		public final synchronized int timesCalled() {
 			return timesCalled;
 		}
 	}
 	
 	private static class MockNamedFeedConsumer implements NamedFeedConsumer {
+		private final String name;
+
+		private MockNamedFeedConsumer(String name) {
+			this.name = name;
+		}
 
 		@Override
 		public DataSourceList accept(DataSourceList dataSources) throws FeedConsumerException {
@@ -71,8 +139,21 @@ class FeedConsumersTest {
 
 		@Override
 		public String name() {
-			return "Mock";
+			return name;
 		}
 		
 	}
+
+	private static class MockEnvironmentFeedConsumer extends MockNamedFeedConsumer implements EnvironmentConsumer {
+		private int timesInitialized = 0;
+
+		private MockEnvironmentFeedConsumer(String name) {
+			super(name);
+		}
+
+		@Override
+		public void accept(Environment environment) {
+			timesInitialized++;
+		}
+	}
 }
@@ -0,0 +1,97 @@
+package com._4point.aem.formsfeeder.server.pf4j;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com._4point.aem.formsfeeder.core.api.NamedFeedConsumer;
+import com._4point.aem.formsfeeder.core.datasource.DataSourceList;
+
+class PluginRoutesTest {
+
+	private final NamedConsumer debug = new NamedConsumer("Debug");
+	private final NamedConsumer formsV1 = new NamedConsumer("Forms/v1");
+	private final NamedConsumer formsV2 = new NamedConsumer("Forms/v2");
+	private final NamedConsumer formsV10 = new NamedConsumer("Forms/v10");
+	private final NamedConsumer reports = new NamedConsumer("Reports");
+	private final NamedConsumer reportsV1 = new NamedConsumer("Reports/v1");
+	private final NamedConsumer reportsPdf = new NamedConsumer("Reports/Pdf");
+
+	private final PluginRoutes underTest = PluginRoutes.of(List.of(debug, formsV1, formsV2, formsV10, reports, reportsV1, reportsPdf));
+
+	@Test
+	void testExactName() {
+		assertAll(
+				()->assertSame(debug, underTest.route("Debug").get()),
+				()->assertSame(formsV1, underTest.route("Forms/v1").get()),
+				()->assertSame(reports, underTest.route("Reports").get()),
+				()->assertSame(reportsPdf, underTest.route("Reports/Pdf").get()),
+				()->assertTrue(underTest.route("debug").isEmpty(), "Expected names to be case sensitive."),
+				()->assertTrue(underTest.route("NotAPlugin").isEmpty())
+				);
+	}
+
+	@Test
+	void testLatestVersion() {
+		assertAll(
+				()->assertSame(formsV10, underTest.route("Forms").get(), "Expected versions to be compared numerically."),
+				()->assertSame(reports, underTest.route("Reports").get(), "Expected an exact name to take precedence over a version.")
+				);
+	}
+
+	@Test
+	void testLongestPrefix() {
+		assertAll(
+				()->assertSame(debug, underTest.route("Debug/Extra/Path").get()),
+				()->assertSame(formsV2, underTest.route("Forms/v2/Pdf").get()),
+				()->assertSame(formsV10, underTest.route("Forms/Pdf").get()),
+				()->assertSame(reportsPdf, underTest.route("Reports/Pdf/Summary").get()),
+				()->assertSame(reports, underTest.route("Reports/Xml").get()),
+				()->assertTrue(underTest.route("DebugExtra").isEmpty(), "Expected prefixes to end at a '/'."),
+				()->assertTrue(underTest.route("NotAPlugin/Debug").isEmpty())
+				);
+	}
+
+	@Test
+	void testMissingVersion() {
+		assertAll(
+				()->assertTrue(underTest.route("Forms/v3").isEmpty(), "Expected a missing version not to resolve to the latest version."),
+				()->assertTrue(underTest.route("Forms/v3/Pdf").isEmpty(), "Expected a missing version not to resolve to the latest version."),
+				()->assertSame(reports, underTest.route("Reports/v2").get(), "Expected an exact name to be used for any version.")
+				);
+	}
+
+	@Test
+	void testDuplicateAndMissingNames() {
+		NamedConsumer duplicate = new NamedConsumer("Debug");
+		PluginRoutes routes = PluginRoutes.of(Arrays.asList(new NamedConsumer(null), debug, duplicate, new NamedConsumer("")));
+		assertAll(
+				()->assertEquals(1, routes.consumers().size()),
+				()->assertSame(debug, routes.route("Debug").get(), "Expected the first consumer with a name to be used.")
+				);
+	}
+
+	private static class NamedConsumer implements NamedFeedConsumer {
+		private final String name;
+
+		private NamedConsumer(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public DataSourceList accept(DataSourceList dataSources) throws FeedConsumerException {
+			return dataSources;
+		}
+
+		@Override
+		public String name() {
+			return name;
+		}
+	}
+}
@@ -0,0 +1,216 @@
+package com._4point.aem.formsfeeder.server.support;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+class PluginBulkheadTest {
+
+	private final PluginExecutor executor = new PluginExecutor(10, 100, false, 0);
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final AtomicInteger completions = new AtomicInteger();
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		executor.close();
+	}
+
+	@Test
+	void testLimitAndQueue() throws Exception {
+		PluginBulkhead underTest = new PluginBulkhead("Test", 2, 1, null);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(3);
+
+		assertNotNull(underTest.submit(executor, blockingTask(running, maxRunning, done), this::fail, completions::incrementAndGet));
+		assertNotNull(underTest.submit(executor, blockingTask(running, maxRunning, done), this::fail, completions::incrementAndGet));
+		assertNotNull(underTest.submit(executor, blockingTask(running, maxRunning, done), this::fail, completions::incrementAndGet));
+		assertNull(underTest.submit(executor, blockingTask(running, maxRunning, done), this::fail, completions::incrementAndGet), "Expected the fourth invocation to be rejected.");
+		assertAll(
+				()->assertEquals(2, underTest.inFlight()),
+				()->assertEquals(1, underTest.queued())
+				);
+
+		release.countDown();
+		assertTrue(done.await(10, TimeUnit.SECONDS), "Expected the queued invocation to run once a permit was released.");
+		assertTrue(maxRunning.get() <= 2, "Expected no more than two invocations to run at once (" + maxRunning.get() + ").");
+		waitForIdle(underTest);
+	}
+
+	@Test
+	void testCancelQueued() throws Exception {
+		PluginBulkhead underTest = new PluginBulkhead("Test", 1, 1, null);
+		AtomicInteger runs = new AtomicInteger();
+		assertNotNull(underTest.submit(executor, ()->await(release), this::fail, completions::incrementAndGet));
+		PluginBulkhead.Invocation queued = underTest.submit(executor, runs::incrementAndGet, this::fail, completions::incrementAndGet);
+		assertEquals(1, underTest.queued());
+
+		queued.cancel();
+		assertEquals(0, underTest.queued());
+		assertEquals(1, completions.get(), "Expected the cancelled invocation to be complete.");
+		release.countDown();
+		waitForIdle(underTest);
+		assertEquals(0, runs.get(), "Expected the cancelled invocation not to run.");
+		assertEquals(2, completions.get());
+	}
+
+	@Test
+	void testCancelRunning() throws Exception {
+		PluginBulkhead underTest = new PluginBulkhead("Test", 1, 0, null);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		PluginBulkhead.Invocation running = underTest.submit(executor, ()->{
+			started.countDown();
+			try {
+				Thread.sleep(30000);
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+			}
+		}, this::fail, completions::incrementAndGet);
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+
+		running.cancel();
+		assertTrue(interrupted.await(10, TimeUnit.SECONDS), "Expected the running invocation to be interrupted.");
+		waitForIdle(underTest);
+		assertEquals(1, completions.get(), "Expected the invocation to be complete once it stopped running.");
+	}
+
+	@Test
+	void testRejectedByExecutor() throws Exception {
+		PluginBulkhead underTest = new PluginBulkhead("Test", 1, 0, null);
+		executor.close();
+		AtomicInteger rejections = new AtomicInteger();
+		assertNotNull(underTest.submit(executor, ()->{}, (e)->rejections.incrementAndGet(), completions::incrementAndGet));
+		assertAll(
+				()->assertEquals(1, rejections.get()),
+				()->assertEquals(1, completions.get()),
+				()->assertEquals(0, underTest.inFlight(), "Expected the permit to be released.")
+				);
+	}
+
+	@Test
+	void testUnlimited() throws Exception {
+		PluginBulkhead underTest = PluginBulkhead.unlimited("Test");
+		for (int i = 0; i < 20; i++) {
+			assertNotNull(underTest.submit(executor, ()->await(release), this::fail, completions::incrementAndGet));
+		}
+		release.countDown();
+		waitForIdle(underTest);
+	}
+
+	@Test
+	void testAdaptiveLimit() throws Exception {
+		PluginBulkhead underTest = new PluginBulkhead("Test", 4, 0, new AimdLimit(1, 4, 100));
+		CountDownLatch started = new CountDownLatch(1);
+		assertNotNull(underTest.submit(executor, ()->{
+			started.countDown();
+			sleep(300);		// Slower than the target latency
+		}, this::fail, completions::incrementAndGet));
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		waitForIdle(underTest);
+		assertEquals(3, underTest.limit(), "Expected a slow invocation to reduce the limit.");
+	}
+
+	@Test
+	void testAimdLimit() {
+		AimdLimit underTest = new AimdLimit(2, 10, 100);
+		long fast = TimeUnit.MILLISECONDS.toNanos(10);
+		long slow = TimeUnit.MILLISECONDS.toNanos(200);
+		assertAll(
+				()->assertEquals(6, underTest.update(5, 5, fast, false), "Expected the limit to grow when all permits are in use."),
+				()->assertEquals(5, underTest.update(5, 3, fast, false), "Expected the limit to stay the same when permits are free."),
+				()->assertEquals(10, underTest.update(10, 10, fast, false), "Expected the limit not to go above the maximum."),
+				()->assertEquals(9, underTest.update(10, 10, slow, false), "Expected a slow invocation to reduce the limit."),
+				()->assertEquals(9, underTest.update(10, 1, fast, true), "Expected a dropped invocation to reduce the limit."),
+				()->assertEquals(2, underTest.update(2, 2, slow, false), "Expected the limit not to go below the minimum.")
+				);
+	}
+
+	@Test
+	void testInvalidSettings() {
+		assertAll(
+				()->assertThrows(IllegalArgumentException.class, ()->new PluginBulkhead("Test", 0, 1, null)),
+				()->assertThrows(IllegalArgumentException.class, ()->new PluginBulkhead("Test", 1, -1, null)),
+				()->assertThrows(IllegalArgumentException.class, ()->new AimdLimit(0, 10, 100)),
+				()->assertThrows(IllegalArgumentException.class, ()->new AimdLimit(5, 4, 100)),
+				()->assertThrows(IllegalArgumentException.class, ()->new AimdLimit(1, 4, 0))
+				);
+	}
+
+	@Test
+	void testInvalidPluginSettingsAreReplaced() {
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("formsfeeder.plugins.Negative.maxConcurrency", "-1")
+				.withProperty("formsfeeder.plugins.Negative.maxQueued", "-1")
+				.withProperty("formsfeeder.plugins.Adaptive.maxConcurrency", "2")
+				.withProperty("formsfeeder.plugins.Adaptive.adaptive", "true")
+				.withProperty("formsfeeder.plugins.Adaptive.minConcurrency", "5")
+				.withProperty("formsfeeder.plugins.Adaptive.targetLatency", "0");
+		PluginBulkheads underTest = new PluginBulkheads(environment, new PluginBulkheads.Settings(4, 10, false, 1, 1000), 1);
+
+		assertAll(
+				()->assertEquals(4, underTest.forPlugin("Negative").limit(), "Expected the default maxConcurrency to be used."),
+				()->assertEquals(2, underTest.forPlugin("Adaptive").limit(), "Expected minConcurrency to be clamped to maxConcurrency.")
+				);
+	}
+
+	@Test
+	void testInvalidDefaultSettings() {
+		assertAll(
+				()->assertThrows(IllegalArgumentException.class, ()->new PluginBulkheads.Settings(-1, 10, false, 1, 1000)),
+				()->assertThrows(IllegalArgumentException.class, ()->new PluginBulkheads.Settings(4, -1, false, 1, 1000)),
+				()->assertThrows(IllegalArgumentException.class, ()->new PluginBulkheads.Settings(4, 10, true, 0, 1000)),
+				()->assertThrows(IllegalArgumentException.class, ()->new PluginBulkheads.Settings(4, 10, true, 1, 0))
+				);
+	}
+
+	private Runnable blockingTask(AtomicInteger running, AtomicInteger maxRunning, CountDownLatch done) {
+		return ()->{
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			await(release);
+			running.decrementAndGet();
+			done.countDown();
+		};
+	}
+
+	private void fail(Exception e) {
+		throw new IllegalStateException("Unexpected rejection.", e);
+	}
+
+	// Permits are released just after each task completes.
+	private static void waitForIdle(PluginBulkhead bulkhead) throws InterruptedException {
+		for (int i = 0; i < 100 && bulkhead.inFlight() != 0; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(0, bulkhead.inFlight(), "Expected all permits to be released.");
+		assertEquals(0, bulkhead.queued(), "Expected the queue to be empty.");
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(30, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
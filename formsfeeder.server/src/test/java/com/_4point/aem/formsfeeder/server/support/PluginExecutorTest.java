@@ -0,0 +1,52 @@
+package com._4point.aem.formsfeeder.server.support;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class PluginExecutorTest {
+
+	@Test
+	void testQueueIsBounded() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try (PluginExecutor underTest = new PluginExecutor(1, 1, false, 0)) {
+			underTest.submit(()->{
+				started.countDown();
+				await(release);
+			});
+			assertTrue(started.await(10, TimeUnit.SECONDS));
+			Future<?> queued = underTest.submit(()->{});
+			assertThrows(RejectedExecutionException.class, ()->underTest.submit(()->{}), "Expected the executor to reject invocations once the queue is full.");
+
+			release.countDown();
+			queued.get(10, TimeUnit.SECONDS);
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	void testInvalidSettings() {
+		assertAll(
+				()->assertThrows(IllegalArgumentException.class, ()->new PluginExecutor(0, 1, false, 0)),
+				()->assertThrows(IllegalArgumentException.class, ()->new PluginExecutor(1, -1, false, 0)),
+				()->assertThrows(IllegalArgumentException.class, ()->new PluginExecutor(1, 1, false, -1))
+				);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(30, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}